@@ -0,0 +1,51 @@
+package de.fabkreuzer.soaprequestsender.cli;
+
+import de.fabkreuzer.soaprequestsender.jfr.FlightRecording;
+import de.fabkreuzer.soaprequestsender.service.ProjectService;
+import de.fabkreuzer.soaprequestsender.service.api.AutomationServer;
+import de.fabkreuzer.soaprequestsender.service.history.ResponseHistoryStore;
+import de.fabkreuzer.soaprequestsender.service.http.SoapHttpClient;
+import de.fabkreuzer.soaprequestsender.service.limit.EndpointLimiters;
+
+/**
+ * Headless automation: serves the local HTTP API until the process is stopped, so scripts and CI jobs
+ * can list projects, send requests and run batches and load tests without the UI.
+ * The token can also be given in the SOAP_SENDER_API_TOKEN environment variable, which keeps it out of
+ * the process list.
+ *
+ * <pre>
+ * ApiCommand [--port 7412] [--token SECRET]
+ * </pre>
+ */
+public class ApiCommand {
+
+    private static final String TOKEN_VARIABLE = "SOAP_SENDER_API_TOKEN";
+
+    public static void main(String[] args) throws Exception {
+        int port = AutomationServer.DEFAULT_PORT;
+        String token = System.getenv(TOKEN_VARIABLE);
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[i + 1]);
+                case "--token" -> token = args[i + 1];
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (token != null && token.isBlank()) {
+            token = null;
+        }
+        FlightRecording.startIfRequested();
+
+        ResponseHistoryStore historyStore = new ResponseHistoryStore();
+        AutomationServer server = new AutomationServer(new ProjectService(), new SoapHttpClient(),
+            new EndpointLimiters(), historyStore, port, token);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            historyStore.close();
+        }));
+        server.start();
+        System.out.println("Automation API on http://localhost:" + server.getPort() + "/projects"
+            + (token != null ? " (bearer token required)" : ""));
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,83 @@
+package de.fabkreuzer.soaprequestsender.cli;
+
+import de.fabkreuzer.soaprequestsender.jfr.FlightRecording;
+import de.fabkreuzer.soaprequestsender.model.OperationWrapper;
+import de.fabkreuzer.soaprequestsender.model.Project;
+import de.fabkreuzer.soaprequestsender.model.RequestWrapper;
+import de.fabkreuzer.soaprequestsender.service.ProjectService;
+import de.fabkreuzer.soaprequestsender.service.batch.BatchInput;
+import de.fabkreuzer.soaprequestsender.service.batch.BatchSender;
+import de.fabkreuzer.soaprequestsender.service.batch.BatchSummary;
+import de.fabkreuzer.soaprequestsender.service.batch.ExtractionField;
+import de.fabkreuzer.soaprequestsender.service.batch.ExtractionWriter;
+import de.fabkreuzer.soaprequestsender.service.http.SoapHttpClient;
+import de.fabkreuzer.soaprequestsender.service.limit.EndpointLimiters;
+import de.fabkreuzer.soaprequestsender.service.template.RequestTemplate;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command line batch send: sends a saved request once per row of a CSV file, with the columns
+ * available as ${column} in the request, and streams the extracted response values to a CSV or
+ * JSON lines file. Exits with status 1 if any row failed.
+ *
+ * <pre>
+ * BatchCommand --project NAME --request OPERATION/REQUEST --input rows.csv --output out.jsonl
+ *              --field name=//Path [--field ...] [--endpoint URL] [--parallelism 16]
+ * </pre>
+ */
+public class BatchCommand {
+
+    public static void main(String[] args) throws Exception {
+        String projectName = null;
+        String target = null;
+        String endpoint = null;
+        Path input = null;
+        Path output = null;
+        int parallelism = 16;
+        List<ExtractionField> fields = new ArrayList<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--project" -> projectName = args[i + 1];
+                case "--request" -> target = args[i + 1];
+                case "--endpoint" -> endpoint = args[i + 1];
+                case "--input" -> input = Paths.get(args[i + 1]);
+                case "--output" -> output = Paths.get(args[i + 1]);
+                case "--field" -> fields.add(ExtractionField.parse(args[i + 1]));
+                case "--parallelism" -> parallelism = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (projectName == null || target == null || input == null || output == null) {
+            throw new IllegalArgumentException("--project, --request, --input and --output are required");
+        }
+        FlightRecording.startIfRequested();
+
+        Project project = new ProjectService().loadProject(projectName);
+        int slash = target.indexOf('/');
+        OperationWrapper operation = slash > 0 ? project.findOperation(target.substring(0, slash)) : null;
+        RequestWrapper request = operation != null ? operation.findRequest(target.substring(slash + 1)) : null;
+        if (request == null) {
+            throw new IllegalArgumentException("Request not found: " + target);
+        }
+        if (endpoint == null) {
+            endpoint = request.getSelectedEndpoint();
+        }
+        if (endpoint == null || endpoint.isBlank()) {
+            throw new IllegalArgumentException("No endpoint selected for request: " + target);
+        }
+
+        BatchSender sender = new BatchSender(new SoapHttpClient(), new EndpointLimiters(), parallelism);
+        BatchSummary summary;
+        try (BatchInput rows = BatchInput.open(input);
+             ExtractionWriter writer = ExtractionWriter.create(output, fields.stream().map(ExtractionField::name).toList())) {
+            summary = sender.run(RequestTemplate.compile(request), endpoint, operation.getSoapAction(), rows,
+                fields, writer);
+        }
+        System.out.println(summary);
+        System.exit(summary.failed() == 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,66 @@
+package de.fabkreuzer.soaprequestsender.cli;
+
+import de.fabkreuzer.soaprequestsender.jfr.FlightRecording;
+import de.fabkreuzer.soaprequestsender.model.Project;
+import de.fabkreuzer.soaprequestsender.service.ProjectService;
+import de.fabkreuzer.soaprequestsender.service.compare.ComparisonReport;
+import de.fabkreuzer.soaprequestsender.service.compare.EndpointComparator;
+import de.fabkreuzer.soaprequestsender.service.compare.RequestComparison;
+import de.fabkreuzer.soaprequestsender.service.http.SoapHttpClient;
+import de.fabkreuzer.soaprequestsender.service.xml.SimplePath;
+import de.fabkreuzer.soaprequestsender.service.xml.StreamingXmlDiff;
+
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command line endpoint comparison: sends every request of a project that has more than one endpoint
+ * to all of them and compares the responses with the first endpoint. The project's diff ignore paths
+ * apply in addition to the ones given here. Exits with status 1 if any response differs.
+ *
+ * <pre>
+ * CompareCommand --project NAME [--ignore //Timestamp]... [--parallelism 8] [--max-differences 50]
+ * </pre>
+ */
+public class CompareCommand {
+
+    public static void main(String[] args) throws Exception {
+        String projectName = null;
+        int parallelism = 8;
+        int maxDifferences = 50;
+        List<String> ignorePaths = new ArrayList<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--project" -> projectName = args[i + 1];
+                case "--ignore" -> ignorePaths.add(args[i + 1]);
+                case "--parallelism" -> parallelism = Integer.parseInt(args[i + 1]);
+                case "--max-differences" -> maxDifferences = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (projectName == null) {
+            throw new IllegalArgumentException("--project NAME is required");
+        }
+        FlightRecording.startIfRequested();
+
+        Project project = new ProjectService().loadProject(projectName);
+        List<SimplePath> paths = new ArrayList<>();
+        for (String path : project.getDiffIgnorePaths()) {
+            paths.add(SimplePath.compile(path));
+        }
+        for (String path : ignorePaths) {
+            paths.add(SimplePath.compile(path));
+        }
+
+        long start = System.nanoTime();
+        EndpointComparator comparator = new EndpointComparator(new SoapHttpClient(),
+            new StreamingXmlDiff(paths, maxDifferences), parallelism);
+        List<RequestComparison> results = comparator.compareProject(project);
+        Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        ComparisonReport.write(results, System.nanoTime() - start, out);
+        System.exit(results.stream().allMatch(RequestComparison::matches) ? 0 : 1);
+    }
+}
@@ -0,0 +1,159 @@
+package de.fabkreuzer.soaprequestsender.cli;
+
+import de.fabkreuzer.soaprequestsender.jfr.FlightRecording;
+import de.fabkreuzer.soaprequestsender.model.Project;
+import de.fabkreuzer.soaprequestsender.service.ProjectService;
+import de.fabkreuzer.soaprequestsender.service.http.SoapHttpClient;
+import de.fabkreuzer.soaprequestsender.service.load.ArrivalProfile;
+import de.fabkreuzer.soaprequestsender.service.load.LoadCoordinator;
+import de.fabkreuzer.soaprequestsender.service.load.LoadProfile;
+import de.fabkreuzer.soaprequestsender.service.load.LoadProgress;
+import de.fabkreuzer.soaprequestsender.service.load.LoadWorker;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line entry point for distributed load runs. It never touches Swing or soapUI,
+ * so workers start quickly and run on headless machines.
+ * <p>
+ * With --arrival the run is an open workload at the given total rate in requests per second,
+ * split evenly over the workers, and --threads limits the requests in flight per worker.
+ * <p>
+ * Workers have to send the coordinator's --token, which can also be given in the SOAP_SENDER_LOAD_TOKEN
+ * environment variable, and --bind limits the coordinator to one interface, e.g. 127.0.0.1.
+ *
+ * <pre>
+ * coordinator --project NAME [--port 7411] [--bind ADDRESS] [--token SECRET] [--workers 1] [--threads 10]
+ *             [--duration 60] [--ramp-up 0] [--target operation/request]... [--adaptive] [--spawn-local]
+ *             [--arrival constant|ramp|step|poisson --rate 100 [--end-rate 500] [--steps 5]]
+ * worker --coordinator HOST:PORT [--token SECRET]
+ * </pre>
+ */
+public class LoadCommand {
+
+    private static final int DEFAULT_PORT = 7411;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            usage();
+            return;
+        }
+        FlightRecording.startIfRequested();
+        Map<String, String> options = new HashMap<>();
+        List<String> targets = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            String key = arg.substring(2);
+            if (key.equals("adaptive") || key.equals("spawn-local")) {
+                options.put(key, "true");
+            } else if (i + 1 < args.length) {
+                if (key.equals("target")) {
+                    targets.add(args[++i]);
+                } else {
+                    options.put(key, args[++i]);
+                }
+            } else {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+        }
+
+        switch (args[0]) {
+            case "worker" -> runWorker(options);
+            case "coordinator" -> runCoordinator(options, targets);
+            default -> usage();
+        }
+    }
+
+    private static void runWorker(Map<String, String> options) throws Exception {
+        String coordinator = options.get("coordinator");
+        if (coordinator == null) {
+            throw new IllegalArgumentException("--coordinator HOST:PORT is required");
+        }
+        int colon = coordinator.lastIndexOf(':');
+        String host = colon > 0 ? coordinator.substring(0, colon) : coordinator;
+        int port = colon > 0 ? Integer.parseInt(coordinator.substring(colon + 1)) : DEFAULT_PORT;
+        new LoadWorker(new SoapHttpClient()).run(host, port, token(options));
+    }
+
+    private static void runCoordinator(Map<String, String> options, List<String> targets) throws Exception {
+        String projectName = options.get("project");
+        if (projectName == null) {
+            throw new IllegalArgumentException("--project NAME is required");
+        }
+        Project project = new ProjectService().loadProject(projectName);
+        int workers = Integer.parseInt(options.getOrDefault("workers", "1"));
+        LoadProfile profile = new LoadProfile(
+            Integer.parseInt(options.getOrDefault("threads", "10")),
+            Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "60"))),
+            Duration.ofSeconds(Long.parseLong(options.getOrDefault("ramp-up", "0"))),
+            targets,
+            options.containsKey("adaptive"),
+            parseArrivals(options, workers));
+
+        String token = token(options);
+        InetAddress bindAddress = options.containsKey("bind") ? InetAddress.getByName(options.get("bind")) : null;
+        try (LoadCoordinator coordinator = new LoadCoordinator(
+                Integer.parseInt(options.getOrDefault("port", String.valueOf(DEFAULT_PORT))), bindAddress, token)) {
+            System.out.println("Waiting for " + workers + " workers on port " + coordinator.getPort());
+            List<Process> processes = options.containsKey("spawn-local")
+                ? LoadCoordinator.spawnLocalWorkers(workers, LoadCommand.class.getName(), coordinator.getPort(), token)
+                : List.of();
+            try {
+                LoadProgress result = coordinator.run(project, profile, workers, Duration.ofMinutes(5),
+                    System.out::println);
+                System.out.println("Total: " + result);
+                System.out.printf("p90 %.1f ms  p99.9 %.1f ms  mean %.1f ms%n",
+                    result.latency().getPercentile(90) / 1000.0,
+                    result.latency().getPercentile(99.9) / 1000.0,
+                    result.latency().getMean() / 1000.0);
+                if (result.client() != null) {
+                    System.out.println("Client peak: " + result.client());
+                    if (result.saturatedSamples() > 0) {
+                        System.out.printf("Client saturated in %d of %d samples, latencies of those intervals are inflated"
+                            + " by the load generator%n", result.saturatedSamples(), result.clientSamples());
+                    } else {
+                        System.out.println("Client healthy in all " + result.clientSamples() + " samples");
+                    }
+                }
+            } finally {
+                processes.forEach(Process::destroy);
+            }
+        }
+    }
+
+    private static String token(Map<String, String> options) {
+        String token = options.getOrDefault("token", System.getenv(LoadCoordinator.TOKEN_VARIABLE));
+        return token != null && !token.isBlank() ? token : null;
+    }
+
+    private static ArrivalProfile parseArrivals(Map<String, String> options, int workers) {
+        String shape = options.get("arrival");
+        if (shape == null) {
+            return null;
+        }
+        if (!options.containsKey("rate")) {
+            throw new IllegalArgumentException("--rate is required with --arrival");
+        }
+        double rate = Double.parseDouble(options.get("rate")) / workers;
+        double endRate = options.containsKey("end-rate") ? Double.parseDouble(options.get("end-rate")) / workers : rate;
+        return new ArrivalProfile(ArrivalProfile.Shape.parse(shape), rate, endRate,
+            Integer.parseInt(options.getOrDefault("steps", "5")));
+    }
+
+    private static void usage() {
+        System.out.println("Usage:");
+        System.out.println("  coordinator --project NAME [--port " + DEFAULT_PORT + "] [--bind ADDRESS]"
+            + " [--token SECRET] [--workers 1] [--threads 10] [--duration 60] [--ramp-up 0]"
+            + " [--target operation/request]... [--adaptive] [--spawn-local]"
+            + " [--arrival constant|ramp|step|poisson --rate 100 [--end-rate 500] [--steps 5]]");
+        System.out.println("  worker --coordinator HOST:PORT [--token SECRET]");
+    }
+}
@@ -0,0 +1,80 @@
+package de.fabkreuzer.soaprequestsender.cli;
+
+import de.fabkreuzer.soaprequestsender.jfr.FlightRecording;
+import de.fabkreuzer.soaprequestsender.model.Project;
+import de.fabkreuzer.soaprequestsender.service.ProjectService;
+import de.fabkreuzer.soaprequestsender.service.history.ResponseHistoryStore;
+import de.fabkreuzer.soaprequestsender.service.http.SoapHttpClient;
+import de.fabkreuzer.soaprequestsender.service.monitor.MonitorAlertListener;
+import de.fabkreuzer.soaprequestsender.service.monitor.MonitorReport;
+import de.fabkreuzer.soaprequestsender.service.monitor.MonitorStatus;
+import de.fabkreuzer.soaprequestsender.service.monitor.ProbeScheduler;
+
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Headless monitoring: runs the monitors of all monitored requests until the process is stopped.
+ * Alerts and recoveries are printed as they happen, and the state of all monitors at every report interval.
+ *
+ * <pre>
+ * MonitorCommand [--project NAME]... [--report-interval 60]
+ * </pre>
+ */
+public class MonitorCommand {
+
+    public static void main(String[] args) throws Exception {
+        List<String> projectNames = new ArrayList<>();
+        long reportIntervalSeconds = 60;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--project" -> projectNames.add(args[i + 1]);
+                case "--report-interval" -> reportIntervalSeconds = Long.parseLong(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        FlightRecording.startIfRequested();
+
+        ProjectService projectService = new ProjectService();
+        List<Project> projects;
+        if (projectNames.isEmpty()) {
+            projects = projectService.loadAllProjects();
+        } else {
+            projects = new ArrayList<>();
+            for (String name : projectNames) {
+                projects.add(projectService.loadProject(name));
+            }
+        }
+
+        Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        ResponseHistoryStore historyStore = new ResponseHistoryStore();
+        ProbeScheduler scheduler = new ProbeScheduler(new SoapHttpClient(), historyStore);
+        scheduler.addAlertListener(new MonitorAlertListener() {
+            @Override
+            public void onBreach(MonitorStatus status, String reason) {
+                System.out.printf("%tT ALERT     %s: %s%n", System.currentTimeMillis(), status.name(), reason);
+            }
+
+            @Override
+            public void onRecovery(MonitorStatus status) {
+                System.out.printf("%tT RECOVERED %s%n", System.currentTimeMillis(), status.name());
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            scheduler.close();
+            historyStore.close();
+        }));
+
+        if (scheduler.scheduleAll(projects) == 0) {
+            System.err.println("No monitored requests found");
+            System.exit(1);
+        }
+        while (true) {
+            Thread.sleep(reportIntervalSeconds * 1000);
+            MonitorReport.write(scheduler.getStatuses(), out);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package de.fabkreuzer.soaprequestsender.cli;
+
+import de.fabkreuzer.soaprequestsender.jfr.FlightRecording;
+import de.fabkreuzer.soaprequestsender.model.Project;
+import de.fabkreuzer.soaprequestsender.service.ProjectService;
+import de.fabkreuzer.soaprequestsender.service.capture.CaptureImporter;
+import de.fabkreuzer.soaprequestsender.service.capture.CaptureReader;
+import de.fabkreuzer.soaprequestsender.service.capture.CapturedExchange;
+import de.fabkreuzer.soaprequestsender.service.capture.ReplayReport;
+import de.fabkreuzer.soaprequestsender.service.capture.ReplaySummary;
+import de.fabkreuzer.soaprequestsender.service.capture.TrafficReplayer;
+import de.fabkreuzer.soaprequestsender.service.http.SoapHttpClient;
+
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Command line replay of captured traffic from a HAR or JSON lines file. The requests are sent with
+ * their original timing divided by the speed, or as fast as the in-flight limit allows with
+ * {@code --speed max}. With --import the requests are added to a project instead of being sent.
+ * Exits with status 1 if any request failed.
+ *
+ * <pre>
+ * ReplayCommand --capture FILE [--speed 1] [--endpoint-base http://staging:8080] [--max-in-flight 64]
+ * ReplayCommand --capture FILE --import PROJECT
+ * </pre>
+ */
+public class ReplayCommand {
+
+    public static void main(String[] args) throws Exception {
+        Path capture = null;
+        String importProject = null;
+        String endpointBase = null;
+        double speed = 1;
+        int maxInFlight = 64;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--capture" -> capture = Path.of(args[i + 1]);
+                case "--import" -> importProject = args[i + 1];
+                case "--endpoint-base" -> endpointBase = args[i + 1];
+                case "--speed" -> speed = args[i + 1].equalsIgnoreCase("max") ? 0 : Double.parseDouble(args[i + 1]);
+                case "--max-in-flight" -> maxInFlight = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (capture == null) {
+            throw new IllegalArgumentException("--capture FILE is required");
+        }
+        List<CapturedExchange> exchanges = CaptureReader.read(capture);
+
+        if (importProject != null) {
+            ProjectService projectService = new ProjectService();
+            Project project = projectService.loadProject(importProject);
+            CaptureImporter.Result result = CaptureImporter.importInto(project, exchanges);
+            projectService.saveProject(project);
+            System.out.println(result);
+            return;
+        }
+
+        FlightRecording.startIfRequested();
+        ReplaySummary summary = new TrafficReplayer(new SoapHttpClient(), maxInFlight)
+            .replay(exchanges, speed, endpointBase);
+        Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        ReplayReport.write(summary, out);
+        System.exit(summary.errors() == 0 ? 0 : 1);
+    }
+}
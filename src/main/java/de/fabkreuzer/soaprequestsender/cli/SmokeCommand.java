@@ -0,0 +1,53 @@
+package de.fabkreuzer.soaprequestsender.cli;
+
+import de.fabkreuzer.soaprequestsender.jfr.FlightRecording;
+import de.fabkreuzer.soaprequestsender.model.Project;
+import de.fabkreuzer.soaprequestsender.service.ProjectService;
+import de.fabkreuzer.soaprequestsender.service.http.SoapHttpClient;
+import de.fabkreuzer.soaprequestsender.service.smoke.SmokeReport;
+import de.fabkreuzer.soaprequestsender.service.smoke.SmokeResult;
+import de.fabkreuzer.soaprequestsender.service.smoke.SmokeRunner;
+
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command line smoke test: sends the first request of every operation of all saved projects
+ * in parallel, prints a pass/fail table and exits with status 1 if any call failed,
+ * so it can run as a post-deployment check.
+ *
+ * <pre>
+ * SmokeCommand [--parallelism 32] [--per-host 4] [--project NAME]...
+ * </pre>
+ */
+public class SmokeCommand {
+
+    public static void main(String[] args) throws Exception {
+        int parallelism = 32;
+        int perHost = 4;
+        List<String> projectNames = new ArrayList<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--parallelism" -> parallelism = Integer.parseInt(args[i + 1]);
+                case "--per-host" -> perHost = Integer.parseInt(args[i + 1]);
+                case "--project" -> projectNames.add(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        FlightRecording.startIfRequested();
+
+        List<Project> projects = new ProjectService().loadAllProjects();
+        if (!projectNames.isEmpty()) {
+            projects.removeIf(project -> !projectNames.contains(project.getName()));
+        }
+
+        long start = System.nanoTime();
+        List<SmokeResult> results = new SmokeRunner(new SoapHttpClient(), parallelism, perHost).run(projects);
+        Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        SmokeReport.write(results, System.nanoTime() - start, out);
+        System.exit(results.stream().allMatch(SmokeResult::passed) ? 0 : 1);
+    }
+}
@@ -0,0 +1,87 @@
+package de.fabkreuzer.soaprequestsender.cli;
+
+import de.fabkreuzer.soaprequestsender.ui.awt.WsdlSenderUI;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measures the cold start of the application: the time from process start until the main window is shown.
+ * Every run is a fresh JVM started in benchmark mode. If a class-data-sharing archive is given,
+ * the runs are repeated with it so both can be compared.
+ *
+ * <pre>
+ * StartupBenchmark [--runs 5] [--archive target/app-cds.jsa]
+ * </pre>
+ */
+public class StartupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int runs = 5;
+        Path archive = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--runs" -> runs = Integer.parseInt(args[i + 1]);
+                case "--archive" -> archive = Paths.get(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        report("default", measure(runs, List.of()));
+        if (archive != null) {
+            if (!Files.exists(archive)) {
+                throw new IllegalArgumentException("Archive not found: " + archive);
+            }
+            report("AppCDS", measure(runs, List.of("-XX:SharedArchiveFile=" + archive, "-Xshare:auto")));
+        }
+    }
+
+    private static List<Long> measure(int runs, List<String> jvmOptions) throws IOException, InterruptedException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        List<Long> times = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+            List<String> command = new ArrayList<>();
+            command.add(java);
+            command.addAll(jvmOptions);
+            command.add("-D" + WsdlSenderUI.STARTUP_BENCHMARK_PROPERTY + "=true");
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(WsdlSenderUI.class.getName());
+
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            Long time = null;
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int marker = line.indexOf(WsdlSenderUI.STARTUP_MARKER);
+                    if (marker >= 0) {
+                        String value = line.substring(marker + WsdlSenderUI.STARTUP_MARKER.length()).replace(" ms", "");
+                        time = Long.parseLong(value.trim());
+                    }
+                }
+            }
+            process.waitFor();
+            if (time == null) {
+                throw new IOException("Run " + (i + 1) + " exited with " + process.exitValue() + " without reporting its startup time");
+            }
+            times.add(time);
+        }
+        return times;
+    }
+
+    private static void report(String name, List<Long> times) {
+        List<Long> sorted = new ArrayList<>(times);
+        Collections.sort(sorted);
+        System.out.printf("%-8s runs %d  min %d ms  median %d ms  max %d ms%n", name, sorted.size(),
+            sorted.get(0), sorted.get(sorted.size() / 2), sorted.get(sorted.size() - 1));
+    }
+}
@@ -0,0 +1,76 @@
+package de.fabkreuzer.soaprequestsender.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * Starts a continuous flight recording with the bundled settings profile.
+ */
+public final class FlightRecording {
+
+    private static final Logger logger = LogManager.getLogger(FlightRecording.class);
+
+    /** System property naming the file the recording is written to on exit. */
+    public static final String DESTINATION_PROPERTY = "soaprequestsender.jfr";
+    /** The bundled settings profile. */
+    public static final String SETTINGS_RESOURCE = "/jfr/soaprequestsender.jfc";
+
+    private static final Duration MAX_AGE = Duration.ofMinutes(30);
+    private static final long MAX_SIZE = 100L * 1024 * 1024;
+
+    private FlightRecording() {
+    }
+
+    /**
+     * Start a recording if the destination property is set.
+     * Only the last 30 minutes are kept, so the recording can stay on in long sessions.
+     */
+    public static void startIfRequested() {
+        String destination = System.getProperty(DESTINATION_PROPERTY);
+        if (destination == null || destination.isBlank()) {
+            return;
+        }
+        try {
+            Recording recording = new Recording(loadSettings());
+            recording.setName("SOAP Request Sender");
+            recording.setToDisk(true);
+            recording.setMaxAge(MAX_AGE);
+            recording.setMaxSize(MAX_SIZE);
+            recording.setDumpOnExit(true);
+            recording.setDestination(Paths.get(destination));
+            recording.start();
+            logger.info("Flight recording started, written to {} on exit", destination);
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            logger.error("Failed to start flight recording", e);
+        }
+    }
+
+    /**
+     * Load the bundled settings profile.
+     *
+     * @return The settings
+     * @throws IOException If the profile can't be read
+     * @throws ParseException If the profile is invalid
+     */
+    public static Configuration loadSettings() throws IOException, ParseException {
+        try (InputStream in = FlightRecording.class.getResourceAsStream(SETTINGS_RESOURCE)) {
+            if (in == null) {
+                throw new IOException("Missing JFR settings: " + SETTINGS_RESOURCE);
+            }
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                return Configuration.create(reader);
+            }
+        }
+    }
+}
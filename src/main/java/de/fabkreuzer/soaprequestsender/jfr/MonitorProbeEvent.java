@@ -0,0 +1,32 @@
+package de.fabkreuzer.soaprequestsender.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One probe of a scheduled monitor.
+ */
+@Name("de.fabkreuzer.soaprequestsender.MonitorProbe")
+@Label("Monitor Probe")
+@Category({"SOAP Request Sender", "Monitor"})
+@Description("A scheduled probe of a monitored request from dispatch until the response is read")
+public class MonitorProbeEvent extends jdk.jfr.Event {
+
+    @Label("Monitor")
+    @Description("Project, operation and request of the monitor")
+    public String monitor;
+
+    @Label("Status Code")
+    @Description("The HTTP status code, or 0 if no response was received")
+    public int statusCode;
+
+    @Label("Breached")
+    @Description("Whether the probe breached the SLA of the monitor")
+    public boolean breached;
+
+    @Label("Reason")
+    @Description("Why the probe breached the SLA")
+    public String reason;
+}
@@ -0,0 +1,30 @@
+package de.fabkreuzer.soaprequestsender.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A project read from disk.
+ */
+@Name("de.fabkreuzer.soaprequestsender.ProjectLoad")
+@Label("Project Load")
+@Category({"SOAP Request Sender", "Persistence"})
+@Description("A project with all its operations, requests and test suites read from disk")
+public class ProjectLoadEvent extends jdk.jfr.Event {
+
+    @Label("Project")
+    public String project;
+
+    @Label("Operations")
+    public int operationCount;
+
+    @Label("Requests")
+    public int requestCount;
+
+    @Label("Request Bytes")
+    @DataAmount
+    public long requestBytes;
+}
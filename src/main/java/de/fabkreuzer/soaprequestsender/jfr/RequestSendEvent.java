@@ -0,0 +1,37 @@
+package de.fabkreuzer.soaprequestsender.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A SOAP request sent and its response read.
+ */
+@Name("de.fabkreuzer.soaprequestsender.RequestSend")
+@Label("Request Send")
+@Category({"SOAP Request Sender", "HTTP"})
+@Description("A SOAP request from dispatch until the response is fully read")
+public class RequestSendEvent extends jdk.jfr.Event {
+
+    @Label("Endpoint")
+    public String endpoint;
+
+    @Label("Protocol")
+    public String protocol;
+
+    @Label("Status Code")
+    @Description("The HTTP status code, or 0 if no response was received")
+    public int statusCode;
+
+    @Label("Request Bytes")
+    @Description("The request body as sent on the wire")
+    @DataAmount
+    public long requestBytes;
+
+    @Label("Response Bytes")
+    @Description("The response body as read from the wire, before decompression")
+    @DataAmount
+    public long responseBytes;
+}
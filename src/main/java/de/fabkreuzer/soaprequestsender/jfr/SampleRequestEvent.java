@@ -0,0 +1,24 @@
+package de.fabkreuzer.soaprequestsender.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A sample request generated from an operation's schema.
+ */
+@Name("de.fabkreuzer.soaprequestsender.SampleRequest")
+@Label("Sample Request")
+@Category({"SOAP Request Sender", "WSDL"})
+@Description("A sample envelope generated from the schema of an operation")
+public class SampleRequestEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Request Bytes")
+    @DataAmount
+    public long requestBytes;
+}
@@ -0,0 +1,25 @@
+package de.fabkreuzer.soaprequestsender.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A WSDL imported with soapUI.
+ */
+@Name("de.fabkreuzer.soaprequestsender.WsdlImport")
+@Label("WSDL Import")
+@Category({"SOAP Request Sender", "WSDL"})
+@Description("A WSDL and its schemas loaded and parsed, including soapUI initialization on first use")
+public class WsdlImportEvent extends jdk.jfr.Event {
+
+    @Label("WSDL URL")
+    public String wsdlUrl;
+
+    @Label("Interfaces")
+    public int interfaceCount;
+
+    @Label("Operations")
+    public int operationCount;
+}
@@ -0,0 +1,24 @@
+package de.fabkreuzer.soaprequestsender.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One pass of syntax highlighting in an XML editor, usually on the event dispatch thread.
+ */
+@Name("de.fabkreuzer.soaprequestsender.XmlHighlight")
+@Label("XML Highlight")
+@Category({"SOAP Request Sender", "UI"})
+@Description("Syntax highlighting of a whole XML document")
+public class XmlHighlightEvent extends jdk.jfr.Event {
+
+    @Label("Document Length")
+    @Description("The length of the document in characters")
+    public int length;
+
+    @Label("Skipped")
+    @Description("Whether the document was too large to highlight")
+    public boolean skipped;
+}
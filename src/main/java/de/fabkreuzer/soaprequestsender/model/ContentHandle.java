@@ -0,0 +1,24 @@
+package de.fabkreuzer.soaprequestsender.model;
+
+/**
+ * A reference to request content that is stored outside the heap, e.g. in the request file.
+ * The content is read every time it is requested and not kept, so requests that are never
+ * opened or sent cost no heap for their content.
+ */
+public interface ContentHandle {
+
+    /**
+     * Read the content.
+     *
+     * @return The content
+     * @throws java.io.UncheckedIOException If the content can't be read
+     */
+    String load();
+
+    /**
+     * Get the size of the stored content.
+     *
+     * @return The size in bytes
+     */
+    long size();
+}
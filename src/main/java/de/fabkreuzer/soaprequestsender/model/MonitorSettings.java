@@ -0,0 +1,74 @@
+package de.fabkreuzer.soaprequestsender.model;
+
+/**
+ * Runs a request periodically as a synthetic monitor.
+ * A probe breaches its SLA if it fails, gets a non-2xx status or takes longer than the maximum latency.
+ */
+public class MonitorSettings {
+
+    private long intervalSeconds = 60;
+    private long jitterSeconds;
+    private long maxLatencyMillis;
+    private int failureThreshold = 1;
+
+    public MonitorSettings() {
+    }
+
+    public MonitorSettings(long intervalSeconds, long jitterSeconds, long maxLatencyMillis, int failureThreshold) {
+        this.intervalSeconds = intervalSeconds;
+        this.jitterSeconds = jitterSeconds;
+        this.maxLatencyMillis = maxLatencyMillis;
+        this.failureThreshold = failureThreshold;
+    }
+
+    public long getIntervalSeconds() {
+        return intervalSeconds;
+    }
+
+    public void setIntervalSeconds(long intervalSeconds) {
+        this.intervalSeconds = intervalSeconds;
+    }
+
+    /**
+     * Get the maximum random shift of each probe, so probes with the same interval don't fire together.
+     */
+    public long getJitterSeconds() {
+        return jitterSeconds;
+    }
+
+    public void setJitterSeconds(long jitterSeconds) {
+        this.jitterSeconds = jitterSeconds;
+    }
+
+    /**
+     * Get the latency SLA.
+     *
+     * @return The maximum latency in milliseconds, or 0 if only failures breach the SLA
+     */
+    public long getMaxLatencyMillis() {
+        return maxLatencyMillis;
+    }
+
+    public void setMaxLatencyMillis(long maxLatencyMillis) {
+        this.maxLatencyMillis = maxLatencyMillis;
+    }
+
+    /**
+     * Get the number of consecutive breaches that raise an alert, so a single slow probe can be tolerated.
+     */
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public void setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    @Override
+    public String toString() {
+        return "every " + intervalSeconds + " s"
+            + (jitterSeconds > 0 ? " +/- " + jitterSeconds + " s" : "")
+            + (maxLatencyMillis > 0 ? ", SLA " + maxLatencyMillis + " ms" : "")
+            + (failureThreshold > 1 ? ", alert after " + failureThreshold + " breaches" : "");
+    }
+}
@@ -1,5 +1,6 @@
 package de.fabkreuzer.soaprequestsender.model;
 
+import com.eviware.soapui.impl.wsdl.WsdlOperation;
 import com.eviware.soapui.model.iface.Operation;
 
 import java.util.ArrayList;
@@ -13,6 +14,9 @@ import java.util.List;
 public class OperationWrapper {
 
     private String name;
+    private String interfaceName;
+    private String schemaHash;
+    private String soapAction;
     private Operation operation;
     private List<RequestWrapper> requests = new ArrayList<>();
 
@@ -20,8 +24,14 @@ public class OperationWrapper {
     }
 
     public OperationWrapper(Operation operation) {
+        this(operation, operation.getName());
+    }
+
+    public OperationWrapper(Operation operation, String name) {
         this.operation = operation;
-        this.name = operation.getName();
+        this.name = name;
+        this.interfaceName = operation.getInterface() != null ? operation.getInterface().getName() : null;
+        this.soapAction = actionOf(operation);
     }
 
     public String getName() {
@@ -32,6 +42,64 @@ public class OperationWrapper {
         this.name = name;
     }
 
+    /**
+     * Get the name of the operation in the WSDL.
+     * It differs from the name when a later interface defines an operation of the same name,
+     * see {@link Project#setOperations(List)}.
+     *
+     * @return The operation name without the interface suffix
+     */
+    public String getOperationName() {
+        if (operation != null) {
+            return operation.getName();
+        }
+        String suffix = " (" + interfaceName + ")";
+        if (interfaceName != null && name.endsWith(suffix)) {
+            return name.substring(0, name.length() - suffix.length());
+        }
+        return name;
+    }
+
+    /**
+     * Get the name of the WSDL interface (binding) the operation belongs to.
+     *
+     * @return The interface name, or null for operations saved before interfaces were recorded
+     */
+    public String getInterfaceName() {
+        return interfaceName;
+    }
+
+    public void setInterfaceName(String interfaceName) {
+        this.interfaceName = interfaceName;
+    }
+
+    /**
+     * Get the hash of the operation's request schema, used to detect changes when the WSDL is refreshed.
+     *
+     * @return The hash, or null if it wasn't computed yet
+     */
+    public String getSchemaHash() {
+        return schemaHash;
+    }
+
+    public void setSchemaHash(String schemaHash) {
+        this.schemaHash = schemaHash;
+    }
+
+    /**
+     * Get the SOAPAction of the operation from the WSDL binding. It is sent with every request of the
+     * operation, services that dispatch on it reject requests without it.
+     *
+     * @return The action, or null if the binding defines none
+     */
+    public String getSoapAction() {
+        return soapAction;
+    }
+
+    public void setSoapAction(String soapAction) {
+        this.soapAction = soapAction;
+    }
+
     public Operation getOperation() {
         return operation;
     }
@@ -39,7 +107,16 @@ public class OperationWrapper {
     public void setOperation(Operation operation) {
         this.operation = operation;
         if (operation != null) {
-            this.name = operation.getName();
+            // Keep a qualified name, operation names are only unique within their interface
+            if (this.name == null) {
+                this.name = operation.getName();
+            }
+            if (operation.getInterface() != null) {
+                this.interfaceName = operation.getInterface().getName();
+            }
+            if (operation instanceof WsdlOperation) {
+                this.soapAction = actionOf(operation);
+            }
         }
     }
 
@@ -55,8 +132,31 @@ public class OperationWrapper {
         this.requests.add(request);
     }
 
+    /**
+     * Find a request by name.
+     *
+     * @param requestName The name of the request
+     * @return The request, or null if the operation has no such request
+     */
+    public RequestWrapper findRequest(String requestName) {
+        for (RequestWrapper request : requests) {
+            if (request.getName().equals(requestName)) {
+                return request;
+            }
+        }
+        return null;
+    }
+
     @Override
     public String toString() {
         return name;
     }
+
+    private static String actionOf(Operation operation) {
+        if (operation instanceof WsdlOperation wsdlOperation) {
+            String action = wsdlOperation.getAction();
+            return action != null && !action.isBlank() ? action : null;
+        }
+        return null;
+    }
 }
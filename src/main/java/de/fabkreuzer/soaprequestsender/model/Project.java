@@ -3,12 +3,18 @@ package de.fabkreuzer.soaprequestsender.model;
 import com.eviware.soapui.model.iface.Operation;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Represents a SOAP project with a name, WSDL URL, and WSDL service information.
- * This class is used for storing project information on disk.
+ * A WSDL can have several interfaces (e.g. a SOAP 1.1 and a SOAP 1.2 binding), the service name
+ * is the first of them. This class is used for storing project information on disk.
  */
 public class Project {
 
@@ -16,6 +22,8 @@ public class Project {
     private String wsdlUrl;
     private String serviceName;
     private List<OperationWrapper> operations = new ArrayList<>();
+    private List<TestSuite> testSuites = new ArrayList<>();
+    private List<String> diffIgnorePaths = new ArrayList<>();
 
     public Project() {
     }
@@ -29,11 +37,7 @@ public class Project {
         this.name = name;
         this.wsdlUrl = wsdlUrl;
         this.serviceName = serviceName;
-
-        // Convert Operation objects to OperationWrapper objects
-        this.operations = operations.stream()
-            .map(OperationWrapper::new)
-            .collect(Collectors.toList());
+        setOperations(operations);
     }
 
     public String getName() {
@@ -64,17 +68,100 @@ public class Project {
         return operations;
     }
 
+    /**
+     * Find an operation by name.
+     *
+     * @param operationName The name of the operation
+     * @return The operation, or null if the project has no such operation
+     */
+    public OperationWrapper findOperation(String operationName) {
+        for (OperationWrapper operation : operations) {
+            if (operation.getName().equals(operationName)) {
+                return operation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the names of all interfaces of the project, the service name first.
+     *
+     * @return The interface names in WSDL order
+     */
+    public List<String> getInterfaceNames() {
+        Set<String> names = new LinkedHashSet<>();
+        if (serviceName != null && !serviceName.isEmpty()) {
+            names.add(serviceName);
+        }
+        for (OperationWrapper operation : operations) {
+            if (operation.getInterfaceName() != null) {
+                names.add(operation.getInterfaceName());
+            }
+        }
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * Get the interface an operation belongs to.
+     * Operations saved before interfaces were recorded belong to the service.
+     *
+     * @param operation The operation
+     * @return The interface name
+     */
+    public String interfaceOf(OperationWrapper operation) {
+        return operation.getInterfaceName() != null ? operation.getInterfaceName() : serviceName;
+    }
+
+    /**
+     * Get the operations of one interface.
+     *
+     * @param interfaceName The interface name
+     * @return The operations in project order
+     */
+    public List<OperationWrapper> getOperations(String interfaceName) {
+        List<OperationWrapper> result = new ArrayList<>();
+        for (OperationWrapper operation : operations) {
+            if (interfaceName.equals(interfaceOf(operation))) {
+                result.add(operation);
+            }
+        }
+        return result;
+    }
+
+    public List<TestSuite> getTestSuites() {
+        return testSuites;
+    }
+
+    public void setTestSuites(List<TestSuite> testSuites) {
+        this.testSuites = testSuites;
+    }
+
+    /**
+     * Get the paths ignored when responses of different endpoints are compared, e.g. timestamps and IDs.
+     *
+     * @return The path expressions
+     */
+    public List<String> getDiffIgnorePaths() {
+        return diffIgnorePaths;
+    }
+
+    public void setDiffIgnorePaths(List<String> diffIgnorePaths) {
+        this.diffIgnorePaths = diffIgnorePaths;
+    }
+
     public void setOperations(List<Operation> operations) {
         // Create a map of operation names to existing OperationWrapper objects
-        java.util.Map<String, OperationWrapper> existingOperations = new java.util.HashMap<>();
+        Map<String, OperationWrapper> existingOperations = new HashMap<>();
         for (OperationWrapper wrapper : this.operations) {
             existingOperations.put(wrapper.getName(), wrapper);
         }
 
         // Create new list of OperationWrapper objects, preserving existing ones
         List<OperationWrapper> newOperations = new ArrayList<>();
+        Set<String> usedNames = new HashSet<>();
         for (Operation operation : operations) {
-            String operationName = operation.getName();
+            String operationName = qualifiedName(operation, usedNames);
+            usedNames.add(operationName);
             if (existingOperations.containsKey(operationName)) {
                 // Use existing OperationWrapper but update its Operation field
                 OperationWrapper existingWrapper = existingOperations.get(operationName);
@@ -82,13 +169,58 @@ public class Project {
                 newOperations.add(existingWrapper);
             } else {
                 // Create a new OperationWrapper
-                newOperations.add(new OperationWrapper(operation));
+                newOperations.add(new OperationWrapper(operation, operationName));
             }
         }
 
         this.operations = newOperations;
     }
 
+    /**
+     * Attach soapUI operations to the saved operations of the same name.
+     * Unlike {@link #setOperations(List)} this neither adds nor removes operations.
+     *
+     * @param operations The operations of all interfaces, in WSDL order
+     */
+    public void attachOperations(List<Operation> operations) {
+        for (Operation operation : operations) {
+            String interfaceName = operation.getInterface() != null ? operation.getInterface().getName() : serviceName;
+            OperationWrapper wrapper = findOperation(interfaceName, operation.getName());
+            if (wrapper != null && wrapper.getOperation() == null) {
+                wrapper.setOperation(operation);
+            }
+        }
+    }
+
+    /**
+     * Find an operation by interface and WSDL operation name.
+     *
+     * @param interfaceName The name of the interface
+     * @param operationName The name of the operation in the WSDL
+     * @return The operation, or null if the project has no such operation
+     */
+    public OperationWrapper findOperation(String interfaceName, String operationName) {
+        for (OperationWrapper operation : operations) {
+            if (operation.getOperationName().equals(operationName) && Objects.equals(interfaceName, interfaceOf(operation))) {
+                return operation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get a project-unique name for an operation. The first interface keeps the plain operation names,
+     * so projects saved with a single interface still match; a later interface defining the same
+     * operation gets the interface name appended, e.g. "GetQuote (StockQuoteSoap12)".
+     */
+    private static String qualifiedName(Operation operation, Set<String> usedNames) {
+        String name = operation.getName();
+        if (!usedNames.contains(name) || operation.getInterface() == null) {
+            return name;
+        }
+        return name + " (" + operation.getInterface().getName() + ")";
+    }
+
     @Override
     public String toString() {
         return name;
@@ -0,0 +1,43 @@
+package de.fabkreuzer.soaprequestsender.model;
+
+/**
+ * Copies a value from the response of a test step into a suite property.
+ * Later steps reference the property as ${name} in their request content.
+ */
+public class PropertyTransfer {
+
+    private String propertyName;
+    private String path;
+
+    public PropertyTransfer() {
+    }
+
+    public PropertyTransfer(String propertyName, String path) {
+        this.propertyName = propertyName;
+        this.path = path;
+    }
+
+    public String getPropertyName() {
+        return propertyName;
+    }
+
+    public void setPropertyName(String propertyName) {
+        this.propertyName = propertyName;
+    }
+
+    /**
+     * Get the path selecting the value in the response, e.g. //CustomerId or /Envelope/Body/Response/@id.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    @Override
+    public String toString() {
+        return propertyName + " <- " + path;
+    }
+}
@@ -2,6 +2,7 @@ package de.fabkreuzer.soaprequestsender.model;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A wrapper for SOAP request content.
@@ -11,8 +12,11 @@ public class RequestWrapper {
 
     private String name;
     private String content;
+    private ContentHandle contentHandle;
     private List<String> endpoints = new ArrayList<>();
     private String selectedEndpoint;
+    private MonitorSettings monitor;
+    private final AtomicLong sequence = new AtomicLong();
 
     public RequestWrapper() {
     }
@@ -39,12 +43,50 @@ public class RequestWrapper {
         this.name = name;
     }
 
+    /**
+     * Get the content, reading it through the content handle if it hasn't been loaded.
+     * Content read through the handle isn't kept, so callers that need it repeatedly should hold on to it.
+     *
+     * @return The content
+     */
     public String getContent() {
+        if (content == null && contentHandle != null) {
+            return contentHandle.load();
+        }
         return content;
     }
 
+    /**
+     * Set the content, which is kept on the heap from now on.
+     *
+     * @param content The content
+     */
     public void setContent(String content) {
         this.content = content;
+        this.contentHandle = null;
+    }
+
+    public ContentHandle getContentHandle() {
+        return contentHandle;
+    }
+
+    /**
+     * Replace the content with a handle to content stored elsewhere.
+     *
+     * @param contentHandle The handle
+     */
+    public void setContentHandle(ContentHandle contentHandle) {
+        this.contentHandle = contentHandle;
+        this.content = null;
+    }
+
+    /**
+     * Check whether the content is held on the heap, e.g. because it was edited.
+     *
+     * @return False if the content is only available through its handle
+     */
+    public boolean isContentLoaded() {
+        return contentHandle == null;
     }
 
     public List<String> getEndpoints() {
@@ -85,6 +127,29 @@ public class RequestWrapper {
         }
     }
 
+    /**
+     * Get the monitor settings.
+     *
+     * @return The settings, or null if the request isn't monitored
+     */
+    public MonitorSettings getMonitor() {
+        return monitor;
+    }
+
+    public void setMonitor(MonitorSettings monitor) {
+        this.monitor = monitor;
+    }
+
+    /**
+     * Get the sequence behind the request's ${#counter}. It lives as long as the request, so every send
+     * gets the next number even though each send compiles the content anew.
+     *
+     * @return The last number handed out
+     */
+    public AtomicLong getSequence() {
+        return sequence;
+    }
+
     @Override
     public String toString() {
         return name;
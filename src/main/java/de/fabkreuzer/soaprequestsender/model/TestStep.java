@@ -0,0 +1,66 @@
+package de.fabkreuzer.soaprequestsender.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A step of a test suite: sends one saved request of the project
+ * and transfers values from its response to the following steps.
+ */
+public class TestStep {
+
+    private String name;
+    private String operationName;
+    private String requestName;
+    private List<PropertyTransfer> transfers = new ArrayList<>();
+
+    public TestStep() {
+    }
+
+    public TestStep(String name, String operationName, String requestName) {
+        this.name = name;
+        this.operationName = operationName;
+        this.requestName = requestName;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getOperationName() {
+        return operationName;
+    }
+
+    public void setOperationName(String operationName) {
+        this.operationName = operationName;
+    }
+
+    public String getRequestName() {
+        return requestName;
+    }
+
+    public void setRequestName(String requestName) {
+        this.requestName = requestName;
+    }
+
+    public List<PropertyTransfer> getTransfers() {
+        return transfers;
+    }
+
+    public void setTransfers(List<PropertyTransfer> transfers) {
+        this.transfers = transfers;
+    }
+
+    public void addTransfer(PropertyTransfer transfer) {
+        this.transfers.add(transfer);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,46 @@
+package de.fabkreuzer.soaprequestsender.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An ordered list of test steps that run one after another and share properties.
+ * Different suites are independent of each other and may run in parallel.
+ */
+public class TestSuite {
+
+    private String name;
+    private List<TestStep> steps = new ArrayList<>();
+
+    public TestSuite() {
+    }
+
+    public TestSuite(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public List<TestStep> getSteps() {
+        return steps;
+    }
+
+    public void setSteps(List<TestStep> steps) {
+        this.steps = steps;
+    }
+
+    public void addStep(TestStep step) {
+        this.steps.add(step);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,29 @@
+package de.fabkreuzer.soaprequestsender.service;
+
+import de.fabkreuzer.soaprequestsender.service.codec.DeflateDictionary;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Request content stored compressed with the dictionary of its project.
+ * The compressed file is read and inflated every time the content is needed.
+ *
+ * @param path The compressed request file
+ * @param size The size of the compressed file when it was loaded
+ * @param dictionary The dictionary of the project
+ */
+record CompressedFileContent(Path path, long size, DeflateDictionary dictionary) implements StoredContent {
+
+    @Override
+    public String load() {
+        try {
+            return new String(dictionary.decode(Files.readAllBytes(path)), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read request content: " + path, e);
+        }
+    }
+}
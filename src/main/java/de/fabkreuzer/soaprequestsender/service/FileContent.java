@@ -0,0 +1,28 @@
+package de.fabkreuzer.soaprequestsender.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Request content that stays in its request file until it is needed.
+ * The file is read with a plain read, which leaves no handle or mapping behind that could keep
+ * a later save from replacing the file.
+ *
+ * @param path The request file
+ * @param size The size of the file when it was loaded
+ */
+record FileContent(Path path, long size) implements StoredContent {
+
+    @Override
+    public String load() {
+        try {
+            // Malformed bytes are replaced instead of failing the load
+            return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read request content: " + path, e);
+        }
+    }
+}
@@ -1,8 +1,17 @@
 package de.fabkreuzer.soaprequestsender.service;
 
+import de.fabkreuzer.soaprequestsender.jfr.ProjectLoadEvent;
+import de.fabkreuzer.soaprequestsender.jfr.ProjectSaveEvent;
+import de.fabkreuzer.soaprequestsender.model.MonitorSettings;
 import de.fabkreuzer.soaprequestsender.model.OperationWrapper;
 import de.fabkreuzer.soaprequestsender.model.Project;
+import de.fabkreuzer.soaprequestsender.model.PropertyTransfer;
 import de.fabkreuzer.soaprequestsender.model.RequestWrapper;
+import de.fabkreuzer.soaprequestsender.model.TestStep;
+import de.fabkreuzer.soaprequestsender.model.TestSuite;
+import de.fabkreuzer.soaprequestsender.service.codec.DeflateDictionary;
+import de.fabkreuzer.soaprequestsender.service.codec.DictionaryTrainer;
+import de.fabkreuzer.soaprequestsender.service.search.RequestIndex;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -10,8 +19,11 @@ import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service for managing SOAP projects on disk.
@@ -22,8 +34,17 @@ public class ProjectService {
     
     private static final String PROJECTS_DIR = "projects";
     private static final String PROJECT_PROPERTIES = "project.properties";
+    private static final String OPERATION_PROPERTIES = "operation.properties";
     private static final String ENDPOINTS_FILE = "endpoints.properties";
     private static final String REQUEST_FILE = "request.xml";
+    private static final String COMPRESSED_REQUEST_FILE = "request.xml.dfz";
+    private static final String TEST_SUITES_FILE = "testsuites.properties";
+
+    private final RequestIndex requestIndex = new RequestIndex();
+    private final boolean compressStorage = DeflateDictionary.isEnabled();
+    private final Map<String, DeflateDictionary> dictionaries = new ConcurrentHashMap<>();
+    // Request count per project at the last training that yielded no dictionary
+    private final Map<String, Integer> untrainedRequestCounts = new ConcurrentHashMap<>();
 
     /**
      * Initialize the projects directory if it doesn't exist.
@@ -46,12 +67,25 @@ public class ProjectService {
      * @throws IOException If an I/O error occurs
      */
     public void saveProject(Project project) throws IOException {
+        ProjectSaveEvent event = new ProjectSaveEvent();
+        event.begin();
+        event.project = project.getName();
+
         // Create project directory if it doesn't exist
         Path projectDir = getProjectDirPath(project.getName());
         if (!Files.exists(projectDir)) {
             Files.createDirectories(projectDir);
         }
 
+        // Compressed storage uses one dictionary per project, trained once enough requests exist
+        DeflateDictionary dictionary = null;
+        if (compressStorage) {
+            dictionary = dictionary(project.getName());
+            if (dictionary == null) {
+                dictionary = trainDictionary(project);
+            }
+        }
+
         // Debug logging
         logger.debug("Saving project: {}", project.getName());
         logger.debug("Operations count: {}", project.getOperations().size());
@@ -67,6 +101,9 @@ public class ProjectService {
         projectProps.setProperty("name", project.getName());
         projectProps.setProperty("wsdlUrl", project.getWsdlUrl());
         projectProps.setProperty("serviceName", project.getServiceName());
+        for (int i = 0; i < project.getDiffIgnorePaths().size(); i++) {
+            projectProps.setProperty("diffIgnorePath." + i, project.getDiffIgnorePaths().get(i));
+        }
 
         Path projectPropsPath = projectDir.resolve(PROJECT_PROPERTIES);
         try (OutputStream out = Files.newOutputStream(projectPropsPath)) {
@@ -75,8 +112,26 @@ public class ProjectService {
 
         // Save operations and requests
         for (OperationWrapper operation : project.getOperations()) {
-            saveOperation(project.getName(), operation);
+            saveOperation(project.getName(), operation, dictionary, event);
         }
+
+        saveTestSuites(projectDir, project.getTestSuites());
+
+        // Keep the search index in line with what is on disk
+        requestIndex.updateProject(project);
+
+        // Saved content is read back from its file when needed again
+        for (OperationWrapper operation : project.getOperations()) {
+            for (RequestWrapper request : operation.getRequests()) {
+                if (request.isContentLoaded()) {
+                    Path requestDir = getRequestDirPath(project.getName(), operation.getName(), request.getName());
+                    request.setContentHandle(storedContent(requestDir, dictionary(project.getName())));
+                }
+            }
+        }
+
+        event.operationCount = project.getOperations().size();
+        event.commit();
     }
 
     /**
@@ -84,18 +139,39 @@ public class ProjectService {
      * 
      * @param projectName The name of the project
      * @param operation The operation to save
+     * @param dictionary The dictionary to compress requests with, or null to store them as plain XML
+     * @param event The event counting the saved requests
      * @throws IOException If an I/O error occurs
      */
-    private void saveOperation(String projectName, OperationWrapper operation) throws IOException {
+    private void saveOperation(String projectName, OperationWrapper operation, DeflateDictionary dictionary,
+                               ProjectSaveEvent event) throws IOException {
         // Create operation directory if it doesn't exist
         Path operationDir = getOperationDirPath(projectName, operation.getName());
         if (!Files.exists(operationDir)) {
             Files.createDirectories(operationDir);
         }
 
+        // Record the interface, operations of several interfaces share the project directory
+        if (operation.getInterfaceName() != null || operation.getSchemaHash() != null
+                || operation.getSoapAction() != null) {
+            Properties operationProps = new Properties();
+            if (operation.getInterfaceName() != null) {
+                operationProps.setProperty("interface", operation.getInterfaceName());
+            }
+            if (operation.getSchemaHash() != null) {
+                operationProps.setProperty("schemaHash", operation.getSchemaHash());
+            }
+            if (operation.getSoapAction() != null) {
+                operationProps.setProperty("soapAction", operation.getSoapAction());
+            }
+            try (OutputStream out = Files.newOutputStream(operationDir.resolve(OPERATION_PROPERTIES))) {
+                operationProps.store(out, "Operation properties");
+            }
+        }
+
         // Save requests
         for (RequestWrapper request : operation.getRequests()) {
-            saveRequest(projectName, operation.getName(), request);
+            saveRequest(projectName, operation.getName(), request, dictionary, event);
         }
     }
 
@@ -105,18 +181,32 @@ public class ProjectService {
      * @param projectName The name of the project
      * @param operationName The name of the operation
      * @param request The request to save
+     * @param dictionary The dictionary to compress the request with, or null to store it as plain XML
+     * @param event The event counting the saved requests
      * @throws IOException If an I/O error occurs
      */
-    private void saveRequest(String projectName, String operationName, RequestWrapper request) throws IOException {
+    private void saveRequest(String projectName, String operationName, RequestWrapper request,
+                             DeflateDictionary dictionary, ProjectSaveEvent event) throws IOException {
         // Create request directory if it doesn't exist
         Path requestDir = getRequestDirPath(projectName, operationName, request.getName());
         if (!Files.exists(requestDir)) {
             Files.createDirectories(requestDir);
         }
 
-        // Save request content
-        Path requestPath = requestDir.resolve(REQUEST_FILE);
-        Files.write(requestPath, request.getContent().getBytes(StandardCharsets.UTF_8));
+        // Save request content, unless it is still the unchanged file it was loaded from
+        Path requestPath = requestDir.resolve(dictionary != null ? COMPRESSED_REQUEST_FILE : REQUEST_FILE);
+        if (request.getContentHandle() instanceof StoredContent stored && stored.path().equals(requestPath)) {
+            event.requestBytes += stored.size();
+        } else {
+            byte[] content = request.getContent().getBytes(StandardCharsets.UTF_8);
+            // Replace the file atomically, a concurrent lazy load never sees it half written
+            Path tempPath = requestPath.resolveSibling(requestPath.getFileName() + ".tmp");
+            Files.write(tempPath, dictionary != null ? dictionary.encode(content) : content);
+            Files.move(tempPath, requestPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(requestDir.resolve(dictionary != null ? REQUEST_FILE : COMPRESSED_REQUEST_FILE));
+            event.requestBytes += content.length;
+        }
+        event.requestCount++;
 
         // Save endpoints
         Properties endpointsProps = new Properties();
@@ -126,6 +216,13 @@ public class ProjectService {
         if (request.getSelectedEndpoint() != null) {
             endpointsProps.setProperty("selectedEndpoint", request.getSelectedEndpoint());
         }
+        MonitorSettings monitor = request.getMonitor();
+        if (monitor != null) {
+            endpointsProps.setProperty("monitor.intervalSeconds", String.valueOf(monitor.getIntervalSeconds()));
+            endpointsProps.setProperty("monitor.jitterSeconds", String.valueOf(monitor.getJitterSeconds()));
+            endpointsProps.setProperty("monitor.maxLatencyMillis", String.valueOf(monitor.getMaxLatencyMillis()));
+            endpointsProps.setProperty("monitor.failureThreshold", String.valueOf(monitor.getFailureThreshold()));
+        }
 
         Path endpointsPath = requestDir.resolve(ENDPOINTS_FILE);
         try (OutputStream out = Files.newOutputStream(endpointsPath)) {
@@ -133,6 +230,96 @@ public class ProjectService {
         }
     }
 
+    /**
+     * Save the test suites of a project.
+     * Suites are stored as flat properties, e.g. suite.0.step.1.transfer.0.path.
+     *
+     * @param projectDir The project directory
+     * @param testSuites The test suites to save
+     * @throws IOException If an I/O error occurs
+     */
+    private void saveTestSuites(Path projectDir, List<TestSuite> testSuites) throws IOException {
+        Path suitesPath = projectDir.resolve(TEST_SUITES_FILE);
+        if (testSuites.isEmpty()) {
+            Files.deleteIfExists(suitesPath);
+            return;
+        }
+
+        Properties suitesProps = new Properties();
+        for (int i = 0; i < testSuites.size(); i++) {
+            TestSuite suite = testSuites.get(i);
+            String suiteKey = "suite." + i;
+            suitesProps.setProperty(suiteKey + ".name", suite.getName());
+            for (int j = 0; j < suite.getSteps().size(); j++) {
+                TestStep step = suite.getSteps().get(j);
+                String stepKey = suiteKey + ".step." + j;
+                suitesProps.setProperty(stepKey + ".name", step.getName());
+                suitesProps.setProperty(stepKey + ".operation", step.getOperationName());
+                suitesProps.setProperty(stepKey + ".request", step.getRequestName());
+                for (int k = 0; k < step.getTransfers().size(); k++) {
+                    PropertyTransfer transfer = step.getTransfers().get(k);
+                    String transferKey = stepKey + ".transfer." + k;
+                    suitesProps.setProperty(transferKey + ".property", transfer.getPropertyName());
+                    suitesProps.setProperty(transferKey + ".path", transfer.getPath());
+                }
+            }
+        }
+
+        try (OutputStream out = Files.newOutputStream(suitesPath)) {
+            suitesProps.store(out, "Test suites");
+        }
+    }
+
+    /**
+     * Load the test suites of a project.
+     *
+     * @param projectDir The project directory
+     * @return The test suites, empty if the project has none
+     * @throws IOException If an I/O error occurs
+     */
+    private List<TestSuite> loadTestSuites(Path projectDir) throws IOException {
+        List<TestSuite> testSuites = new ArrayList<>();
+        Path suitesPath = projectDir.resolve(TEST_SUITES_FILE);
+        if (!Files.exists(suitesPath)) {
+            return testSuites;
+        }
+
+        Properties suitesProps = new Properties();
+        try (InputStream in = Files.newInputStream(suitesPath)) {
+            suitesProps.load(in);
+        }
+
+        for (int i = 0; ; i++) {
+            String suiteKey = "suite." + i;
+            String suiteName = suitesProps.getProperty(suiteKey + ".name");
+            if (suiteName == null) {
+                break;
+            }
+            TestSuite suite = new TestSuite(suiteName);
+            for (int j = 0; ; j++) {
+                String stepKey = suiteKey + ".step." + j;
+                String stepName = suitesProps.getProperty(stepKey + ".name");
+                if (stepName == null) {
+                    break;
+                }
+                TestStep step = new TestStep(stepName,
+                    suitesProps.getProperty(stepKey + ".operation"),
+                    suitesProps.getProperty(stepKey + ".request"));
+                for (int k = 0; ; k++) {
+                    String transferKey = stepKey + ".transfer." + k;
+                    String property = suitesProps.getProperty(transferKey + ".property");
+                    if (property == null) {
+                        break;
+                    }
+                    step.addTransfer(new PropertyTransfer(property, suitesProps.getProperty(transferKey + ".path")));
+                }
+                suite.addStep(step);
+            }
+            testSuites.add(suite);
+        }
+        return testSuites;
+    }
+
     /**
      * Load a project from disk.
      * 
@@ -141,6 +328,10 @@ public class ProjectService {
      * @throws IOException If an I/O error occurs
      */
     public Project loadProject(String projectName) throws IOException {
+        ProjectLoadEvent event = new ProjectLoadEvent();
+        event.begin();
+        event.project = projectName;
+
         Path projectDir = getProjectDirPath(projectName);
         if (!Files.exists(projectDir)) {
             throw new IOException("Project directory does not exist: " + projectDir);
@@ -159,17 +350,29 @@ public class ProjectService {
 
         Project project = new Project(name, wsdlUrl);
         project.setServiceName(serviceName);
+        for (int i = 0; ; i++) {
+            String path = projectProps.getProperty("diffIgnorePath." + i);
+            if (path == null) {
+                break;
+            }
+            project.getDiffIgnorePaths().add(path);
+        }
+
+        project.setTestSuites(loadTestSuites(projectDir));
 
         // Load operations
+        DeflateDictionary dictionary = dictionary(projectName);
         try (DirectoryStream<Path> stream = Files.newDirectoryStream(projectDir, Files::isDirectory)) {
             for (Path operationDir : stream) {
-                OperationWrapper operation = loadOperation(operationDir);
+                OperationWrapper operation = loadOperation(operationDir, dictionary, event);
                 if (operation != null) {
                     project.getOperations().add(operation);
                 }
             }
         }
 
+        event.operationCount = project.getOperations().size();
+        event.commit();
         return project;
     }
 
@@ -177,18 +380,32 @@ public class ProjectService {
      * Load an operation from disk.
      * 
      * @param operationDir The directory containing the operation
+     * @param dictionary The dictionary of the project, or null if it has none
+     * @param event The event counting the loaded requests
      * @return The loaded operation
      * @throws IOException If an I/O error occurs
      */
-    private OperationWrapper loadOperation(Path operationDir) throws IOException {
+    private OperationWrapper loadOperation(Path operationDir, DeflateDictionary dictionary, ProjectLoadEvent event)
+            throws IOException {
         String operationName = operationDir.getFileName().toString();
         OperationWrapper operation = new OperationWrapper();
         operation.setName(operationName);
 
+        Path operationPropsPath = operationDir.resolve(OPERATION_PROPERTIES);
+        if (Files.exists(operationPropsPath)) {
+            Properties operationProps = new Properties();
+            try (InputStream in = Files.newInputStream(operationPropsPath)) {
+                operationProps.load(in);
+            }
+            operation.setInterfaceName(operationProps.getProperty("interface"));
+            operation.setSchemaHash(operationProps.getProperty("schemaHash"));
+            operation.setSoapAction(operationProps.getProperty("soapAction"));
+        }
+
         // Load requests
         try (DirectoryStream<Path> stream = Files.newDirectoryStream(operationDir, Files::isDirectory)) {
             for (Path requestDir : stream) {
-                RequestWrapper request = loadRequest(requestDir);
+                RequestWrapper request = loadRequest(requestDir, dictionary, event);
                 if (request != null) {
                     operation.addRequest(request);
                 }
@@ -202,20 +419,23 @@ public class ProjectService {
      * Load a request from disk.
      * 
      * @param requestDir The directory containing the request
+     * @param dictionary The dictionary of the project, or null if it has none
+     * @param event The event counting the loaded requests
      * @return The loaded request
      * @throws IOException If an I/O error occurs
      */
-    private RequestWrapper loadRequest(Path requestDir) throws IOException {
+    private RequestWrapper loadRequest(Path requestDir, DeflateDictionary dictionary, ProjectLoadEvent event)
+            throws IOException {
         String requestName = requestDir.getFileName().toString();
 
-        // Load request content
-        Path requestPath = requestDir.resolve(REQUEST_FILE);
-        String content = "";
-        if (Files.exists(requestPath)) {
-            content = new String(Files.readAllBytes(requestPath), StandardCharsets.UTF_8);
+        // Reference the request content, it is only read when the request is opened or sent
+        RequestWrapper request = new RequestWrapper(requestName, "");
+        StoredContent content = storedContent(requestDir, dictionary);
+        if (content != null) {
+            request.setContentHandle(content);
+            event.requestBytes += content.size();
         }
-
-        RequestWrapper request = new RequestWrapper(requestName, content);
+        event.requestCount++;
 
         // Load endpoints
         Properties endpointsProps = new Properties();
@@ -244,6 +464,14 @@ public class ProjectService {
             if (selectedEndpoint != null) {
                 request.setSelectedEndpoint(selectedEndpoint);
             }
+
+            String interval = endpointsProps.getProperty("monitor.intervalSeconds");
+            if (interval != null) {
+                request.setMonitor(new MonitorSettings(Long.parseLong(interval),
+                    Long.parseLong(endpointsProps.getProperty("monitor.jitterSeconds", "0")),
+                    Long.parseLong(endpointsProps.getProperty("monitor.maxLatencyMillis", "0")),
+                    Integer.parseInt(endpointsProps.getProperty("monitor.failureThreshold", "1"))));
+            }
         }
 
         return request;
@@ -256,10 +484,26 @@ public class ProjectService {
      * @throws IOException If an I/O error occurs
      */
     public void deleteProject(String projectName) throws IOException {
+        dictionaries.remove(projectName);
         Path projectDir = getProjectDirPath(projectName);
         if (Files.exists(projectDir)) {
             deleteDirectory(projectDir);
         }
+        requestIndex.removeProject(projectName);
+    }
+
+    /**
+     * Delete an operation and its requests from disk.
+     *
+     * @param projectName The name of the project
+     * @param operationName The name of the operation
+     * @throws IOException If an I/O error occurs
+     */
+    public void deleteOperation(String projectName, String operationName) throws IOException {
+        Path operationDir = getOperationDirPath(projectName, operationName);
+        if (Files.exists(operationDir)) {
+            deleteDirectory(operationDir);
+        }
     }
 
     /**
@@ -322,6 +566,26 @@ public class ProjectService {
         return projects;
     }
 
+    /**
+     * Index the saved requests of all projects.
+     * This reads every request file and should be run in the background.
+     *
+     * @throws IOException If the projects directory can't be read
+     */
+    public void rebuildRequestIndex() throws IOException {
+        requestIndex.rebuild(Paths.get(PROJECTS_DIR), requestDir -> storedContent(requestDir,
+            dictionary(requestDir.getParent().getParent().getFileName().toString())));
+    }
+
+    /**
+     * Get the search index over all saved requests.
+     *
+     * @return The request index
+     */
+    public RequestIndex getRequestIndex() {
+        return requestIndex;
+    }
+
     /**
      * Get the directory path for a project.
      * 
@@ -343,6 +607,113 @@ public class ProjectService {
         return getProjectDirPath(projectName).resolve(operationName);
     }
 
+    /**
+     * Get the stored content of a request, compressed or plain.
+     *
+     * @param requestDir The directory containing the request
+     * @param dictionary The dictionary of the project, or null if it has none
+     * @return The content, or null if the request has no content file
+     * @throws IOException If the request is compressed but the project has no dictionary
+     */
+    private StoredContent storedContent(Path requestDir, DeflateDictionary dictionary) throws IOException {
+        Path compressedPath = requestDir.resolve(COMPRESSED_REQUEST_FILE);
+        if (Files.exists(compressedPath)) {
+            if (dictionary == null) {
+                throw new IOException("Compressed request without project dictionary: " + compressedPath);
+            }
+            return new CompressedFileContent(compressedPath, Files.size(compressedPath), dictionary);
+        }
+        Path requestPath = requestDir.resolve(REQUEST_FILE);
+        if (Files.exists(requestPath)) {
+            return new FileContent(requestPath, Files.size(requestPath));
+        }
+        return null;
+    }
+
+    /**
+     * Get the dictionary of a project, loading it on first use.
+     *
+     * @param projectName The name of the project
+     * @return The dictionary, or null if the project has none
+     * @throws IOException If the dictionary can't be read
+     */
+    private DeflateDictionary dictionary(String projectName) throws IOException {
+        DeflateDictionary dictionary = dictionaries.get(projectName);
+        if (dictionary == null) {
+            dictionary = DeflateDictionary.load(getProjectDirPath(projectName).resolve(DeflateDictionary.FILE_NAME));
+            if (dictionary != null) {
+                dictionaries.put(projectName, dictionary);
+            }
+        }
+        return dictionary;
+    }
+
+    /**
+     * Train a dictionary from the requests of a project and save it.
+     * A project that was too small to train is only tried again once it has more requests.
+     *
+     * @param project The project
+     * @return The dictionary, or null if the project has too few requests to train one
+     * @throws IOException If the dictionary can't be saved
+     */
+    private DeflateDictionary trainDictionary(Project project) throws IOException {
+        int requestCount = 0;
+        for (OperationWrapper operation : project.getOperations()) {
+            requestCount += operation.getRequests().size();
+        }
+        Integer untrained = untrainedRequestCounts.get(project.getName());
+        if (requestCount < DictionaryTrainer.MIN_SAMPLES || untrained != null && requestCount <= untrained) {
+            return null;
+        }
+
+        // The trainer only looks at the start of each sample and a bounded total, so only that much is read
+        List<byte[]> samples = new ArrayList<>();
+        long total = 0;
+        for (OperationWrapper operation : project.getOperations()) {
+            for (RequestWrapper request : operation.getRequests()) {
+                if (total >= DictionaryTrainer.MAX_TOTAL_BYTES) {
+                    break;
+                }
+                byte[] sample = sampleOf(request);
+                samples.add(sample);
+                total += sample.length;
+            }
+        }
+        DeflateDictionary dictionary = DeflateDictionary.train(samples);
+        if (dictionary == null) {
+            untrainedRequestCounts.put(project.getName(), requestCount);
+        } else {
+            untrainedRequestCounts.remove(project.getName());
+            dictionary.save(getProjectDirPath(project.getName()).resolve(DeflateDictionary.FILE_NAME));
+            dictionaries.put(project.getName(), dictionary);
+            logger.info("Trained a {} byte dictionary for {} from {} requests", dictionary.size(), project.getName(),
+                samples.size());
+        }
+        return dictionary;
+    }
+
+    /**
+     * Get the start of a request's content for dictionary training.
+     * Content still in its plain request file is read only up to the sample limit.
+     *
+     * @param request The request
+     * @return At most {@link DictionaryTrainer#MAX_SAMPLE_BYTES} bytes of UTF-8 content
+     * @throws IOException If the request file can't be read
+     */
+    private static byte[] sampleOf(RequestWrapper request) throws IOException {
+        if (request.getContentHandle() instanceof FileContent file) {
+            try (InputStream in = Files.newInputStream(file.path())) {
+                return in.readNBytes(DictionaryTrainer.MAX_SAMPLE_BYTES);
+            }
+        }
+        String content = request.getContent();
+        // A char is at least one UTF-8 byte, so this prefix still covers the sample limit
+        byte[] bytes = content.substring(0, Math.min(content.length(), DictionaryTrainer.MAX_SAMPLE_BYTES))
+            .getBytes(StandardCharsets.UTF_8);
+        return bytes.length > DictionaryTrainer.MAX_SAMPLE_BYTES
+            ? Arrays.copyOf(bytes, DictionaryTrainer.MAX_SAMPLE_BYTES) : bytes;
+    }
+
     /**
      * Get the directory path for a request.
      * 
@@ -0,0 +1,18 @@
+package de.fabkreuzer.soaprequestsender.service;
+
+import de.fabkreuzer.soaprequestsender.model.ContentHandle;
+
+import java.nio.file.Path;
+
+/**
+ * Request content that is read from a file of the project directory.
+ */
+interface StoredContent extends ContentHandle {
+
+    /**
+     * Get the file holding the content.
+     *
+     * @return The file
+     */
+    Path path();
+}
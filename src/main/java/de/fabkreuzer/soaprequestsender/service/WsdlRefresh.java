@@ -0,0 +1,279 @@
+package de.fabkreuzer.soaprequestsender.service;
+
+import com.eviware.soapui.model.iface.Operation;
+import de.fabkreuzer.soaprequestsender.model.OperationWrapper;
+import de.fabkreuzer.soaprequestsender.model.Project;
+import de.fabkreuzer.soaprequestsender.model.RequestWrapper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The difference between the operations of a project and a freshly imported WSDL.
+ * Operations are matched by interface and name and compared by the hash of their sample request, which changes
+ * with the request schema. The diff is computed in the background without touching the project,
+ * then applied on the EDT, where only added, removed and changed operations are touched.
+ */
+public class WsdlRefresh {
+
+    /** The name of the request created for new operations. */
+    public static final String DEFAULT_REQUEST = "Default Request";
+
+    private final String serviceName;
+    private final Set<String> interfaceNames = new LinkedHashSet<>();
+    private final List<Imported> added = new ArrayList<>();
+    private final List<Imported> changed = new ArrayList<>();
+    private final List<Imported> unchanged = new ArrayList<>();
+    private final List<String> removed = new ArrayList<>();
+
+    /**
+     * An operation of the new WSDL.
+     *
+     * @param name The project-unique operation name
+     * @param operation The soapUI operation
+     * @param sample The generated sample request
+     * @param schemaHash The hash of the sample request
+     */
+    public record Imported(String name, Operation operation, String sample, String schemaHash) {
+    }
+
+    /**
+     * Receives every change while a refresh is applied, e.g. to update a tree.
+     */
+    public interface Listener {
+
+        /**
+         * Called after an operation was removed from the project.
+         *
+         * @param operation The removed operation
+         * @param interfaceName The interface it belonged to
+         * @param index Its former index among the operations of its interface
+         */
+        default void operationRemoved(OperationWrapper operation, String interfaceName, int index) {
+        }
+
+        /**
+         * Called after an operation was appended to the project.
+         *
+         * @param operation The new operation
+         */
+        default void operationAdded(OperationWrapper operation) {
+        }
+
+        /**
+         * Called after the schema of an operation changed.
+         *
+         * @param operation The changed operation
+         */
+        default void operationChanged(OperationWrapper operation) {
+        }
+    }
+
+    private WsdlRefresh(String serviceName) {
+        this.serviceName = serviceName;
+    }
+
+    /**
+     * Identifies an operation across imports.
+     *
+     * @param interfaceName The name of the interface the operation belongs to
+     * @param operationName The name of the operation in the WSDL
+     */
+    public record OperationKey(String interfaceName, String operationName) {
+    }
+
+    /**
+     * An operation of the project before the refresh.
+     *
+     * @param name The project-unique operation name
+     * @param schemaHash The stored schema hash, or null if unknown
+     */
+    public record Stored(String name, String schemaHash) {
+    }
+
+    /**
+     * Compare imported operations with the stored ones.
+     * Operations are matched by interface and WSDL name, so a stored operation keeps its
+     * project-unique name even if the operation it was disambiguated from is removed.
+     *
+     * @param stored The operations of the project, taken with {@link #snapshot(Project)}
+     * @param serviceName The name of the first interface of the new WSDL
+     * @param operations The imported operations of all interfaces, in WSDL order
+     * @param sampler Generates the sample request of an operation
+     * @return The diff
+     */
+    public static WsdlRefresh compute(Map<OperationKey, Stored> stored, String serviceName,
+                                      List<Operation> operations, Function<Operation, String> sampler) {
+        WsdlRefresh refresh = new WsdlRefresh(serviceName);
+        refresh.interfaceNames.add(serviceName);
+        Map<OperationKey, Stored> remaining = new LinkedHashMap<>(stored);
+        List<Imported> matched = new ArrayList<>();
+        List<Operation> unmatched = new ArrayList<>();
+        for (Operation operation : operations) {
+            String interfaceName = operation.getInterface() != null ? operation.getInterface().getName() : serviceName;
+            refresh.interfaceNames.add(interfaceName);
+            Stored previous = remaining.remove(new OperationKey(interfaceName, operation.getName()));
+            if (previous == null) {
+                unmatched.add(operation);
+                continue;
+            }
+            String sample = Objects.requireNonNullElse(sampler.apply(operation), "");
+            Imported imported = new Imported(previous.name(), operation, sample, hash(sample));
+            // Operations saved before hashes were recorded are taken as unchanged
+            if (previous.schemaHash() == null || previous.schemaHash().equals(imported.schemaHash())) {
+                refresh.unchanged.add(imported);
+            } else {
+                refresh.changed.add(imported);
+            }
+            matched.add(imported);
+        }
+        for (Stored previous : remaining.values()) {
+            refresh.removed.add(previous.name());
+        }
+
+        // New operations get the plain name unless it is taken by a kept or earlier new operation
+        Set<String> usedNames = new HashSet<>();
+        for (Imported imported : matched) {
+            usedNames.add(imported.name());
+        }
+        for (Operation operation : unmatched) {
+            String name = operation.getName();
+            if (usedNames.contains(name) && operation.getInterface() != null) {
+                name = name + " (" + operation.getInterface().getName() + ")";
+            }
+            usedNames.add(name);
+            String sample = Objects.requireNonNullElse(sampler.apply(operation), "");
+            refresh.added.add(new Imported(name, operation, sample, hash(sample)));
+        }
+        return refresh;
+    }
+
+    /**
+     * Take a snapshot of the operations of a project, to compute a refresh in the background.
+     *
+     * @param project The project
+     * @return The name and schema hash of every operation by interface and WSDL name
+     */
+    public static Map<OperationKey, Stored> snapshot(Project project) {
+        Map<OperationKey, Stored> stored = new LinkedHashMap<>();
+        for (OperationWrapper operation : project.getOperations()) {
+            stored.put(new OperationKey(project.interfaceOf(operation), operation.getOperationName()),
+                new Stored(operation.getName(), operation.getSchemaHash()));
+        }
+        return stored;
+    }
+
+    /**
+     * Apply the diff to the project.
+     * A changed operation's default request is replaced with the new sample only if it wasn't edited.
+     *
+     * @param project The project to update
+     * @param wsdlUrl The URL the WSDL was imported from
+     * @param endpoint The endpoint for the default requests of new operations
+     * @param listener Receives every change
+     */
+    public void apply(Project project, String wsdlUrl, String endpoint, Listener listener) {
+        project.setWsdlUrl(wsdlUrl);
+        project.setServiceName(serviceName);
+
+        for (String name : removed) {
+            OperationWrapper operation = project.findOperation(name);
+            if (operation == null) {
+                continue;
+            }
+            String interfaceName = project.interfaceOf(operation);
+            int index = project.getOperations(interfaceName).indexOf(operation);
+            project.getOperations().remove(operation);
+            listener.operationRemoved(operation, interfaceName, index);
+        }
+
+        for (Imported imported : unchanged) {
+            OperationWrapper operation = project.findOperation(imported.name());
+            if (operation != null) {
+                operation.setOperation(imported.operation());
+                operation.setSchemaHash(imported.schemaHash());
+            }
+        }
+
+        for (Imported imported : changed) {
+            OperationWrapper operation = project.findOperation(imported.name());
+            if (operation == null) {
+                continue;
+            }
+            RequestWrapper defaultRequest = operation.findRequest(DEFAULT_REQUEST);
+            if (defaultRequest != null && operation.getSchemaHash().equals(hash(defaultRequest.getContent()))) {
+                defaultRequest.setContent(imported.sample());
+            }
+            operation.setOperation(imported.operation());
+            operation.setSchemaHash(imported.schemaHash());
+            listener.operationChanged(operation);
+        }
+
+        for (Imported imported : added) {
+            OperationWrapper operation = new OperationWrapper(imported.operation(), imported.name());
+            operation.setSchemaHash(imported.schemaHash());
+            operation.addRequest(new RequestWrapper(DEFAULT_REQUEST, imported.sample(), endpoint));
+            project.getOperations().add(operation);
+            listener.operationAdded(operation);
+        }
+    }
+
+    /**
+     * Check whether applying the diff adds or removes interfaces of the project,
+     * in which case the structure of the whole project changes.
+     *
+     * @param project The project before the diff is applied
+     * @return true if the interfaces differ
+     */
+    public boolean changesInterfaces(Project project) {
+        return !new ArrayList<>(interfaceNames).equals(project.getInterfaceNames());
+    }
+
+    public List<Imported> getAdded() {
+        return added;
+    }
+
+    public List<Imported> getChanged() {
+        return changed;
+    }
+
+    public List<String> getRemoved() {
+        return removed;
+    }
+
+    public int getUnchangedCount() {
+        return unchanged.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d added, %d changed, %d removed, %d unchanged",
+            added.size(), changed.size(), removed.size(), unchanged.size());
+    }
+
+    /**
+     * Hash a sample request.
+     *
+     * @param sample The sample request
+     * @return The hex-encoded SHA-256 hash
+     */
+    public static String hash(String sample) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(sample.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
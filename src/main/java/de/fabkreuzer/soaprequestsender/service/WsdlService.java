@@ -6,30 +6,92 @@ import com.eviware.soapui.impl.wsdl.WsdlProject;
 import com.eviware.soapui.impl.wsdl.WsdlRequest;
 import com.eviware.soapui.impl.wsdl.support.wsdl.WsdlImporter;
 import com.eviware.soapui.model.iface.Operation;
+import de.fabkreuzer.soaprequestsender.jfr.SampleRequestEvent;
+import de.fabkreuzer.soaprequestsender.jfr.WsdlImportEvent;
+import de.fabkreuzer.soaprequestsender.service.wsdl.CachingWsdlLoader;
+import de.fabkreuzer.soaprequestsender.service.wsdl.DefinitionCatalog;
+import de.fabkreuzer.soaprequestsender.service.wsdl.SchemaCache;
+import de.fabkreuzer.soaprequestsender.service.wsdl.SchemaPrefetcher;
 
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class WsdlService {
 
-    private WsdlInterface currentWsdl;
+    private static final Duration FETCH_TIMEOUT = Duration.ofSeconds(30);
 
+    private final DefinitionCatalog catalog = DefinitionCatalog.load();
+    private final SchemaPrefetcher prefetcher = new SchemaPrefetcher(
+        HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build(),
+        new SchemaCache(), catalog, FETCH_TIMEOUT);
+
+    private WsdlInterface[] currentWsdls = new WsdlInterface[0];
+
+    /**
+     * Import a WSDL with all its interfaces.
+     * Imported documents are fetched in parallel and cached before soapUI parses the WSDL.
+     *
+     * @param url The URL of the WSDL
+     * @return The operations of all interfaces, in WSDL order
+     */
     public List<Operation> getOperations(String url)  {
+        WsdlImportEvent event = new WsdlImportEvent();
+        event.begin();
+        event.wsdlUrl = url;
         try {
+            Map<String, byte[]> documents = prefetcher.prefetch(url);
             WsdlProject project = new WsdlProject();
-            WsdlInterface[] wsdls = WsdlImporter.importWsdl(project, url);
-            currentWsdl = wsdls[0];
+            WsdlInterface[] wsdls = WsdlImporter.importWsdl(project, url, null,
+                new CachingWsdlLoader(url, documents, catalog));
+            currentWsdls = wsdls;
 
-            return currentWsdl.getOperationList();
+            List<Operation> operations = new ArrayList<>();
+            for (WsdlInterface wsdl : wsdls) {
+                operations.addAll(wsdl.getOperationList());
+            }
+            event.interfaceCount = wsdls.length;
+            event.operationCount = operations.size();
+            return operations;
         } catch (Exception e) {
             throw new RuntimeException(e);
+        } finally {
+            event.commit();
         }
     }
 
+    /**
+     * Get the name of the first interface of the last imported WSDL.
+     *
+     * @return The service name, empty if nothing was imported
+     */
     public String getServiceName() {
-        return currentWsdl != null ? currentWsdl.getName() : "";
+        return currentWsdls.length > 0 ? currentWsdls[0].getName() : "";
+    }
+
+    /**
+     * Get the names of all interfaces of the last imported WSDL.
+     *
+     * @return The interface names in WSDL order
+     */
+    public List<String> getInterfaceNames() {
+        List<String> names = new ArrayList<>();
+        for (WsdlInterface wsdl : currentWsdls) {
+            names.add(wsdl.getName());
+        }
+        return names;
     }
 
     public String generateSampleRequest(Operation operation) {
+        SampleRequestEvent event = new SampleRequestEvent();
+        event.begin();
+        event.operation = operation.getName();
         try {
             if (operation instanceof WsdlOperation) {
                 WsdlOperation wsdlOperation = (WsdlOperation) operation;
@@ -37,6 +99,10 @@ public class WsdlService {
                 // Generate a default request based on the operation's schema
                 String requestContent = wsdlOperation.createRequest(true);
                 request.setRequestContent(requestContent);
+                if (event.shouldCommit()) {
+                    event.requestBytes = requestContent.getBytes(StandardCharsets.UTF_8).length;
+                    event.commit();
+                }
                 return requestContent;
             }
             return "Unable to generate sample request for this operation type.";
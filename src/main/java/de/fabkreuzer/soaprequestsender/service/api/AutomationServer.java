@@ -0,0 +1,721 @@
+package de.fabkreuzer.soaprequestsender.service.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.fabkreuzer.soaprequestsender.model.OperationWrapper;
+import de.fabkreuzer.soaprequestsender.model.Project;
+import de.fabkreuzer.soaprequestsender.model.RequestWrapper;
+import de.fabkreuzer.soaprequestsender.service.ProjectService;
+import de.fabkreuzer.soaprequestsender.service.batch.BatchInput;
+import de.fabkreuzer.soaprequestsender.service.batch.BatchSender;
+import de.fabkreuzer.soaprequestsender.service.batch.BatchSummary;
+import de.fabkreuzer.soaprequestsender.service.batch.ExtractionField;
+import de.fabkreuzer.soaprequestsender.service.history.HistoryEntry;
+import de.fabkreuzer.soaprequestsender.service.history.ResponseHistoryStore;
+import de.fabkreuzer.soaprequestsender.service.http.SoapHttpClient;
+import de.fabkreuzer.soaprequestsender.service.http.SoapResponse;
+import de.fabkreuzer.soaprequestsender.service.limit.EndpointLimiters;
+import de.fabkreuzer.soaprequestsender.service.load.ArrivalProfile;
+import de.fabkreuzer.soaprequestsender.service.load.ClientSample;
+import de.fabkreuzer.soaprequestsender.service.load.ClientTelemetry;
+import de.fabkreuzer.soaprequestsender.service.load.LatencyHistogram;
+import de.fabkreuzer.soaprequestsender.service.load.LoadProfile;
+import de.fabkreuzer.soaprequestsender.service.load.LoadRunner;
+import de.fabkreuzer.soaprequestsender.service.load.LoadSnapshot;
+import de.fabkreuzer.soaprequestsender.service.template.RequestTemplate;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A small HTTP API on the loopback interface to drive the tool from scripts and CI jobs.
+ * <p>
+ * Projects are listed and described with GET, requests are sent, batches and load runs are started
+ * with POST. Batches and load runs stream their results while they run, as JSON lines or as server-sent
+ * events if the client asks for text/event-stream. The engines run on their own threads and hand their
+ * events to the connection through a bounded queue, so slow or stalled clients lose events instead of
+ * slowing down the run, and a client that disconnects cancels its run. Connections are handled by a
+ * fixed pool, and the number of concurrent runs is capped, so many clients can't exhaust the process.
+ * <p>
+ * The server only listens on the loopback interface. Requests whose Host header isn't a loopback name
+ * or that carry an Origin header are refused, so web pages can't reach the API through the browser,
+ * and a bearer token can be required on top.
+ *
+ * <pre>
+ * GET  /projects
+ * GET  /projects/{project}
+ * POST /projects/{project}/operations/{operation}/requests/{request}/send
+ * POST /projects/{project}/operations/{operation}/requests/{request}/batch?field=name=path&amp;parallelism=16
+ *      (CSV with a header line as the body)
+ * POST /projects/{project}/load?threads=10&amp;duration=60&amp;rampUp=0&amp;target=operation/request&amp;adaptive=true
+ *      &amp;arrival=constant|ramp|step|poisson&amp;rate=100&amp;endRate=500&amp;steps=5
+ * </pre>
+ */
+public class AutomationServer implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(AutomationServer.class);
+
+    /** The default port of the API. */
+    public static final int DEFAULT_PORT = 7412;
+
+    private static final int HANDLER_THREADS = 64;
+    // Below the handler threads, so short requests are still served while every run is streaming
+    private static final int MAX_STREAMS = 32;
+    private static final int EVENT_QUEUE_CAPACITY = 8192;
+    // Batch rows are never dropped, a client that stops reading for this long fails the batch
+    private static final long ROW_EVENT_TIMEOUT_SECONDS = 60;
+    private static final int BATCH_PARALLELISM = 16;
+    private static final int MAX_BATCH_PARALLELISM = 256;
+    private static final long PROGRESS_INTERVAL_MILLIS = 1000;
+
+    private final ProjectService projectService;
+    private final SoapHttpClient client;
+    private final EndpointLimiters limiters;
+    private final ResponseHistoryStore historyStore;
+    private final int port;
+    private final String token;
+
+    private final Semaphore streams = new Semaphore(MAX_STREAMS);
+    private final AtomicBoolean loadRunning = new AtomicBoolean();
+    private HttpServer server;
+    private ExecutorService handlerExecutor;
+    private ExecutorService runExecutor;
+
+    /**
+     * An error answered with a status code and a JSON message.
+     */
+    private static class ApiException extends Exception {
+
+        private final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * The engine side of a streaming call, run on its own thread.
+     */
+    @FunctionalInterface
+    private interface StreamedRun {
+
+        /**
+         * Run to completion while publishing events.
+         *
+         * @param events The stream to publish to
+         * @return The final summary event
+         * @throws Exception If the run fails
+         */
+        String run(EventStream events) throws Exception;
+    }
+
+    /**
+     * Creates a server.
+     *
+     * @param projectService The service the projects are loaded with
+     * @param client The client used to send requests
+     * @param limiters The per-backend concurrency limiters
+     * @param historyStore Records single sends like sends from the UI
+     * @param port The port on the loopback interface, 0 for any free port
+     * @param token The bearer token clients have to send, or null to accept any local client
+     */
+    public AutomationServer(ProjectService projectService, SoapHttpClient client, EndpointLimiters limiters,
+                            ResponseHistoryStore historyStore, int port, String token) {
+        this.projectService = projectService;
+        this.client = client;
+        this.limiters = limiters;
+        this.historyStore = historyStore;
+        this.port = port;
+        this.token = token;
+    }
+
+    /**
+     * Start listening.
+     *
+     * @throws IOException If the port can't be bound
+     */
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Automation server already started");
+        }
+        AtomicInteger handlerCount = new AtomicInteger();
+        handlerExecutor = Executors.newFixedThreadPool(HANDLER_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "api-http-" + handlerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger runCount = new AtomicInteger();
+        runExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "api-run-" + runCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 128);
+        server.setExecutor(handlerExecutor);
+        server.createContext("/", this::handle);
+        server.start();
+        logger.info("Automation API listening on http://{}:{}/projects", InetAddress.getLoopbackAddress().getHostAddress(),
+            getPort());
+    }
+
+    /**
+     * Get the port the server listens on.
+     *
+     * @return The port, or -1 if the server isn't running
+     */
+    public synchronized int getPort() {
+        return server != null ? server.getAddress().getPort() : -1;
+    }
+
+    /**
+     * Stop the server and cancel all runs.
+     */
+    @Override
+    public synchronized void close() {
+        if (server == null) {
+            return;
+        }
+        server.stop(0);
+        runExecutor.shutdownNow();
+        handlerExecutor.shutdownNow();
+        server = null;
+        logger.info("Automation API stopped");
+    }
+
+    private void handle(HttpExchange exchange) {
+        try {
+            checkAccess(exchange);
+            route(exchange);
+        } catch (ApiException e) {
+            respondError(exchange, e.status, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            respondError(exchange, 400, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Automation API call failed: {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+            respondError(exchange, 500, e.toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void checkAccess(HttpExchange exchange) throws ApiException {
+        // Browsers send Origin with cross-site requests, and a rebound DNS name still shows up in Host
+        if (exchange.getRequestHeaders().containsKey("Origin")) {
+            throw new ApiException(403, "Cross-origin requests are not allowed");
+        }
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        if (host == null || !isLoopbackHost(host)) {
+            throw new ApiException(403, "Host must be a loopback address");
+        }
+        if (token != null) {
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            byte[] expected = ("Bearer " + token).getBytes(StandardCharsets.UTF_8);
+            if (authorization == null
+                    || !MessageDigest.isEqual(expected, authorization.getBytes(StandardCharsets.UTF_8))) {
+                throw new ApiException(401, "Missing or wrong bearer token");
+            }
+        }
+    }
+
+    private static boolean isLoopbackHost(String host) {
+        String name;
+        if (host.startsWith("[")) {
+            int end = host.indexOf(']');
+            name = end > 0 ? host.substring(0, end + 1) : host;
+        } else {
+            int colon = host.indexOf(':');
+            name = colon >= 0 ? host.substring(0, colon) : host;
+        }
+        return name.equalsIgnoreCase("localhost") || name.equals("127.0.0.1") || name.equals("[::1]");
+    }
+
+    private void route(HttpExchange exchange) throws Exception {
+        List<String> path = new ArrayList<>();
+        for (String segment : exchange.getRequestURI().getRawPath().split("/")) {
+            if (!segment.isEmpty()) {
+                path.add(URLDecoder.decode(segment, StandardCharsets.UTF_8));
+            }
+        }
+        if (path.isEmpty() || !path.get(0).equals("projects")) {
+            throw new ApiException(404, "Not found: " + exchange.getRequestURI().getPath());
+        }
+        Map<String, List<String>> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String method = exchange.getRequestMethod();
+        switch (path.size()) {
+            case 1 -> {
+                requireMethod(method, "GET");
+                respond(exchange, 200, new JsonObject()
+                    .putRaw("projects", JsonObject.array(projectService.getProjectNames())).toString());
+            }
+            case 2 -> {
+                requireMethod(method, "GET");
+                respond(exchange, 200, describe(loadProject(path.get(1))));
+            }
+            case 3 -> {
+                if (!path.get(2).equals("load")) {
+                    throw new ApiException(404, "Not found: " + exchange.getRequestURI().getPath());
+                }
+                requireMethod(method, "POST");
+                load(exchange, loadProject(path.get(1)), query);
+            }
+            case 7 -> {
+                if (!path.get(2).equals("operations") || !path.get(4).equals("requests")) {
+                    throw new ApiException(404, "Not found: " + exchange.getRequestURI().getPath());
+                }
+                requireMethod(method, "POST");
+                Project project = loadProject(path.get(1));
+                OperationWrapper operation = project.findOperation(path.get(3));
+                if (operation == null) {
+                    throw new ApiException(404, "Unknown operation: " + path.get(3));
+                }
+                RequestWrapper request = operation.findRequest(path.get(5));
+                if (request == null) {
+                    throw new ApiException(404, "Unknown request: " + path.get(5));
+                }
+                switch (path.get(6)) {
+                    case "send" -> send(exchange, project, operation, request);
+                    case "batch" -> batch(exchange, operation, request, query);
+                    default -> throw new ApiException(404, "Not found: " + exchange.getRequestURI().getPath());
+                }
+            }
+            default -> throw new ApiException(404, "Not found: " + exchange.getRequestURI().getPath());
+        }
+    }
+
+    private static void requireMethod(String method, String expected) throws ApiException {
+        if (!method.equals(expected)) {
+            throw new ApiException(405, "Use " + expected);
+        }
+    }
+
+    /**
+     * Load a saved project, only names of existing projects are accepted so they can't point outside the projects directory.
+     */
+    private Project loadProject(String name) throws IOException, ApiException {
+        if (!projectService.getProjectNames().contains(name)) {
+            throw new ApiException(404, "Unknown project: " + name);
+        }
+        return projectService.loadProject(name);
+    }
+
+    private static String describe(Project project) {
+        StringJoiner operations = new StringJoiner(",", "[", "]");
+        for (OperationWrapper operation : project.getOperations()) {
+            StringJoiner requests = new StringJoiner(",", "[", "]");
+            for (RequestWrapper request : operation.getRequests()) {
+                requests.add(new JsonObject()
+                    .put("name", request.getName())
+                    .put("endpoint", request.getSelectedEndpoint())
+                    .toString());
+            }
+            operations.add(new JsonObject()
+                .put("name", operation.getName())
+                .putRaw("requests", requests.toString())
+                .toString());
+        }
+        return new JsonObject()
+            .put("name", project.getName())
+            .put("wsdlUrl", project.getWsdlUrl())
+            .putRaw("operations", operations.toString())
+            .toString();
+    }
+
+    /**
+     * Send a request once and answer with the response, recorded in the history like a send from the UI.
+     */
+    private void send(HttpExchange exchange, Project project, OperationWrapper operation, RequestWrapper request)
+            throws Exception {
+        String endpoint = requireEndpoint(request);
+        byte[] body = RequestTemplate.compile(request).render();
+        String content = new String(body, StandardCharsets.UTF_8);
+        long timestamp = System.currentTimeMillis();
+        long start = System.nanoTime();
+        SoapResponse response;
+        try {
+            response = client.send(endpoint, body, operation.getSoapAction());
+        } catch (IOException e) {
+            recordHistory(project, new HistoryEntry(timestamp, operation.getName(), request.getName(), endpoint,
+                0, System.nanoTime() - start, content, e.toString()));
+            throw new ApiException(502, e.toString());
+        }
+        recordHistory(project, new HistoryEntry(timestamp, operation.getName(), request.getName(), endpoint,
+            response.statusCode(), response.latencyNanos(), content, response.body()));
+        respond(exchange, 200, new JsonObject()
+            .put("endpoint", endpoint)
+            .put("status", response.statusCode())
+            .put("protocol", response.protocol())
+            .put("latencyMs", response.latencyNanos() / 1e6)
+            .put("bytes", response.wireBytes())
+            .put("body", response.body())
+            .toString());
+    }
+
+    /**
+     * Send a request for every row of the CSV body and stream one event per row.
+     */
+    private void batch(HttpExchange exchange, OperationWrapper operation, RequestWrapper request,
+                       Map<String, List<String>> query)
+            throws Exception {
+        String endpoint = requireEndpoint(request);
+        List<ExtractionField> fields = new ArrayList<>();
+        for (String definition : query.getOrDefault("field", List.of())) {
+            if (!definition.isBlank()) {
+                fields.add(ExtractionField.parse(definition));
+            }
+        }
+        int parallelism = intParameter(query, "parallelism", BATCH_PARALLELISM);
+        if (parallelism < 1 || parallelism > MAX_BATCH_PARALLELISM) {
+            throw new IllegalArgumentException("parallelism must be between 1 and " + MAX_BATCH_PARALLELISM);
+        }
+        RequestTemplate template = RequestTemplate.compile(request);
+
+        // The rows are read while results are written, so the body is taken off the connection first
+        Path input = Files.createTempFile("api-batch-", ".csv");
+        try (InputStream body = exchange.getRequestBody()) {
+            Files.copy(body, input, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(input);
+            throw e;
+        }
+        BatchSender sender = new BatchSender(client, limiters, parallelism);
+        List<String> names = fields.stream().map(ExtractionField::name).toList();
+        try {
+            stream(exchange, events -> {
+                try (BatchInput rows = BatchInput.open(input)) {
+                    BatchSummary summary = sender.run(template, endpoint, operation.getSoapAction(), rows,
+                        fields, null, (row, status, latency, bytes, error, values) -> events.put("row",
+                            rowEvent(row, status, latency, bytes, error, names, values),
+                            ROW_EVENT_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+                    return new JsonObject()
+                        .put("event", "summary")
+                        .put("rows", summary.rows())
+                        .put("failed", summary.failed())
+                        .put("elapsedMs", summary.elapsedNanos() / 1e6)
+                        .toString();
+                } finally {
+                    Files.deleteIfExists(input);
+                }
+            }, null);
+        } catch (ApiException | IllegalArgumentException e) {
+            // Refused before the batch was started
+            Files.deleteIfExists(input);
+            throw e;
+        }
+    }
+
+    private static String rowEvent(long row, int status, long latencyNanos, long bytes, String error,
+                                   List<String> names, List<List<String>> values) {
+        JsonObject fields = new JsonObject();
+        for (int i = 0; i < names.size(); i++) {
+            List<String> matches = values.get(i);
+            if (matches.isEmpty()) {
+                fields.put(names.get(i), (String) null);
+            } else if (matches.size() == 1) {
+                fields.put(names.get(i), matches.get(0));
+            } else {
+                fields.putRaw(names.get(i), JsonObject.array(matches));
+            }
+        }
+        return new JsonObject()
+            .put("event", "row")
+            .put("row", row)
+            .put("status", status)
+            .put("latencyMs", latencyNanos / 1e6)
+            .put("bytes", bytes)
+            .put("error", error)
+            .putRaw("values", fields.toString())
+            .toString();
+    }
+
+    /**
+     * Run a load test in this process and stream its progress every second, together with the health
+     * of this JVM. Only one load run is allowed at a time, two would measure each other.
+     */
+    private void load(HttpExchange exchange, Project project, Map<String, List<String>> query) throws Exception {
+        LoadProfile profile = new LoadProfile(
+            intParameter(query, "threads", 10),
+            Duration.ofSeconds(intParameter(query, "duration", 60)),
+            Duration.ofSeconds(intParameter(query, "rampUp", 0)),
+            query.getOrDefault("target", List.of()),
+            Boolean.parseBoolean(parameter(query, "adaptive", "false")),
+            parseArrivals(query));
+        LoadRunner runner = new LoadRunner(client, limiters, project, profile);
+        if (!loadRunning.compareAndSet(false, true)) {
+            throw new ApiException(409, "A load run is already in progress");
+        }
+        try {
+            stream(exchange, events -> {
+                try (ClientTelemetry telemetry = new ClientTelemetry()) {
+                    return runLoad(runner, telemetry, events);
+                } finally {
+                    loadRunning.set(false);
+                }
+            }, runner::stop);
+        } catch (ApiException | IllegalArgumentException e) {
+            // Refused before the run was started
+            loadRunning.set(false);
+            throw e;
+        }
+    }
+
+    private static String runLoad(LoadRunner runner, ClientTelemetry telemetry, EventStream events)
+            throws InterruptedException {
+        LatencyHistogram total = new LatencyHistogram();
+        long requests = 0;
+        long errors = 0;
+        long clientSamples = 0;
+        long saturatedSamples = 0;
+        ClientSample peak = null;
+        long start = System.nanoTime();
+        long intervalStart = start;
+        runner.start();
+        try {
+            boolean done = false;
+            while (!done) {
+                done = runner.awaitCompletion(PROGRESS_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                long now = System.nanoTime();
+                LoadSnapshot snapshot = runner.drainSnapshot().withClient(telemetry.sample());
+                total.add(snapshot.latency());
+                requests += snapshot.requests();
+                errors += snapshot.errors();
+                clientSamples++;
+                if (snapshot.client().saturation() != null) {
+                    saturatedSamples++;
+                }
+                peak = snapshot.client().worst(peak);
+                events.publish("progress", progressEvent(snapshot, (now - start) / 1e9, (now - intervalStart) / 1e9));
+                intervalStart = now;
+            }
+        } catch (InterruptedException e) {
+            runner.stop();
+            throw e;
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        return new JsonObject()
+            .put("event", "summary")
+            .put("elapsedSeconds", elapsedSeconds)
+            .put("requests", requests)
+            .put("errors", errors)
+            .put("throughput", requests / elapsedSeconds)
+            .put("meanMs", total.getMean() / 1000.0)
+            .put("p50Ms", total.getPercentile(50) / 1000.0)
+            .put("p90Ms", total.getPercentile(90) / 1000.0)
+            .put("p99Ms", total.getPercentile(99) / 1000.0)
+            .put("p999Ms", total.getPercentile(99.9) / 1000.0)
+            .put("maxMs", total.getMax() / 1000.0)
+            .putRaw("clientPeak", clientJson(peak))
+            .put("clientSamples", clientSamples)
+            .put("saturatedSamples", saturatedSamples)
+            .put("dropped", events.getDropped())
+            .toString();
+    }
+
+    private static String progressEvent(LoadSnapshot snapshot, double elapsedSeconds, double intervalSeconds) {
+        LatencyHistogram latency = snapshot.latency();
+        return new JsonObject()
+            .put("event", "progress")
+            .put("elapsedSeconds", elapsedSeconds)
+            .put("requests", snapshot.requests())
+            .put("errors", snapshot.errors())
+            .put("throughput", intervalSeconds > 0 ? snapshot.requests() / intervalSeconds : 0)
+            .put("bytes", snapshot.bytesReceived())
+            .put("p50Ms", latency.getPercentile(50) / 1000.0)
+            .put("p99Ms", latency.getPercentile(99) / 1000.0)
+            .put("maxMs", latency.getMax() / 1000.0)
+            .putRaw("client", clientJson(snapshot.client()))
+            .put("saturation", snapshot.client().saturation())
+            .toString();
+    }
+
+    private static String clientJson(ClientSample sample) {
+        if (sample == null) {
+            return "null";
+        }
+        return new JsonObject()
+            .put("gcPauseRatio", sample.gcPauseRatio())
+            .put("maxGcPauseMs", sample.maxGcPauseMillis())
+            .put("allocationRate", sample.allocationRate())
+            .put("heapOccupancy", sample.heapOccupancy())
+            .put("threads", sample.threads())
+            .put("cpuLoad", sample.cpuLoad())
+            .toString();
+    }
+
+    private static ArrivalProfile parseArrivals(Map<String, List<String>> query) {
+        String shape = parameter(query, "arrival", null);
+        if (shape == null) {
+            return null;
+        }
+        String rate = parameter(query, "rate", null);
+        if (rate == null) {
+            throw new IllegalArgumentException("rate is required with arrival");
+        }
+        return new ArrivalProfile(ArrivalProfile.Shape.parse(shape), Double.parseDouble(rate),
+            Double.parseDouble(parameter(query, "endRate", rate)), intParameter(query, "steps", 5));
+    }
+
+    /**
+     * Answer with a stream of events while a run publishes them from another thread. The handler thread
+     * only writes, and if the client goes away the run is cancelled.
+     *
+     * @param exchange The call
+     * @param run The run
+     * @param cancel Stops the run when the client disconnects, in addition to interrupting its thread, or null
+     * @throws ApiException If too many runs are streaming, nothing has been started then
+     */
+    private void stream(HttpExchange exchange, StreamedRun run, Runnable cancel) throws Exception {
+        EventStream events = new EventStream(streamFormat(exchange), EVENT_QUEUE_CAPACITY);
+        if (!streams.tryAcquire()) {
+            throw new ApiException(503, "Too many concurrent runs, at most " + MAX_STREAMS);
+        }
+        try {
+            Future<?> future = runExecutor.submit(() -> {
+                try {
+                    events.finish("summary", run.run(events));
+                } catch (InterruptedException e) {
+                    events.finish("error", errorEvent("Cancelled"));
+                } catch (Exception e) {
+                    logger.error("Automation API run failed: {}", exchange.getRequestURI(), e);
+                    events.finish("error", errorEvent(e.toString()));
+                }
+            });
+            Runnable stop = () -> {
+                logger.info("Client disconnected, cancelling {}", exchange.getRequestURI().getPath());
+                if (cancel != null) {
+                    cancel.run();
+                }
+                future.cancel(true);
+            };
+            exchange.getResponseHeaders().set("Content-Type", events.format().contentType());
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                events.pump(out, stop);
+            } catch (InterruptedException e) {
+                stop.run();
+                throw e;
+            } catch (IOException e) {
+                // Closing a stream the client already dropped, the run was cancelled by the pump
+            }
+        } finally {
+            streams.release();
+        }
+    }
+
+    private static EventStream.Format streamFormat(HttpExchange exchange) {
+        String format = parameter(parseQuery(exchange.getRequestURI().getRawQuery()), "format", null);
+        if (format != null) {
+            return switch (format) {
+                case "sse" -> EventStream.Format.SSE;
+                case "jsonl", "ndjson" -> EventStream.Format.JSON_LINES;
+                default -> throw new IllegalArgumentException("Unknown format: " + format);
+            };
+        }
+        String accept = exchange.getRequestHeaders().getFirst("Accept");
+        return accept != null && accept.contains("text/event-stream") ? EventStream.Format.SSE
+            : EventStream.Format.JSON_LINES;
+    }
+
+    private static String requireEndpoint(RequestWrapper request) throws ApiException {
+        String endpoint = request.getSelectedEndpoint();
+        if (endpoint == null || endpoint.isBlank()) {
+            throw new ApiException(409, "No endpoint selected for request: " + request.getName());
+        }
+        return endpoint;
+    }
+
+    private void recordHistory(Project project, HistoryEntry entry) {
+        try {
+            historyStore.append(project.getName(), entry);
+        } catch (IOException e) {
+            logger.error("Failed to record response history for project: {}", project.getName(), e);
+        }
+    }
+
+    private static Map<String, List<String>> parseQuery(String rawQuery) {
+        Map<String, List<String>> parameters = new LinkedHashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals >= 0 ? pair.substring(0, equals) : pair, StandardCharsets.UTF_8);
+            String value = equals >= 0 ? URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8) : "";
+            parameters.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+        }
+        return parameters;
+    }
+
+    private static String parameter(Map<String, List<String>> query, String name, String defaultValue) {
+        List<String> values = query.get(name);
+        return values != null && !values.isEmpty() ? values.get(0) : defaultValue;
+    }
+
+    private static int intParameter(Map<String, List<String>> query, String name, int defaultValue) {
+        String value = parameter(query, name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be an integer: " + value);
+        }
+    }
+
+    private static String errorEvent(String message) {
+        return new JsonObject().put("event", "error").put("message", message).toString();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = (json + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void respondError(HttpExchange exchange, int status, String message) {
+        if (exchange.getResponseCode() != -1) {
+            // Headers are out, a streamed call reports failures as an error event instead
+            return;
+        }
+        try {
+            respond(exchange, status, new JsonObject().put("error", message).toString());
+        } catch (IOException e) {
+            logger.debug("Failed to send error response", e);
+        }
+    }
+}
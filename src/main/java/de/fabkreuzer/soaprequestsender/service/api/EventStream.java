@@ -0,0 +1,188 @@
+package de.fabkreuzer.soaprequestsender.service.api;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decouples a running engine from the client that watches it.
+ * <p>
+ * The engine publishes events from its own threads into a bounded queue. Progress events never wait: if the
+ * client reads too slowly and the queue is full, the event is dropped and counted, so a stalled connection
+ * can't slow down a load run. Events that must not be lost, like batch rows, wait for room instead, for a
+ * bounded time. The HTTP handler thread drains the queue to the socket, writing everything that is queued
+ * before it flushes. The final event is kept apart and is never dropped.
+ */
+final class EventStream {
+
+    /**
+     * How events are framed on the wire.
+     */
+    enum Format {
+        /** One JSON object per line, application/x-ndjson. */
+        JSON_LINES("application/x-ndjson"),
+        /** Server-sent events with the event type as the event name and the JSON object as data. */
+        SSE("text/event-stream");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        String contentType() {
+            return contentType;
+        }
+    }
+
+    private static final long POLL_MILLIS = 250;
+    // Proxies and clients close idle connections, a comment keeps a quiet SSE stream open
+    private static final long HEARTBEAT_NANOS = TimeUnit.SECONDS.toNanos(15);
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final Format format;
+    private final BlockingQueue<String> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile String last;
+    private volatile boolean disconnected;
+
+    /**
+     * Creates a stream.
+     *
+     * @param format The framing
+     * @param capacity The number of events that can be queued before events are dropped
+     */
+    EventStream(Format format, int capacity) {
+        this.format = format;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Queue an event without blocking.
+     *
+     * @param type The event type, also the "event" field of the JSON object
+     * @param json The event
+     * @return False if the queue was full or the client is gone and the event was dropped
+     */
+    boolean publish(String type, String json) {
+        if (disconnected || !queue.offer(frame(type, json))) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Queue an event that must not be dropped, waiting while the queue is full.
+     *
+     * @param type The event type, also the "event" field of the JSON object
+     * @param json The event
+     * @param timeout How long to wait for the client to make room
+     * @param unit The unit of the timeout
+     * @return False if the client is gone and the event was discarded
+     * @throws InterruptedException If the thread is interrupted while waiting
+     * @throws IllegalStateException If the client didn't make room in time
+     */
+    boolean put(String type, String json, long timeout, TimeUnit unit) throws InterruptedException {
+        String frame = frame(type, json);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        // Waits in slices, so a disconnect is noticed while the queue is full
+        while (!disconnected) {
+            if (queue.offer(frame, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+            if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException("Client read no events for " + unit.toSeconds(timeout) + " seconds");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Queue the last event, the stream ends after it has been written.
+     *
+     * @param type The event type
+     * @param json The event
+     */
+    void finish(String type, String json) {
+        last = frame(type, json);
+    }
+
+    /**
+     * Get the framing of the events.
+     *
+     * @return The format
+     */
+    Format format() {
+        return format;
+    }
+
+    /**
+     * Get the number of events dropped so far.
+     *
+     * @return The number of events
+     */
+    long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Check whether writing to the client failed.
+     *
+     * @return True if the client has disconnected
+     */
+    boolean isDisconnected() {
+        return disconnected;
+    }
+
+    /**
+     * Write events to the client until the last event has been written or the client disconnects.
+     * This runs on the HTTP handler thread.
+     *
+     * @param out The response body
+     * @param onDisconnect Called once if the client disconnects before the last event
+     * @throws InterruptedException If the thread is interrupted while waiting for events
+     */
+    void pump(OutputStream out, Runnable onDisconnect) throws InterruptedException {
+        List<String> batch = new ArrayList<>();
+        long lastWrite = System.nanoTime();
+        try {
+            while (true) {
+                String frame = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (frame != null) {
+                    batch.add(frame);
+                    queue.drainTo(batch);
+                    for (String queued : batch) {
+                        out.write(queued.getBytes(StandardCharsets.UTF_8));
+                    }
+                    batch.clear();
+                    out.flush();
+                    lastWrite = System.nanoTime();
+                } else if (last != null && queue.isEmpty()) {
+                    // The engine sets the last event after its final publish, so nothing can be queued behind it
+                    out.write(last.getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    return;
+                } else if (format == Format.SSE && System.nanoTime() - lastWrite > HEARTBEAT_NANOS) {
+                    out.write(HEARTBEAT);
+                    out.flush();
+                    lastWrite = System.nanoTime();
+                }
+            }
+        } catch (IOException e) {
+            disconnected = true;
+            queue.clear();
+            onDisconnect.run();
+        }
+    }
+
+    private String frame(String type, String json) {
+        return format == Format.SSE ? "event: " + type + "\ndata: " + json + "\n\n" : json + "\n";
+    }
+}
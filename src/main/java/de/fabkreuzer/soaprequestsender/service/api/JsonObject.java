@@ -0,0 +1,116 @@
+package de.fabkreuzer.soaprequestsender.service.api;
+
+import de.fabkreuzer.soaprequestsender.service.batch.ExtractionWriter;
+
+import java.util.List;
+
+/**
+ * Writes a flat JSON object field by field. Values that are already JSON can be nested with {@link #putRaw}.
+ */
+final class JsonObject {
+
+    private final StringBuilder out = new StringBuilder(128).append('{');
+
+    /**
+     * Add a string field.
+     *
+     * @param name The field name
+     * @param value The value, or null
+     * @return This object
+     */
+    JsonObject put(String name, String value) {
+        name(name);
+        if (value == null) {
+            out.append("null");
+        } else {
+            ExtractionWriter.appendJson(out, value);
+        }
+        return this;
+    }
+
+    /**
+     * Add an integer field.
+     *
+     * @param name The field name
+     * @param value The value
+     * @return This object
+     */
+    JsonObject put(String name, long value) {
+        name(name);
+        out.append(value);
+        return this;
+    }
+
+    /**
+     * Add a number field, rounded to three decimals.
+     *
+     * @param name The field name
+     * @param value The value, NaN and infinity are written as null
+     * @return This object
+     */
+    JsonObject put(String name, double value) {
+        name(name);
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            out.append("null");
+        } else {
+            out.append(Math.round(value * 1000) / 1000.0);
+        }
+        return this;
+    }
+
+    /**
+     * Add a boolean field.
+     *
+     * @param name The field name
+     * @param value The value
+     * @return This object
+     */
+    JsonObject put(String name, boolean value) {
+        name(name);
+        out.append(value);
+        return this;
+    }
+
+    /**
+     * Add a field whose value is already JSON.
+     *
+     * @param name The field name
+     * @param json The value
+     * @return This object
+     */
+    JsonObject putRaw(String name, String json) {
+        name(name);
+        out.append(json);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return out + "}";
+    }
+
+    /**
+     * Write a list of strings as a JSON array.
+     *
+     * @param values The strings
+     * @return The array
+     */
+    static String array(List<String> values) {
+        StringBuilder array = new StringBuilder(16 * values.size() + 2).append('[');
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                array.append(',');
+            }
+            ExtractionWriter.appendJson(array, values.get(i));
+        }
+        return array.append(']').toString();
+    }
+
+    private void name(String name) {
+        if (out.length() > 1) {
+            out.append(',');
+        }
+        ExtractionWriter.appendJson(out, name);
+        out.append(':');
+    }
+}
@@ -0,0 +1,129 @@
+package de.fabkreuzer.soaprequestsender.service.batch;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads batch input rows from a CSV file with a header line, one row at a time.
+ * Fields may be quoted with double quotes, quoted fields can contain separators, line breaks
+ * and doubled quotes. Rows are read on demand, so inputs of any size are never held in memory.
+ */
+public class BatchInput implements Closeable {
+
+    private final BufferedReader reader;
+    private final List<String> columns;
+    private final StringBuilder field = new StringBuilder();
+    private long rowNumber;
+
+    /**
+     * Creates an input from a reader and reads the header line.
+     *
+     * @param reader The CSV data
+     * @throws IOException If the header can't be read or is missing
+     */
+    public BatchInput(Reader reader) throws IOException {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        List<String> header = readRecord();
+        if (header == null) {
+            throw new IOException("Batch input has no header line");
+        }
+        // Spreadsheet exports often start with a byte order mark
+        if (header.get(0).startsWith("\uFEFF")) {
+            header.set(0, header.get(0).substring(1));
+        }
+        this.columns = List.copyOf(header);
+    }
+
+    /**
+     * Open a UTF-8 CSV file.
+     *
+     * @param path The file
+     * @return The input
+     * @throws IOException If the file can't be read or has no header line
+     */
+    public static BatchInput open(Path path) throws IOException {
+        return new BatchInput(Files.newBufferedReader(path, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Get the column names from the header line.
+     *
+     * @return The column names
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Read the next row. Safe to call from several threads, each row is returned once.
+     *
+     * @return The row, or null at the end of the input
+     * @throws IOException If the input can't be read
+     */
+    public synchronized BatchRow next() throws IOException {
+        List<String> record = readRecord();
+        while (record != null && record.size() == 1 && record.get(0).isEmpty()) {
+            // Skip blank lines
+            record = readRecord();
+        }
+        if (record == null) {
+            return null;
+        }
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < columns.size() && i < record.size(); i++) {
+            values.put(columns.get(i), record.get(i));
+        }
+        return new BatchRow(++rowNumber, values);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private List<String> readRecord() throws IOException {
+        int c = reader.read();
+        if (c < 0) {
+            return null;
+        }
+        List<String> record = new ArrayList<>();
+        boolean quoted = false;
+        field.setLength(0);
+        while (c >= 0) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+        record.add(field.toString());
+        return record;
+    }
+}
@@ -0,0 +1,25 @@
+package de.fabkreuzer.soaprequestsender.service.batch;
+
+import java.util.List;
+
+/**
+ * Receives the outcome of every row of a batch as soon as its call completes.
+ * It is called concurrently from the sender threads, a listener that blocks holds back the sender thread.
+ */
+@FunctionalInterface
+public interface BatchResultListener {
+
+    /**
+     * Called when a row has been sent and its response read.
+     *
+     * @param row The input row number
+     * @param statusCode The HTTP status code, or 0 if no response was received
+     * @param latencyNanos The time from sending the request until the response was read
+     * @param bytes The size of the decoded response body
+     * @param error Why the row failed, or null if it got a well-formed 2xx response
+     * @param values The matches per extraction field, in field order
+     * @throws InterruptedException If the thread is interrupted while the listener waits
+     */
+    void onResult(long row, int statusCode, long latencyNanos, long bytes, String error, List<List<String>> values)
+        throws InterruptedException;
+}
@@ -0,0 +1,12 @@
+package de.fabkreuzer.soaprequestsender.service.batch;
+
+import java.util.Map;
+
+/**
+ * One row of batch input.
+ *
+ * @param number The row number, starting at 1 after the header
+ * @param values The values by column name, referenced as ${column} in the request
+ */
+public record BatchRow(long number, Map<String, String> values) {
+}
@@ -0,0 +1,198 @@
+package de.fabkreuzer.soaprequestsender.service.batch;
+
+import de.fabkreuzer.soaprequestsender.service.http.CountingInputStream;
+import de.fabkreuzer.soaprequestsender.service.http.SoapHttpClient;
+import de.fabkreuzer.soaprequestsender.service.http.SoapResponse;
+import de.fabkreuzer.soaprequestsender.service.limit.AdaptiveLimiter;
+import de.fabkreuzer.soaprequestsender.service.limit.EndpointLimiters;
+import de.fabkreuzer.soaprequestsender.service.template.RequestTemplate;
+import de.fabkreuzer.soaprequestsender.service.xml.StreamingPathExtractor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends one request per input row and streams the values extracted from each response to an output file.
+ * <p>
+ * Each row renders the request template with the row's columns as properties. The response body is
+ * never materialized: the decoded stream goes through a single StAX pass that evaluates all field
+ * paths at once, and the row's values are written as soon as the call completes. Input rows are
+ * read on demand by the workers, so memory use doesn't depend on the size of the batch. Calls also go
+ * through the adaptive limiter of the backend, which backs off when a legacy service starts to struggle.
+ */
+public class BatchSender {
+
+    private static final Logger logger = LogManager.getLogger(BatchSender.class);
+    private static final long PROGRESS_INTERVAL = 10_000;
+
+    private final SoapHttpClient client;
+    private final EndpointLimiters limiters;
+    private final int parallelism;
+
+    /**
+     * Creates a sender.
+     *
+     * @param client The client used to send requests
+     * @param limiters The per-backend concurrency limiters
+     * @param parallelism The maximum number of calls in flight
+     */
+    public BatchSender(SoapHttpClient client, EndpointLimiters limiters, int parallelism) {
+        this.client = client;
+        this.limiters = limiters;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Send a request for every input row and wait for all of them.
+     *
+     * @param template The request, referencing input columns as ${column}
+     * @param endpoint The endpoint URL
+     * @param soapAction The SOAPAction of the request's operation, or null for none
+     * @param input The input rows
+     * @param fields The values to extract from every response
+     * @param output Receives the extracted values of every row
+     * @return The totals
+     * @throws IOException If the input can't be read or the output can't be written
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public BatchSummary run(RequestTemplate template, String endpoint, String soapAction, BatchInput input,
+                            List<ExtractionField> fields, ExtractionWriter output)
+            throws IOException, InterruptedException {
+        return run(template, endpoint, soapAction, input, fields, output, null);
+    }
+
+    /**
+     * Send a request for every input row, report every result as it completes and wait for all of them.
+     *
+     * @param template The request, referencing input columns as ${column}
+     * @param endpoint The endpoint URL
+     * @param soapAction The SOAPAction of the request's operation, or null for none
+     * @param input The input rows
+     * @param fields The values to extract from every response
+     * @param output Receives the extracted values of every row, or null if only the listener needs them
+     * @param listener Receives the outcome of every row on the worker threads, or null
+     * @return The totals
+     * @throws IOException If the input can't be read or the output can't be written
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public BatchSummary run(RequestTemplate template, String endpoint, String soapAction, BatchInput input,
+                            List<ExtractionField> fields, ExtractionWriter output, BatchResultListener listener)
+            throws IOException, InterruptedException {
+        StreamingPathExtractor extractor = new StreamingPathExtractor(fields.stream().map(ExtractionField::path).toList());
+        AtomicLong rows = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long start = System.nanoTime();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "batch-sender-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Void>> workers = new ArrayList<>();
+            for (int i = 0; i < parallelism; i++) {
+                workers.add(executor.submit(() -> {
+                    BatchRow row;
+                    while ((row = input.next()) != null && !Thread.currentThread().isInterrupted()) {
+                        if (!sendRow(template, endpoint, soapAction, row, fields.size(), extractor, output, listener)) {
+                            failed.incrementAndGet();
+                        }
+                        if (rows.incrementAndGet() % PROGRESS_INTERVAL == 0) {
+                            logger.info("Batch: {} rows sent, {} failed", rows.get(), failed.get());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> worker : workers) {
+                try {
+                    worker.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException ioException) {
+                        throw ioException;
+                    }
+                    throw new IllegalStateException("Batch worker failed", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        BatchSummary summary = new BatchSummary(rows.get(), failed.get(), System.nanoTime() - start);
+        logger.info("Batch finished: {}", summary);
+        return summary;
+    }
+
+    /**
+     * Send one row and write its result.
+     *
+     * @return True if the call returned a well-formed 2xx response
+     * @throws IOException If the output can't be written
+     */
+    private boolean sendRow(RequestTemplate template, String endpoint, String soapAction, BatchRow row,
+                            int fieldCount, StreamingPathExtractor extractor, ExtractionWriter output,
+                            BatchResultListener listener)
+            throws IOException, InterruptedException {
+        List<List<String>> values = new ArrayList<>(fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            values.add(new ArrayList<>(1));
+        }
+        byte[] body = template.render(row.values());
+
+        AdaptiveLimiter.Permit permit = limiters.forEndpoint(endpoint).acquire();
+        int statusCode;
+        String[] error = new String[1];
+        long[] bytes = new long[1];
+        long start = System.nanoTime();
+        try {
+            statusCode = client.send(endpoint, body, soapAction, (status, headers, in) -> {
+                CountingInputStream counted = new CountingInputStream(in);
+                try {
+                    // SOAP faults are extracted too, their fault string may be one of the fields
+                    extractor.extract(counted, (index, value) -> values.get(index).add(value));
+                } catch (XMLStreamException e) {
+                    // Gateways answer with HTML error pages, the status is still worth recording
+                    error[0] = "Response is not well-formed XML: " + e.getMessage();
+                }
+                bytes[0] = counted.getCount();
+                return status;
+            });
+            if (SoapResponse.isOverload(statusCode)) {
+                permit.onDropped();
+            } else {
+                permit.onSuccess();
+            }
+        } catch (HttpTimeoutException | ConnectException e) {
+            permit.onDropped();
+            statusCode = 0;
+            error[0] = e.toString();
+        } catch (IOException e) {
+            permit.onIgnore();
+            statusCode = 0;
+            error[0] = e.toString();
+        }
+        if (error[0] == null && (statusCode < 200 || statusCode >= 300)) {
+            error[0] = "HTTP " + statusCode;
+        }
+        long latency = System.nanoTime() - start;
+        if (output != null) {
+            output.write(row.number(), statusCode, error[0], values);
+        }
+        if (listener != null) {
+            listener.onResult(row.number(), statusCode, latency, bytes[0], error[0], values);
+        }
+        return error[0] == null;
+    }
+}
@@ -0,0 +1,18 @@
+package de.fabkreuzer.soaprequestsender.service.batch;
+
+/**
+ * The totals of a batch run.
+ *
+ * @param rows The number of rows sent
+ * @param failed The number of rows without a 2xx response
+ * @param elapsedNanos The wall time of the run
+ */
+public record BatchSummary(long rows, long failed, long elapsedNanos) {
+
+    @Override
+    public String toString() {
+        double seconds = elapsedNanos / 1e9;
+        return String.format("%d rows, %d failed in %.1f s (%.0f rows/s)", rows, failed, seconds,
+            seconds > 0 ? rows / seconds : 0);
+    }
+}
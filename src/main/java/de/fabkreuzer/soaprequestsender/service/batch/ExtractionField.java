@@ -0,0 +1,30 @@
+package de.fabkreuzer.soaprequestsender.service.batch;
+
+import de.fabkreuzer.soaprequestsender.service.xml.SimplePath;
+
+/**
+ * A named value extracted from every batch response.
+ *
+ * @param name The output column name
+ * @param path The path selecting the value
+ */
+public record ExtractionField(String name, SimplePath path) {
+
+    /**
+     * Parse a field definition of the form {@code name=path}, e.g. {@code customer=//Customer/@id}.
+     * Without a name the path expression is used as the column name.
+     *
+     * @param definition The field definition
+     * @return The field
+     * @throws IllegalArgumentException If the path is invalid
+     */
+    public static ExtractionField parse(String definition) {
+        String trimmed = definition.trim();
+        int equals = trimmed.indexOf('=');
+        if (equals > 0 && !trimmed.substring(0, equals).contains("/")) {
+            return new ExtractionField(trimmed.substring(0, equals).trim(),
+                SimplePath.compile(trimmed.substring(equals + 1).trim()));
+        }
+        return new ExtractionField(trimmed, SimplePath.compile(trimmed));
+    }
+}
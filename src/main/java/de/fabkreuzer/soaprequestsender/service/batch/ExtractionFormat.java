@@ -0,0 +1,23 @@
+package de.fabkreuzer.soaprequestsender.service.batch;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * The output format of extracted batch values.
+ */
+public enum ExtractionFormat {
+    CSV,
+    JSONL;
+
+    /**
+     * Pick the format from a file name: .jsonl and .ndjson files get JSON lines, everything else CSV.
+     *
+     * @param path The output file
+     * @return The format
+     */
+    public static ExtractionFormat fromFileName(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".jsonl") || name.endsWith(".ndjson") ? JSONL : CSV;
+    }
+}
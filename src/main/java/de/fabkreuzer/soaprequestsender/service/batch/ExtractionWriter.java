@@ -0,0 +1,172 @@
+package de.fabkreuzer.soaprequestsender.service.batch;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Streams extracted batch values to a CSV or JSON lines file, one line per row as soon as it completes.
+ * <p>
+ * Every line holds the input row number, the HTTP status, an error message if the call failed, and one
+ * value per field. A field with several matches is written as a JSON array, or joined with {@code |} in CSV.
+ * Rows complete in parallel, so lines are not in input order; the row number identifies them.
+ */
+public class ExtractionWriter implements Closeable {
+
+    private static final String MULTI_VALUE_SEPARATOR = "|";
+
+    private final Writer out;
+    private final ExtractionFormat format;
+    private final List<String> fieldNames;
+    private final StringBuilder line = new StringBuilder(256);
+
+    /**
+     * Creates a writer and writes the CSV header.
+     *
+     * @param out The output
+     * @param format The output format
+     * @param fieldNames The names of the extracted fields
+     * @throws IOException If the header can't be written
+     */
+    public ExtractionWriter(Writer out, ExtractionFormat format, List<String> fieldNames) throws IOException {
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out, 64 * 1024);
+        this.format = format;
+        this.fieldNames = List.copyOf(fieldNames);
+        if (format == ExtractionFormat.CSV) {
+            line.append("row,status,error");
+            for (String name : fieldNames) {
+                line.append(',');
+                appendCsv(name);
+            }
+            line.append('\n');
+            this.out.write(line.toString());
+        }
+    }
+
+    /**
+     * Create a UTF-8 output file, the format is taken from its name.
+     *
+     * @param path The output file
+     * @param fieldNames The names of the extracted fields
+     * @return The writer
+     * @throws IOException If the file can't be created
+     */
+    public static ExtractionWriter create(Path path, List<String> fieldNames) throws IOException {
+        return new ExtractionWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8),
+            ExtractionFormat.fromFileName(path), fieldNames);
+    }
+
+    /**
+     * Write the result of one row.
+     *
+     * @param row The input row number
+     * @param statusCode The HTTP status code, or 0 if no response was received
+     * @param error The error message, or null
+     * @param values The matches per field, in field order
+     * @throws IOException If the line can't be written
+     */
+    public synchronized void write(long row, int statusCode, String error, List<List<String>> values)
+            throws IOException {
+        line.setLength(0);
+        if (format == ExtractionFormat.CSV) {
+            line.append(row).append(',').append(statusCode).append(',');
+            if (error != null) {
+                appendCsv(error);
+            }
+            for (List<String> matches : values) {
+                line.append(',');
+                if (!matches.isEmpty()) {
+                    appendCsv(matches.size() == 1 ? matches.get(0) : String.join(MULTI_VALUE_SEPARATOR, matches));
+                }
+            }
+        } else {
+            line.append("{\"row\":").append(row).append(",\"status\":").append(statusCode);
+            if (error != null) {
+                line.append(",\"error\":");
+                appendJson(line, error);
+            }
+            for (int i = 0; i < fieldNames.size(); i++) {
+                line.append(',');
+                appendJson(line, fieldNames.get(i));
+                line.append(':');
+                List<String> matches = values.get(i);
+                if (matches.isEmpty()) {
+                    line.append("null");
+                } else if (matches.size() == 1) {
+                    appendJson(line, matches.get(0));
+                } else {
+                    line.append('[');
+                    for (int j = 0; j < matches.size(); j++) {
+                        if (j > 0) {
+                            line.append(',');
+                        }
+                        appendJson(line, matches.get(j));
+                    }
+                    line.append(']');
+                }
+            }
+            line.append('}');
+        }
+        line.append('\n');
+        out.write(line.toString());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    private void appendCsv(String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    /**
+     * Append a quoted and escaped JSON string.
+     *
+     * @param out The output
+     * @param value The string
+     */
+    public static void appendJson(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+}
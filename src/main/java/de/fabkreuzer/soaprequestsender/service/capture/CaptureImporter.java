@@ -0,0 +1,98 @@
+package de.fabkreuzer.soaprequestsender.service.capture;
+
+import de.fabkreuzer.soaprequestsender.model.OperationWrapper;
+import de.fabkreuzer.soaprequestsender.model.Project;
+import de.fabkreuzer.soaprequestsender.model.RequestWrapper;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Adds captured requests to a project, grouped into operations by their SOAPAction, which is kept
+ * on the operation so the requests are sent with it again.
+ * Captures repeat the same requests many times, so identical bodies are added once, and only
+ * the first {@value #MAX_REQUESTS_PER_OPERATION} distinct requests of an operation are kept.
+ * The full capture stays available for replay.
+ */
+public final class CaptureImporter {
+
+    /** The maximum number of requests added to one operation per import. */
+    public static final int MAX_REQUESTS_PER_OPERATION = 20;
+
+    private CaptureImporter() {
+    }
+
+    /**
+     * The outcome of an import.
+     *
+     * @param requests The number of requests added
+     * @param operations The number of operations created
+     * @param skipped The number of captured requests that were duplicates or over the limit
+     */
+    public record Result(int requests, int operations, int skipped) {
+
+        @Override
+        public String toString() {
+            return String.format("Imported %d requests (%d new operations), skipped %d duplicate or surplus requests", requests, operations, skipped);
+        }
+    }
+
+    /**
+     * Add captured requests to a project. Operations are matched by name, missing ones are created.
+     *
+     * @param project The project
+     * @param exchanges The captured requests
+     * @return What was added
+     */
+    public static Result importInto(Project project, List<CapturedExchange> exchanges) {
+        Map<OperationWrapper, Set<String>> bodies = new HashMap<>();
+        Map<OperationWrapper, Integer> added = new HashMap<>();
+        int requests = 0;
+        int operations = 0;
+        int skipped = 0;
+        for (CapturedExchange exchange : exchanges) {
+            String name = exchange.operationName();
+            OperationWrapper operation = project.findOperation(name);
+            if (operation == null) {
+                operation = new OperationWrapper();
+                operation.setName(name);
+                project.getOperations().add(operation);
+                operations++;
+            }
+            // Operations from the WSDL already know their action, the captured one is kept for the others
+            String action = exchange.soapAction() != null ? exchange.soapAction().replace("\"", "").trim() : "";
+            if (operation.getSoapAction() == null && !action.isEmpty()) {
+                operation.setSoapAction(action);
+            }
+            Set<String> known = bodies.computeIfAbsent(operation, CaptureImporter::contentsOf);
+            int count = added.getOrDefault(operation, 0);
+            if (count >= MAX_REQUESTS_PER_OPERATION || !known.add(exchange.body())) {
+                skipped++;
+                continue;
+            }
+            operation.addRequest(new RequestWrapper(uniqueName(operation), exchange.body(), exchange.endpoint()));
+            added.put(operation, count + 1);
+            requests++;
+        }
+        return new Result(requests, operations, skipped);
+    }
+
+    private static Set<String> contentsOf(OperationWrapper operation) {
+        Set<String> contents = new HashSet<>();
+        for (RequestWrapper request : operation.getRequests()) {
+            contents.add(request.getContent());
+        }
+        return contents;
+    }
+
+    private static String uniqueName(OperationWrapper operation) {
+        int number = operation.getRequests().size() + 1;
+        while (operation.findRequest("Captured " + number) != null) {
+            number++;
+        }
+        return "Captured " + number;
+    }
+}
@@ -0,0 +1,177 @@
+package de.fabkreuzer.soaprequestsender.service.capture;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads captured SOAP traffic, ordered by the time the requests were sent.
+ * <p>
+ * Two formats are supported, chosen by the file extension:
+ * <ul>
+ *     <li>HAR files ({@code .har}) as exported by browsers and proxies. Only POST requests with a body
+ *     are read; responses are skipped without being materialized.</li>
+ *     <li>JSON lines, one request per line:
+ *     {@code {"timestamp": "2024-05-01T10:15:30.125Z", "endpoint": "...", "soapAction": "...", "body": "..."}}.
+ *     The timestamp may also be epoch milliseconds, and soapAction may be missing.</li>
+ * </ul>
+ */
+public final class CaptureReader {
+
+    private CaptureReader() {
+    }
+
+    /**
+     * Read a capture file.
+     *
+     * @param path The HAR or JSON lines file
+     * @return The captured requests in the order they were sent
+     * @throws IOException If the file can't be read or isn't valid
+     */
+    public static List<CapturedExchange> read(Path path) throws IOException {
+        List<CapturedExchange> exchanges = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            if (path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".har")) {
+                readHar(new JsonReader(reader), exchanges);
+            } else {
+                readJsonLines(reader, exchanges);
+            }
+        }
+        // Captures are mostly in order already, the sort is stable for requests of the same millisecond
+        exchanges.sort(Comparator.comparingLong(CapturedExchange::timestampMillis));
+        return exchanges;
+    }
+
+    private static void readHar(JsonReader json, List<CapturedExchange> exchanges) throws IOException {
+        json.beginObject();
+        while (json.hasNext()) {
+            if (!json.nextName().equals("log")) {
+                json.skipValue();
+                continue;
+            }
+            json.beginObject();
+            while (json.hasNext()) {
+                if (!json.nextName().equals("entries")) {
+                    json.skipValue();
+                    continue;
+                }
+                json.beginArray();
+                while (json.hasNext()) {
+                    CapturedExchange exchange = readHarEntry(json);
+                    if (exchange != null) {
+                        exchanges.add(exchange);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Read one HAR entry, materializing only its request.
+     *
+     * @return The exchange, or null if the entry isn't a POST with a body
+     */
+    private static CapturedExchange readHarEntry(JsonReader json) throws IOException {
+        String started = null;
+        Map<?, ?> request = null;
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "startedDateTime" -> started = json.nextString();
+                case "request" -> request = json.readValue() instanceof Map<?, ?> map ? map : null;
+                default -> json.skipValue();
+            }
+        }
+        if (started == null || request == null || !"POST".equalsIgnoreCase(string(request.get("method")))) {
+            return null;
+        }
+        if (!(request.get("postData") instanceof Map<?, ?> postData) || string(postData.get("text")) == null) {
+            return null;
+        }
+        String body = string(postData.get("text"));
+        if ("base64".equalsIgnoreCase(string(postData.get("encoding")))) {
+            try {
+                body = new String(Base64.getDecoder().decode(body), StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid base64 request body", e);
+            }
+        }
+
+        String soapAction = null;
+        String contentType = null;
+        if (request.get("headers") instanceof List<?> headers) {
+            for (Object header : headers) {
+                if (header instanceof Map<?, ?> map && string(map.get("name")) != null) {
+                    String name = string(map.get("name"));
+                    if (name.equalsIgnoreCase("SOAPAction")) {
+                        soapAction = string(map.get("value"));
+                    } else if (name.equalsIgnoreCase("Content-Type")) {
+                        contentType = string(map.get("value"));
+                    }
+                }
+            }
+        }
+        if (soapAction == null && contentType != null) {
+            soapAction = contentTypeAction(contentType);
+        }
+        return new CapturedExchange(parseTimestamp(started), string(request.get("url")), soapAction, body);
+    }
+
+    private static void readJsonLines(BufferedReader reader, List<CapturedExchange> exchanges) throws IOException {
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (!(new JsonReader(new StringReader(line)).readValue() instanceof Map<?, ?> entry)) {
+                throw new IOException("Line " + lineNumber + " is not a JSON object");
+            }
+            Object timestamp = entry.get("timestamp");
+            String endpoint = string(entry.get("endpoint"));
+            String body = string(entry.get("body"));
+            if (timestamp == null || endpoint == null || body == null) {
+                throw new IOException("Line " + lineNumber + " needs timestamp, endpoint and body");
+            }
+            long millis = timestamp instanceof Double number ? number.longValue() : parseTimestamp(timestamp.toString());
+            exchanges.add(new CapturedExchange(millis, endpoint, string(entry.get("soapAction")), body));
+        }
+    }
+
+    /**
+     * Get the action parameter of a SOAP 1.2 content type.
+     */
+    private static String contentTypeAction(String contentType) {
+        for (String parameter : contentType.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.regionMatches(true, 0, "action=", 0, 7)) {
+                return trimmed.substring(7).replace("\"", "");
+            }
+        }
+        return null;
+    }
+
+    private static long parseTimestamp(String value) throws IOException {
+        try {
+            return OffsetDateTime.parse(value).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IOException("Invalid timestamp: " + value, e);
+        }
+    }
+
+    private static String string(Object value) {
+        return value instanceof String s ? s : null;
+    }
+}
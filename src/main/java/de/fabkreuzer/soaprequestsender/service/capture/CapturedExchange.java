@@ -0,0 +1,60 @@
+package de.fabkreuzer.soaprequestsender.service.capture;
+
+import de.fabkreuzer.soaprequestsender.service.xml.XmlStreams;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+
+/**
+ * One captured SOAP request.
+ *
+ * @param timestampMillis When the request was sent, in epoch milliseconds
+ * @param endpoint The URL the request was sent to
+ * @param soapAction The SOAPAction, or null if the capture has none
+ * @param body The SOAP envelope
+ */
+public record CapturedExchange(long timestampMillis, String endpoint, String soapAction, String body) {
+
+    /**
+     * Get the name of the operation the request calls: the last segment of the SOAPAction,
+     * or the first element in the SOAP body if there is no action.
+     *
+     * @return The operation name, or "Unknown" if neither gives one
+     */
+    public String operationName() {
+        if (soapAction != null) {
+            String action = soapAction.replace("\"", "").trim();
+            int cut = Math.max(action.lastIndexOf('/'), Math.max(action.lastIndexOf('#'), action.lastIndexOf(':')));
+            String name = action.substring(cut + 1);
+            if (!name.isEmpty()) {
+                return name;
+            }
+        }
+        String element = firstBodyElement(body);
+        return element != null ? element : "Unknown";
+    }
+
+    private static String firstBodyElement(String body) {
+        try {
+            XMLStreamReader reader = XmlStreams.inputFactory().createXMLStreamReader(new StringReader(body));
+            try {
+                boolean inBody = false;
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                        if (inBody) {
+                            return reader.getLocalName();
+                        }
+                        inBody = reader.getLocalName().equals("Body");
+                    }
+                }
+                return null;
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            return null;
+        }
+    }
+}
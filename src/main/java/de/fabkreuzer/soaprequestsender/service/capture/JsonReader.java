@@ -0,0 +1,206 @@
+package de.fabkreuzer.soaprequestsender.service.capture;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minimal pull parser for JSON. Large documents like HAR files are walked token by token and
+ * only the parts of interest are materialized, as maps, lists, strings, doubles, booleans and null.
+ */
+final class JsonReader {
+
+    private final Reader in;
+    private int peeked = -2;
+
+    JsonReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Get the first character of the next token without consuming it.
+     *
+     * @return The character, or -1 at the end of the input
+     */
+    int peek() throws IOException {
+        if (peeked == -2) {
+            int c;
+            do {
+                c = in.read();
+            } while (c == ' ' || c == '\t' || c == '\n' || c == '\r');
+            peeked = c;
+        }
+        return peeked;
+    }
+
+    void beginObject() throws IOException {
+        expect('{');
+    }
+
+    void beginArray() throws IOException {
+        expect('[');
+    }
+
+    /**
+     * Check whether the current object or array has another member, consuming the separator before it.
+     *
+     * @return False at the closing bracket, which is consumed
+     */
+    boolean hasNext() throws IOException {
+        int c = peek();
+        if (c == '}' || c == ']') {
+            peeked = -2;
+            return false;
+        }
+        if (c == ',') {
+            peeked = -2;
+        }
+        return true;
+    }
+
+    String nextName() throws IOException {
+        String name = nextString();
+        expect(':');
+        return name;
+    }
+
+    String nextString() throws IOException {
+        expect('"');
+        StringBuilder builder = new StringBuilder();
+        while (true) {
+            int c = read();
+            if (c == '"') {
+                return builder.toString();
+            }
+            if (c == '\\') {
+                c = read();
+                switch (c) {
+                    case 'n' -> builder.append('\n');
+                    case 'r' -> builder.append('\r');
+                    case 't' -> builder.append('\t');
+                    case 'b' -> builder.append('\b');
+                    case 'f' -> builder.append('\f');
+                    case 'u' -> {
+                        char[] hex = new char[4];
+                        for (int i = 0; i < 4; i++) {
+                            hex[i] = (char) read();
+                        }
+                        try {
+                            builder.append((char) Integer.parseInt(new String(hex), 16));
+                        } catch (NumberFormatException e) {
+                            throw new IOException("Invalid unicode escape: \\u" + new String(hex));
+                        }
+                    }
+                    default -> builder.append((char) c);
+                }
+            } else {
+                builder.append((char) c);
+            }
+        }
+    }
+
+    /**
+     * Read the next value and everything it contains.
+     *
+     * @return A Map, List, String, Double, Boolean or null
+     */
+    Object readValue() throws IOException {
+        int c = peek();
+        switch (c) {
+            case '{': {
+                beginObject();
+                Map<String, Object> map = new LinkedHashMap<>();
+                while (hasNext()) {
+                    String name = nextName();
+                    map.put(name, readValue());
+                }
+                return map;
+            }
+            case '[': {
+                beginArray();
+                List<Object> list = new ArrayList<>();
+                while (hasNext()) {
+                    list.add(readValue());
+                }
+                return list;
+            }
+            case '"':
+                return nextString();
+            default:
+                String literal = nextLiteral();
+                return switch (literal) {
+                    case "true" -> Boolean.TRUE;
+                    case "false" -> Boolean.FALSE;
+                    case "null" -> null;
+                    default -> parseNumber(literal);
+                };
+        }
+    }
+
+    /**
+     * Skip the next value.
+     */
+    void skipValue() throws IOException {
+        int c = peek();
+        if (c == '{') {
+            beginObject();
+            while (hasNext()) {
+                nextName();
+                skipValue();
+            }
+        } else if (c == '[') {
+            beginArray();
+            while (hasNext()) {
+                skipValue();
+            }
+        } else if (c == '"') {
+            nextString();
+        } else {
+            nextLiteral();
+        }
+    }
+
+    private String nextLiteral() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        int c = peek();
+        peeked = -2;
+        while (c != -1 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+            builder.append((char) c);
+            c = in.read();
+        }
+        if (builder.isEmpty()) {
+            throw new IOException(c == -1 ? "Unexpected end of JSON" : "Unexpected character in JSON: " + (char) c);
+        }
+        // The terminator belongs to the enclosing structure
+        peeked = Character.isWhitespace(c) ? -2 : c;
+        return builder.toString();
+    }
+
+    private static Double parseNumber(String literal) throws IOException {
+        try {
+            return Double.valueOf(literal);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid JSON literal: " + literal);
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = peek();
+        if (c != expected) {
+            throw new IOException("Expected '" + expected + "' in JSON but found "
+                + (c == -1 ? "end of input" : "'" + (char) c + "'"));
+        }
+        peeked = -2;
+    }
+
+    private int read() throws IOException {
+        int c = in.read();
+        if (c == -1) {
+            throw new IOException("Unexpected end of JSON");
+        }
+        return c;
+    }
+}
@@ -0,0 +1,52 @@
+package de.fabkreuzer.soaprequestsender.service.capture;
+
+import de.fabkreuzer.soaprequestsender.service.load.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes replay results as a plain-text table: one line per operation with its request counts and
+ * latency percentiles, followed by the totals and how well the replay kept the captured timing.
+ */
+public final class ReplayReport {
+
+    private ReplayReport() {
+    }
+
+    /**
+     * Write a report.
+     *
+     * @param summary The replay results
+     * @param out The writer to write to
+     * @throws IOException If writing fails
+     */
+    public static void write(ReplaySummary summary, Writer out) throws IOException {
+        out.write(String.format("%-40s %8s %8s %9s %9s %9s %9s%n",
+            "Operation", "Requests", "Errors", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        LatencyHistogram total = new LatencyHistogram();
+        for (ReplaySummary.OperationResult result : summary.operations()) {
+            LatencyHistogram latency = result.latency();
+            out.write(String.format("%-40s %8d %8d %9.1f %9.1f %9.1f %9.1f%n",
+                result.operation(), result.requests(), result.errors(),
+                latency.getPercentile(50) / 1000.0, latency.getPercentile(90) / 1000.0,
+                latency.getPercentile(99) / 1000.0, latency.getMax() / 1000.0));
+            total.add(latency);
+        }
+        double seconds = summary.elapsedNanos() / 1e9;
+        out.write(String.format("%d requests, %d errors in %.1f s (%.0f req/s), p99 %.1f ms%n",
+            summary.requests(), summary.errors(), seconds, seconds > 0 ? summary.requests() / seconds : 0,
+            total.getPercentile(99) / 1000.0));
+        if (summary.speed() > 0) {
+            out.write(String.format("Captured %.1f s replayed at %sx, at most %.1f ms behind schedule%n",
+                summary.capturedMillis() / 1000.0, formatSpeed(summary.speed()), summary.maxLagNanos() / 1e6));
+        } else {
+            out.write(String.format("Captured %.1f s replayed as fast as possible%n", summary.capturedMillis() / 1000.0));
+        }
+        out.flush();
+    }
+
+    private static String formatSpeed(double speed) {
+        return speed == Math.rint(speed) ? String.valueOf((long) speed) : String.valueOf(speed);
+    }
+}
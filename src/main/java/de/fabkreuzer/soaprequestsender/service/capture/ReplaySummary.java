@@ -0,0 +1,47 @@
+package de.fabkreuzer.soaprequestsender.service.capture;
+
+import de.fabkreuzer.soaprequestsender.service.load.LatencyHistogram;
+
+import java.util.List;
+
+/**
+ * The results of a replay.
+ *
+ * @param speed The replay speed, 0 for as fast as possible
+ * @param capturedMillis The time the capture spans from its first to its last request
+ * @param elapsedNanos The wall time of the replay
+ * @param maxLagNanos How far the replay fell behind the captured timing at most
+ * @param operations The results per operation, in order of first appearance
+ */
+public record ReplaySummary(double speed, long capturedMillis, long elapsedNanos, long maxLagNanos,
+                            List<OperationResult> operations) {
+
+    /**
+     * The results of the requests of one operation.
+     *
+     * @param operation The operation name
+     * @param requests The number of requests sent
+     * @param errors The number of requests without a 2xx response
+     * @param latency The latencies, measured from when each request was due
+     */
+    public record OperationResult(String operation, long requests, long errors, LatencyHistogram latency) {
+    }
+
+    /**
+     * Get the number of requests sent.
+     *
+     * @return The total over all operations
+     */
+    public long requests() {
+        return operations.stream().mapToLong(OperationResult::requests).sum();
+    }
+
+    /**
+     * Get the number of failed requests.
+     *
+     * @return The total over all operations
+     */
+    public long errors() {
+        return operations.stream().mapToLong(OperationResult::errors).sum();
+    }
+}
@@ -0,0 +1,174 @@
+package de.fabkreuzer.soaprequestsender.service.capture;
+
+import de.fabkreuzer.soaprequestsender.service.http.SoapHttpClient;
+import de.fabkreuzer.soaprequestsender.service.load.LatencyHistogram;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replays captured traffic with its original timing, scaled by a speed factor.
+ * <p>
+ * A single thread sends every request at its captured offset from the first one, divided by the speed,
+ * without waiting for earlier responses, so bursts and pauses of the capture reach the backend as they
+ * happened. Latency is measured from when a request was due, so a replay that falls behind because the
+ * in-flight limit was reached shows the delay in its percentiles instead of stretching the schedule.
+ * Opening a connection blocks the caller of an asynchronous send for a millisecond or more, so the
+ * sends are handed to a pool and the dispatching thread only keeps time.
+ */
+public class TrafficReplayer {
+
+    private static final Logger logger = LogManager.getLogger(TrafficReplayer.class);
+
+    private final SoapHttpClient client;
+    private final int maxInFlight;
+
+    /**
+     * The counters of one operation.
+     */
+    private record OperationStats(LatencyHistogram latency, LongAdder requests, LongAdder errors) {
+    }
+
+    /**
+     * A captured request ready to send.
+     */
+    private record Prepared(long offsetNanos, String endpoint, byte[] body, String soapAction, OperationStats stats) {
+    }
+
+    /**
+     * Creates a replayer.
+     *
+     * @param client The client used to send requests
+     * @param maxInFlight The maximum number of requests waiting for a response
+     */
+    public TrafficReplayer(SoapHttpClient client, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("At least one request must be allowed in flight");
+        }
+        this.client = client;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Replay a capture and wait for all responses.
+     *
+     * @param exchanges The captured requests, ordered by time
+     * @param speed The speed factor, 1 for the original timing, 0 to send as fast as the in-flight limit allows
+     * @param endpointBase Scheme, host and port replacing those of the captured URLs, e.g. a staging server, or null to send to the captured URLs
+     * @return The results per operation
+     * @throws IllegalArgumentException If the speed is negative or the endpoint base isn't a valid URL
+     * @throws InterruptedException If the thread is interrupted, requests in flight are abandoned
+     */
+    public ReplaySummary replay(List<CapturedExchange> exchanges, double speed, String endpointBase)
+            throws InterruptedException {
+        if (speed < 0) {
+            throw new IllegalArgumentException("Speed must not be negative");
+        }
+        URI base = endpointBase != null && !endpointBase.isBlank() ? URI.create(endpointBase.trim()) : null;
+        if (base != null && (base.getScheme() == null || base.getRawAuthority() == null)) {
+            throw new IllegalArgumentException("Endpoint base needs scheme and host: " + endpointBase);
+        }
+
+        // Everything that costs time is done up front, so the dispatch loop only waits and sends
+        Map<String, OperationStats> operations = new LinkedHashMap<>();
+        List<Prepared> prepared = new ArrayList<>(exchanges.size());
+        long first = exchanges.isEmpty() ? 0 : exchanges.get(0).timestampMillis();
+        long last = first;
+        for (CapturedExchange exchange : exchanges) {
+            OperationStats stats = operations.computeIfAbsent(exchange.operationName(),
+                name -> new OperationStats(new LatencyHistogram(), new LongAdder(), new LongAdder()));
+            long offsetNanos = speed > 0 ? (long) ((exchange.timestampMillis() - first) * 1e6 / speed) : 0;
+            prepared.add(new Prepared(offsetNanos, rebase(exchange.endpoint(), base),
+                exchange.body().getBytes(StandardCharsets.UTF_8), exchange.soapAction(), stats));
+            last = Math.max(last, exchange.timestampMillis());
+        }
+
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicInteger threadCount = new AtomicInteger();
+        // The semaphore bounds the pool, a thread is only busy until its request is on its way
+        ExecutorService senders = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "replay-sender-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        long maxLag;
+        try {
+            maxLag = dispatch(prepared, speed, start, inFlight, senders);
+            inFlight.acquire(maxInFlight);
+        } finally {
+            senders.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        List<ReplaySummary.OperationResult> results = new ArrayList<>();
+        operations.forEach((name, stats) -> results.add(new ReplaySummary.OperationResult(name,
+            stats.requests().sum(), stats.errors().sum(), stats.latency())));
+        return new ReplaySummary(speed, last - first, elapsed, speed > 0 ? maxLag : 0, results);
+    }
+
+    /**
+     * Hand every request to the senders when it is due.
+     *
+     * @return How far the dispatch fell behind the schedule at most
+     */
+    private long dispatch(List<Prepared> prepared, double speed, long start, Semaphore inFlight,
+                          ExecutorService senders) throws InterruptedException {
+        long maxLag = 0;
+        for (Prepared request : prepared) {
+            long due = start + request.offsetNanos();
+            if (speed > 0) {
+                long delay = due - System.nanoTime();
+                if (delay > 0) {
+                    TimeUnit.NANOSECONDS.sleep(delay);
+                }
+            } else {
+                due = System.nanoTime();
+            }
+            inFlight.acquire();
+            maxLag = Math.max(maxLag, System.nanoTime() - due);
+            long intended = due;
+            senders.execute(() -> client.sendAsync(request.endpoint(), request.body(), request.soapAction())
+                .whenComplete((response, error) -> {
+                    OperationStats stats = request.stats();
+                    stats.latency().recordNanos(System.nanoTime() - intended);
+                    stats.requests().increment();
+                    if (response == null || !response.isSuccess()) {
+                        stats.errors().increment();
+                        logger.debug("Replay of {} failed: {}", request.endpoint(),
+                            error != null ? error.getMessage() : "HTTP " + response.statusCode());
+                    }
+                    inFlight.release();
+                }));
+        }
+        return maxLag;
+    }
+
+    /**
+     * Replace the scheme, host and port of a captured URL, keeping its path and query.
+     */
+    private static String rebase(String endpoint, URI base) {
+        if (base == null) {
+            return endpoint;
+        }
+        URI captured = URI.create(endpoint.trim());
+        StringBuilder url = new StringBuilder(base.getScheme()).append("://").append(base.getRawAuthority());
+        url.append(captured.getRawPath() != null ? captured.getRawPath() : "");
+        if (captured.getRawQuery() != null) {
+            url.append('?').append(captured.getRawQuery());
+        }
+        return url.toString();
+    }
+}
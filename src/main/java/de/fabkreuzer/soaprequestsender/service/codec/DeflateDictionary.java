@@ -0,0 +1,203 @@
+package de.fabkreuzer.soaprequestsender.service.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A trained preset dictionary for deflate.
+ * Small documents that share boilerplate with the dictionary compress to a fraction of what
+ * plain deflate achieves, because their first occurrence of a namespace or header is already
+ * a back-reference. The dictionary is identified by its Adler-32 checksum, the same value
+ * zlib records in every stream compressed with it.
+ */
+public final class DeflateDictionary {
+
+    /** Enables dictionary compression of stored requests and response history. */
+    public static final String COMPRESSION_PROPERTY = "soaprequestsender.compressStorage";
+
+    /** The file name of a dictionary next to the data it compresses. */
+    public static final String FILE_NAME = "dictionary.bin";
+
+    // Deflate can only reference the last 32 KB
+    private static final int MAX_SIZE = 32 * 1024;
+    private static final int ENCODED_MAGIC = 0x53524431;
+    private static final int ENCODED_HEADER_SIZE = 12;
+
+    private final byte[] bytes;
+    private final int id;
+
+    private DeflateDictionary(byte[] bytes) {
+        this.bytes = bytes;
+        Adler32 adler = new Adler32();
+        adler.update(bytes);
+        this.id = (int) adler.getValue();
+    }
+
+    /**
+     * Check whether stored data should be compressed with trained dictionaries.
+     *
+     * @return True if the system property {@value #COMPRESSION_PROPERTY} is set to true
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(COMPRESSION_PROPERTY);
+    }
+
+    /**
+     * Train a dictionary from sample documents.
+     *
+     * @param samples The samples
+     * @return The dictionary, or null if the samples aren't enough to train one
+     */
+    public static DeflateDictionary train(List<byte[]> samples) {
+        byte[] trained = DictionaryTrainer.train(samples, MAX_SIZE);
+        return trained != null ? new DeflateDictionary(trained) : null;
+    }
+
+    /**
+     * Load a dictionary.
+     *
+     * @param path The dictionary file
+     * @return The dictionary, or null if the file doesn't exist
+     * @throws IOException If the file can't be read
+     */
+    public static DeflateDictionary load(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        return new DeflateDictionary(Files.readAllBytes(path));
+    }
+
+    /**
+     * Save the dictionary, replacing the file atomically.
+     *
+     * @param path The dictionary file
+     * @throws IOException If the file can't be written
+     */
+    public void save(Path path) throws IOException {
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(tempPath, bytes);
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Compress data into a self-describing record: magic, dictionary id, uncompressed length, deflate stream.
+     *
+     * @param data The data
+     * @return The record
+     */
+    public byte[] encode(byte[] data) {
+        byte[] compressed = compress(data);
+        return ByteBuffer.allocate(ENCODED_HEADER_SIZE + compressed.length)
+            .putInt(ENCODED_MAGIC).putInt(id).putInt(data.length).put(compressed).array();
+    }
+
+    /**
+     * Decompress a record written by {@link #encode(byte[])}.
+     *
+     * @param record The record
+     * @return The data
+     * @throws IOException If the record is corrupt or was written with another dictionary
+     */
+    public byte[] decode(byte[] record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        if (record.length < ENCODED_HEADER_SIZE || buffer.getInt() != ENCODED_MAGIC) {
+            throw new IOException("Not a dictionary-compressed record");
+        }
+        int recordId = buffer.getInt();
+        if (recordId != id) {
+            throw new IOException(String.format("Record needs dictionary %08x, have %08x", recordId, id));
+        }
+        int length = buffer.getInt();
+        return decompress(record, ENCODED_HEADER_SIZE, record.length - ENCODED_HEADER_SIZE, length);
+    }
+
+    /**
+     * Compress data with this dictionary.
+     *
+     * @param data The data
+     * @return The zlib stream
+     */
+    public byte[] compress(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setDictionary(bytes);
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 8));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Decompress a zlib stream compressed with this dictionary.
+     *
+     * @param data The buffer holding the stream
+     * @param offset The start of the stream
+     * @param length The length of the stream
+     * @param uncompressedLength The length of the decompressed data
+     * @return The data
+     * @throws IOException If the stream is corrupt
+     */
+    public byte[] decompress(byte[] data, int offset, int length, int uncompressedLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, offset, length);
+            byte[] result = new byte[uncompressedLength];
+            int position = 0;
+            while (position < uncompressedLength && !inflater.finished()) {
+                int n = inflater.inflate(result, position, uncompressedLength - position);
+                if (n == 0 && inflater.needsDictionary()) {
+                    if (inflater.getAdler() != id) {
+                        throw new IOException("Stream was compressed with another dictionary");
+                    }
+                    inflater.setDictionary(bytes);
+                } else if (n == 0 && inflater.needsInput()) {
+                    break;
+                }
+                position += n;
+            }
+            if (position != uncompressedLength) {
+                throw new IOException("Truncated compressed data: " + position + " of " + uncompressedLength + " bytes");
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt compressed data", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Get the id recorded in data compressed with this dictionary.
+     *
+     * @return The Adler-32 checksum of the dictionary
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Get the size of the dictionary.
+     *
+     * @return The size in bytes
+     */
+    public int size() {
+        return bytes.length;
+    }
+}
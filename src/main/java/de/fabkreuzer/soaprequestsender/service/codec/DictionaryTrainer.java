@@ -0,0 +1,148 @@
+package de.fabkreuzer.soaprequestsender.service.codec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Builds a compression dictionary from sample documents.
+ * <p>
+ * The samples are cut into overlapping segments, and every segment is scored by how many samples
+ * contain each of its 8-byte substrings. Segments are then picked greedily by score, and the
+ * substrings of a picked segment no longer count for the others, so the dictionary collects
+ * boilerplate shared across documents (envelopes, namespaces, headers) instead of repeating it.
+ * Substrings found in a single sample, like IDs, are ignored. The best segments end up at the
+ * end of the dictionary, where a deflate back-reference to them is shortest.
+ */
+public final class DictionaryTrainer {
+
+    private static final int DMER_LENGTH = 8;
+    private static final int SEGMENT_LENGTH = 256;
+    private static final int SEGMENT_STEP = 32;
+    private static final int TABLE_BITS = 20;
+
+    /** Only this many bytes at the start of a sample are used. */
+    public static final int MAX_SAMPLE_BYTES = 64 * 1024;
+    /** Samples beyond this total are ignored. */
+    public static final int MAX_TOTAL_BYTES = 8 * 1024 * 1024;
+    /** The minimum number of samples needed to train a dictionary. */
+    public static final int MIN_SAMPLES = 8;
+
+    private DictionaryTrainer() {
+    }
+
+    /**
+     * Train a dictionary.
+     *
+     * @param samples The sample documents, only the start of large samples is used
+     * @param maxSize The maximum dictionary size in bytes
+     * @return The dictionary, or null if there are too few samples or they share nothing
+     */
+    public static byte[] train(List<byte[]> samples, int maxSize) {
+        List<byte[]> used = new ArrayList<>();
+        long total = 0;
+        for (byte[] sample : samples) {
+            if (sample.length < DMER_LENGTH) {
+                continue;
+            }
+            byte[] head = sample.length > MAX_SAMPLE_BYTES ? Arrays.copyOf(sample, MAX_SAMPLE_BYTES) : sample;
+            used.add(head);
+            total += head.length;
+            if (total >= MAX_TOTAL_BYTES) {
+                break;
+            }
+        }
+        if (used.size() < MIN_SAMPLES) {
+            return null;
+        }
+
+        // Count in how many samples each substring occurs, collisions only blur the scores
+        int[] frequency = new int[1 << TABLE_BITS];
+        int[] lastSample = new int[1 << TABLE_BITS];
+        Arrays.fill(lastSample, -1);
+        for (int s = 0; s < used.size(); s++) {
+            byte[] sample = used.get(s);
+            for (int i = 0; i + DMER_LENGTH <= sample.length; i++) {
+                int bucket = bucket(sample, i);
+                if (lastSample[bucket] != s) {
+                    lastSample[bucket] = s;
+                    frequency[bucket]++;
+                }
+            }
+        }
+
+        PriorityQueue<Segment> queue = new PriorityQueue<>((a, b) -> Long.compare(b.score, a.score));
+        for (int s = 0; s < used.size(); s++) {
+            byte[] sample = used.get(s);
+            for (int start = 0; start + DMER_LENGTH <= sample.length; start += SEGMENT_STEP) {
+                int end = Math.min(sample.length, start + SEGMENT_LENGTH);
+                long score = score(sample, start, end, frequency);
+                if (score > 0) {
+                    queue.add(new Segment(s, start, end, score));
+                }
+            }
+        }
+
+        // Scores only drop as segments are picked, so a segment that still beats the next best after rescoring is the best
+        List<Segment> picked = new ArrayList<>();
+        int size = 0;
+        while (!queue.isEmpty() && size < maxSize) {
+            Segment segment = queue.poll();
+            long score = score(used.get(segment.sample), segment.start, segment.end, frequency);
+            if (score <= 0) {
+                continue;
+            }
+            if (!queue.isEmpty() && score < queue.peek().score) {
+                queue.add(new Segment(segment.sample, segment.start, segment.end, score));
+                continue;
+            }
+            byte[] sample = used.get(segment.sample);
+            for (int i = segment.start; i + DMER_LENGTH <= segment.end; i++) {
+                frequency[bucket(sample, i)] = 0;
+            }
+            picked.add(segment);
+            size += segment.end - segment.start;
+        }
+        if (picked.isEmpty()) {
+            return null;
+        }
+
+        byte[] dictionary = new byte[Math.min(size, maxSize)];
+        int position = dictionary.length;
+        for (Segment segment : picked) {
+            int length = Math.min(segment.end - segment.start, position);
+            position -= length;
+            System.arraycopy(used.get(segment.sample), segment.start, dictionary, position, length);
+            if (position == 0) {
+                break;
+            }
+        }
+        return dictionary;
+    }
+
+    /**
+     * Sum the sample counts of the substrings of a segment that occur in at least two samples.
+     */
+    private static long score(byte[] sample, int start, int end, int[] frequency) {
+        long score = 0;
+        for (int i = start; i + DMER_LENGTH <= end; i++) {
+            int count = frequency[bucket(sample, i)];
+            if (count > 1) {
+                score += count;
+            }
+        }
+        return score;
+    }
+
+    private static int bucket(byte[] data, int offset) {
+        long value = 0;
+        for (int i = 0; i < DMER_LENGTH; i++) {
+            value = (value << 8) | (data[offset + i] & 0xFF);
+        }
+        return (int) ((value * 0x9E3779B97F4A7C15L) >>> (64 - TABLE_BITS));
+    }
+
+    private record Segment(int sample, int start, int end, long score) {
+    }
+}
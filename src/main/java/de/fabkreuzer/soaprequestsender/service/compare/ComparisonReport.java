@@ -0,0 +1,55 @@
+package de.fabkreuzer.soaprequestsender.service.compare;
+
+import de.fabkreuzer.soaprequestsender.service.xml.XmlDifference;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes endpoint comparisons as a plain-text report: one line per request,
+ * the differences of every endpoint that didn't match, and a summary line.
+ */
+public final class ComparisonReport {
+
+    private ComparisonReport() {
+    }
+
+    /**
+     * Write a report.
+     *
+     * @param results The comparisons
+     * @param wallClockNanos The time the whole run took
+     * @param out The writer to write to
+     * @throws IOException If writing fails
+     */
+    public static void write(List<RequestComparison> results, long wallClockNanos, Writer out) throws IOException {
+        int matching = 0;
+        for (RequestComparison result : results) {
+            out.write(String.format("%-4s %s/%s (baseline %s)%n", result.matches() ? "SAME" : "DIFF",
+                result.operationName(), result.requestName(), result.baseline().endpoint()));
+            if (result.matches()) {
+                matching++;
+                continue;
+            }
+            if (result.baseline().error() != null) {
+                out.write(String.format("       %s: %s%n", result.baseline().endpoint(), result.baseline().error()));
+            }
+            for (EndpointComparison comparison : result.comparisons()) {
+                if (comparison.matches()) {
+                    continue;
+                }
+                out.write(String.format("       %s%n", comparison.endpoint()));
+                if (comparison.error() != null) {
+                    out.write(String.format("         %s%n", comparison.error()));
+                }
+                for (XmlDifference difference : comparison.differences()) {
+                    out.write(String.format("         %s%n", difference));
+                }
+            }
+        }
+        out.write(String.format("%d of %d requests returned the same response on all endpoints in %.1f s%n",
+            matching, results.size(), wallClockNanos / 1e9));
+        out.flush();
+    }
+}
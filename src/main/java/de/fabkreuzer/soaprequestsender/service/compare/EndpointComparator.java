@@ -0,0 +1,181 @@
+package de.fabkreuzer.soaprequestsender.service.compare;
+
+import de.fabkreuzer.soaprequestsender.model.OperationWrapper;
+import de.fabkreuzer.soaprequestsender.model.Project;
+import de.fabkreuzer.soaprequestsender.model.RequestWrapper;
+import de.fabkreuzer.soaprequestsender.service.http.SoapHttpClient;
+import de.fabkreuzer.soaprequestsender.service.http.SoapResponse;
+import de.fabkreuzer.soaprequestsender.service.template.RequestTemplate;
+import de.fabkreuzer.soaprequestsender.service.xml.StreamingXmlDiff;
+import de.fabkreuzer.soaprequestsender.service.xml.XmlDifference;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends a request to all of its endpoints at the same time and compares the responses,
+ * e.g. to check a release on a test environment against production.
+ * The first endpoint is the baseline. Responses are compared with a {@link StreamingXmlDiff},
+ * and a differing HTTP status counts as a difference of its own.
+ */
+public class EndpointComparator {
+
+    private static final Logger logger = LogManager.getLogger(EndpointComparator.class);
+
+    /** The path reported for a differing HTTP status. */
+    public static final String STATUS_PATH = "HTTP status";
+
+    private final SoapHttpClient client;
+    private final StreamingXmlDiff diff;
+    private final int parallelism;
+
+    /**
+     * Creates a comparator.
+     *
+     * @param client The client used to send requests
+     * @param diff The diff used to compare responses
+     * @param parallelism The maximum number of requests compared at the same time in batch mode
+     */
+    public EndpointComparator(SoapHttpClient client, StreamingXmlDiff diff, int parallelism) {
+        this.client = client;
+        this.diff = diff;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Send a request to all of its endpoints and compare the responses.
+     * This blocks until all responses have been received.
+     *
+     * @param operation The operation containing the request
+     * @param request The request, with at least two endpoints
+     * @return The comparison
+     * @throws IllegalArgumentException If the request uses an unknown template function
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public RequestComparison compare(OperationWrapper operation, RequestWrapper request) throws InterruptedException {
+        List<String> endpoints = List.copyOf(request.getEndpoints());
+        if (endpoints.size() < 2) {
+            throw new IllegalArgumentException("Request " + request.getName() + " has fewer than two endpoints");
+        }
+        // Rendered once, so every endpoint gets the same ids and timestamps and only the responses can differ
+        byte[] body = RequestTemplate.compile(request).render();
+        List<CompletableFuture<SoapResponse>> futures = new ArrayList<>();
+        for (String endpoint : endpoints) {
+            futures.add(client.sendAsync(endpoint, body, operation.getSoapAction()));
+        }
+
+        SoapResponse baselineResponse = null;
+        EndpointComparison baseline = null;
+        List<EndpointComparison> comparisons = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            String endpoint = endpoints.get(i);
+            SoapResponse response;
+            try {
+                response = futures.get(i).get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+                EndpointComparison failed = new EndpointComparison(endpoint, 0, 0, List.of(), String.valueOf(cause));
+                if (i == 0) {
+                    baseline = failed;
+                } else {
+                    comparisons.add(failed);
+                }
+                continue;
+            }
+            if (i == 0) {
+                baselineResponse = response;
+                baseline = new EndpointComparison(endpoint, response.statusCode(), response.latencyNanos(),
+                    List.of(), null);
+            } else if (baselineResponse == null) {
+                comparisons.add(new EndpointComparison(endpoint, response.statusCode(), response.latencyNanos(),
+                    List.of(), "No baseline response"));
+            } else {
+                comparisons.add(compareResponses(baselineResponse, response));
+            }
+        }
+        return new RequestComparison(operation.getName(), request.getName(), baseline, comparisons);
+    }
+
+    /**
+     * Compare every request of a project that has at least two endpoints.
+     * Requests are compared in parallel on a bounded pool, the endpoints of each request concurrently.
+     *
+     * @param project The project
+     * @return The comparisons in operation and request order
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public List<RequestComparison> compareProject(Project project) throws InterruptedException {
+        List<OperationWrapper> operations = new ArrayList<>();
+        List<RequestWrapper> requests = new ArrayList<>();
+        for (OperationWrapper operation : project.getOperations()) {
+            for (RequestWrapper request : operation.getRequests()) {
+                if (request.getEndpoints().size() >= 2) {
+                    operations.add(operation);
+                    requests.add(request);
+                }
+            }
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, requests.size())),
+            runnable -> {
+                Thread thread = new Thread(runnable, "endpoint-comparator-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        try {
+            List<Future<RequestComparison>> futures = new ArrayList<>();
+            for (int i = 0; i < requests.size(); i++) {
+                OperationWrapper operation = operations.get(i);
+                RequestWrapper request = requests.get(i);
+                futures.add(executor.submit(() -> compare(operation, request)));
+            }
+            List<RequestComparison> results = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    EndpointComparison failed = new EndpointComparison(requests.get(i).getEndpoints().get(0), 0, 0,
+                        List.of(), String.valueOf(e.getCause()));
+                    results.add(new RequestComparison(operations.get(i).getName(), requests.get(i).getName(),
+                        failed, List.of()));
+                }
+            }
+            logger.info("Compared {} requests of {}: {} differ", results.size(), project.getName(),
+                results.stream().filter(result -> !result.matches()).count());
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private EndpointComparison compareResponses(SoapResponse baseline, SoapResponse response) {
+        List<XmlDifference> differences = new ArrayList<>();
+        if (baseline.statusCode() != response.statusCode()) {
+            differences.add(new XmlDifference(STATUS_PATH, String.valueOf(baseline.statusCode()),
+                String.valueOf(response.statusCode())));
+        }
+        String error = null;
+        try {
+            differences.addAll(diff.compare(new StringReader(baseline.body()), new StringReader(response.body())));
+        } catch (XMLStreamException e) {
+            // Bodies that aren't XML, e.g. HTML error pages, can still be equal
+            if (!baseline.body().equals(response.body())) {
+                error = "Response is not well-formed XML: " + e.getMessage();
+            }
+        }
+        return new EndpointComparison(response.endpoint(), response.statusCode(), response.latencyNanos(),
+            differences, error);
+    }
+}
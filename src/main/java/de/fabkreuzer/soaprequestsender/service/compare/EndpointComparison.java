@@ -0,0 +1,27 @@
+package de.fabkreuzer.soaprequestsender.service.compare;
+
+import de.fabkreuzer.soaprequestsender.service.xml.XmlDifference;
+
+import java.util.List;
+
+/**
+ * The response of one endpoint compared with the baseline response.
+ *
+ * @param endpoint The endpoint
+ * @param statusCode The HTTP status code, or 0 if no response was received
+ * @param latencyNanos The latency of the call
+ * @param differences The differences to the baseline response
+ * @param error The reason no comparison was possible, or null
+ */
+public record EndpointComparison(String endpoint, int statusCode, long latencyNanos,
+                                 List<XmlDifference> differences, String error) {
+
+    /**
+     * Check whether the response matches the baseline.
+     *
+     * @return True if the response was compared and no differences were found
+     */
+    public boolean matches() {
+        return error == null && differences.isEmpty();
+    }
+}
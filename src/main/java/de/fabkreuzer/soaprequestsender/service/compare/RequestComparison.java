@@ -0,0 +1,24 @@
+package de.fabkreuzer.soaprequestsender.service.compare;
+
+import java.util.List;
+
+/**
+ * The responses of all endpoints of a request, compared with the response of the first endpoint.
+ *
+ * @param operationName The name of the operation
+ * @param requestName The name of the request
+ * @param baseline The result of the first endpoint, with no differences
+ * @param comparisons The results of the other endpoints
+ */
+public record RequestComparison(String operationName, String requestName, EndpointComparison baseline,
+                                List<EndpointComparison> comparisons) {
+
+    /**
+     * Check whether all endpoints returned the same response.
+     *
+     * @return True if every call succeeded and matched the baseline
+     */
+    public boolean matches() {
+        return baseline.error() == null && comparisons.stream().allMatch(EndpointComparison::matches);
+    }
+}
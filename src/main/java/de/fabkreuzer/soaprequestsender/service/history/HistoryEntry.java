@@ -0,0 +1,69 @@
+package de.fabkreuzer.soaprequestsender.service.history;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A sent request and the response it got, with timing metadata.
+ *
+ * @param timestampMillis When the request was sent, in epoch milliseconds
+ * @param operationName The name of the operation
+ * @param requestName The name of the request
+ * @param endpoint The endpoint the request was sent to
+ * @param statusCode The HTTP status code, or 0 if no response was received
+ * @param latencyNanos The time until the response was fully read
+ * @param request The request envelope as sent
+ * @param response The response body, or the error message if the call failed
+ */
+public record HistoryEntry(long timestampMillis,
+                           String operationName,
+                           String requestName,
+                           String endpoint,
+                           int statusCode,
+                           long latencyNanos,
+                           String request,
+                           String response) {
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(timestampMillis);
+        writeString(out, operationName);
+        writeString(out, requestName);
+        writeString(out, endpoint);
+        out.writeInt(statusCode);
+        out.writeLong(latencyNanos);
+        writeString(out, request);
+        writeString(out, response);
+    }
+
+    static HistoryEntry readFrom(DataInput in) throws IOException {
+        return new HistoryEntry(in.readLong(), readString(in), readString(in), readString(in),
+            in.readInt(), in.readLong(), readString(in), readString(in));
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%tF %<tT  %s  %d  %.1f ms", timestampMillis, requestName, statusCode, latencyNanos / 1_000_000.0);
+    }
+}
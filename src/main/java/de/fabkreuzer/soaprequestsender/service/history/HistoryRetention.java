@@ -0,0 +1,21 @@
+package de.fabkreuzer.soaprequestsender.service.history;
+
+import java.time.Duration;
+
+/**
+ * How much response history to keep per project.
+ *
+ * @param maxAge Entries older than this are removed on compaction
+ * @param maxBytes Oldest segments are removed on compaction until the history of a project fits this size
+ */
+public record HistoryRetention(Duration maxAge, long maxBytes) {
+
+    /**
+     * Keep a week of history, at most 512 MB per project.
+     *
+     * @return The default retention
+     */
+    public static HistoryRetention defaults() {
+        return new HistoryRetention(Duration.ofDays(7), 512L * 1024 * 1024);
+    }
+}
@@ -0,0 +1,356 @@
+package de.fabkreuzer.soaprequestsender.service.history;
+
+import de.fabkreuzer.soaprequestsender.service.codec.DeflateDictionary;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * One append-only log file of compressed blocks plus its block index.
+ * <p>
+ * Log block layout: magic, compressed length, uncompressed length, entry count,
+ * min timestamp, max timestamp, compressed entries. The index file holds min timestamp,
+ * max timestamp and log offset per block, so a range query only decompresses overlapping blocks.
+ * Blocks compressed with the project's trained dictionary have their own magic, older plain blocks stay readable.
+ * A torn block at the end of the log, left by a crash, is cut off when the segment is opened.
+ */
+class HistorySegment {
+
+    private static final Logger logger = LogManager.getLogger(HistorySegment.class);
+
+    static final String LOG_SUFFIX = ".log";
+    static final String INDEX_SUFFIX = ".idx";
+
+    private static final int BLOCK_MAGIC = 0x48424C4B;
+    private static final int DICTIONARY_BLOCK_MAGIC = 0x48424C44;
+    private static final int BLOCK_HEADER_SIZE = 32;
+    private static final int INDEX_ENTRY_SIZE = 24;
+
+    private final Path logPath;
+    private final Path indexPath;
+    private final List<BlockInfo> blocks = new ArrayList<>();
+    private long size;
+
+    private HistorySegment(Path logPath) {
+        this.logPath = logPath;
+        this.indexPath = siblingIndexPath(logPath);
+    }
+
+    /**
+     * Create an empty segment.
+     */
+    static HistorySegment create(Path directory, long firstTimestamp) throws IOException {
+        Path logPath = directory.resolve(String.format("%020d", firstTimestamp) + LOG_SUFFIX);
+        Files.write(logPath, new byte[0], StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        Files.write(siblingIndexPath(logPath), new byte[0], StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new HistorySegment(logPath);
+    }
+
+    /**
+     * Open an existing segment, recovering its index from the log if needed.
+     */
+    static HistorySegment open(Path logPath) throws IOException {
+        HistorySegment segment = new HistorySegment(logPath);
+        segment.size = Files.size(logPath);
+        if (!segment.loadIndex()) {
+            segment.rebuildIndex();
+        }
+        return segment;
+    }
+
+    /**
+     * Compress entries into a block and append it to the log and the index.
+     * The dictionary is optional, without one the block is compressed with plain deflate.
+     */
+    void appendBlock(List<HistoryEntry> entries, DeflateDictionary dictionary) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        long minTs = Long.MAX_VALUE;
+        long maxTs = Long.MIN_VALUE;
+        try (DataOutputStream out = new DataOutputStream(raw)) {
+            for (HistoryEntry entry : entries) {
+                entry.writeTo(out);
+                minTs = Math.min(minTs, entry.timestampMillis());
+                maxTs = Math.max(maxTs, entry.timestampMillis());
+            }
+        }
+        byte[] uncompressed = raw.toByteArray();
+        byte[] compressed = dictionary != null ? dictionary.compress(uncompressed) : compress(uncompressed);
+
+        ByteBuffer block = ByteBuffer.allocate(BLOCK_HEADER_SIZE + compressed.length);
+        block.putInt(dictionary != null ? DICTIONARY_BLOCK_MAGIC : BLOCK_MAGIC).putInt(compressed.length).putInt(uncompressed.length).putInt(entries.size())
+            .putLong(minTs).putLong(maxTs).put(compressed).flip();
+
+        long offset = size;
+        try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.WRITE)) {
+            channel.position(offset);
+            while (block.hasRemaining()) {
+                channel.write(block);
+            }
+        }
+
+        ByteBuffer indexEntry = ByteBuffer.allocate(INDEX_ENTRY_SIZE).putLong(minTs).putLong(maxTs).putLong(offset).flip();
+        try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(indexEntry);
+        }
+
+        blocks.add(new BlockInfo(minTs, maxTs, offset));
+        size = offset + BLOCK_HEADER_SIZE + compressed.length;
+    }
+
+    /**
+     * Read the entries of all blocks overlapping a time range that match a filter.
+     */
+    void read(long fromMillis, long toMillis, Predicate<HistoryEntry> filter, DeflateDictionary dictionary,
+              List<HistoryEntry> results) throws IOException {
+        if (blocks.isEmpty() || getMaxTimestamp() < fromMillis || getMinTimestamp() > toMillis) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.READ)) {
+            for (BlockInfo block : blocks) {
+                if (block.maxTs < fromMillis || block.minTs > toMillis) {
+                    continue;
+                }
+                for (HistoryEntry entry : readBlock(channel, block.offset, dictionary)) {
+                    long ts = entry.timestampMillis();
+                    if (ts >= fromMillis && ts <= toMillis && filter.test(entry)) {
+                        results.add(entry);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Read every entry of this segment.
+     */
+    List<HistoryEntry> readAll(DeflateDictionary dictionary) throws IOException {
+        List<HistoryEntry> entries = new ArrayList<>();
+        read(Long.MIN_VALUE, Long.MAX_VALUE, entry -> true, dictionary, entries);
+        return entries;
+    }
+
+    /**
+     * Delete the log and index files.
+     */
+    void delete() throws IOException {
+        Files.deleteIfExists(logPath);
+        Files.deleteIfExists(indexPath);
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return blocks.isEmpty();
+    }
+
+    long getMinTimestamp() {
+        long min = Long.MAX_VALUE;
+        for (BlockInfo block : blocks) {
+            min = Math.min(min, block.minTs);
+        }
+        return min;
+    }
+
+    long getMaxTimestamp() {
+        long max = Long.MIN_VALUE;
+        for (BlockInfo block : blocks) {
+            max = Math.max(max, block.maxTs);
+        }
+        return max;
+    }
+
+    Path getLogPath() {
+        return logPath;
+    }
+
+    private List<HistoryEntry> readBlock(FileChannel channel, long offset, DeflateDictionary dictionary)
+            throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+        readFully(channel, header, offset);
+        header.flip();
+        int magic = header.getInt();
+        if (!isBlockMagic(magic)) {
+            throw new IOException("Corrupt history block at " + offset + " in " + logPath);
+        }
+        if (magic == DICTIONARY_BLOCK_MAGIC && dictionary == null) {
+            throw new IOException("History block at " + offset + " in " + logPath + " needs the missing dictionary");
+        }
+        int compressedLength = header.getInt();
+        int uncompressedLength = header.getInt();
+        int count = header.getInt();
+
+        ByteBuffer compressed = ByteBuffer.allocate(compressedLength);
+        readFully(channel, compressed, offset + BLOCK_HEADER_SIZE);
+        byte[] uncompressed = magic == DICTIONARY_BLOCK_MAGIC
+            ? dictionary.decompress(compressed.array(), 0, compressedLength, uncompressedLength)
+            : decompress(compressed.array(), uncompressedLength);
+
+        List<HistoryEntry> entries = new ArrayList<>(count);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(uncompressed))) {
+            for (int i = 0; i < count; i++) {
+                entries.add(HistoryEntry.readFrom(in));
+            }
+        }
+        return entries;
+    }
+
+    private boolean loadIndex() throws IOException {
+        if (!Files.exists(indexPath)) {
+            return false;
+        }
+        byte[] index = Files.readAllBytes(indexPath);
+        if (index.length % INDEX_ENTRY_SIZE != 0) {
+            return false;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(index);
+        List<BlockInfo> loaded = new ArrayList<>();
+        while (buffer.hasRemaining()) {
+            loaded.add(new BlockInfo(buffer.getLong(), buffer.getLong(), buffer.getLong()));
+        }
+
+        // The index is only trusted if its last block ends exactly at the end of the log
+        long expectedSize = 0;
+        if (!loaded.isEmpty()) {
+            long lastOffset = loaded.get(loaded.size() - 1).offset;
+            expectedSize = lastOffset + BLOCK_HEADER_SIZE + readCompressedLength(lastOffset);
+        }
+        if (expectedSize != size) {
+            return false;
+        }
+        blocks.addAll(loaded);
+        return true;
+    }
+
+    private void rebuildIndex() throws IOException {
+        blocks.clear();
+        long offset = 0;
+        try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+            while (offset + BLOCK_HEADER_SIZE <= size) {
+                header.clear();
+                readFully(channel, header, offset);
+                header.flip();
+                if (!isBlockMagic(header.getInt())) {
+                    break;
+                }
+                int compressedLength = header.getInt();
+                header.getInt();
+                header.getInt();
+                long minTs = header.getLong();
+                long maxTs = header.getLong();
+                long next = offset + BLOCK_HEADER_SIZE + compressedLength;
+                if (compressedLength < 0 || next > size) {
+                    break;
+                }
+                blocks.add(new BlockInfo(minTs, maxTs, offset));
+                offset = next;
+            }
+            if (offset < size) {
+                logger.warn("Truncating {} torn bytes at the end of {}", size - offset, logPath);
+                channel.truncate(offset);
+                size = offset;
+            }
+        }
+
+        ByteBuffer index = ByteBuffer.allocate(blocks.size() * INDEX_ENTRY_SIZE);
+        for (BlockInfo block : blocks) {
+            index.putLong(block.minTs).putLong(block.maxTs).putLong(block.offset);
+        }
+        Files.write(indexPath, index.array());
+    }
+
+    private int readCompressedLength(long offset) throws IOException {
+        if (offset + BLOCK_HEADER_SIZE > size) {
+            return Integer.MIN_VALUE;
+        }
+        try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(8);
+            readFully(channel, header, offset);
+            header.flip();
+            return isBlockMagic(header.getInt()) ? header.getInt() : Integer.MIN_VALUE;
+        }
+    }
+
+    private static boolean isBlockMagic(int magic) {
+        return magic == BLOCK_MAGIC || magic == DICTIONARY_BLOCK_MAGIC;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of history file");
+            }
+        }
+    }
+
+    private static byte[] compress(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] decompress(byte[] data, int uncompressedLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            byte[] result = new byte[uncompressedLength];
+            int offset = 0;
+            while (offset < uncompressedLength && !inflater.finished()) {
+                int n = inflater.inflate(result, offset, uncompressedLength - offset);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                offset += n;
+            }
+            if (offset != uncompressedLength) {
+                throw new IOException("Corrupt history block in " + data.length + " compressed bytes");
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt history block", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static Path siblingIndexPath(Path logPath) {
+        String fileName = logPath.getFileName().toString();
+        return logPath.resolveSibling(fileName.substring(0, fileName.length() - LOG_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+
+    private record BlockInfo(long minTs, long maxTs, long offset) {
+    }
+}
@@ -0,0 +1,363 @@
+package de.fabkreuzer.soaprequestsender.service.history;
+
+import de.fabkreuzer.soaprequestsender.service.codec.DeflateDictionary;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Persists every sent request and its response per project.
+ * <p>
+ * Each project gets a directory below history/ with a sequence of append-only segment files.
+ * Entries are buffered into blocks of roughly 64 KB that are compressed as a whole, so the
+ * repetitive SOAP markup compresses well and thousands of calls end up in a handful of files.
+ * Pending entries are written at least every few seconds and on shutdown.
+ * Retention is applied by compaction, which drops or rewrites whole segments, including the active one.
+ * With {@link DeflateDictionary#isEnabled() storage compression} enabled, blocks are compressed with a
+ * dictionary trained on the project's first requests and responses.
+ */
+public class ResponseHistoryStore implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(ResponseHistoryStore.class);
+
+    private static final String HISTORY_DIR = "history";
+    private static final int BLOCK_BYTES = 64 * 1024;
+    private static final int MAX_BLOCK_ENTRIES = 512;
+    private static final long MAX_SEGMENT_BYTES = 16L * 1024 * 1024;
+    private static final long FLUSH_INTERVAL_SECONDS = 5;
+    private static final long COMPACTION_INTERVAL_MINUTES = 60;
+
+    private final Path historyDir;
+    private final HistoryRetention retention;
+    private final Map<String, ProjectHistory> projects = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Creates a store below the default history directory with the default retention.
+     */
+    public ResponseHistoryStore() {
+        this(Paths.get(HISTORY_DIR), HistoryRetention.defaults());
+    }
+
+    /**
+     * Creates a store.
+     *
+     * @param historyDir The directory holding one subdirectory per project
+     * @param retention How much history to keep per project
+     */
+    public ResponseHistoryStore(Path historyDir, HistoryRetention retention) {
+        this.historyDir = historyDir;
+        this.retention = retention;
+        try {
+            Files.createDirectories(historyDir);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to initialize history directory", e);
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "response-history");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        scheduler.scheduleWithFixedDelay(this::compactQuietly, 1, COMPACTION_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "response-history-shutdown"));
+    }
+
+    /**
+     * Record a call.
+     *
+     * @param projectName The name of the project
+     * @param entry The call to record
+     * @throws IOException If a full block can't be written
+     */
+    public void append(String projectName, HistoryEntry entry) throws IOException {
+        project(projectName).append(entry);
+    }
+
+    /**
+     * Find the calls of a project in a time range.
+     *
+     * @param projectName The name of the project
+     * @param fromMillis The start of the range in epoch milliseconds, inclusive
+     * @param toMillis The end of the range in epoch milliseconds, inclusive
+     * @param filter Selects the entries to return
+     * @return The matching entries, oldest first
+     * @throws IOException If the history can't be read
+     */
+    public List<HistoryEntry> query(String projectName, long fromMillis, long toMillis,
+                                    Predicate<HistoryEntry> filter) throws IOException {
+        return project(projectName).query(fromMillis, toMillis, filter);
+    }
+
+    /**
+     * Write all buffered entries to disk.
+     *
+     * @throws IOException If a block can't be written
+     */
+    public void flush() throws IOException {
+        for (ProjectHistory history : projects.values()) {
+            history.flush();
+        }
+    }
+
+    /**
+     * Apply the retention to all projects that have been used since startup, or exist on disk.
+     *
+     * @throws IOException If segments can't be rewritten or deleted
+     */
+    public void compact() throws IOException {
+        if (Files.isDirectory(historyDir)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(historyDir, Files::isDirectory)) {
+                for (Path path : stream) {
+                    project(path.getFileName().toString());
+                }
+            }
+        }
+        long cutoff = System.currentTimeMillis() - retention.maxAge().toMillis();
+        for (ProjectHistory history : projects.values()) {
+            history.compact(cutoff, retention.maxBytes());
+        }
+    }
+
+    /**
+     * Delete the history of a project.
+     *
+     * @param projectName The name of the project
+     * @throws IOException If the files can't be deleted
+     */
+    public void deleteProject(String projectName) throws IOException {
+        ProjectHistory history = projects.remove(projectName);
+        if (history == null) {
+            history = new ProjectHistory(historyDir.resolve(projectName));
+        }
+        history.delete();
+    }
+
+    /**
+     * Write pending entries and stop the background flushing.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        flushQuietly();
+    }
+
+    private ProjectHistory project(String projectName) {
+        return projects.computeIfAbsent(projectName, name -> new ProjectHistory(historyDir.resolve(name)));
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            logger.error("Failed to flush response history", e);
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException e) {
+            logger.error("Failed to compact response history", e);
+        }
+    }
+
+    /**
+     * The segments and pending block of a single project.
+     */
+    private static final class ProjectHistory {
+
+        private final Path directory;
+        private final List<HistorySegment> segments = new ArrayList<>();
+        private final List<HistoryEntry> pending = new ArrayList<>();
+        private DeflateDictionary dictionary;
+        private long pendingBytes;
+        private boolean opened;
+
+        private ProjectHistory(Path directory) {
+            this.directory = directory;
+        }
+
+        synchronized void append(HistoryEntry entry) throws IOException {
+            open();
+            pending.add(entry);
+            pendingBytes += estimateSize(entry);
+            if (pendingBytes >= BLOCK_BYTES || pending.size() >= MAX_BLOCK_ENTRIES) {
+                flush();
+            }
+        }
+
+        synchronized List<HistoryEntry> query(long fromMillis, long toMillis, Predicate<HistoryEntry> filter)
+                throws IOException {
+            open();
+            List<HistoryEntry> results = new ArrayList<>();
+            for (HistorySegment segment : segments) {
+                segment.read(fromMillis, toMillis, filter, dictionary, results);
+            }
+            for (HistoryEntry entry : pending) {
+                if (entry.timestampMillis() >= fromMillis && entry.timestampMillis() <= toMillis && filter.test(entry)) {
+                    results.add(entry);
+                }
+            }
+            results.sort(Comparator.comparingLong(HistoryEntry::timestampMillis));
+            return results;
+        }
+
+        synchronized void flush() throws IOException {
+            if (pending.isEmpty()) {
+                return;
+            }
+            open();
+            if (dictionary == null && DeflateDictionary.isEnabled()) {
+                trainDictionary();
+            }
+            HistorySegment active = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (active == null || active.getSize() >= MAX_SEGMENT_BYTES) {
+                active = createSegment(pending.get(0).timestampMillis());
+                segments.add(active);
+            }
+            active.appendBlock(pending, dictionary);
+            pending.clear();
+            pendingBytes = 0;
+        }
+
+        synchronized void compact(long cutoffMillis, long maxBytes) throws IOException {
+            open();
+            // The active segment is aged out too, a quiet project may never fill it; appends are locked out meanwhile
+            for (HistorySegment segment : new ArrayList<>(segments)) {
+                if (segment.isEmpty() || segment.getMaxTimestamp() < cutoffMillis) {
+                    segment.delete();
+                    segments.remove(segment);
+                } else if (segment.getMinTimestamp() < cutoffMillis) {
+                    rewrite(segment, cutoffMillis);
+                }
+            }
+
+            long total = segments.stream().mapToLong(HistorySegment::getSize).sum();
+            while (total > maxBytes && segments.size() > 1) {
+                HistorySegment oldest = segments.remove(0);
+                total -= oldest.getSize();
+                oldest.delete();
+            }
+        }
+
+        synchronized void delete() throws IOException {
+            pending.clear();
+            pendingBytes = 0;
+            for (HistorySegment segment : segments) {
+                segment.delete();
+            }
+            segments.clear();
+            dictionary = null;
+            if (Files.isDirectory(directory)) {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                    for (Path path : stream) {
+                        Files.delete(path);
+                    }
+                }
+                Files.delete(directory);
+            }
+        }
+
+        /**
+         * Replace a partly expired segment by one holding only its live entries.
+         */
+        private void rewrite(HistorySegment segment, long cutoffMillis) throws IOException {
+            List<HistoryEntry> live = new ArrayList<>();
+            for (HistoryEntry entry : segment.readAll(dictionary)) {
+                if (entry.timestampMillis() >= cutoffMillis) {
+                    live.add(entry);
+                }
+            }
+            int index = segments.indexOf(segment);
+            HistorySegment replacement = createSegment(live.get(0).timestampMillis());
+            List<HistoryEntry> block = new ArrayList<>();
+            long blockBytes = 0;
+            for (HistoryEntry entry : live) {
+                block.add(entry);
+                blockBytes += estimateSize(entry);
+                if (blockBytes >= BLOCK_BYTES || block.size() >= MAX_BLOCK_ENTRIES) {
+                    replacement.appendBlock(block, dictionary);
+                    block.clear();
+                    blockBytes = 0;
+                }
+            }
+            replacement.appendBlock(block, dictionary);
+            segments.set(index, replacement);
+            segment.delete();
+        }
+
+        /**
+         * Train the project's dictionary from the pending requests and responses.
+         * Once saved it is kept for the lifetime of the history, since every block written with it depends on it.
+         */
+        private void trainDictionary() throws IOException {
+            List<byte[]> samples = new ArrayList<>();
+            for (HistoryEntry entry : pending) {
+                if (entry.request() != null) {
+                    samples.add(entry.request().getBytes(StandardCharsets.UTF_8));
+                }
+                if (entry.response() != null) {
+                    samples.add(entry.response().getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            DeflateDictionary trained = DeflateDictionary.train(samples);
+            if (trained != null) {
+                trained.save(directory.resolve(DeflateDictionary.FILE_NAME));
+                dictionary = trained;
+                logger.info("Trained a {} byte history dictionary for {}", trained.size(), directory);
+            }
+        }
+
+        private HistorySegment createSegment(long firstTimestamp) throws IOException {
+            long name = firstTimestamp;
+            while (Files.exists(directory.resolve(String.format("%020d", name) + HistorySegment.LOG_SUFFIX))) {
+                name++;
+            }
+            return HistorySegment.create(directory, name);
+        }
+
+        private void open() throws IOException {
+            if (opened) {
+                return;
+            }
+            Files.createDirectories(directory);
+            List<Path> logs = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + HistorySegment.LOG_SUFFIX)) {
+                for (Path path : stream) {
+                    logs.add(path);
+                }
+            }
+            logs.sort(Comparator.comparing(path -> path.getFileName().toString()));
+            dictionary = DeflateDictionary.load(directory.resolve(DeflateDictionary.FILE_NAME));
+            for (Path log : logs) {
+                segments.add(HistorySegment.open(log));
+            }
+            opened = true;
+        }
+
+        private static long estimateSize(HistoryEntry entry) {
+            long size = 64;
+            size += entry.request() != null ? entry.request().length() : 0;
+            size += entry.response() != null ? entry.response().length() : 0;
+            return size;
+        }
+    }
+}
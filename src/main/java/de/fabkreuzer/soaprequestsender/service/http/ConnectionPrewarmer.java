@@ -0,0 +1,88 @@
+package de.fabkreuzer.soaprequestsender.service.http;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opens a pooled connection to an endpoint ahead of the first send.
+ * A HEAD request through the shared {@link HttpClient} runs DNS resolution, the TCP connect
+ * and the TLS handshake in the background, and the connection stays in the client's pool.
+ * It uses the same HTTP version as the sends, otherwise the warmed connection wouldn't be reused.
+ * The status of the HEAD request is irrelevant, many SOAP endpoints answer it with 405.
+ */
+public class ConnectionPrewarmer {
+
+    private static final Logger logger = LogManager.getLogger(ConnectionPrewarmer.class);
+
+    private static final Duration PREWARM_TIMEOUT = Duration.ofSeconds(10);
+
+    private final SoapHttpClient client;
+    private final long rewarmIntervalNanos;
+    private final Map<String, Long> lastWarmed = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a prewarmer for the connection pool of the given client.
+     *
+     * @param client The client whose pool should be warmed
+     * @param rewarmInterval The minimum time between two prewarms of the same host
+     */
+    public ConnectionPrewarmer(SoapHttpClient client, Duration rewarmInterval) {
+        this.client = client;
+        this.rewarmIntervalNanos = rewarmInterval.toNanos();
+    }
+
+    /**
+     * Prewarm a connection to the host of an endpoint without blocking the caller.
+     * Calls for a host that was warmed recently are ignored.
+     *
+     * @param endpoint The endpoint URL, may be null or invalid
+     */
+    public void prewarm(String endpoint) {
+        if (endpoint == null || endpoint.isBlank()) {
+            return;
+        }
+
+        URI uri;
+        try {
+            uri = URI.create(endpoint.trim());
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        if (uri.getHost() == null || !("http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme()))) {
+            return;
+        }
+
+        String host = uri.getScheme().toLowerCase() + "://" + uri.getAuthority();
+        long now = System.nanoTime();
+        Long previous = lastWarmed.get(host);
+        if (previous != null && now - previous < rewarmIntervalNanos) {
+            return;
+        }
+        lastWarmed.put(host, now);
+
+        HttpRequest request = client.newRequest(uri)
+            .method("HEAD", HttpRequest.BodyPublishers.noBody())
+            .timeout(PREWARM_TIMEOUT)
+            .build();
+
+        client.getHttpClient().sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .whenComplete((response, error) -> {
+                if (error != null) {
+                    // Allow another attempt on the next selection
+                    lastWarmed.remove(host);
+                    logger.debug("Prewarming {} failed: {}", host, error.getMessage());
+                } else {
+                    logger.debug("Prewarmed {} over {} in {} ms", host, response.version(),
+                        (System.nanoTime() - now) / 1_000_000);
+                }
+            });
+    }
+}
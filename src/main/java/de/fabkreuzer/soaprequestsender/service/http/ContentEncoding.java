@@ -0,0 +1,151 @@
+package de.fabkreuzer.soaprequestsender.service.http;
+
+import org.brotli.dec.BrotliInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * HTTP content codings supported for SOAP requests and responses.
+ * Responses are decoded as a stream, so a compressed body is never held in memory twice.
+ */
+public enum ContentEncoding {
+
+    IDENTITY("identity"),
+    GZIP("gzip"),
+    DEFLATE("deflate"),
+    BR("br");
+
+    /**
+     * Value of the Accept-Encoding header sent with every request.
+     */
+    public static final String ACCEPT_ENCODING = "gzip, deflate, br";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String token;
+
+    ContentEncoding(String token) {
+        this.token = token;
+    }
+
+    /**
+     * Get the token used for this coding in HTTP headers.
+     *
+     * @return The header token
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Parse a single coding from a header token.
+     *
+     * @param token The header token, may be null
+     * @return The matching coding, IDENTITY for null or empty tokens
+     * @throws IOException If the coding is not supported
+     */
+    public static ContentEncoding fromToken(String token) throws IOException {
+        if (token == null || token.isBlank()) {
+            return IDENTITY;
+        }
+        String normalized = token.trim().toLowerCase(Locale.ROOT);
+        if ("x-gzip".equals(normalized)) {
+            return GZIP;
+        }
+        for (ContentEncoding encoding : values()) {
+            if (encoding.token.equals(normalized)) {
+                return encoding;
+            }
+        }
+        throw new IOException("Unsupported content encoding: " + token);
+    }
+
+    /**
+     * Wrap a stream so that reading from it yields the decoded body.
+     * A Content-Encoding header may list several codings, they are undone in reverse order.
+     *
+     * @param headerValue The Content-Encoding header value, may be null
+     * @param in The encoded stream
+     * @return The decoded stream
+     * @throws IOException If a coding is not supported or the stream header is invalid
+     */
+    public static InputStream decode(String headerValue, InputStream in) throws IOException {
+        if (headerValue == null || headerValue.isBlank()) {
+            return in;
+        }
+        String[] tokens = headerValue.split(",");
+        InputStream decoded = in;
+        for (int i = tokens.length - 1; i >= 0; i--) {
+            decoded = fromToken(tokens[i]).decode(decoded);
+        }
+        return decoded;
+    }
+
+    /**
+     * Wrap a stream so that reading from it yields the decoded body.
+     *
+     * @param in The encoded stream
+     * @return The decoded stream
+     * @throws IOException If the stream header is invalid
+     */
+    public InputStream decode(InputStream in) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPInputStream(in, BUFFER_SIZE);
+            case DEFLATE:
+                // "deflate" should be zlib-wrapped, but some servers send raw deflate data
+                BufferedInputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+                buffered.mark(2);
+                int cmf = buffered.read();
+                int flg = buffered.read();
+                buffered.reset();
+                boolean zlib = cmf != -1 && flg != -1 && (cmf & 0x0F) == 8 && ((cmf << 8) | flg) % 31 == 0;
+                return new InflaterInputStream(buffered, new Inflater(!zlib), BUFFER_SIZE);
+            case BR:
+                return new BrotliInputStream(in);
+            default:
+                return in;
+        }
+    }
+
+    /**
+     * Encode a request body with this coding.
+     *
+     * @param body The body to encode
+     * @return The encoded body
+     * @throws IOException If the body can't be encoded
+     * @throws UnsupportedOperationException For brotli, which is only supported for decoding
+     */
+    public byte[] encode(byte[] body) throws IOException {
+        if (this == IDENTITY) {
+            return body;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (OutputStream out = wrap(bytes)) {
+            out.write(body);
+        }
+        return bytes.toByteArray();
+    }
+
+    private OutputStream wrap(OutputStream out) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPOutputStream(out, BUFFER_SIZE);
+            case DEFLATE:
+                return new DeflaterOutputStream(out, new Deflater(Deflater.DEFAULT_COMPRESSION), BUFFER_SIZE);
+            default:
+                throw new UnsupportedOperationException("Request encoding not supported: " + token);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package de.fabkreuzer.soaprequestsender.service.http;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the bytes read from the wrapped stream.
+ */
+public class CountingInputStream extends FilterInputStream {
+
+    private long count;
+
+    /**
+     * Creates a counting stream.
+     *
+     * @param in The stream to count
+     */
+    public CountingInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            count++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            count += n;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count += skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Get the number of bytes read or skipped so far.
+     *
+     * @return The count
+     */
+    public long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,133 @@
+package de.fabkreuzer.soaprequestsender.service.http;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches parsed client keystores and the SSL contexts built from them.
+ * Reusing one SSLContext per keystore is what lets the JDK resume TLS sessions across
+ * connections, so every client for the same keystore must get the same instance.
+ * Entries are keyed by file path and modification time, so a replaced keystore is picked up.
+ */
+public class KeyStoreCache {
+
+    private static final Logger logger = LogManager.getLogger(KeyStoreCache.class);
+
+    private static final KeyStoreCache SHARED = new KeyStoreCache();
+
+    private static final int SESSION_CACHE_SIZE = 1000;
+    private static final int SESSION_TIMEOUT_SECONDS = 24 * 60 * 60;
+
+    private final Map<String, SSLContext> contexts = new ConcurrentHashMap<>();
+
+    /**
+     * Get the cache shared by the whole application.
+     *
+     * @return The shared cache
+     */
+    public static KeyStoreCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Get the SSL context for the client keystore configured through the standard
+     * javax.net.ssl.keyStore, keyStorePassword and keyStoreType system properties.
+     * Trust material always comes from the default trust store settings.
+     *
+     * @return The SSL context
+     * @throws GeneralSecurityException If the keystore can't be used
+     * @throws IOException If the keystore can't be read
+     */
+    public SSLContext getDefaultSslContext() throws GeneralSecurityException, IOException {
+        String keyStore = System.getProperty("javax.net.ssl.keyStore");
+        String password = System.getProperty("javax.net.ssl.keyStorePassword", "");
+        String type = System.getProperty("javax.net.ssl.keyStoreType", KeyStore.getDefaultType());
+        if (keyStore == null || keyStore.isBlank() || "NONE".equals(keyStore)) {
+            return getSslContext(null, null, type);
+        }
+        return getSslContext(Paths.get(keyStore), password.toCharArray(), type);
+    }
+
+    /**
+     * Get the SSL context for a client keystore, parsing it only on first use.
+     *
+     * @param keyStorePath The keystore file, or null for a context without client certificate
+     * @param password The keystore and key password
+     * @param type The keystore type, e.g. PKCS12 or JKS
+     * @return The SSL context
+     * @throws GeneralSecurityException If the keystore can't be used
+     * @throws IOException If the keystore can't be read
+     */
+    public SSLContext getSslContext(Path keyStorePath, char[] password, String type)
+            throws GeneralSecurityException, IOException {
+        String key = cacheKey(keyStorePath, password, type);
+        SSLContext context = contexts.get(key);
+        if (context == null) {
+            context = createSslContext(keyStorePath, password, type);
+            SSLContext existing = contexts.putIfAbsent(key, context);
+            if (existing != null) {
+                context = existing;
+            }
+        }
+        return context;
+    }
+
+    /**
+     * Drop all cached contexts, e.g. after certificates were rotated in place.
+     */
+    public void clear() {
+        contexts.clear();
+    }
+
+    private SSLContext createSslContext(Path keyStorePath, char[] password, String type)
+            throws GeneralSecurityException, IOException {
+        KeyManagerFactory keyManagerFactory = null;
+        if (keyStorePath != null) {
+            long start = System.nanoTime();
+            KeyStore keyStore = KeyStore.getInstance(type);
+            try (InputStream in = Files.newInputStream(keyStorePath)) {
+                keyStore.load(in, password);
+            }
+            keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            keyManagerFactory.init(keyStore, password);
+            logger.debug("Loaded client keystore {} in {} ms", keyStorePath, (System.nanoTime() - start) / 1_000_000);
+        }
+
+        TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init((KeyStore) null);
+
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(keyManagerFactory != null ? keyManagerFactory.getKeyManagers() : null,
+            trustManagerFactory.getTrustManagers(), null);
+
+        // Keep sessions around long enough to be resumed by later connections to the same host
+        SSLSessionContext sessions = context.getClientSessionContext();
+        sessions.setSessionCacheSize(SESSION_CACHE_SIZE);
+        sessions.setSessionTimeout(SESSION_TIMEOUT_SECONDS);
+        return context;
+    }
+
+    private static String cacheKey(Path keyStorePath, char[] password, String type) throws IOException {
+        if (keyStorePath == null) {
+            return "none|" + type;
+        }
+        Path absolute = keyStorePath.toAbsolutePath().normalize();
+        return absolute + "|" + type + "|" + Files.getLastModifiedTime(absolute).toMillis()
+            + "|" + Arrays.hashCode(password);
+    }
+}
@@ -0,0 +1,333 @@
+package de.fabkreuzer.soaprequestsender.service.http;
+
+import de.fabkreuzer.soaprequestsender.jfr.RequestSendEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.net.ssl.SSLContext;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Sends SOAP requests over HTTP.
+ * A single instance is meant to be shared: the underlying {@link HttpClient} pools connections
+ * per host and multiplexes concurrent requests over one HTTP/2 connection where the server supports it.
+ * Responses are always requested compressed and decoded while they are read.
+ * TLS uses the SSL context from the shared {@link KeyStoreCache}, so sessions are resumed across connections.
+ */
+public class SoapHttpClient {
+
+    private static final Logger logger = LogManager.getLogger(SoapHttpClient.class);
+
+    private static final String SOAP12_NAMESPACE = "http://www.w3.org/2003/05/soap-envelope";
+    private static final String SOAP11_CONTENT_TYPE = "text/xml; charset=UTF-8";
+    private static final String SOAP12_CONTENT_TYPE = "application/soap+xml; charset=UTF-8";
+
+    private final HttpClient httpClient;
+    private final ContentEncoding requestEncoding;
+    private final boolean cleartextHttp2;
+    private final Duration requestTimeout;
+
+    /**
+     * Creates a client that prefers HTTP/2 over TLS and sends uncompressed requests.
+     */
+    public SoapHttpClient() {
+        this(ContentEncoding.IDENTITY, false, Duration.ofSeconds(10), Duration.ofSeconds(60));
+    }
+
+    /**
+     * Creates a client.
+     *
+     * @param requestEncoding The coding applied to request bodies, the server must accept it
+     * @param cleartextHttp2 Whether to attempt an h2c upgrade on plain http endpoints
+     * @param connectTimeout The timeout for establishing connections
+     * @param requestTimeout The timeout for a whole request
+     */
+    public SoapHttpClient(ContentEncoding requestEncoding, boolean cleartextHttp2,
+                          Duration connectTimeout, Duration requestTimeout) {
+        this(HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .sslContext(defaultSslContext())
+                .build(),
+            requestEncoding, cleartextHttp2, requestTimeout);
+    }
+
+    /**
+     * Creates a client on top of a preconfigured {@link HttpClient}.
+     *
+     * @param httpClient The HTTP client to use
+     * @param requestEncoding The coding applied to request bodies, the server must accept it
+     * @param cleartextHttp2 Whether to attempt an h2c upgrade on plain http endpoints
+     * @param requestTimeout The timeout for a whole request
+     */
+    public SoapHttpClient(HttpClient httpClient, ContentEncoding requestEncoding,
+                          boolean cleartextHttp2, Duration requestTimeout) {
+        if (requestEncoding == ContentEncoding.BR) {
+            throw new IllegalArgumentException("Brotli is only supported for responses");
+        }
+        this.httpClient = httpClient;
+        this.requestEncoding = requestEncoding;
+        this.cleartextHttp2 = cleartextHttp2;
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Send a request and read the whole response into memory.
+     *
+     * @param endpoint The endpoint URL
+     * @param content The SOAP envelope
+     * @return The response
+     * @throws IOException If the request fails or the response can't be decoded
+     * @throws InterruptedException If the thread is interrupted while waiting for the response
+     */
+    public SoapResponse send(String endpoint, String content) throws IOException, InterruptedException {
+        return send(endpoint, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Send a request and read the whole response into memory.
+     *
+     * @param endpoint The endpoint URL
+     * @param body The UTF-8 encoded SOAP envelope
+     * @return The response
+     * @throws IOException If the request fails or the response can't be decoded
+     * @throws InterruptedException If the thread is interrupted while waiting for the response
+     */
+    public SoapResponse send(String endpoint, byte[] body) throws IOException, InterruptedException {
+        return send(endpoint, body, (String) null);
+    }
+
+    /**
+     * Send a request with a SOAPAction and read the whole response into memory.
+     * The action goes into the SOAPAction header for SOAP 1.1 and into the content type for SOAP 1.2.
+     *
+     * @param endpoint The endpoint URL
+     * @param body The UTF-8 encoded SOAP envelope
+     * @param soapAction The SOAPAction, or null for none
+     * @return The response
+     * @throws IOException If the request fails or the response can't be decoded
+     * @throws InterruptedException If the thread is interrupted while waiting for the response
+     */
+    public SoapResponse send(String endpoint, byte[] body, String soapAction) throws IOException, InterruptedException {
+        RequestSendEvent event = new RequestSendEvent();
+        event.begin();
+        try {
+            HttpRequest request = buildRequest(endpoint, body, soapAction);
+            long start = System.nanoTime();
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            SoapResponse soapResponse = toSoapResponse(endpoint, request, response, response.body(), start);
+            describe(event, soapResponse);
+            return soapResponse;
+        } finally {
+            event.endpoint = endpoint;
+            event.commit();
+        }
+    }
+
+    /**
+     * Send a request without blocking the calling thread.
+     *
+     * @param endpoint The endpoint URL
+     * @param body The UTF-8 encoded SOAP envelope
+     * @return A future completing with the response
+     */
+    public CompletableFuture<SoapResponse> sendAsync(String endpoint, byte[] body) {
+        return sendAsync(endpoint, body, null);
+    }
+
+    /**
+     * Send a request with a SOAPAction without blocking the calling thread.
+     * The action goes into the SOAPAction header for SOAP 1.1 and into the content type for SOAP 1.2.
+     * No thread waits while the response arrives, it is decoded once its body is complete.
+     *
+     * @param endpoint The endpoint URL
+     * @param body The UTF-8 encoded SOAP envelope
+     * @param soapAction The SOAPAction, or null for none
+     * @return A future completing with the response
+     */
+    public CompletableFuture<SoapResponse> sendAsync(String endpoint, byte[] body, String soapAction) {
+        HttpRequest request;
+        try {
+            request = buildRequest(endpoint, body, soapAction);
+        } catch (IOException | IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        RequestSendEvent event = new RequestSendEvent();
+        event.begin();
+        event.endpoint = endpoint;
+        long start = System.nanoTime();
+        // The body is collected without blocking, a stream would hold an executor thread for the whole transfer
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+            .thenApply(response -> {
+                try {
+                    return toSoapResponse(endpoint, request, response, new ByteArrayInputStream(response.body()), start);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            })
+            .whenComplete((response, error) -> {
+                if (response != null) {
+                    describe(event, response);
+                }
+                event.commit();
+            });
+    }
+
+    /**
+     * Send a request and stream the decoded response body to a handler.
+     *
+     * @param endpoint The endpoint URL
+     * @param body The UTF-8 encoded SOAP envelope
+     * @param handler Consumes the decoded response body
+     * @param <T> The handler result type
+     * @return The handler result
+     * @throws IOException If the request fails or the response can't be decoded
+     * @throws InterruptedException If the thread is interrupted while waiting for the response
+     */
+    public <T> T send(String endpoint, byte[] body, SoapResponseHandler<T> handler)
+            throws IOException, InterruptedException {
+        return send(endpoint, body, null, handler);
+    }
+
+    /**
+     * Send a request with a SOAPAction and stream the decoded response body to a handler.
+     *
+     * @param endpoint The endpoint URL
+     * @param body The UTF-8 encoded SOAP envelope
+     * @param soapAction The SOAPAction, or null for none
+     * @param handler Consumes the decoded response body
+     * @param <T> The handler result type
+     * @return The handler result
+     * @throws IOException If the request fails or the response can't be decoded
+     * @throws InterruptedException If the thread is interrupted while waiting for the response
+     */
+    public <T> T send(String endpoint, byte[] body, String soapAction, SoapResponseHandler<T> handler)
+            throws IOException, InterruptedException {
+        RequestSendEvent event = new RequestSendEvent();
+        event.begin();
+        CountingInputStream wire = null;
+        try {
+            HttpRequest request = buildRequest(endpoint, body, soapAction);
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            event.protocol = protocolName(response.version());
+            event.statusCode = response.statusCode();
+            event.requestBytes = request.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength).orElse(0L);
+            String encoding = response.headers().firstValue("Content-Encoding").orElse(null);
+            wire = new CountingInputStream(response.body());
+            try (InputStream in = ContentEncoding.decode(encoding, wire)) {
+                return handler.handle(response.statusCode(), response.headers(), in);
+            }
+        } finally {
+            event.endpoint = endpoint;
+            if (wire != null) {
+                event.responseBytes = wire.getCount();
+            }
+            event.commit();
+        }
+    }
+
+    /**
+     * Get the underlying HTTP client.
+     *
+     * @return The HTTP client
+     */
+    public HttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    private HttpRequest buildRequest(String endpoint, byte[] body, String soapAction) throws IOException {
+        URI uri = URI.create(endpoint.trim());
+        byte[] encoded = requestEncoding.encode(body);
+
+        HttpRequest.Builder builder = newRequest(uri)
+            .timeout(requestTimeout)
+            .header("Accept-Encoding", ContentEncoding.ACCEPT_ENCODING)
+            .POST(HttpRequest.BodyPublishers.ofByteArray(encoded));
+
+        String action = soapAction != null ? soapAction.replace("\"", "") : "";
+        if (isSoap12(body)) {
+            builder.header("Content-Type", action.isEmpty()
+                ? SOAP12_CONTENT_TYPE : SOAP12_CONTENT_TYPE + "; action=\"" + action + "\"");
+        } else {
+            builder.header("Content-Type", SOAP11_CONTENT_TYPE);
+            builder.header("SOAPAction", "\"" + action + "\"");
+        }
+        if (requestEncoding != ContentEncoding.IDENTITY) {
+            builder.header("Content-Encoding", requestEncoding.getToken());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Start a request to an endpoint with the HTTP version the client uses for it.
+     *
+     * @param uri The endpoint
+     * @return The request builder
+     */
+    HttpRequest.Builder newRequest(URI uri) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri);
+        // An h2c upgrade on a POST confuses many older SOAP stacks, so plain http stays on HTTP/1.1 by default
+        if ("http".equalsIgnoreCase(uri.getScheme()) && !cleartextHttp2) {
+            builder.version(HttpClient.Version.HTTP_1_1);
+        }
+        return builder;
+    }
+
+    private SoapResponse toSoapResponse(String endpoint, HttpRequest request, HttpResponse<?> response,
+                                        InputStream responseBody, long start) throws IOException {
+        String encoding = response.headers().firstValue("Content-Encoding").orElse(null);
+        CountingInputStream wire = new CountingInputStream(responseBody);
+        String body;
+        try (InputStream in = ContentEncoding.decode(encoding, wire)) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        long latency = System.nanoTime() - start;
+        long requestBytes = request.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength).orElse(0L);
+
+        logger.debug("{} {} {} in {} ms, {} wire bytes ({})", response.version(), response.statusCode(), endpoint,
+            latency / 1_000_000, wire.getCount(), encoding != null ? encoding : "identity");
+
+        return new SoapResponse(endpoint, response.statusCode(), protocolName(response.version()), encoding,
+            body, requestBytes, wire.getCount(), latency);
+    }
+
+    private static void describe(RequestSendEvent event, SoapResponse response) {
+        event.protocol = response.protocol();
+        event.statusCode = response.statusCode();
+        event.requestBytes = response.requestBytes();
+        event.responseBytes = response.wireBytes();
+    }
+
+    private static SSLContext defaultSslContext() {
+        try {
+            return KeyStoreCache.shared().getDefaultSslContext();
+        } catch (GeneralSecurityException | IOException e) {
+            throw new IllegalStateException("Failed to initialize TLS with the configured client keystore", e);
+        }
+    }
+
+    private static String protocolName(HttpClient.Version version) {
+        return version == HttpClient.Version.HTTP_2 ? "HTTP/2" : "HTTP/1.1";
+    }
+
+    /**
+     * Check whether an envelope uses the SOAP 1.2 namespace by looking at its start.
+     */
+    private static boolean isSoap12(byte[] body) {
+        int length = Math.min(body.length, 1024);
+        String head = new String(body, 0, length, StandardCharsets.UTF_8);
+        return head.contains(SOAP12_NAMESPACE);
+    }
+}
@@ -0,0 +1,62 @@
+package de.fabkreuzer.soaprequestsender.service.http;
+
+/**
+ * The outcome of a single SOAP call.
+ *
+ * @param endpoint The endpoint the request was sent to
+ * @param statusCode The HTTP status code
+ * @param protocol The negotiated protocol, e.g. HTTP/2
+ * @param contentEncoding The Content-Encoding of the response, or null if it was not encoded
+ * @param body The decoded response body
+ * @param requestBytes The number of body bytes sent on the wire
+ * @param wireBytes The number of body bytes received on the wire
+ * @param latencyNanos The time from sending the request until the body was fully read
+ */
+public record SoapResponse(String endpoint,
+                           int statusCode,
+                           String protocol,
+                           String contentEncoding,
+                           String body,
+                           long requestBytes,
+                           long wireBytes,
+                           long latencyNanos) {
+
+    /**
+     * Check whether the call succeeded on the HTTP level.
+     * SOAP faults are returned with status 500, so they count as failures.
+     *
+     * @return True for 2xx status codes
+     */
+    public boolean isSuccess() {
+        return statusCode >= 200 && statusCode < 300;
+    }
+
+    /**
+     * Check whether the status indicates an overloaded backend or gateway.
+     * Adaptive concurrency limits back off on these.
+     *
+     * @return True for 429, 502, 503 and 504
+     */
+    public boolean isOverload() {
+        return isOverload(statusCode);
+    }
+
+    /**
+     * Check whether a status indicates an overloaded backend or gateway.
+     *
+     * @param statusCode The HTTP status code
+     * @return True for 429, 502, 503 and 504
+     */
+    public static boolean isOverload(int statusCode) {
+        return statusCode == 429 || statusCode == 502 || statusCode == 503 || statusCode == 504;
+    }
+
+    /**
+     * Get the latency in milliseconds.
+     *
+     * @return The latency in milliseconds
+     */
+    public double latencyMillis() {
+        return latencyNanos / 1_000_000.0;
+    }
+}
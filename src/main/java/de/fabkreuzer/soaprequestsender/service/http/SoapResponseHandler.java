@@ -0,0 +1,26 @@
+package de.fabkreuzer.soaprequestsender.service.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpHeaders;
+
+/**
+ * Consumes a response body as a decoded stream.
+ * Used by callers that process large responses without materializing them as a String.
+ *
+ * @param <T> The result type
+ */
+@FunctionalInterface
+public interface SoapResponseHandler<T> {
+
+    /**
+     * Handle a response.
+     *
+     * @param statusCode The HTTP status code
+     * @param headers The response headers
+     * @param body The decoded response body, closed by the caller afterwards
+     * @return The handler result
+     * @throws IOException If the body can't be read
+     */
+    T handle(int statusCode, HttpHeaders headers, InputStream body) throws IOException;
+}
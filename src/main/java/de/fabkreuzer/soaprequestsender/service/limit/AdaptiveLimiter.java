@@ -0,0 +1,155 @@
+package de.fabkreuzer.soaprequestsender.service.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Gates requests to a single backend by an adaptive {@link Limit}.
+ * Callers acquire a {@link Permit} before sending and report the outcome on it,
+ * which feeds the measured latency back into the limit.
+ */
+public class AdaptiveLimiter {
+
+    private final Limit limit;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private int inflight;
+
+    /**
+     * Creates a limiter driven by the given limit algorithm.
+     *
+     * @param limit The limit algorithm
+     */
+    public AdaptiveLimiter(Limit limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Acquire a permit, waiting until the number of requests in flight drops below the limit.
+     *
+     * @return The acquired permit
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public Permit acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (inflight >= limit.getLimit()) {
+                released.await();
+            }
+            return newPermit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Acquire a permit, waiting at most the given time.
+     *
+     * @param timeout The maximum time to wait
+     * @param unit The unit of the timeout
+     * @return The acquired permit, or null if the timeout elapsed
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public Permit tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (inflight >= limit.getLimit()) {
+                if (remaining <= 0) {
+                    return null;
+                }
+                remaining = released.awaitNanos(remaining);
+            }
+            return newPermit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the current concurrency limit.
+     *
+     * @return The current limit
+     */
+    public int getLimit() {
+        return limit.getLimit();
+    }
+
+    /**
+     * Get the number of requests currently in flight.
+     *
+     * @return The number of acquired and not yet released permits
+     */
+    public int getInflight() {
+        lock.lock();
+        try {
+            return inflight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Permit newPermit() {
+        inflight++;
+        return new Permit(inflight);
+    }
+
+    private void release(Permit permit, boolean sample, boolean dropped) {
+        long rtt = System.nanoTime() - permit.startNanos;
+        if (sample) {
+            limit.onSample(rtt, permit.inflightAtStart, dropped);
+        }
+        lock.lock();
+        try {
+            inflight--;
+            // The limit may have grown, so wake up every waiting thread
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A slot for one request. Exactly one of the completion methods must be called.
+     */
+    public final class Permit {
+
+        private final long startNanos = System.nanoTime();
+        private final int inflightAtStart;
+        private boolean completed;
+
+        private Permit(int inflightAtStart) {
+            this.inflightAtStart = inflightAtStart;
+        }
+
+        /**
+         * The request completed normally, its latency is used as a sample.
+         */
+        public void onSuccess() {
+            complete(true, false);
+        }
+
+        /**
+         * The request failed due to overload (timeout, 5xx, refused connection).
+         */
+        public void onDropped() {
+            complete(true, true);
+        }
+
+        /**
+         * The request failed for a reason unrelated to load, it is not used as a sample.
+         */
+        public void onIgnore() {
+            complete(false, false);
+        }
+
+        private synchronized void complete(boolean sample, boolean dropped) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            release(this, sample, dropped);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package de.fabkreuzer.soaprequestsender.service.limit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Additive-increase/multiplicative-decrease limit.
+ * The limit grows by one while requests succeed and the limit is actually used,
+ * and is cut by the backoff ratio on a drop or when latency exceeds the timeout.
+ */
+public class AimdLimit implements Limit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long timeoutNanos;
+    private int limit;
+
+    /**
+     * Creates an AIMD limit with sensible defaults for SOAP backends.
+     */
+    public AimdLimit() {
+        this(10, 1, 200, 0.9, TimeUnit.SECONDS.toNanos(5));
+    }
+
+    /**
+     * Creates an AIMD limit.
+     *
+     * @param initialLimit The limit to start with
+     * @param minLimit The lower bound of the limit
+     * @param maxLimit The upper bound of the limit
+     * @param backoffRatio The factor applied to the limit on a drop, between 0.5 and 1
+     * @param timeoutNanos Latency above which a request counts as dropped
+     */
+    public AimdLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio, long timeoutNanos) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid limit bounds: " + minLimit + ".." + maxLimit);
+        }
+        if (backoffRatio < 0.5 || backoffRatio >= 1.0) {
+            throw new IllegalArgumentException("Backoff ratio must be in [0.5, 1.0): " + backoffRatio);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.timeoutNanos = timeoutNanos;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    @Override
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public synchronized void onSample(long rttNanos, int inflight, boolean dropped) {
+        if (dropped || rttNanos > timeoutNanos) {
+            limit = Math.max(minLimit, (int) (limit * backoffRatio));
+        } else if (inflight * 2 >= limit) {
+            // Only grow when the current limit is actually being used
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package de.fabkreuzer.soaprequestsender.service.limit;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Registry of one {@link AdaptiveLimiter} per backend.
+ * Endpoints are grouped by scheme, host and port, so all requests that end up
+ * on the same server share one limit regardless of the path they post to.
+ */
+public class EndpointLimiters {
+
+    private final Supplier<Limit> limitFactory;
+    private final Map<String, AdaptiveLimiter> limiters = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a registry that uses a {@link GradientLimit} per backend.
+     */
+    public EndpointLimiters() {
+        this(GradientLimit::new);
+    }
+
+    /**
+     * Creates a registry with a custom limit algorithm.
+     *
+     * @param limitFactory Creates a fresh limit for each new backend
+     */
+    public EndpointLimiters(Supplier<Limit> limitFactory) {
+        this.limitFactory = limitFactory;
+    }
+
+    /**
+     * Get the limiter for an endpoint, creating it on first use.
+     *
+     * @param endpoint The endpoint URL
+     * @return The limiter shared by all endpoints of the same backend
+     */
+    public AdaptiveLimiter forEndpoint(String endpoint) {
+        return limiters.computeIfAbsent(backendKey(endpoint), key -> new AdaptiveLimiter(limitFactory.get()));
+    }
+
+    /**
+     * Get the current limits of all known backends.
+     *
+     * @return A map of backend key to current concurrency limit
+     */
+    public Map<String, Integer> getLimits() {
+        Map<String, Integer> limits = new TreeMap<>();
+        limiters.forEach((key, limiter) -> limits.put(key, limiter.getLimit()));
+        return limits;
+    }
+
+    /**
+     * Get the key identifying the backend of an endpoint.
+     *
+     * @param endpoint The endpoint URL
+     * @return The scheme, host and port of the endpoint, or the endpoint itself if it can't be parsed
+     */
+    public static String backendKey(String endpoint) {
+        try {
+            URI uri = URI.create(endpoint.trim());
+            if (uri.getHost() == null) {
+                return endpoint;
+            }
+            int port = uri.getPort();
+            if (port == -1) {
+                port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+            }
+            return uri.getScheme().toLowerCase() + "://" + uri.getHost().toLowerCase() + ":" + port;
+        } catch (IllegalArgumentException e) {
+            return endpoint;
+        }
+    }
+}
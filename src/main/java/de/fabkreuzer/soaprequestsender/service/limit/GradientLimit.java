@@ -0,0 +1,91 @@
+package de.fabkreuzer.soaprequestsender.service.limit;
+
+/**
+ * Latency-gradient limit in the spirit of TCP Vegas.
+ * It compares a short-term latency average against a long-term baseline: as long as
+ * the backend answers as fast as it usually does the limit grows, and as soon as
+ * requests start queueing on the backend the gradient drops below one and the limit shrinks.
+ */
+public class GradientLimit implements Limit {
+
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+    private double limit;
+    private double shortRtt;
+    private double longRtt;
+    private long samples;
+
+    /**
+     * Creates a gradient limit with sensible defaults for SOAP backends.
+     */
+    public GradientLimit() {
+        this(10, 1, 200, 1.5, 0.2);
+    }
+
+    /**
+     * Creates a gradient limit.
+     *
+     * @param initialLimit The limit to start with
+     * @param minLimit The lower bound of the limit
+     * @param maxLimit The upper bound of the limit
+     * @param rttTolerance How much slower than the baseline requests may get before the limit shrinks, at least 1
+     * @param smoothing Weight of a new limit estimate, between 0 and 1
+     */
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double rttTolerance, double smoothing) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid limit bounds: " + minLimit + ".." + maxLimit);
+        }
+        if (rttTolerance < 1.0) {
+            throw new IllegalArgumentException("RTT tolerance must be at least 1.0: " + rttTolerance);
+        }
+        if (smoothing <= 0.0 || smoothing > 1.0) {
+            throw new IllegalArgumentException("Smoothing must be in (0, 1]: " + smoothing);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    @Override
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    @Override
+    public synchronized void onSample(long rttNanos, int inflight, boolean dropped) {
+        if (dropped) {
+            limit = Math.max(minLimit, limit * 0.5);
+            return;
+        }
+
+        // Exponential moving averages of the latency, the long one serves as the no-load baseline
+        samples++;
+        double shortWeight = 2.0 / (Math.min(samples, SHORT_WINDOW) + 1);
+        double longWeight = 2.0 / (Math.min(samples, LONG_WINDOW) + 1);
+        shortRtt = shortRtt + (rttNanos - shortRtt) * shortWeight;
+        longRtt = longRtt + (rttNanos - longRtt) * longWeight;
+
+        // Let the baseline recover faster after a period of high latency
+        if (longRtt > shortRtt * 2) {
+            longRtt *= 0.95;
+        }
+
+        // Don't grow the limit while it isn't used, otherwise it drifts to the maximum
+        if (inflight < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRtt / shortRtt));
+        double queueSize = Math.sqrt(limit);
+        double newLimit = limit * gradient + queueSize;
+        newLimit = limit * (1 - smoothing) + newLimit * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+}
@@ -0,0 +1,24 @@
+package de.fabkreuzer.soaprequestsender.service.limit;
+
+/**
+ * An algorithm that derives a concurrency limit from observed request latencies.
+ * Implementations must be thread-safe, samples arrive from many worker threads.
+ */
+public interface Limit {
+
+    /**
+     * Get the current concurrency limit.
+     *
+     * @return The number of requests that may be in flight at the same time
+     */
+    int getLimit();
+
+    /**
+     * Update the limit with the outcome of a single request.
+     *
+     * @param rttNanos The round-trip time of the request in nanoseconds
+     * @param inflight The number of requests in flight when the request was started
+     * @param dropped Whether the request failed in a way that indicates overload (timeout, 5xx, connection error)
+     */
+    void onSample(long rttNanos, int inflight, boolean dropped);
+}
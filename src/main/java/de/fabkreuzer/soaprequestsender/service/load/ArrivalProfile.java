@@ -0,0 +1,144 @@
+package de.fabkreuzer.soaprequestsender.service.load;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * The request rate of an open workload over the duration of a run.
+ * <p>
+ * Arrivals are placed where the integral of the rate reaches the next whole request, so the
+ * schedule is exact even for a ramp starting at zero. Poisson arrivals advance the integral by
+ * exponentially distributed amounts instead, which gives the bursts of independent clients at
+ * the same mean rate.
+ *
+ * @param shape How the rate changes over the run
+ * @param rate The rate at the start of the run in requests per second, the constant rate for constant and Poisson
+ * @param endRate The rate at the end of the run for ramp and step, ignored otherwise
+ * @param steps The number of equal steps from rate to endRate for step
+ */
+public record ArrivalProfile(Shape shape, double rate, double endRate, int steps) {
+
+    /**
+     * The shape of the rate over time.
+     */
+    public enum Shape {
+        CONSTANT,
+        RAMP,
+        STEP,
+        POISSON;
+
+        /**
+         * Parse a shape name.
+         *
+         * @param name The name, case-insensitive
+         * @return The shape
+         * @throws IllegalArgumentException If the name is unknown
+         */
+        public static Shape parse(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    public ArrivalProfile {
+        if (rate < 0 || endRate < 0) {
+            throw new IllegalArgumentException("Rates must not be negative");
+        }
+        if ((shape == Shape.CONSTANT || shape == Shape.POISSON) && rate <= 0) {
+            throw new IllegalArgumentException("A constant rate must be positive");
+        }
+        if ((shape == Shape.RAMP || shape == Shape.STEP) && rate <= 0 && endRate <= 0) {
+            throw new IllegalArgumentException("The start or end rate must be positive");
+        }
+        if (shape == Shape.STEP && steps < 2) {
+            throw new IllegalArgumentException("A step profile needs at least two steps");
+        }
+    }
+
+    /**
+     * Creates a constant rate profile.
+     *
+     * @param rate Requests per second
+     * @return The profile
+     */
+    public static ArrivalProfile constant(double rate) {
+        return new ArrivalProfile(Shape.CONSTANT, rate, rate, 0);
+    }
+
+    /**
+     * Get the rate at a point of the run.
+     *
+     * @param seconds The time since the start of the run
+     * @param durationSeconds The duration of the run
+     * @return Requests per second
+     */
+    public double rateAt(double seconds, double durationSeconds) {
+        return switch (shape) {
+            case CONSTANT, POISSON -> rate;
+            case RAMP -> rate + (endRate - rate) * Math.min(1, seconds / durationSeconds);
+            case STEP -> stepRate(Math.min(steps - 1, (int) (seconds * steps / durationSeconds)));
+        };
+    }
+
+    /**
+     * Get the time at which the integral of the rate reaches a number of requests.
+     *
+     * @param requests The number of requests since the start of the run
+     * @param durationSeconds The duration of the run
+     * @return The time since the start of the run in seconds, or infinity if the rate never gets there
+     */
+    double timeOf(double requests, double durationSeconds) {
+        switch (shape) {
+            case CONSTANT, POISSON:
+                return requests / rate;
+            case RAMP: {
+                // requests = rate * t + slope * t^2 / 2, solved for the first t
+                double slope = (endRate - rate) / durationSeconds;
+                if (Math.abs(slope) < 1e-12) {
+                    return requests / rate;
+                }
+                double discriminant = rate * rate + 2 * slope * requests;
+                return discriminant < 0 ? Double.POSITIVE_INFINITY : (Math.sqrt(discriminant) - rate) / slope;
+            }
+            default: {
+                double stepSeconds = durationSeconds / steps;
+                double before = 0;
+                for (int i = 0; i < steps; i++) {
+                    double stepRequests = stepRate(i) * stepSeconds;
+                    if (i == steps - 1 || before + stepRequests >= requests) {
+                        double stepRate = stepRate(i);
+                        return stepRate > 0 ? i * stepSeconds + (requests - before) / stepRate : Double.POSITIVE_INFINITY;
+                    }
+                    before += stepRequests;
+                }
+                return Double.POSITIVE_INFINITY;
+            }
+        }
+    }
+
+    private double stepRate(int step) {
+        return rate + (endRate - rate) * step / (steps - 1);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeUTF(shape.name());
+        out.writeDouble(rate);
+        out.writeDouble(endRate);
+        out.writeInt(steps);
+    }
+
+    static ArrivalProfile readFrom(DataInput in) throws IOException {
+        return new ArrivalProfile(Shape.valueOf(in.readUTF()), in.readDouble(), in.readDouble(), in.readInt());
+    }
+
+    @Override
+    public String toString() {
+        return switch (shape) {
+            case CONSTANT -> String.format("constant %.1f req/s", rate);
+            case POISSON -> String.format("poisson %.1f req/s", rate);
+            case RAMP -> String.format("ramp %.1f -> %.1f req/s", rate, endRate);
+            case STEP -> String.format("%d steps %.1f -> %.1f req/s", steps, rate, endRate);
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package de.fabkreuzer.soaprequestsender.service.load;
+
+import java.util.OptionalLong;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Hands out the intended send times of an open workload to the users of a run, in order.
+ * The times don't depend on how fast requests complete, which is what keeps a slow backend
+ * from silently lowering the offered load.
+ */
+final class ArrivalSchedule {
+
+    private final ArrivalProfile profile;
+    private final long startNanos;
+    private final double durationSeconds;
+    private double requests;
+
+    ArrivalSchedule(ArrivalProfile profile, long startNanos, long durationNanos) {
+        this.profile = profile;
+        this.startNanos = startNanos;
+        this.durationSeconds = durationNanos / 1e9;
+    }
+
+    /**
+     * Take the next arrival.
+     *
+     * @return The intended send time in System.nanoTime() terms, or empty if the schedule is past the end of the run
+     */
+    synchronized OptionalLong next() {
+        if (profile.shape() == ArrivalProfile.Shape.POISSON) {
+            requests += -Math.log(1 - ThreadLocalRandom.current().nextDouble());
+        } else {
+            requests += 1;
+        }
+        double seconds = profile.timeOf(requests, durationSeconds);
+        if (!(seconds < durationSeconds)) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(startNanos + (long) (seconds * 1e9));
+    }
+}
@@ -0,0 +1,145 @@
+package de.fabkreuzer.soaprequestsender.service.load;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The health of a load generating JVM over one reporting interval.
+ * Latency spikes that coincide with a saturated client are at least partly caused by the client,
+ * so these are reported next to the latencies of the same interval.
+ *
+ * @param intervalMillis The length of the interval
+ * @param gcPauseMillis The time all threads were stopped for garbage collection
+ * @param maxGcPauseMillis The longest single pause
+ * @param allocatedBytes The bytes allocated by all threads, or -1 if the JVM can't measure it
+ * @param heapLiveBytes The heap in use after the last collection, an estimate of the live set
+ * @param heapMaxBytes The maximum heap size
+ * @param threads The number of live threads
+ * @param cpuLoad The CPU used by the process as a fraction of all cores, or -1 if unknown
+ */
+public record ClientSample(long intervalMillis,
+                           long gcPauseMillis,
+                           long maxGcPauseMillis,
+                           long allocatedBytes,
+                           long heapLiveBytes,
+                           long heapMaxBytes,
+                           int threads,
+                           double cpuLoad) {
+
+    /** The share of an interval spent in GC pauses above which the client counts as saturated. */
+    public static final double MAX_GC_PAUSE_RATIO = 0.05;
+    /** The longest single GC pause that doesn't count as saturation. */
+    public static final long MAX_GC_PAUSE_MILLIS = 100;
+    /** The share of the maximum heap the live set may use before the client counts as saturated. */
+    public static final double MAX_HEAP_OCCUPANCY = 0.85;
+    /** The process CPU load above which the client counts as saturated. */
+    public static final double MAX_CPU_LOAD = 0.90;
+
+    /**
+     * Get the share of the interval spent in GC pauses.
+     *
+     * @return A fraction between 0 and 1
+     */
+    public double gcPauseRatio() {
+        return intervalMillis > 0 ? Math.min(1, (double) gcPauseMillis / intervalMillis) : 0;
+    }
+
+    /**
+     * Get the allocation rate.
+     *
+     * @return Bytes per second, or -1 if unknown
+     */
+    public double allocationRate() {
+        return allocatedBytes >= 0 && intervalMillis > 0 ? allocatedBytes * 1000.0 / intervalMillis : -1;
+    }
+
+    /**
+     * Get the share of the maximum heap used by the live set.
+     *
+     * @return A fraction between 0 and 1
+     */
+    public double heapOccupancy() {
+        return heapMaxBytes > 0 ? (double) heapLiveBytes / heapMaxBytes : 0;
+    }
+
+    /**
+     * Check whether the client was too busy to send and time requests accurately.
+     *
+     * @return The reason, or null if the client was healthy
+     */
+    public String saturation() {
+        if (maxGcPauseMillis > MAX_GC_PAUSE_MILLIS) {
+            return "GC pause of " + maxGcPauseMillis + " ms";
+        }
+        if (gcPauseRatio() > MAX_GC_PAUSE_RATIO) {
+            return String.format("GC paused %.0f%% of the time", gcPauseRatio() * 100);
+        }
+        if (heapOccupancy() > MAX_HEAP_OCCUPANCY) {
+            return String.format("live heap at %.0f%% of max", heapOccupancy() * 100);
+        }
+        if (cpuLoad > MAX_CPU_LOAD) {
+            return String.format("CPU at %.0f%%", cpuLoad * 100);
+        }
+        return null;
+    }
+
+    /**
+     * Combine two samples into one holding the worse value of each measure, e.g. of two workers
+     * or of two intervals when looking for the peak of a run.
+     *
+     * @param other The other sample, may be null
+     * @return The combined sample
+     */
+    public ClientSample worst(ClientSample other) {
+        if (other == null) {
+            return this;
+        }
+        // Pause time and allocations are kept as the rates of the worse side, scaled to the longer interval
+        long interval = Math.max(intervalMillis, other.intervalMillis);
+        long pause = Math.round(Math.max(gcPauseRatio(), other.gcPauseRatio()) * interval);
+        double rate = Math.max(allocationRate(), other.allocationRate());
+        return new ClientSample(interval, pause,
+            Math.max(maxGcPauseMillis, other.maxGcPauseMillis),
+            rate >= 0 ? Math.round(rate * interval / 1000) : -1,
+            heapOccupancy() >= other.heapOccupancy() ? heapLiveBytes : other.heapLiveBytes,
+            heapOccupancy() >= other.heapOccupancy() ? heapMaxBytes : other.heapMaxBytes,
+            Math.max(threads, other.threads),
+            Math.max(cpuLoad, other.cpuLoad));
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(intervalMillis);
+        out.writeLong(gcPauseMillis);
+        out.writeLong(maxGcPauseMillis);
+        out.writeLong(allocatedBytes);
+        out.writeLong(heapLiveBytes);
+        out.writeLong(heapMaxBytes);
+        out.writeInt(threads);
+        out.writeDouble(cpuLoad);
+    }
+
+    static ClientSample readFrom(DataInput in) throws IOException {
+        return new ClientSample(in.readLong(), in.readLong(), in.readLong(), in.readLong(), in.readLong(),
+            in.readLong(), in.readInt(), in.readDouble());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("client gc %.1f%% (max %d ms)  alloc %s/s  heap %.0f%%  threads %d  cpu %s",
+            gcPauseRatio() * 100, maxGcPauseMillis,
+            allocatedBytes >= 0 ? formatBytes(allocationRate()) : "?",
+            heapOccupancy() * 100, threads,
+            cpuLoad >= 0 ? String.format("%.0f%%", cpuLoad * 100) : "?");
+    }
+
+    private static String formatBytes(double bytes) {
+        if (bytes >= 1024 * 1024 * 1024) {
+            return String.format("%.1f GB", bytes / (1024 * 1024 * 1024));
+        }
+        if (bytes >= 1024 * 1024) {
+            return String.format("%.1f MB", bytes / (1024 * 1024));
+        }
+        return String.format("%.0f KB", bytes / 1024);
+    }
+}
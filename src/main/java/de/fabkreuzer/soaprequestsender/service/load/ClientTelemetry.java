@@ -0,0 +1,163 @@
+package de.fabkreuzer.soaprequestsender.service.load;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.Closeable;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Samples the health of this JVM through its management beans: GC pauses from the collectors'
+ * notifications, allocations from the per-thread allocation counters, the heap left after the
+ * last collection, the thread count and the CPU load of the process.
+ * <p>
+ * Collectors that run concurrently with the application (G1's concurrent cycle, ZGC and Shenandoah
+ * cycles) don't stop the threads, so only their pauses count as pause time. Allocations of a thread
+ * that ends between two samples are lost since its last sample, which doesn't matter for the
+ * long-lived users and client threads of a load run.
+ */
+public class ClientTelemetry implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(ClientTelemetry.class);
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final com.sun.management.ThreadMXBean allocations;
+    private final com.sun.management.OperatingSystemMXBean os;
+    private final Set<String> heapPools = new HashSet<>();
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final NotificationListener listener = this::onGc;
+
+    private Map<Long, Long> allocatedByThread = new HashMap<>();
+    private long lastSampleNanos;
+    private long pauseMillis;
+    private long maxPauseMillis;
+    private long heapAfterGc = -1;
+
+    /**
+     * Creates a sampler and starts listening for collections. The first sample covers the time since then.
+     */
+    public ClientTelemetry() {
+        allocations = threads instanceof com.sun.management.ThreadMXBean extended
+            && extended.isThreadAllocatedMemorySupported() ? extended : null;
+        if (allocations != null && !allocations.isThreadAllocatedMemoryEnabled()) {
+            allocations.setThreadAllocatedMemoryEnabled(true);
+        }
+        os = ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean extended
+            ? extended : null;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool.getName());
+            }
+        }
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(listener, null, null);
+                emitters.add(emitter);
+            }
+        }
+        lastSampleNanos = System.nanoTime();
+        allocatedByThread = threadAllocations();
+    }
+
+    /**
+     * Take the measures of the interval since the last sample.
+     *
+     * @return The sample
+     */
+    public synchronized ClientSample sample() {
+        long now = System.nanoTime();
+        long allocated = -1;
+        if (allocations != null) {
+            Map<Long, Long> current = threadAllocations();
+            allocated = 0;
+            for (Map.Entry<Long, Long> entry : current.entrySet()) {
+                // Threads that started during the interval allocated everything since then
+                allocated += Math.max(0, entry.getValue() - allocatedByThread.getOrDefault(entry.getKey(), 0L));
+            }
+            allocatedByThread = current;
+        }
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        long heapMax = heap.getMax() > 0 ? heap.getMax() : Runtime.getRuntime().maxMemory();
+        ClientSample sample = new ClientSample((now - lastSampleNanos) / 1_000_000, pauseMillis, maxPauseMillis,
+            allocated, heapAfterGc >= 0 ? heapAfterGc : heap.getUsed(), heapMax, threads.getThreadCount(),
+            os != null ? os.getProcessCpuLoad() : -1);
+        lastSampleNanos = now;
+        pauseMillis = 0;
+        maxPauseMillis = 0;
+        return sample;
+    }
+
+    /**
+     * Stop listening for collections.
+     */
+    @Override
+    public void close() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(listener);
+            } catch (ListenerNotFoundException e) {
+                logger.debug("GC listener was already removed", e);
+            }
+        }
+        emitters.clear();
+    }
+
+    private void onGc(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        if (isConcurrent(info.getGcName())) {
+            return;
+        }
+        long duration = info.getGcInfo().getDuration();
+        long after = 0;
+        // The usage after a collection also lists metaspace and the code cache
+        for (Map.Entry<String, MemoryUsage> pool : info.getGcInfo().getMemoryUsageAfterGc().entrySet()) {
+            if (heapPools.contains(pool.getKey())) {
+                after += pool.getValue().getUsed();
+            }
+        }
+        synchronized (this) {
+            pauseMillis += duration;
+            maxPauseMillis = Math.max(maxPauseMillis, duration);
+            heapAfterGc = after;
+        }
+    }
+
+    private static boolean isConcurrent(String gcName) {
+        return gcName.contains("Concurrent") || gcName.endsWith("Cycles");
+    }
+
+    private Map<Long, Long> threadAllocations() {
+        if (allocations == null) {
+            return Map.of();
+        }
+        long[] ids = threads.getAllThreadIds();
+        long[] bytes = allocations.getThreadAllocatedBytes(ids);
+        Map<Long, Long> result = new HashMap<>(ids.length * 2);
+        for (int i = 0; i < ids.length; i++) {
+            if (bytes[i] >= 0) {
+                result.put(ids[i], bytes[i]);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,206 @@
+package de.fabkreuzer.soaprequestsender.service.load;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear latency histogram in microseconds, mergeable across threads and JVMs.
+ * Values below 128 microseconds are counted exactly, larger values in 64 sub-buckets per power of two,
+ * which bounds the relative error of a percentile to about 1.6 %. Values are capped at one hour.
+ * Recording is lock-free and safe from any number of threads.
+ */
+public class LatencyHistogram {
+
+    private static final int LINEAR_BUCKETS = 128;
+    private static final int SUB_BUCKETS = 64;
+    private static final int MAX_SHIFT = 26;
+    private static final int BUCKET_COUNT = LINEAR_BUCKETS + MAX_SHIFT * SUB_BUCKETS;
+    private static final long MAX_VALUE = (128L << MAX_SHIFT) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record one latency.
+     *
+     * @param micros The latency in microseconds
+     */
+    public void record(long micros) {
+        long value = Math.max(0, Math.min(MAX_VALUE, micros));
+        counts.incrementAndGet(indexOf(value));
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Record one latency given in nanoseconds.
+     *
+     * @param nanos The latency in nanoseconds
+     */
+    public void recordNanos(long nanos) {
+        record(nanos / 1000);
+    }
+
+    /**
+     * Add all counts of another histogram to this one.
+     *
+     * @param other The histogram to add
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = other.counts.get(i);
+            if (count != 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    /**
+     * Move all counts into a new histogram and reset this one.
+     * Used to take interval snapshots while other threads keep recording.
+     *
+     * @return A histogram with the counts recorded since the last reset
+     */
+    public LatencyHistogram drain() {
+        LatencyHistogram interval = new LatencyHistogram();
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = counts.getAndSet(i, 0);
+            if (count != 0) {
+                interval.counts.set(i, count);
+            }
+        }
+        interval.max.set(max.getAndSet(0));
+        return interval;
+    }
+
+    /**
+     * Get the number of recorded values.
+     *
+     * @return The total count
+     */
+    public long getCount() {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Get the largest recorded value.
+     *
+     * @return The maximum in microseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Get the mean of the recorded values.
+     *
+     * @return The mean in microseconds, 0 if nothing was recorded
+     */
+    public double getMean() {
+        long total = 0;
+        double sum = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = counts.get(i);
+            total += count;
+            sum += (double) count * valueOf(i);
+        }
+        return total == 0 ? 0 : sum / total;
+    }
+
+    /**
+     * Get a percentile of the recorded values.
+     *
+     * @param percentile The percentile between 0 and 100
+     * @return The value in microseconds, 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(valueOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Write the non-empty buckets.
+     *
+     * @param out The output to write to
+     * @throws IOException If writing fails
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        int nonEmpty = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (counts.get(i) != 0) {
+                nonEmpty++;
+            }
+        }
+        out.writeLong(max.get());
+        out.writeInt(nonEmpty);
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = counts.get(i);
+            if (count != 0) {
+                out.writeShort(i);
+                out.writeLong(count);
+            }
+        }
+    }
+
+    /**
+     * Read a histogram written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in The input to read from
+     * @return The histogram
+     * @throws IOException If reading fails or the data is invalid
+     */
+    public static LatencyHistogram readFrom(DataInput in) throws IOException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.max.set(in.readLong());
+        int nonEmpty = in.readInt();
+        for (int i = 0; i < nonEmpty; i++) {
+            int index = in.readUnsignedShort();
+            if (index >= BUCKET_COUNT) {
+                throw new IOException("Invalid histogram bucket: " + index);
+            }
+            histogram.counts.set(index, in.readLong());
+        }
+        return histogram;
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - 6;
+        int sub = (int) (value >>> shift);
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (sub - SUB_BUCKETS);
+    }
+
+    /**
+     * Get a representative value of a bucket, the middle of its range.
+     */
+    static long valueOf(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int offset = index - LINEAR_BUCKETS;
+        int shift = offset / SUB_BUCKETS + 1;
+        long sub = offset % SUB_BUCKETS + SUB_BUCKETS;
+        return (sub << shift) + (1L << (shift - 1));
+    }
+}
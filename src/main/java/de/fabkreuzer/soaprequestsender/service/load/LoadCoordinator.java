@@ -0,0 +1,341 @@
+package de.fabkreuzer.soaprequestsender.service.load;
+
+import de.fabkreuzer.soaprequestsender.model.Project;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Distributes a load run over several worker JVMs.
+ * The coordinator listens for workers, ships the project and the profile to all of them at once,
+ * and merges the snapshots they stream back into live progress and a final result.
+ * The health samples of the worker JVMs are merged alongside: progress shows the worst worker of the
+ * last interval, the final result the worst values seen during the run, and a worker becoming
+ * saturated is logged with the time, to line it up with latency spikes.
+ * <p>
+ * Workers run whatever the coordinator sends them, and the coordinator only accepts workers that know its
+ * token, so a coordinator reachable from other machines should be started with one.
+ */
+public class LoadCoordinator implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(LoadCoordinator.class);
+
+    /** The environment variable that passes the shared token to workers, it stays out of the process list. */
+    public static final String TOKEN_VARIABLE = "SOAP_SENDER_LOAD_TOKEN";
+
+    /** Extra time a worker gets after its duration before it is stopped. */
+    private static final long GRACE_MILLIS = 30_000;
+    private static final int HANDSHAKE_TIMEOUT_MILLIS = 10_000;
+
+    private final ServerSocket serverSocket;
+    private final String token;
+    private final List<WorkerConnection> workers = new ArrayList<>();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private long requests;
+    private long errors;
+    private long bytesReceived;
+    private int activeWorkers;
+    private final Map<String, ClientSample> latestClients = new HashMap<>();
+    private final Set<String> saturatedWorkers = new HashSet<>();
+    private ClientSample peakClient;
+    private long clientSamples;
+    private long saturatedSamples;
+
+    /**
+     * Creates a coordinator.
+     *
+     * @param port The port to listen on, or 0 for any free port
+     * @param bindAddress The address to listen on, or null for all interfaces
+     * @param token The token workers must send in their HELLO, or null to accept any worker
+     * @throws IOException If the port can't be bound
+     */
+    public LoadCoordinator(int port, InetAddress bindAddress, String token) throws IOException {
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(bindAddress, port));
+        this.token = token;
+        if (token == null && (bindAddress == null || !bindAddress.isLoopbackAddress())) {
+            logger.warn("Load coordinator on {} accepts workers without a token", serverSocket.getLocalSocketAddress());
+        }
+    }
+
+    /**
+     * Get the port workers connect to.
+     *
+     * @return The bound port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Wait for workers, run the load on all of them and wait until every worker is done.
+     *
+     * @param project The project containing the target requests
+     * @param profile The load each worker generates
+     * @param workerCount The number of workers to wait for
+     * @param acceptTimeout The maximum time to wait for all workers to connect
+     * @param listener Receives the merged progress once per second
+     * @return The merged result of the whole run, with the average throughput
+     * @throws IOException If not enough workers connect or the project can't be sent
+     * @throws InterruptedException If the thread is interrupted
+     */
+    public LoadProgress run(Project project, LoadProfile profile, int workerCount, Duration acceptTimeout,
+                            Consumer<LoadProgress> listener) throws IOException, InterruptedException {
+        acceptWorkers(workerCount, acceptTimeout);
+
+        long start = System.currentTimeMillis();
+        CountDownLatch done = new CountDownLatch(workers.size());
+        synchronized (this) {
+            activeWorkers = workers.size();
+        }
+        for (WorkerConnection worker : workers) {
+            LoadProtocol.write(worker.out, LoadProtocol.START, data -> {
+                ProjectCodec.write(project, data);
+                profile.writeTo(data);
+            });
+            Thread reader = new Thread(() -> {
+                try {
+                    worker.readSnapshots(this);
+                } finally {
+                    synchronized (this) {
+                        activeWorkers--;
+                    }
+                    done.countDown();
+                }
+            }, "load-coordinator-" + worker.id);
+            reader.setDaemon(true);
+            reader.start();
+        }
+        logger.info("Started load run of {} on {} workers", project.getName(), workers.size());
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "load-coordinator-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long[] lastRequests = {0};
+        long[] lastReport = {start};
+        reporter.scheduleAtFixedRate(() -> {
+            long now = System.currentTimeMillis();
+            LoadProgress progress = progress(now - start, lastRequests[0], now - lastReport[0], false);
+            lastRequests[0] = progress.requests();
+            lastReport[0] = now;
+            listener.accept(progress);
+        }, 1, 1, TimeUnit.SECONDS);
+
+        try {
+            long maxMillis = profile.duration().plus(profile.rampUp()).toMillis() + GRACE_MILLIS;
+            if (!done.await(maxMillis, TimeUnit.MILLISECONDS)) {
+                logger.warn("Workers didn't finish in time, stopping them");
+                stop();
+                done.await(GRACE_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            reporter.shutdownNow();
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        return progress(elapsed, 0, elapsed, true);
+    }
+
+    /**
+     * Ask all workers to stop sending.
+     */
+    public void stop() {
+        for (WorkerConnection worker : workers) {
+            try {
+                LoadProtocol.write(worker.out, LoadProtocol.STOP, data -> {
+                });
+            } catch (IOException e) {
+                logger.debug("Worker {} is already gone", worker.id);
+            }
+        }
+    }
+
+    /**
+     * Start worker JVMs on this machine, using the classpath of this JVM.
+     *
+     * @param count The number of workers to start
+     * @param mainClass The main class accepting "worker --coordinator host:port"
+     * @param port The port of the coordinator
+     * @param token The token of the coordinator, or null
+     * @return The started processes
+     * @throws IOException If a process can't be started
+     */
+    public static List<Process> spawnLocalWorkers(int count, String mainClass, int port, String token)
+            throws IOException {
+        Path java = Paths.get(System.getProperty("java.home"), "bin", "java");
+        List<Process> processes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ProcessBuilder builder = new ProcessBuilder(java.toString(), "-cp", System.getProperty("java.class.path"),
+                "-Djava.awt.headless=true", mainClass, "worker",
+                "--coordinator", InetAddress.getLoopbackAddress().getHostAddress() + ":" + port)
+                .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .directory(new File(System.getProperty("user.dir")));
+            if (token != null) {
+                builder.environment().put(TOKEN_VARIABLE, token);
+            }
+            processes.add(builder.start());
+        }
+        return processes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (WorkerConnection worker : workers) {
+            worker.socket.close();
+        }
+    }
+
+    private void acceptWorkers(int workerCount, Duration acceptTimeout) throws IOException {
+        long deadline = System.currentTimeMillis() + acceptTimeout.toMillis();
+        while (workers.size() < workerCount) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new IOException("Only " + workers.size() + " of " + workerCount + " workers connected");
+            }
+            serverSocket.setSoTimeout((int) Math.min(Integer.MAX_VALUE, remaining));
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (SocketTimeoutException e) {
+                continue;
+            }
+            socket.setTcpNoDelay(true);
+            try {
+                workers.add(WorkerConnection.handshake(socket, token));
+            } catch (IOException e) {
+                logger.warn("Rejected worker from {}: {}", socket.getRemoteSocketAddress(), e.getMessage());
+                socket.close();
+            }
+        }
+    }
+
+    private synchronized void merge(String workerId, LoadSnapshot snapshot) {
+        latency.add(snapshot.latency());
+        requests += snapshot.requests();
+        errors += snapshot.errors();
+        bytesReceived += snapshot.bytesReceived();
+
+        ClientSample client = snapshot.client();
+        if (client == null) {
+            return;
+        }
+        latestClients.put(workerId, client);
+        peakClient = client.worst(peakClient);
+        clientSamples++;
+        String saturation = client.saturation();
+        if (saturation != null) {
+            saturatedSamples++;
+            if (saturatedWorkers.add(workerId)) {
+                logger.warn("Worker {} saturated at {}: {}, its latencies are inflated by the client",
+                    workerId, Instant.ofEpochMilli(snapshot.timestampMillis()), saturation);
+            }
+        } else if (saturatedWorkers.remove(workerId)) {
+            logger.info("Worker {} recovered at {}", workerId, Instant.ofEpochMilli(snapshot.timestampMillis()));
+        }
+    }
+
+    private synchronized LoadProgress progress(long elapsedMillis, long previousRequests, long intervalMillis,
+                                               boolean finalResult) {
+        LatencyHistogram copy = new LatencyHistogram();
+        copy.add(latency);
+        double throughput = intervalMillis > 0 ? (requests - previousRequests) * 1000.0 / intervalMillis : 0;
+        ClientSample client = finalResult ? peakClient : null;
+        if (!finalResult) {
+            for (ClientSample sample : latestClients.values()) {
+                client = sample.worst(client);
+            }
+        }
+        return new LoadProgress(elapsedMillis, activeWorkers, requests, errors, bytesReceived, throughput, copy,
+            client, clientSamples, saturatedSamples);
+    }
+
+    /**
+     * The connection to one worker.
+     */
+    private static final class WorkerConnection {
+
+        private final Socket socket;
+        private final String id;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        private WorkerConnection(Socket socket, String id, DataInputStream in, DataOutputStream out) {
+            this.socket = socket;
+            this.id = id;
+            this.in = in;
+            this.out = out;
+        }
+
+        static WorkerConnection handshake(Socket socket, String token) throws IOException {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+            LoadProtocol.Frame hello = LoadProtocol.read(in);
+            socket.setSoTimeout(0);
+            DataInputStream payload = hello.payloadStream();
+            if (hello.type() != LoadProtocol.HELLO || payload.readInt() != LoadProtocol.MAGIC) {
+                throw new IOException("Not a load worker");
+            }
+            int version = payload.readInt();
+            if (version != LoadProtocol.VERSION) {
+                throw new IOException("Unsupported protocol version " + version);
+            }
+            String id = payload.readUTF();
+            byte[] presented = payload.readUTF().getBytes(StandardCharsets.UTF_8);
+            if (token != null && !MessageDigest.isEqual(presented, token.getBytes(StandardCharsets.UTF_8))) {
+                throw new IOException("Worker " + id + " sent a wrong token");
+            }
+            logger.info("Worker {} connected from {}", id, socket.getRemoteSocketAddress());
+            return new WorkerConnection(socket, id, in, out);
+        }
+
+        void readSnapshots(LoadCoordinator coordinator) {
+            try {
+                while (true) {
+                    LoadProtocol.Frame frame = LoadProtocol.read(in);
+                    if (frame.type() == LoadProtocol.SNAPSHOT || frame.type() == LoadProtocol.DONE) {
+                        coordinator.merge(id, LoadSnapshot.readFrom(frame.payloadStream()));
+                    }
+                    if (frame.type() == LoadProtocol.DONE) {
+                        return;
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("Lost worker {}: {}", id, e.getMessage());
+            }
+        }
+    }
+}
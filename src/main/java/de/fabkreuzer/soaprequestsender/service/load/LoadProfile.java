@@ -0,0 +1,75 @@
+package de.fabkreuzer.soaprequestsender.service.load;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Describes the load one worker generates.
+ *
+ * @param threads The number of virtual users, each sending requests back to back, or the maximum number of requests in flight with arrivals
+ * @param duration How long to send requests
+ * @param rampUp The time over which the users are started evenly, ignored with arrivals
+ * @param targets The requests to send as "operation/request", or empty for the first request of every operation
+ * @param adaptive Whether the users go through the adaptive limiter of their backend, making threads an upper bound
+ * @param arrivals The request rate of an open workload, or null for users sending back to back
+ */
+public record LoadProfile(int threads,
+                          Duration duration,
+                          Duration rampUp,
+                          List<String> targets,
+                          boolean adaptive,
+                          ArrivalProfile arrivals) {
+
+    public LoadProfile {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is required");
+        }
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Duration must be positive");
+        }
+        if (rampUp.isNegative()) {
+            throw new IllegalArgumentException("Ramp-up must not be negative");
+        }
+        targets = List.copyOf(targets);
+    }
+
+    /**
+     * Creates a closed workload profile, each user sends its next request when the last one completed.
+     */
+    public LoadProfile(int threads, Duration duration, Duration rampUp, List<String> targets, boolean adaptive) {
+        this(threads, duration, rampUp, targets, adaptive, null);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(threads);
+        out.writeLong(duration.toMillis());
+        out.writeLong(rampUp.toMillis());
+        out.writeInt(targets.size());
+        for (String target : targets) {
+            out.writeUTF(target);
+        }
+        out.writeBoolean(adaptive);
+        out.writeBoolean(arrivals != null);
+        if (arrivals != null) {
+            arrivals.writeTo(out);
+        }
+    }
+
+    static LoadProfile readFrom(DataInput in) throws IOException {
+        int threads = in.readInt();
+        Duration duration = Duration.ofMillis(in.readLong());
+        Duration rampUp = Duration.ofMillis(in.readLong());
+        int targetCount = in.readInt();
+        List<String> targets = new ArrayList<>(targetCount);
+        for (int i = 0; i < targetCount; i++) {
+            targets.add(in.readUTF());
+        }
+        boolean adaptive = in.readBoolean();
+        ArrivalProfile arrivals = in.readBoolean() ? ArrivalProfile.readFrom(in) : null;
+        return new LoadProfile(threads, duration, rampUp, targets, adaptive, arrivals);
+    }
+}
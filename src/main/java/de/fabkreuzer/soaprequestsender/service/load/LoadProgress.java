@@ -0,0 +1,39 @@
+package de.fabkreuzer.soaprequestsender.service.load;
+
+/**
+ * The merged state of a load run across all workers.
+ *
+ * @param elapsedMillis The time since the run started
+ * @param activeWorkers The number of workers still sending
+ * @param requests The number of completed requests so far
+ * @param errors The number of failed requests so far
+ * @param bytesReceived The number of response bytes so far
+ * @param throughput Requests per second in the last interval, or over the whole run for the final result
+ * @param latency The latencies of all requests so far
+ * @param client The health of the worst worker JVM in the last interval, or its peak over the run for the final result, null if unknown
+ * @param clientSamples The number of worker health samples so far
+ * @param saturatedSamples The number of samples in which a worker JVM was saturated
+ */
+public record LoadProgress(long elapsedMillis,
+                           int activeWorkers,
+                           long requests,
+                           long errors,
+                           long bytesReceived,
+                           double throughput,
+                           LatencyHistogram latency,
+                           ClientSample client,
+                           long clientSamples,
+                           long saturatedSamples) {
+
+    @Override
+    public String toString() {
+        String line = String.format("%6.1fs  workers %d  requests %d  errors %d  %.1f req/s  p50 %.1f ms  p99 %.1f ms  max %.1f ms",
+            elapsedMillis / 1000.0, activeWorkers, requests, errors, throughput,
+            latency.getPercentile(50) / 1000.0, latency.getPercentile(99) / 1000.0, latency.getMax() / 1000.0);
+        if (client == null) {
+            return line;
+        }
+        String saturation = client.saturation();
+        return line + "  |  " + client + (saturation != null ? "  CLIENT SATURATED: " + saturation : "");
+    }
+}
@@ -0,0 +1,69 @@
+package de.fabkreuzer.soaprequestsender.service.load;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Framing of the messages between a load coordinator and its workers.
+ * Every frame is a type byte, a payload length and the payload.
+ */
+final class LoadProtocol {
+
+    static final int MAGIC = 0x534C4431;
+    static final int VERSION = 6;
+    static final int MAX_FRAME = 256 * 1024 * 1024;
+
+    /** Worker to coordinator: magic, version, worker id, token (empty if none). */
+    static final byte HELLO = 1;
+    /** Coordinator to worker: project and profile. */
+    static final byte START = 2;
+    /** Worker to coordinator: one interval snapshot. */
+    static final byte SNAPSHOT = 3;
+    /** Worker to coordinator: the last snapshot, the worker is done. */
+    static final byte DONE = 4;
+    /** Coordinator to worker: stop sending early. */
+    static final byte STOP = 5;
+
+    private LoadProtocol() {
+    }
+
+    @FunctionalInterface
+    interface Payload {
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * A received frame.
+     */
+    record Frame(byte type, byte[] payload) {
+
+        DataInputStream payloadStream() {
+            return new DataInputStream(new ByteArrayInputStream(payload));
+        }
+    }
+
+    static void write(DataOutputStream out, byte type, Payload payload) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DataOutputStream data = new DataOutputStream(buffer)) {
+            payload.writeTo(data);
+        }
+        out.writeByte(type);
+        out.writeInt(buffer.size());
+        buffer.writeTo(out);
+        out.flush();
+    }
+
+    static Frame read(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        int length = in.readInt();
+        if (length < 0 || length > MAX_FRAME) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return new Frame(type, payload);
+    }
+}
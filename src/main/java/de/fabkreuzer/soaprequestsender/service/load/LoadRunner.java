@@ -0,0 +1,274 @@
+package de.fabkreuzer.soaprequestsender.service.load;
+
+import de.fabkreuzer.soaprequestsender.model.OperationWrapper;
+import de.fabkreuzer.soaprequestsender.model.Project;
+import de.fabkreuzer.soaprequestsender.model.RequestWrapper;
+import de.fabkreuzer.soaprequestsender.service.http.SoapHttpClient;
+import de.fabkreuzer.soaprequestsender.service.http.SoapResponse;
+import de.fabkreuzer.soaprequestsender.service.limit.AdaptiveLimiter;
+import de.fabkreuzer.soaprequestsender.service.limit.EndpointLimiters;
+import de.fabkreuzer.soaprequestsender.service.template.RequestTemplate;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Generates load from this JVM: a fixed number of users send the target requests back to back
+ * until the profile's duration is over. Results are collected lock-free and read as interval snapshots.
+ * <p>
+ * With an arrival profile the workload is open instead: the users take intended send times from
+ * a shared schedule, and latency is measured from the intended time rather than from when the
+ * request actually went out. When the backend stalls and all users are busy, the requests that
+ * should have been sent meanwhile are sent late and their latency includes the wait, so a stall
+ * shows up in the percentiles instead of being hidden by the users slowing down
+ * (coordinated omission). Arrivals still due when the run ends are counted as errors.
+ */
+public class LoadRunner {
+
+    private static final Logger logger = LogManager.getLogger(LoadRunner.class);
+
+    private final SoapHttpClient client;
+    private final EndpointLimiters limiters;
+    private final LoadProfile profile;
+    private final List<Target> targets;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+
+    private final List<Thread> users = new ArrayList<>();
+    private CountDownLatch finished;
+    private ArrivalSchedule schedule;
+    private volatile boolean stopped;
+
+    /**
+     * The compiled body, endpoint and SOAPAction of one target request.
+     */
+    private record Target(String name, String endpoint, String soapAction, RequestTemplate template) {
+    }
+
+    /**
+     * Creates a runner.
+     *
+     * @param client The client used to send requests
+     * @param limiters The per-backend limiters, used if the profile is adaptive
+     * @param project The project containing the target requests
+     * @param profile The load to generate
+     * @throws IllegalArgumentException If a target doesn't exist, has no endpoint or uses an unknown template function
+     */
+    public LoadRunner(SoapHttpClient client, EndpointLimiters limiters, Project project, LoadProfile profile) {
+        this.client = client;
+        this.limiters = limiters;
+        this.profile = profile;
+        this.targets = resolveTargets(project, profile.targets());
+    }
+
+    /**
+     * Start the users. Each user starts at a different target so the load is spread from the beginning.
+     */
+    public synchronized void start() {
+        if (finished != null) {
+            throw new IllegalStateException("Load runner already started");
+        }
+        finished = new CountDownLatch(profile.threads());
+        long startNanos = System.nanoTime();
+        long deadline = startNanos + profile.duration().toNanos();
+        // An open workload starts all users at once, the arrival profile does the ramping
+        long rampUpNanos = profile.arrivals() == null ? profile.rampUp().toNanos() : 0;
+        if (profile.arrivals() != null) {
+            schedule = new ArrivalSchedule(profile.arrivals(), startNanos, profile.duration().toNanos());
+        }
+        for (int i = 0; i < profile.threads(); i++) {
+            int user = i;
+            long userStart = startNanos + rampUpNanos * i / profile.threads();
+            Thread thread = new Thread(() -> {
+                try {
+                    if (schedule != null) {
+                        runArrivals(user, deadline);
+                    } else {
+                        runUser(user, userStart, deadline);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    finished.countDown();
+                }
+            }, "load-user-" + (i + 1));
+            thread.setDaemon(true);
+            users.add(thread);
+            thread.start();
+        }
+        if (schedule != null) {
+            logger.info("Started {} arrivals with up to {} in flight on {} targets for {}",
+                profile.arrivals(), profile.threads(), targets.size(), profile.duration());
+        } else {
+            logger.info("Started {} users on {} targets for {}", profile.threads(), targets.size(), profile.duration());
+        }
+    }
+
+    /**
+     * Stop all users. Requests in flight are abandoned.
+     */
+    public synchronized void stop() {
+        stopped = true;
+        users.forEach(Thread::interrupt);
+    }
+
+    /**
+     * Wait for all users to finish.
+     *
+     * @param timeout The maximum time to wait
+     * @param unit The unit of the timeout
+     * @return true if all users finished
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+        return finished.await(timeout, unit);
+    }
+
+    /**
+     * Take the results collected since the last snapshot.
+     *
+     * @return The interval snapshot
+     */
+    public LoadSnapshot drainSnapshot() {
+        return new LoadSnapshot(System.currentTimeMillis(), requests.sumThenReset(), errors.sumThenReset(),
+            bytesReceived.sumThenReset(), latency.drain(), null);
+    }
+
+    private void runUser(int user, long startNanos, long deadline) throws InterruptedException {
+        long delay = startNanos - System.nanoTime();
+        if (delay > 0) {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        }
+        int next = user % targets.size();
+        while (!stopped && System.nanoTime() < deadline) {
+            send(targets.get(next), false, 0);
+            next = (next + 1) % targets.size();
+        }
+    }
+
+    private void runArrivals(int user, long deadline) throws InterruptedException {
+        int next = user % targets.size();
+        while (!stopped) {
+            OptionalLong arrival = schedule.next();
+            if (arrival.isEmpty()) {
+                return;
+            }
+            long intended = arrival.getAsLong();
+            long delay = intended - System.nanoTime();
+            if (delay > 0) {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            } else if (System.nanoTime() >= deadline) {
+                missArrivals(arrival);
+                return;
+            }
+            send(targets.get(next), true, intended);
+            next = (next + 1) % targets.size();
+        }
+    }
+
+    /**
+     * Count the arrivals that were due but not sent before the end of the run.
+     * Each one has waited at least until now, which is recorded as its latency.
+     */
+    private void missArrivals(OptionalLong first) {
+        long now = System.nanoTime();
+        long missed = 0;
+        for (OptionalLong arrival = first; arrival.isPresent(); arrival = schedule.next()) {
+            latency.recordNanos(now - arrival.getAsLong());
+            missed++;
+        }
+        requests.add(missed);
+        errors.add(missed);
+        logger.warn("{} requests were not sent before the end of the run, all users were busy", missed);
+    }
+
+    /**
+     * Send one request.
+     *
+     * @param target The request
+     * @param scheduled Whether latency is measured from the intended send time of an open workload,
+     *                  otherwise only the response is measured
+     * @param intended The intended send time in System.nanoTime() terms, ignored if not scheduled
+     */
+    private void send(Target target, boolean scheduled, long intended) throws InterruptedException {
+        AdaptiveLimiter.Permit permit = profile.adaptive() ? limiters.forEndpoint(target.endpoint()).acquire() : null;
+        long start = scheduled ? intended : System.nanoTime();
+        try {
+            SoapResponse response = client.send(target.endpoint(), target.template().render(), target.soapAction());
+            latency.recordNanos(scheduled ? System.nanoTime() - intended : response.latencyNanos());
+            bytesReceived.add(response.wireBytes());
+            if (!response.isSuccess()) {
+                errors.increment();
+            }
+            if (permit != null) {
+                if (response.isOverload()) {
+                    permit.onDropped();
+                } else {
+                    permit.onSuccess();
+                }
+            }
+        } catch (HttpTimeoutException | ConnectException e) {
+            errors.increment();
+            latency.recordNanos(System.nanoTime() - start);
+            if (permit != null) {
+                permit.onDropped();
+            }
+        } catch (IOException e) {
+            errors.increment();
+            logger.debug("Request {} failed", target.name(), e);
+            if (permit != null) {
+                permit.onIgnore();
+            }
+        } finally {
+            requests.increment();
+        }
+    }
+
+    private static List<Target> resolveTargets(Project project, List<String> names) {
+        List<Target> targets = new ArrayList<>();
+        if (names.isEmpty()) {
+            for (OperationWrapper operation : project.getOperations()) {
+                // Requests without an endpoint are skipped here, only explicit targets must be sendable
+                if (!operation.getRequests().isEmpty() && operation.getRequests().get(0).getSelectedEndpoint() != null) {
+                    addTarget(targets, operation, operation.getRequests().get(0));
+                }
+            }
+        } else {
+            for (String name : names) {
+                int slash = name.indexOf('/');
+                OperationWrapper operation = slash > 0 ? project.findOperation(name.substring(0, slash)) : null;
+                RequestWrapper request = operation != null ? operation.findRequest(name.substring(slash + 1)) : null;
+                if (request == null) {
+                    throw new IllegalArgumentException("Request not found: " + name);
+                }
+                addTarget(targets, operation, request);
+            }
+        }
+        if (targets.isEmpty()) {
+            throw new IllegalArgumentException("Project " + project.getName() + " has no requests to send");
+        }
+        return targets;
+    }
+
+    private static void addTarget(List<Target> targets, OperationWrapper operation, RequestWrapper request) {
+        String name = operation.getName() + "/" + request.getName();
+        String endpoint = request.getSelectedEndpoint();
+        if (endpoint == null || endpoint.isBlank()) {
+            throw new IllegalArgumentException("No endpoint selected for request: " + name);
+        }
+        // Compile once, requests without tokens send the same bytes every time
+        targets.add(new Target(name, endpoint, operation.getSoapAction(), RequestTemplate.compile(request)));
+    }
+}
@@ -0,0 +1,50 @@
+package de.fabkreuzer.soaprequestsender.service.load;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The results of one reporting interval of a load run.
+ *
+ * @param timestampMillis The end of the interval in epoch milliseconds
+ * @param requests The number of completed requests, successful or not
+ * @param errors The number of requests that failed or got a non-2xx status
+ * @param bytesReceived The number of response bytes read from the wire
+ * @param latency The latencies of all requests that got a response
+ * @param client The health of the worker JVM over the interval, or null if it wasn't sampled
+ */
+public record LoadSnapshot(long timestampMillis,
+                           long requests,
+                           long errors,
+                           long bytesReceived,
+                           LatencyHistogram latency,
+                           ClientSample client) {
+
+    /**
+     * Get a copy of this snapshot with the health of the worker JVM.
+     *
+     * @param client The sample of the same interval
+     * @return The snapshot
+     */
+    public LoadSnapshot withClient(ClientSample client) {
+        return new LoadSnapshot(timestampMillis, requests, errors, bytesReceived, latency, client);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(timestampMillis);
+        out.writeLong(requests);
+        out.writeLong(errors);
+        out.writeLong(bytesReceived);
+        latency.writeTo(out);
+        out.writeBoolean(client != null);
+        if (client != null) {
+            client.writeTo(out);
+        }
+    }
+
+    static LoadSnapshot readFrom(DataInput in) throws IOException {
+        return new LoadSnapshot(in.readLong(), in.readLong(), in.readLong(), in.readLong(),
+            LatencyHistogram.readFrom(in), in.readBoolean() ? ClientSample.readFrom(in) : null);
+    }
+}
@@ -0,0 +1,118 @@
+package de.fabkreuzer.soaprequestsender.service.load;
+
+import de.fabkreuzer.soaprequestsender.model.Project;
+import de.fabkreuzer.soaprequestsender.service.http.SoapHttpClient;
+import de.fabkreuzer.soaprequestsender.service.limit.EndpointLimiters;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A headless load generator. It connects to a coordinator, receives a project and a load profile,
+ * runs the load and streams a snapshot of its results every interval until the run is over.
+ * Every snapshot carries a sample of the worker JVM's own health, so the coordinator can tell
+ * backend latency from a worker that was stuck in GC or out of CPU.
+ */
+public class LoadWorker {
+
+    private static final Logger logger = LogManager.getLogger(LoadWorker.class);
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 10_000;
+
+    private final SoapHttpClient client;
+    private final long reportIntervalMillis;
+
+    /**
+     * Creates a worker reporting once per second.
+     *
+     * @param client The client used to send requests
+     */
+    public LoadWorker(SoapHttpClient client) {
+        this(client, 1000);
+    }
+
+    /**
+     * Creates a worker.
+     *
+     * @param client The client used to send requests
+     * @param reportIntervalMillis The time between two snapshots
+     */
+    public LoadWorker(SoapHttpClient client, long reportIntervalMillis) {
+        this.client = client;
+        this.reportIntervalMillis = reportIntervalMillis;
+    }
+
+    /**
+     * Connect to a coordinator and run one load run.
+     *
+     * @param host The host of the coordinator
+     * @param port The port of the coordinator
+     * @param token The token the coordinator expects, or null
+     * @throws IOException If the connection fails or the coordinator sends invalid data
+     * @throws InterruptedException If the thread is interrupted
+     */
+    public void run(String host, int port, String token) throws IOException, InterruptedException {
+        try (Socket socket = new Socket()) {
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            String workerId = ManagementFactory.getRuntimeMXBean().getName();
+            LoadProtocol.write(out, LoadProtocol.HELLO, data -> {
+                data.writeInt(LoadProtocol.MAGIC);
+                data.writeInt(LoadProtocol.VERSION);
+                data.writeUTF(workerId);
+                data.writeUTF(token != null ? token : "");
+            });
+
+            LoadProtocol.Frame start = LoadProtocol.read(in);
+            if (start.type() != LoadProtocol.START) {
+                throw new IOException("Expected START from coordinator but got frame type " + start.type());
+            }
+            DataInputStream payload = start.payloadStream();
+            Project project = ProjectCodec.read(payload);
+            LoadProfile profile = LoadProfile.readFrom(payload);
+            logger.info("Worker {} running {} with {}", workerId, project.getName(), profile);
+
+            LoadRunner runner = new LoadRunner(client, new EndpointLimiters(), project, profile);
+            Thread stopListener = new Thread(() -> listenForStop(in, runner), "load-worker-control");
+            stopListener.setDaemon(true);
+            try (ClientTelemetry telemetry = new ClientTelemetry()) {
+                runner.start();
+                stopListener.start();
+
+                while (!runner.awaitCompletion(reportIntervalMillis, TimeUnit.MILLISECONDS)) {
+                    LoadSnapshot snapshot = runner.drainSnapshot().withClient(telemetry.sample());
+                    LoadProtocol.write(out, LoadProtocol.SNAPSHOT, snapshot::writeTo);
+                }
+                LoadSnapshot last = runner.drainSnapshot().withClient(telemetry.sample());
+                LoadProtocol.write(out, LoadProtocol.DONE, last::writeTo);
+            }
+            logger.info("Worker {} done", workerId);
+        }
+    }
+
+    private static void listenForStop(DataInputStream in, LoadRunner runner) {
+        try {
+            while (true) {
+                if (LoadProtocol.read(in).type() == LoadProtocol.STOP) {
+                    runner.stop();
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // The coordinator is gone, there is nobody left to report to
+            runner.stop();
+        }
+    }
+}
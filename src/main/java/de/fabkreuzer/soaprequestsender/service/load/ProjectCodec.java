@@ -0,0 +1,104 @@
+package de.fabkreuzer.soaprequestsender.service.load;
+
+import de.fabkreuzer.soaprequestsender.model.OperationWrapper;
+import de.fabkreuzer.soaprequestsender.model.Project;
+import de.fabkreuzer.soaprequestsender.model.RequestWrapper;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary form of a project's operations and requests, used to ship a project to load workers.
+ * The soapUI operations aren't part of it, a worker only needs the saved envelopes and endpoints.
+ */
+public final class ProjectCodec {
+
+    private ProjectCodec() {
+    }
+
+    /**
+     * Write a project.
+     *
+     * @param project The project to write
+     * @param out The output to write to
+     * @throws IOException If writing fails
+     */
+    public static void write(Project project, DataOutput out) throws IOException {
+        writeString(out, project.getName());
+        writeString(out, project.getWsdlUrl());
+        writeString(out, project.getServiceName());
+        out.writeInt(project.getOperations().size());
+        for (OperationWrapper operation : project.getOperations()) {
+            writeString(out, operation.getName());
+            writeString(out, operation.getInterfaceName());
+            writeString(out, operation.getSoapAction());
+            out.writeInt(operation.getRequests().size());
+            for (RequestWrapper request : operation.getRequests()) {
+                writeString(out, request.getName());
+                writeString(out, request.getContent());
+                out.writeInt(request.getEndpoints().size());
+                for (String endpoint : request.getEndpoints()) {
+                    writeString(out, endpoint);
+                }
+                writeString(out, request.getSelectedEndpoint());
+            }
+        }
+    }
+
+    /**
+     * Read a project written by {@link #write(Project, DataOutput)}.
+     *
+     * @param in The input to read from
+     * @return The project, without soapUI operations
+     * @throws IOException If reading fails
+     */
+    public static Project read(DataInput in) throws IOException {
+        Project project = new Project(readString(in), readString(in));
+        project.setServiceName(readString(in));
+        int operationCount = in.readInt();
+        for (int i = 0; i < operationCount; i++) {
+            OperationWrapper operation = new OperationWrapper();
+            operation.setName(readString(in));
+            operation.setInterfaceName(readString(in));
+            operation.setSoapAction(readString(in));
+            int requestCount = in.readInt();
+            for (int j = 0; j < requestCount; j++) {
+                RequestWrapper request = new RequestWrapper(readString(in), readString(in));
+                int endpointCount = in.readInt();
+                List<String> endpoints = new ArrayList<>(endpointCount);
+                for (int k = 0; k < endpointCount; k++) {
+                    endpoints.add(readString(in));
+                }
+                request.setEndpoints(endpoints);
+                request.setSelectedEndpoint(readString(in));
+                operation.addRequest(request);
+            }
+            project.getOperations().add(operation);
+        }
+        return project;
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
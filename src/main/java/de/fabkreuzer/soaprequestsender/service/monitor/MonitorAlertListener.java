@@ -0,0 +1,23 @@
+package de.fabkreuzer.soaprequestsender.service.monitor;
+
+/**
+ * Receives SLA alerts of scheduled monitors.
+ * Called on the HTTP client's threads, implementations must return quickly.
+ */
+public interface MonitorAlertListener {
+
+    /**
+     * A monitor breached its SLA as often in a row as its failure threshold allows.
+     *
+     * @param status The status of the monitor after the probe
+     * @param reason Why the last probe breached the SLA
+     */
+    void onBreach(MonitorStatus status, String reason);
+
+    /**
+     * A monitor that raised an alert passed a probe again.
+     *
+     * @param status The status of the monitor after the probe
+     */
+    void onRecovery(MonitorStatus status);
+}
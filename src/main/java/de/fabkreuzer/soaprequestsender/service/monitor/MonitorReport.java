@@ -0,0 +1,43 @@
+package de.fabkreuzer.soaprequestsender.service.monitor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes monitor states as a plain-text table: one line per monitor with its probe counts and recent
+ * latency percentiles, and the breach reason below monitors whose last probe breached the SLA.
+ */
+public final class MonitorReport {
+
+    private MonitorReport() {
+    }
+
+    /**
+     * Write a report.
+     *
+     * @param statuses The monitor states
+     * @param out The writer to write to
+     * @throws IOException If writing fails
+     */
+    public static void write(List<MonitorStatus> statuses, Writer out) throws IOException {
+        out.write(String.format("%-5s %-50s %8s %8s %6s %9s %9s %9s%n",
+            "", "Monitor", "Probes", "Breaches", "HTTP", "p50 ms", "p95 ms", "max ms"));
+        int alerting = 0;
+        for (MonitorStatus status : statuses) {
+            String state = status.alerting() ? "ALERT" : status.probes() == 0 ? "-" : "OK";
+            out.write(String.format("%-5s %-50s %8d %8d %6s %9.1f %9.1f %9.1f%n",
+                state, status.name(), status.probes(), status.breaches(),
+                status.lastStatusCode() > 0 ? String.valueOf(status.lastStatusCode()) : "-",
+                status.p50Nanos() / 1e6, status.p95Nanos() / 1e6, status.maxNanos() / 1e6));
+            if (status.lastError() != null) {
+                out.write(String.format("      %s%n", status.lastError()));
+            }
+            if (status.alerting()) {
+                alerting++;
+            }
+        }
+        out.write(String.format("%d monitors, %d alerting%n", statuses.size(), alerting));
+        out.flush();
+    }
+}
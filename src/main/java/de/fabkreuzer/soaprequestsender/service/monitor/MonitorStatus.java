@@ -0,0 +1,46 @@
+package de.fabkreuzer.soaprequestsender.service.monitor;
+
+/**
+ * The state of a scheduled monitor.
+ *
+ * @param projectName The name of the project
+ * @param operationName The name of the operation
+ * @param requestName The name of the request
+ * @param endpoint The endpoint the request is sent to
+ * @param probes The number of probes sent
+ * @param breaches The number of probes that breached the SLA
+ * @param skipped The number of probes skipped because the previous one was still running
+ * @param consecutiveBreaches The number of breaches since the last passed probe
+ * @param alerting Whether the monitor is in alert state
+ * @param lastProbeMillis When the last probe completed in epoch milliseconds, or 0 before the first
+ * @param lastStatusCode The HTTP status of the last probe, or 0 if it got no response
+ * @param lastError The reason the last probe breached the SLA, or null if it passed
+ * @param p50Nanos The median latency of the recent probes
+ * @param p95Nanos The 95th percentile latency of the recent probes
+ * @param maxNanos The maximum latency of the recent probes
+ */
+public record MonitorStatus(String projectName,
+                            String operationName,
+                            String requestName,
+                            String endpoint,
+                            long probes,
+                            long breaches,
+                            long skipped,
+                            int consecutiveBreaches,
+                            boolean alerting,
+                            long lastProbeMillis,
+                            int lastStatusCode,
+                            String lastError,
+                            long p50Nanos,
+                            long p95Nanos,
+                            long maxNanos) {
+
+    /**
+     * Get the name identifying the monitor.
+     *
+     * @return project/operation/request
+     */
+    public String name() {
+        return projectName + "/" + operationName + "/" + requestName;
+    }
+}
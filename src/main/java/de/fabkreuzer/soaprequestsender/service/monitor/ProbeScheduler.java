@@ -0,0 +1,402 @@
+package de.fabkreuzer.soaprequestsender.service.monitor;
+
+import de.fabkreuzer.soaprequestsender.jfr.MonitorProbeEvent;
+import de.fabkreuzer.soaprequestsender.model.MonitorSettings;
+import de.fabkreuzer.soaprequestsender.model.OperationWrapper;
+import de.fabkreuzer.soaprequestsender.model.Project;
+import de.fabkreuzer.soaprequestsender.model.RequestWrapper;
+import de.fabkreuzer.soaprequestsender.service.history.HistoryEntry;
+import de.fabkreuzer.soaprequestsender.service.history.ResponseHistoryStore;
+import de.fabkreuzer.soaprequestsender.service.http.SoapHttpClient;
+import de.fabkreuzer.soaprequestsender.service.http.SoapResponse;
+import de.fabkreuzer.soaprequestsender.service.template.RequestTemplate;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs saved requests as periodic probes and checks them against their SLA.
+ * <p>
+ * All monitors share one timer thread, which only renders the request and hands it to the
+ * asynchronous HTTP client. The client collects responses without blocking a thread and only
+ * decodes a body once it is complete, so thousands of monitors cost a few hundred bytes each and
+ * no threads, however slowly the backends answer.
+ * Each probe is planned one interval after the previous plan and shifted by a random jitter, and the
+ * first probe of each monitor is spread over its interval, so monitors don't fire in lockstep.
+ * A probe that is due while the previous one is still running is skipped instead of piling up.
+ * Every probe is recorded in the response history and as a JFR event; alerts are raised once a
+ * monitor breaches its SLA as often in a row as its failure threshold, and cleared on the next pass.
+ */
+public class ProbeScheduler implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(ProbeScheduler.class);
+
+    // The latency percentiles cover the most recent probes of each monitor
+    private static final int LATENCY_WINDOW = 64;
+
+    private final SoapHttpClient client;
+    private final ResponseHistoryStore historyStore;
+    private final ScheduledExecutorService timer;
+    private final Map<String, Probe> probes = new ConcurrentHashMap<>();
+    private final List<MonitorAlertListener> alertListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param client The client used to send probes
+     * @param historyStore The store every probe is recorded in, or null to record nothing
+     */
+    public ProbeScheduler(SoapHttpClient client, ResponseHistoryStore historyStore) {
+        this.client = client;
+        this.historyStore = historyStore;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "probe-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Add a listener for SLA alerts.
+     *
+     * @param listener The listener
+     */
+    public void addAlertListener(MonitorAlertListener listener) {
+        alertListeners.add(listener);
+    }
+
+    /**
+     * Start monitoring a request, replacing its current monitor.
+     *
+     * @param project The project containing the request
+     * @param operation The operation containing the request
+     * @param request The request, with monitor settings and a selected endpoint
+     * @throws IllegalArgumentException If the request isn't monitored, has no endpoint or an invalid template
+     */
+    public void schedule(Project project, OperationWrapper operation, RequestWrapper request) {
+        MonitorSettings settings = request.getMonitor();
+        if (settings == null || settings.getIntervalSeconds() <= 0) {
+            throw new IllegalArgumentException("Request has no monitor interval: " + request.getName());
+        }
+        String endpoint = request.getSelectedEndpoint();
+        if (endpoint == null || endpoint.isBlank()) {
+            throw new IllegalArgumentException("No endpoint selected for request: " + request.getName());
+        }
+        Probe probe = new Probe(project.getName(), operation.getName(), request.getName(), endpoint,
+            operation.getSoapAction(), RequestTemplate.compile(request), settings);
+        Probe previous = probes.put(probe.key(), probe);
+        if (previous != null) {
+            previous.cancel();
+        }
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(settings.getIntervalSeconds());
+        long firstDelay = ThreadLocalRandom.current().nextLong(intervalNanos);
+        synchronized (probe) {
+            probe.plannedNanos = System.nanoTime() + firstDelay;
+            probe.next = timer.schedule(() -> fire(probe), firstDelay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Start monitoring every request with monitor settings. Requests that can't be monitored are logged and skipped.
+     *
+     * @param projects The projects
+     * @return The number of monitors started
+     */
+    public int scheduleAll(List<Project> projects) {
+        int count = 0;
+        for (Project project : projects) {
+            for (OperationWrapper operation : project.getOperations()) {
+                for (RequestWrapper request : operation.getRequests()) {
+                    if (request.getMonitor() == null) {
+                        continue;
+                    }
+                    try {
+                        schedule(project, operation, request);
+                        count++;
+                    } catch (RuntimeException e) {
+                        logger.warn("Not monitoring {}/{}/{}: {}", project.getName(), operation.getName(),
+                            request.getName(), e.getMessage());
+                    }
+                }
+            }
+        }
+        logger.info("Started {} monitors", count);
+        return count;
+    }
+
+    /**
+     * Stop monitoring a request.
+     *
+     * @param projectName The name of the project
+     * @param operationName The name of the operation
+     * @param requestName The name of the request
+     * @return True if the request was monitored
+     */
+    public boolean cancel(String projectName, String operationName, String requestName) {
+        Probe probe = probes.remove(key(projectName, operationName, requestName));
+        if (probe != null) {
+            probe.cancel();
+        }
+        return probe != null;
+    }
+
+    /**
+     * Stop monitoring all requests of an operation.
+     *
+     * @param projectName The name of the project
+     * @param operationName The name of the operation
+     */
+    public void cancelOperation(String projectName, String operationName) {
+        probes.values().removeIf(probe -> {
+            if (probe.projectName.equals(projectName) && probe.operationName.equals(operationName)) {
+                probe.cancel();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Stop monitoring all requests of a project.
+     *
+     * @param projectName The name of the project
+     */
+    public void cancelProject(String projectName) {
+        probes.values().removeIf(probe -> {
+            if (probe.projectName.equals(projectName)) {
+                probe.cancel();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Get the state of all monitors.
+     *
+     * @return The states, ordered by name
+     */
+    public List<MonitorStatus> getStatuses() {
+        List<MonitorStatus> statuses = new ArrayList<>();
+        for (Probe probe : probes.values()) {
+            synchronized (probe) {
+                statuses.add(probe.status());
+            }
+        }
+        statuses.sort(Comparator.comparing(MonitorStatus::name));
+        return statuses;
+    }
+
+    /**
+     * Stop all monitors. Probes in flight complete but are no longer recorded.
+     */
+    @Override
+    public void close() {
+        probes.values().forEach(Probe::cancel);
+        probes.clear();
+        timer.shutdownNow();
+    }
+
+    /**
+     * Send a due probe and plan the next one. Runs on the timer thread.
+     */
+    private void fire(Probe probe) {
+        synchronized (probe) {
+            if (probe.cancelled) {
+                return;
+            }
+            scheduleNext(probe);
+            if (probe.inFlight) {
+                probe.skipped++;
+                return;
+            }
+            probe.inFlight = true;
+        }
+
+        byte[] body = probe.template.render();
+        MonitorProbeEvent event = new MonitorProbeEvent();
+        event.begin();
+        long timestamp = System.currentTimeMillis();
+        long start = System.nanoTime();
+        client.sendAsync(probe.endpoint, body, probe.soapAction).whenComplete((response, error) -> {
+            try {
+                complete(probe, body, timestamp, start, response, error, event);
+            } catch (RuntimeException e) {
+                logger.error("Failed to record probe of {}", probe.key(), e);
+            }
+        });
+    }
+
+    private void scheduleNext(Probe probe) {
+        long now = System.nanoTime();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(probe.settings.getIntervalSeconds());
+        probe.plannedNanos += intervalNanos;
+        if (probe.plannedNanos < now - intervalNanos) {
+            // The timer fell far behind, e.g. after a suspend, continue from now instead of catching up in a burst
+            probe.plannedNanos = now;
+        }
+        long jitterNanos = TimeUnit.SECONDS.toNanos(probe.settings.getJitterSeconds());
+        long jitter = jitterNanos > 0 ? ThreadLocalRandom.current().nextLong(-jitterNanos, jitterNanos + 1) : 0;
+        long delay = Math.max(0, probe.plannedNanos + jitter - now);
+        probe.next = timer.schedule(() -> fire(probe), delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void complete(Probe probe, byte[] body, long timestamp, long start, SoapResponse response,
+                          Throwable error, MonitorProbeEvent event) {
+        long latency = response != null ? response.latencyNanos() : System.nanoTime() - start;
+        int statusCode = response != null ? response.statusCode() : 0;
+        String reason = null;
+        if (response == null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            reason = String.valueOf(cause);
+        } else if (!response.isSuccess()) {
+            reason = "HTTP " + statusCode;
+        } else if (probe.settings.getMaxLatencyMillis() > 0
+            && latency > TimeUnit.MILLISECONDS.toNanos(probe.settings.getMaxLatencyMillis())) {
+            reason = String.format("Latency %.0f ms over SLA of %d ms", latency / 1e6, probe.settings.getMaxLatencyMillis());
+        }
+
+        event.monitor = probe.key();
+        event.statusCode = statusCode;
+        event.breached = reason != null;
+        event.reason = reason;
+        event.commit();
+
+        MonitorStatus status;
+        boolean raised;
+        boolean cleared;
+        synchronized (probe) {
+            probe.inFlight = false;
+            if (probe.cancelled) {
+                return;
+            }
+            probe.recordLatency(latency);
+            probe.probes++;
+            probe.lastProbeMillis = System.currentTimeMillis();
+            probe.lastStatusCode = statusCode;
+            probe.lastError = reason;
+            if (reason != null) {
+                probe.breaches++;
+                probe.consecutiveBreaches++;
+            } else {
+                probe.consecutiveBreaches = 0;
+            }
+            raised = reason != null && !probe.alerting
+                && probe.consecutiveBreaches >= Math.max(1, probe.settings.getFailureThreshold());
+            cleared = reason == null && probe.alerting;
+            probe.alerting = raised || (probe.alerting && !cleared);
+            status = probe.status();
+        }
+
+        if (historyStore != null) {
+            try {
+                historyStore.append(probe.projectName, new HistoryEntry(timestamp, probe.operationName,
+                    probe.requestName, probe.endpoint, statusCode, latency, new String(body, StandardCharsets.UTF_8),
+                    response != null ? response.body() : reason));
+            } catch (IOException e) {
+                logger.warn("Failed to record probe of {} in the history", probe.key(), e);
+            }
+        }
+        if (raised) {
+            String breach = reason;
+            logger.warn("Monitor {} breached its SLA: {}", probe.key(), breach);
+            alertListeners.forEach(listener -> listener.onBreach(status, breach));
+        } else if (cleared) {
+            logger.info("Monitor {} recovered", probe.key());
+            alertListeners.forEach(listener -> listener.onRecovery(status));
+        }
+    }
+
+    private static String key(String projectName, String operationName, String requestName) {
+        return projectName + "/" + operationName + "/" + requestName;
+    }
+
+    /**
+     * The schedule and state of one monitor. Guarded by its own lock.
+     */
+    private static final class Probe {
+
+        private final String projectName;
+        private final String operationName;
+        private final String requestName;
+        private final String endpoint;
+        private final String soapAction;
+        private final RequestTemplate template;
+        private final MonitorSettings settings;
+        private final long[] latencies = new long[LATENCY_WINDOW];
+
+        private ScheduledFuture<?> next;
+        private long plannedNanos;
+        private boolean inFlight;
+        private boolean cancelled;
+        private boolean alerting;
+        private long probes;
+        private long breaches;
+        private long skipped;
+        private int consecutiveBreaches;
+        private long lastProbeMillis;
+        private int lastStatusCode;
+        private String lastError;
+
+        private Probe(String projectName, String operationName, String requestName, String endpoint,
+                      String soapAction, RequestTemplate template, MonitorSettings settings) {
+            this.projectName = projectName;
+            this.operationName = operationName;
+            this.requestName = requestName;
+            this.endpoint = endpoint;
+            this.soapAction = soapAction;
+            this.template = template;
+            // Copied, so editing the request's settings takes effect when it's scheduled again
+            this.settings = new MonitorSettings(settings.getIntervalSeconds(), settings.getJitterSeconds(),
+                settings.getMaxLatencyMillis(), settings.getFailureThreshold());
+        }
+
+        private String key() {
+            return ProbeScheduler.key(projectName, operationName, requestName);
+        }
+
+        private synchronized void cancel() {
+            cancelled = true;
+            if (next != null) {
+                next.cancel(false);
+            }
+        }
+
+        private void recordLatency(long nanos) {
+            latencies[(int) (probes % LATENCY_WINDOW)] = nanos;
+        }
+
+        private MonitorStatus status() {
+            int count = (int) Math.min(probes, LATENCY_WINDOW);
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return new MonitorStatus(projectName, operationName, requestName, endpoint, probes, breaches, skipped,
+                consecutiveBreaches, alerting, lastProbeMillis, lastStatusCode, lastError,
+                percentile(sorted, 0.50), percentile(sorted, 0.95), count > 0 ? sorted[count - 1] : 0);
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+        }
+    }
+}
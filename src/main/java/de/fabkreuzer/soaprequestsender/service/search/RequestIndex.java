@@ -0,0 +1,324 @@
+package de.fabkreuzer.soaprequestsender.service.search;
+
+import de.fabkreuzer.soaprequestsender.model.ContentHandle;
+import de.fabkreuzer.soaprequestsender.model.OperationWrapper;
+import de.fabkreuzer.soaprequestsender.model.Project;
+import de.fabkreuzer.soaprequestsender.model.RequestWrapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over the content of all saved requests.
+ * Each term maps to a sorted posting list of document ids, a query is the intersection
+ * of the posting lists of its terms. Documents are re-indexed only when their content changed.
+ */
+public class RequestIndex {
+
+    private static final Logger logger = LogManager.getLogger(RequestIndex.class);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<String, IndexedDocument> documentsByKey = new HashMap<>();
+    private final Map<Integer, IndexedDocument> documentsById = new HashMap<>();
+    private int nextId;
+
+    /**
+     * Finds the stored content of a request directory.
+     */
+    @FunctionalInterface
+    public interface ContentLocator {
+
+        /**
+         * Get the content of a request.
+         *
+         * @param requestDir The directory of the request
+         * @return The content, or null if the request has none
+         * @throws IOException If the content can't be located
+         */
+        ContentHandle locate(Path requestDir) throws IOException;
+    }
+
+    /**
+     * Index every request below a projects directory.
+     * The files are parsed outside the lock, documents that were updated in the meantime keep their newer state.
+     *
+     * @param projectsDir The projects directory
+     * @param locator Finds the content of each request directory
+     * @throws IOException If the directory can't be read
+     */
+    public void rebuild(Path projectsDir, ContentLocator locator) throws IOException {
+        long start = System.nanoTime();
+        Map<Path, ContentHandle> requestFiles = new HashMap<>();
+        for (Path projectDir : directories(projectsDir)) {
+            for (Path operationDir : directories(projectDir)) {
+                for (Path requestDir : directories(operationDir)) {
+                    try {
+                        ContentHandle content = locator.locate(requestDir);
+                        if (content != null) {
+                            requestFiles.put(requestDir, content);
+                        }
+                    } catch (IOException e) {
+                        logger.warn("Failed to index request: {}", requestDir, e);
+                    }
+                }
+            }
+        }
+
+        List<IndexedDocument> parsed = requestFiles.entrySet().parallelStream()
+            .map(entry -> parseRequest(entry.getKey(), entry.getValue()))
+            .filter(document -> document != null)
+            .toList();
+
+        lock.writeLock().lock();
+        try {
+            for (IndexedDocument document : parsed) {
+                if (!documentsByKey.containsKey(document.location.key())) {
+                    add(document);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Indexed {} requests with {} terms in {} ms", parsed.size(), postings.size(),
+            (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Bring the index in line with a project: re-index changed requests and drop removed ones.
+     *
+     * @param project The project as it was just saved
+     */
+    public void updateProject(Project project) {
+        Map<String, RequestWrapper> requests = new HashMap<>();
+        Map<String, RequestLocation> locations = new HashMap<>();
+        for (OperationWrapper operation : project.getOperations()) {
+            for (RequestWrapper request : operation.getRequests()) {
+                RequestLocation location = new RequestLocation(project.getName(), operation.getName(), request.getName());
+                requests.put(location.key(), request);
+                locations.put(location.key(), location);
+            }
+        }
+
+        // Parse changed requests before taking the lock
+        List<IndexedDocument> changed = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<String, RequestWrapper> entry : requests.entrySet()) {
+                // Unloaded requests are unchanged on disk, where the index was built from
+                if (!entry.getValue().isContentLoaded()) {
+                    continue;
+                }
+                String content = entry.getValue().getContent();
+                if (content == null) {
+                    continue;
+                }
+                IndexedDocument existing = documentsByKey.get(entry.getKey());
+                if (existing == null || existing.contentHash != hash(content)) {
+                    changed.add(new IndexedDocument(locations.get(entry.getKey()), hash(content), content));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (IndexedDocument document : new ArrayList<>(documentsByKey.values())) {
+                if (document.location.projectName().equals(project.getName())
+                        && !requests.containsKey(document.location.key())) {
+                    remove(document);
+                }
+            }
+            for (IndexedDocument document : changed) {
+                IndexedDocument existing = documentsByKey.get(document.location.key());
+                if (existing != null) {
+                    remove(existing);
+                }
+                add(document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.debug("Re-indexed {} changed requests of project {}", changed.size(), project.getName());
+    }
+
+    /**
+     * Drop all requests of a project from the index.
+     *
+     * @param projectName The name of the project
+     */
+    public void removeProject(String projectName) {
+        lock.writeLock().lock();
+        try {
+            for (IndexedDocument document : new ArrayList<>(documentsByKey.values())) {
+                if (document.location.projectName().equals(projectName)) {
+                    remove(document);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find all requests containing every word of a query.
+     * Words are matched against element names and text values, "element:name" restricts a word to
+     * element and attribute names and "ns:uri" matches a namespace URI.
+     *
+     * @param query The query
+     * @return The matching requests, in indexing order
+     */
+    public List<RequestLocation> search(String query) {
+        List<String> terms = parseQuery(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<PostingList> lists = new ArrayList<>();
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list == null) {
+                    return List.of();
+                }
+                lists.add(list);
+            }
+            lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+            // Walk the shortest list and probe the others
+            PostingList shortest = lists.get(0);
+            List<RequestLocation> results = new ArrayList<>();
+            for (int i = 0; i < shortest.size(); i++) {
+                int id = shortest.get(i);
+                boolean matchesAll = true;
+                for (int j = 1; j < lists.size() && matchesAll; j++) {
+                    matchesAll = lists.get(j).contains(id);
+                }
+                if (matchesAll) {
+                    results.add(documentsById.get(id).location);
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of indexed requests.
+     *
+     * @return The number of documents
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentsByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static List<String> parseQuery(String query) {
+        List<String> terms = new ArrayList<>();
+        if (query == null) {
+            return terms;
+        }
+        for (String part : query.trim().split("\\s+")) {
+            String lower = part.toLowerCase(Locale.ROOT);
+            if (lower.startsWith(XmlTermExtractor.ELEMENT_PREFIX) || lower.startsWith(XmlTermExtractor.NAMESPACE_PREFIX)) {
+                terms.add(lower);
+            } else {
+                Set<String> words = new HashSet<>();
+                XmlTermExtractor.addWords(words, part);
+                terms.addAll(words);
+            }
+        }
+        return terms;
+    }
+
+    private void add(IndexedDocument document) {
+        document.id = nextId++;
+        for (String term : document.terms) {
+            postings.computeIfAbsent(term, t -> new PostingList()).add(document.id);
+        }
+        documentsByKey.put(document.location.key(), document);
+        documentsById.put(document.id, document);
+    }
+
+    private void remove(IndexedDocument document) {
+        for (String term : document.terms) {
+            PostingList list = postings.get(term);
+            if (list != null) {
+                list.remove(document.id);
+                if (list.size() == 0) {
+                    postings.remove(term);
+                }
+            }
+        }
+        documentsByKey.remove(document.location.key());
+        documentsById.remove(document.id);
+    }
+
+    private static IndexedDocument parseRequest(Path requestDir, ContentHandle content) {
+        Path operationDir = requestDir.getParent();
+        Path projectDir = operationDir.getParent();
+        RequestLocation location = new RequestLocation(projectDir.getFileName().toString(),
+            operationDir.getFileName().toString(), requestDir.getFileName().toString());
+        try {
+            String text = content.load();
+            return new IndexedDocument(location, hash(text), text);
+        } catch (UncheckedIOException e) {
+            logger.warn("Failed to index request: {}", requestDir, e);
+            return null;
+        }
+    }
+
+    private static List<Path> directories(Path parent) throws IOException {
+        List<Path> directories = new ArrayList<>();
+        if (Files.isDirectory(parent)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(parent, Files::isDirectory)) {
+                for (Path path : stream) {
+                    directories.add(path);
+                }
+            }
+        }
+        return directories;
+    }
+
+    private static long hash(String content) {
+        return ((long) content.hashCode() << 32) | (content.length() & 0xFFFFFFFFL);
+    }
+
+    /**
+     * An indexed request together with its terms, needed to remove it again.
+     */
+    private static final class IndexedDocument {
+
+        private final RequestLocation location;
+        private final long contentHash;
+        private final String[] terms;
+        private int id;
+
+        private IndexedDocument(RequestLocation location, long contentHash, String content) {
+            this.location = location;
+            this.contentHash = contentHash;
+            this.terms = XmlTermExtractor.extract(content).toArray(new String[0]);
+        }
+    }
+}
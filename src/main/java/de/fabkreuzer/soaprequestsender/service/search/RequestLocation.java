@@ -0,0 +1,25 @@
+package de.fabkreuzer.soaprequestsender.service.search;
+
+/**
+ * Identifies a saved request by its position in the project tree.
+ *
+ * @param projectName The name of the project
+ * @param operationName The name of the operation
+ * @param requestName The name of the request
+ */
+public record RequestLocation(String projectName, String operationName, String requestName) {
+
+    /**
+     * Get a unique key for this location.
+     *
+     * @return The location as a slash-separated path
+     */
+    public String key() {
+        return projectName + "/" + operationName + "/" + requestName;
+    }
+
+    @Override
+    public String toString() {
+        return projectName + " > " + operationName + " > " + requestName;
+    }
+}
@@ -0,0 +1,107 @@
+package de.fabkreuzer.soaprequestsender.service.search;
+
+import de.fabkreuzer.soaprequestsender.service.xml.XmlStreams;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Extracts search terms from an XML document in a single StAX pass.
+ * Element and attribute names are indexed both as plain words and with an "element:" prefix,
+ * namespace URIs with an "ns:" prefix, and text and attribute values are split into words.
+ */
+class XmlTermExtractor {
+
+    static final String ELEMENT_PREFIX = "element:";
+    static final String NAMESPACE_PREFIX = "ns:";
+
+    private XmlTermExtractor() {
+    }
+
+    /**
+     * Extract the terms of a document.
+     * Content that is not well-formed XML, e.g. a half-edited request, is indexed as plain text.
+     *
+     * @param content The document content
+     * @return The distinct terms of the document
+     */
+    static Set<String> extract(String content) {
+        Set<String> terms = new HashSet<>();
+        // The parser doesn't coalesce, a word can be split across two text events
+        StringBuilder text = new StringBuilder();
+        XMLStreamReader reader = null;
+        try {
+            reader = XmlStreams.inputFactory().createXMLStreamReader(new StringReader(content));
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                    text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    continue;
+                }
+                if (!text.isEmpty()) {
+                    addWords(terms, text);
+                    text.setLength(0);
+                }
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    addName(terms, reader.getLocalName());
+                    addNamespace(terms, reader.getNamespaceURI());
+                    for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                        addNamespace(terms, reader.getNamespaceURI(i));
+                    }
+                    for (int i = 0; i < reader.getAttributeCount(); i++) {
+                        addName(terms, reader.getAttributeLocalName(i));
+                        addWords(terms, reader.getAttributeValue(i));
+                    }
+                }
+            }
+        } catch (XMLStreamException e) {
+            addWords(terms, content);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    // Nothing to release for a string source
+                }
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Split text into lower-case words of letters and digits.
+     *
+     * @param text The text to split
+     * @param terms The set to add the words to
+     */
+    static void addWords(Set<String> terms, CharSequence text) {
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                terms.add(text.subSequence(start, i).toString().toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+    }
+
+    private static void addName(Set<String> terms, String name) {
+        if (name != null && !name.isEmpty()) {
+            terms.add(ELEMENT_PREFIX + name.toLowerCase(Locale.ROOT));
+            addWords(terms, name);
+        }
+    }
+
+    private static void addNamespace(Set<String> terms, String namespace) {
+        if (namespace != null && !namespace.isEmpty()) {
+            terms.add(NAMESPACE_PREFIX + namespace.toLowerCase(Locale.ROOT));
+        }
+    }
+}
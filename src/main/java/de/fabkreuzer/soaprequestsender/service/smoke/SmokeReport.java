@@ -0,0 +1,65 @@
+package de.fabkreuzer.soaprequestsender.service.smoke;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes smoke results as a plain-text table: one line per call with the failure reason
+ * below failed calls, followed by a pass count and latency percentiles of the completed calls.
+ */
+public final class SmokeReport {
+
+    private SmokeReport() {
+    }
+
+    /**
+     * Write a report.
+     *
+     * @param results The smoke results
+     * @param wallClockNanos The time the whole run took
+     * @param out The writer to write to
+     * @throws IOException If writing fails
+     */
+    public static void write(List<SmokeResult> results, long wallClockNanos, Writer out) throws IOException {
+        out.write(String.format("%-4s %-25s %-35s %6s %10s%n", "", "Project", "Operation", "HTTP", "ms"));
+        int passed = 0;
+        long sumNanos = 0;
+        long[] latencies = new long[results.size()];
+        int completed = 0;
+        for (SmokeResult result : results) {
+            out.write(String.format("%-4s %-25s %-35s %6s %10.1f%n",
+                result.passed() ? "PASS" : "FAIL", result.projectName(), result.operationName(),
+                result.statusCode() > 0 ? String.valueOf(result.statusCode()) : "-",
+                result.latencyNanos() / 1_000_000.0));
+            if (result.passed()) {
+                passed++;
+            } else {
+                out.write(String.format("       %s: %s%n", result.requestName(), result.message()));
+            }
+            if (result.statusCode() > 0) {
+                latencies[completed++] = result.latencyNanos();
+            }
+            sumNanos += result.latencyNanos();
+        }
+
+        out.write(String.format("%d of %d calls passed in %.1f s (%.1f s sequential)%n",
+            passed, results.size(), wallClockNanos / 1e9, sumNanos / 1e9));
+        if (completed > 0) {
+            long[] sorted = Arrays.copyOf(latencies, completed);
+            Arrays.sort(sorted);
+            out.write(String.format("latency p50 %.1f ms  p95 %.1f ms  max %.1f ms%n",
+                percentile(sorted, 50) / 1e6, percentile(sorted, 95) / 1e6, sorted[completed - 1] / 1e6));
+        }
+        out.flush();
+    }
+
+    /**
+     * Get a percentile of sorted values by the nearest-rank method.
+     */
+    private static long percentile(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
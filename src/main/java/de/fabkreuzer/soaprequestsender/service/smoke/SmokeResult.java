@@ -0,0 +1,17 @@
+package de.fabkreuzer.soaprequestsender.service.smoke;
+
+/**
+ * The outcome of one smoke call.
+ *
+ * @param projectName The name of the project
+ * @param operationName The name of the operation
+ * @param requestName The name of the request that was sent
+ * @param endpoint The endpoint the request was sent to, or null if it has none
+ * @param passed Whether the call returned a 2xx status
+ * @param statusCode The HTTP status code, or 0 if no response was received
+ * @param latencyNanos The latency of the call
+ * @param message The failure reason, or null if the call passed
+ */
+public record SmokeResult(String projectName, String operationName, String requestName, String endpoint,
+                          boolean passed, int statusCode, long latencyNanos, String message) {
+}
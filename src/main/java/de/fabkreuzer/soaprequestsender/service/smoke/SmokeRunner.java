@@ -0,0 +1,169 @@
+package de.fabkreuzer.soaprequestsender.service.smoke;
+
+import de.fabkreuzer.soaprequestsender.model.OperationWrapper;
+import de.fabkreuzer.soaprequestsender.model.Project;
+import de.fabkreuzer.soaprequestsender.model.RequestWrapper;
+import de.fabkreuzer.soaprequestsender.service.http.SoapHttpClient;
+import de.fabkreuzer.soaprequestsender.service.http.SoapResponse;
+import de.fabkreuzer.soaprequestsender.service.limit.EndpointLimiters;
+import de.fabkreuzer.soaprequestsender.service.template.RequestTemplate;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the first request of every operation of every project once, in parallel.
+ * The number of calls in flight is capped globally and per backend, so one slow host can't take
+ * all slots. Calls wait in one queue per backend and are handed to the pool round-robin whenever
+ * their backend is below its cap, which keeps the pool busy with other hosts while one is at its cap.
+ */
+public class SmokeRunner {
+
+    private static final Logger logger = LogManager.getLogger(SmokeRunner.class);
+
+    private final SoapHttpClient client;
+    private final int parallelism;
+    private final int perHostParallelism;
+
+    /**
+     * Creates a runner.
+     *
+     * @param client The client used to send requests
+     * @param parallelism The maximum number of calls in flight
+     * @param perHostParallelism The maximum number of calls in flight to a single backend
+     */
+    public SmokeRunner(SoapHttpClient client, int parallelism, int perHostParallelism) {
+        this.client = client;
+        this.parallelism = parallelism;
+        this.perHostParallelism = perHostParallelism;
+    }
+
+    /**
+     * Run the smoke calls of all projects and wait for them.
+     *
+     * @param projects The projects to test
+     * @return The results in project and operation order
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public List<SmokeResult> run(List<Project> projects) throws InterruptedException {
+        List<SmokeResult> results = new ArrayList<>();
+        Map<String, Queue<Call>> byHost = new LinkedHashMap<>();
+        int callCount = 0;
+        for (Project project : projects) {
+            for (OperationWrapper operation : project.getOperations()) {
+                if (operation.getRequests().isEmpty()) {
+                    continue;
+                }
+                RequestWrapper request = operation.getRequests().get(0);
+                String endpoint = request.getSelectedEndpoint();
+                if (endpoint == null || endpoint.isBlank()) {
+                    results.add(new SmokeResult(project.getName(), operation.getName(), request.getName(), null,
+                        false, 0, 0, "No endpoint selected"));
+                    continue;
+                }
+                RequestTemplate template;
+                try {
+                    template = RequestTemplate.compile(request);
+                } catch (IllegalArgumentException e) {
+                    results.add(new SmokeResult(project.getName(), operation.getName(), request.getName(), endpoint,
+                        false, 0, 0, e.getMessage()));
+                    continue;
+                }
+                byHost.computeIfAbsent(EndpointLimiters.backendKey(endpoint), key -> new ArrayDeque<>())
+                    .add(new Call(results.size(), project.getName(), operation.getName(), request.getName(),
+                        endpoint, operation.getSoapAction(), template));
+                results.add(null);
+                callCount++;
+            }
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, callCount)),
+            runnable -> {
+                Thread thread = new Thread(runnable, "smoke-runner-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        CompletionService<SmokeResult> completions = new ExecutorCompletionService<>(executor);
+        Map<Future<SmokeResult>, Call> running = new HashMap<>();
+        Map<String, Integer> inFlight = new HashMap<>();
+        try {
+            int done = 0;
+            while (done < callCount) {
+                // A call is only handed to the pool once its host has a free slot, so a host at its cap
+                // doesn't hold pool threads that calls to other hosts could use
+                boolean dispatched = true;
+                while (dispatched && running.size() < parallelism) {
+                    dispatched = false;
+                    for (Map.Entry<String, Queue<Call>> host : byHost.entrySet()) {
+                        int hostCalls = inFlight.getOrDefault(host.getKey(), 0);
+                        if (host.getValue().isEmpty() || hostCalls >= perHostParallelism
+                            || running.size() >= parallelism) {
+                            continue;
+                        }
+                        Call call = host.getValue().poll();
+                        running.put(completions.submit(() -> send(call)), call);
+                        inFlight.put(host.getKey(), hostCalls + 1);
+                        dispatched = true;
+                    }
+                }
+
+                Future<SmokeResult> future = completions.take();
+                Call call = running.remove(future);
+                inFlight.merge(EndpointLimiters.backendKey(call.endpoint()), -1, Integer::sum);
+                try {
+                    results.set(call.slot(), future.get());
+                } catch (ExecutionException e) {
+                    results.set(call.slot(), call.failed(0, 0, String.valueOf(e.getCause())));
+                }
+                done++;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        logger.info("Smoke run: {} of {} calls passed on {} backends",
+            results.stream().filter(SmokeResult::passed).count(), results.size(), byHost.size());
+        return results;
+    }
+
+    private SmokeResult send(Call call) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            SoapResponse response = client.send(call.endpoint(), call.template().render(), call.soapAction());
+            if (!response.isSuccess()) {
+                return call.failed(response.statusCode(), response.latencyNanos(), "HTTP " + response.statusCode());
+            }
+            return new SmokeResult(call.projectName(), call.operationName(), call.requestName(), call.endpoint(),
+                true, response.statusCode(), response.latencyNanos(), null);
+        } catch (IOException e) {
+            return call.failed(0, System.nanoTime() - start, e.toString());
+        }
+    }
+
+    /**
+     * A call to make, with the index of its result.
+     */
+    private record Call(int slot, String projectName, String operationName, String requestName, String endpoint,
+                        String soapAction, RequestTemplate template) {
+
+        SmokeResult failed(int statusCode, long latencyNanos, String message) {
+            return new SmokeResult(projectName, operationName, requestName, endpoint, false, statusCode,
+                latencyNanos, message);
+        }
+    }
+}
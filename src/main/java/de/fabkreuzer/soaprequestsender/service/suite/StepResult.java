@@ -0,0 +1,13 @@
+package de.fabkreuzer.soaprequestsender.service.suite;
+
+/**
+ * The outcome of a single test step.
+ *
+ * @param stepName The name of the step
+ * @param passed Whether the step succeeded
+ * @param statusCode The HTTP status code, or 0 if no response was received
+ * @param latencyNanos The latency of the call
+ * @param message The failure reason, or null if the step passed
+ */
+public record StepResult(String stepName, boolean passed, int statusCode, long latencyNanos, String message) {
+}
@@ -0,0 +1,46 @@
+package de.fabkreuzer.soaprequestsender.service.suite;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes suite results as a compact plain-text report:
+ * one line per suite, the failing step of each failed suite, and a summary line.
+ */
+public final class SuiteReport {
+
+    private SuiteReport() {
+    }
+
+    /**
+     * Write a report.
+     *
+     * @param results The suite results
+     * @param wallClockNanos The time the whole run took
+     * @param out The writer to write to
+     * @throws IOException If writing fails
+     */
+    public static void write(List<SuiteResult> results, long wallClockNanos, Writer out) throws IOException {
+        int passed = 0;
+        long sumNanos = 0;
+        for (SuiteResult result : results) {
+            out.write(String.format("%-4s %-50s %3d steps %9.1f ms%n",
+                result.passed() ? "PASS" : "FAIL", result.suiteName(), result.steps().size(),
+                result.durationNanos() / 1_000_000.0));
+            if (result.passed()) {
+                passed++;
+            } else {
+                for (StepResult step : result.steps()) {
+                    if (!step.passed()) {
+                        out.write(String.format("       %s: %s%n", step.stepName(), step.message()));
+                    }
+                }
+            }
+            sumNanos += result.durationNanos();
+        }
+        out.write(String.format("%d of %d suites passed in %.1f s (%.1f s sequential)%n",
+            passed, results.size(), wallClockNanos / 1e9, sumNanos / 1e9));
+        out.flush();
+    }
+}
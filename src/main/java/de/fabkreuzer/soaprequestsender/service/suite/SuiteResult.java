@@ -0,0 +1,22 @@
+package de.fabkreuzer.soaprequestsender.service.suite;
+
+import java.util.List;
+
+/**
+ * The outcome of a test suite. A suite stops at its first failing step.
+ *
+ * @param suiteName The name of the suite
+ * @param steps The results of the executed steps
+ * @param durationNanos The wall-clock time of the whole suite
+ */
+public record SuiteResult(String suiteName, List<StepResult> steps, long durationNanos) {
+
+    /**
+     * Check whether every step passed.
+     *
+     * @return True if the suite passed
+     */
+    public boolean passed() {
+        return steps.stream().allMatch(StepResult::passed);
+    }
+}
@@ -0,0 +1,211 @@
+package de.fabkreuzer.soaprequestsender.service.suite;
+
+import de.fabkreuzer.soaprequestsender.model.OperationWrapper;
+import de.fabkreuzer.soaprequestsender.model.Project;
+import de.fabkreuzer.soaprequestsender.model.PropertyTransfer;
+import de.fabkreuzer.soaprequestsender.model.RequestWrapper;
+import de.fabkreuzer.soaprequestsender.model.TestStep;
+import de.fabkreuzer.soaprequestsender.model.TestSuite;
+import de.fabkreuzer.soaprequestsender.service.http.SoapHttpClient;
+import de.fabkreuzer.soaprequestsender.service.http.SoapResponse;
+import de.fabkreuzer.soaprequestsender.service.limit.AdaptiveLimiter;
+import de.fabkreuzer.soaprequestsender.service.limit.EndpointLimiters;
+import de.fabkreuzer.soaprequestsender.service.template.RequestTemplate;
+import de.fabkreuzer.soaprequestsender.service.xml.SimplePath;
+import de.fabkreuzer.soaprequestsender.service.xml.StreamingPathExtractor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.ConnectException;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the test suites of a project.
+ * Steps of a suite run in order and share properties, suites run in parallel on a bounded pool.
+ * Every call also goes through the adaptive limiter of its backend, so a large pool can't
+ * overload a single service.
+ */
+public class TestSuiteRunner {
+
+    private static final Logger logger = LogManager.getLogger(TestSuiteRunner.class);
+
+    private final SoapHttpClient client;
+    private final EndpointLimiters limiters;
+    private final int parallelism;
+
+    /**
+     * Creates a runner.
+     *
+     * @param client The client used to send requests
+     * @param limiters The per-backend concurrency limiters
+     * @param parallelism The maximum number of suites running at the same time
+     */
+    public TestSuiteRunner(SoapHttpClient client, EndpointLimiters limiters, int parallelism) {
+        this.client = client;
+        this.limiters = limiters;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Run suites in parallel and wait for all of them.
+     *
+     * @param project The project whose requests the steps reference
+     * @param suites The suites to run
+     * @return The results in the order of the suites
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public List<SuiteResult> run(Project project, List<TestSuite> suites) throws InterruptedException {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, suites.size())),
+            runnable -> {
+                Thread thread = new Thread(runnable, "suite-runner-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        try {
+            List<Future<SuiteResult>> futures = new ArrayList<>();
+            for (TestSuite suite : suites) {
+                futures.add(executor.submit(() -> runSuite(project, suite)));
+            }
+            List<SuiteResult> results = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    results.add(new SuiteResult(suites.get(i).getName(),
+                        List.of(new StepResult("-", false, 0, 0, String.valueOf(e.getCause()))), 0));
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Run the steps of one suite in order, stopping at the first failure.
+     *
+     * @param project The project whose requests the steps reference
+     * @param suite The suite to run
+     * @return The suite result
+     * @throws InterruptedException If the thread is interrupted
+     */
+    public SuiteResult runSuite(Project project, TestSuite suite) throws InterruptedException {
+        long start = System.nanoTime();
+        Map<String, String> properties = new HashMap<>();
+        List<StepResult> results = new ArrayList<>();
+        for (TestStep step : suite.getSteps()) {
+            StepResult result = runStep(project, step, properties);
+            results.add(result);
+            if (!result.passed()) {
+                break;
+            }
+        }
+        SuiteResult result = new SuiteResult(suite.getName(), results, System.nanoTime() - start);
+        logger.debug("Suite {} {}", suite.getName(), result.passed() ? "passed" : "failed");
+        return result;
+    }
+
+    private StepResult runStep(Project project, TestStep step, Map<String, String> properties)
+            throws InterruptedException {
+        OperationWrapper operation = project.findOperation(step.getOperationName());
+        RequestWrapper request = operation != null ? operation.findRequest(step.getRequestName()) : null;
+        if (request == null) {
+            return new StepResult(step.getName(), false, 0, 0,
+                "Request not found: " + step.getOperationName() + "/" + step.getRequestName());
+        }
+        String endpoint = request.getSelectedEndpoint();
+        if (endpoint == null) {
+            return new StepResult(step.getName(), false, 0, 0, "No endpoint selected");
+        }
+
+        byte[] body;
+        try {
+            body = RequestTemplate.compile(request).render(properties);
+        } catch (IllegalArgumentException e) {
+            return new StepResult(step.getName(), false, 0, 0, e.getMessage());
+        }
+        AdaptiveLimiter.Permit permit = limiters.forEndpoint(endpoint).acquire();
+        SoapResponse response;
+        try {
+            response = client.send(endpoint, body, operation.getSoapAction());
+        } catch (HttpTimeoutException | ConnectException e) {
+            permit.onDropped();
+            return new StepResult(step.getName(), false, 0, 0, e.toString());
+        } catch (IOException e) {
+            permit.onIgnore();
+            return new StepResult(step.getName(), false, 0, 0, e.toString());
+        }
+        if (response.isOverload()) {
+            permit.onDropped();
+        } else {
+            permit.onSuccess();
+        }
+
+        if (!response.isSuccess()) {
+            return new StepResult(step.getName(), false, response.statusCode(), response.latencyNanos(),
+                "HTTP " + response.statusCode());
+        }
+
+        String missing = transferProperties(step, response.body(), properties);
+        if (missing != null) {
+            return new StepResult(step.getName(), false, response.statusCode(), response.latencyNanos(), missing);
+        }
+        return new StepResult(step.getName(), true, response.statusCode(), response.latencyNanos(), null);
+    }
+
+    /**
+     * Extract the values of all transfers of a step from its response in one pass.
+     *
+     * @return null on success, otherwise the reason for the failure
+     */
+    private static String transferProperties(TestStep step, String body, Map<String, String> properties) {
+        List<PropertyTransfer> transfers = step.getTransfers();
+        if (transfers.isEmpty()) {
+            return null;
+        }
+        List<SimplePath> paths = new ArrayList<>();
+        try {
+            for (PropertyTransfer transfer : transfers) {
+                paths.add(SimplePath.compile(transfer.getPath()));
+            }
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+
+        String[] values = new String[transfers.size()];
+        AtomicInteger found = new AtomicInteger();
+        try {
+            new StreamingPathExtractor(paths).extract(new StringReader(body), (index, value) -> {
+                // The first match of each path wins
+                if (values[index] == null) {
+                    values[index] = value;
+                    found.incrementAndGet();
+                }
+                return found.get() < values.length;
+            });
+        } catch (XMLStreamException e) {
+            return "Response is not well-formed XML: " + e.getMessage();
+        }
+
+        for (int i = 0; i < transfers.size(); i++) {
+            if (values[i] == null) {
+                return "No match for " + transfers.get(i).getPath();
+            }
+            properties.put(transfers.get(i).getPropertyName(), values[i]);
+        }
+        return null;
+    }
+}
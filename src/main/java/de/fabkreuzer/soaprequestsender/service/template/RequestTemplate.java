@@ -0,0 +1,204 @@
+package de.fabkreuzer.soaprequestsender.service.template;
+
+import de.fabkreuzer.soaprequestsender.model.RequestWrapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Request content with dynamic values, compiled once into a list of segments.
+ * <p>
+ * Supported tokens:
+ * <ul>
+ *     <li>{@code ${#uuid}} - a random UUID</li>
+ *     <li>{@code ${#timestamp}} - the current time as xsd:dateTime in UTC</li>
+ *     <li>{@code ${#millis}} - the current time in epoch milliseconds</li>
+ *     <li>{@code ${#counter}} - a sequence number starting at 1, unique across all sends of the request,
+ *     or of the template if it wasn't compiled from a request</li>
+ *     <li>{@code ${#random:a|b|c}} - one of the listed values, picked at random</li>
+ *     <li>{@code ${name}} - a property, e.g. a value transferred from an earlier response, XML-escaped;
+ *     references to unknown properties are kept as they are</li>
+ * </ul>
+ * Literal text is encoded to UTF-8 when the template is compiled, so rendering copies bytes and
+ * formats the dynamic values into a buffer owned by the calling thread instead of searching and
+ * replacing strings for every request.
+ */
+public final class RequestTemplate {
+
+    private static final String FUNCTION_PREFIX = "#";
+    private static final String RANDOM_PREFIX = "random:";
+    private static final ThreadLocal<TemplateBuffer> BUFFERS = ThreadLocal.withInitial(TemplateBuffer::new);
+
+    private final Segment[] segments;
+    private final byte[] staticBody;
+    private final AtomicLong counter;
+
+    private RequestTemplate(List<Segment> segments, AtomicLong counter) {
+        this.counter = counter;
+        this.segments = segments.toArray(new Segment[0]);
+        boolean dynamic = false;
+        for (Segment segment : segments) {
+            dynamic |= !(segment instanceof Literal);
+        }
+        this.staticBody = dynamic ? null : render(this.segments, Map.of());
+    }
+
+    /**
+     * Compile request content.
+     *
+     * @param content The request content
+     * @return The template
+     * @throws IllegalArgumentException If the content uses an unknown function
+     */
+    public static RequestTemplate compile(String content) {
+        return compile(content, new AtomicLong());
+    }
+
+    /**
+     * Compile the content of a request, sharing the request's counter.
+     *
+     * @param request The request
+     * @return The template
+     * @throws IllegalArgumentException If the content uses an unknown function
+     */
+    public static RequestTemplate compile(RequestWrapper request) {
+        return compile(request.getContent(), request.getSequence());
+    }
+
+    private static RequestTemplate compile(String content, AtomicLong counter) {
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int position = 0;
+        while (position < content.length()) {
+            int start = content.indexOf("${", position);
+            int end = start >= 0 ? content.indexOf('}', start + 2) : -1;
+            if (start < 0 || end < 0) {
+                break;
+            }
+            literal.append(content, position, start);
+            String token = content.substring(start + 2, end);
+            Segment segment = token.startsWith(FUNCTION_PREFIX)
+                ? function(token.substring(FUNCTION_PREFIX.length()))
+                : new Property(token, utf8(content.substring(start, end + 1)));
+            if (segment instanceof Literal constant) {
+                literal.append(new String(constant.bytes(), StandardCharsets.UTF_8));
+            } else {
+                addLiteral(segments, literal);
+                segments.add(segment);
+            }
+            position = end + 1;
+        }
+        literal.append(content, position, content.length());
+        addLiteral(segments, literal);
+        return new RequestTemplate(segments, counter);
+    }
+
+    /**
+     * Check whether the template contains tokens, i.e. renders differently per request.
+     *
+     * @return True if the template has dynamic values
+     */
+    public boolean isDynamic() {
+        return staticBody == null;
+    }
+
+    /**
+     * Render the template without properties.
+     *
+     * @return The UTF-8 encoded request body
+     */
+    public byte[] render() {
+        return render(Map.of());
+    }
+
+    /**
+     * Render the template. A template without tokens returns the same shared array every time, which must not be modified.
+     *
+     * @param properties The properties referenced as ${name}
+     * @return The UTF-8 encoded request body
+     */
+    public byte[] render(Map<String, String> properties) {
+        return staticBody != null ? staticBody : render(segments, properties);
+    }
+
+    private byte[] render(Segment[] segments, Map<String, String> properties) {
+        TemplateBuffer buffer = BUFFERS.get();
+        buffer.reset();
+        for (Segment segment : segments) {
+            segment.writeTo(buffer, properties, this);
+        }
+        // The client may still read the body after send returns, so the caller gets its own copy
+        return buffer.toByteArray();
+    }
+
+    private static Segment function(String name) {
+        return switch (name) {
+            case "uuid" -> (buffer, properties, template) -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                buffer.writeUuid(random.nextLong(), random.nextLong());
+            };
+            case "timestamp" -> (buffer, properties, template) -> buffer.writeTimestamp(System.currentTimeMillis());
+            case "millis" -> (buffer, properties, template) -> buffer.writeDecimal(System.currentTimeMillis());
+            case "counter" -> (buffer, properties, template) -> buffer.writeDecimal(template.counter.incrementAndGet());
+            default -> {
+                if (!name.startsWith(RANDOM_PREFIX)) {
+                    throw new IllegalArgumentException("Unknown template function: ${#" + name + "}");
+                }
+                yield randomChoice(name.substring(RANDOM_PREFIX.length()).split("\\|", -1));
+            }
+        };
+    }
+
+    private static Segment randomChoice(String[] values) {
+        if (values.length == 1) {
+            return new Literal(utf8(values[0]));
+        }
+        byte[][] choices = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            choices[i] = utf8(values[i]);
+        }
+        return (buffer, properties, template) -> buffer.write(choices[ThreadLocalRandom.current().nextInt(choices.length)]);
+    }
+
+    private static void addLiteral(List<Segment> segments, StringBuilder literal) {
+        if (literal.length() > 0) {
+            segments.add(new Literal(utf8(literal.toString())));
+            literal.setLength(0);
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A part of a template that writes itself into the render buffer.
+     */
+    @FunctionalInterface
+    private interface Segment {
+        void writeTo(TemplateBuffer buffer, Map<String, String> properties, RequestTemplate template);
+    }
+
+    private record Literal(byte[] bytes) implements Segment {
+        @Override
+        public void writeTo(TemplateBuffer buffer, Map<String, String> properties, RequestTemplate template) {
+            buffer.write(bytes);
+        }
+    }
+
+    private record Property(String name, byte[] reference) implements Segment {
+        @Override
+        public void writeTo(TemplateBuffer buffer, Map<String, String> properties, RequestTemplate template) {
+            String value = properties.get(name);
+            if (value != null) {
+                buffer.writeEscaped(value);
+            } else {
+                buffer.write(reference);
+            }
+        }
+    }
+}
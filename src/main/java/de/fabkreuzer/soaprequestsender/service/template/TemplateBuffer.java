@@ -0,0 +1,169 @@
+package de.fabkreuzer.soaprequestsender.service.template;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * A growable byte buffer that templates render into, one per thread.
+ * Numbers, UUIDs and timestamps are written as ASCII digits directly, so rendering a dynamic
+ * value allocates nothing once the buffer has grown to the size of the largest request.
+ */
+final class TemplateBuffer {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int length;
+
+    // The formatted date and time of the last rendered second, e.g. "2026-10-19T08:15:30."
+    private final byte[] secondPrefix = new byte[20];
+    private long prefixSecond = Long.MIN_VALUE;
+
+    void reset() {
+        length = 0;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, length);
+    }
+
+    void write(byte[] data) {
+        ensureCapacity(data.length);
+        System.arraycopy(data, 0, bytes, length, data.length);
+        length += data.length;
+    }
+
+    /**
+     * Write a non-negative number as decimal digits.
+     */
+    void writeDecimal(long value) {
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        ensureCapacity(digits);
+        for (int i = length + digits - 1; i >= length; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+    }
+
+    /**
+     * Write a random version 4 UUID in its canonical form.
+     */
+    void writeUuid(long mostSigBits, long leastSigBits) {
+        mostSigBits = (mostSigBits & 0xFFFFFFFFFFFF0FFFL) | 0x0000000000004000L;
+        leastSigBits = (leastSigBits & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        ensureCapacity(36);
+        writeHex(mostSigBits >>> 32, 8);
+        bytes[length++] = '-';
+        writeHex(mostSigBits >>> 16, 4);
+        bytes[length++] = '-';
+        writeHex(mostSigBits, 4);
+        bytes[length++] = '-';
+        writeHex(leastSigBits >>> 48, 4);
+        bytes[length++] = '-';
+        writeHex(leastSigBits, 12);
+    }
+
+    /**
+     * Write an instant as an xsd:dateTime in UTC with milliseconds, e.g. 2026-10-19T08:15:30.123Z.
+     */
+    void writeTimestamp(long epochMillis) {
+        long second = Math.floorDiv(epochMillis, 1000);
+        if (second != prefixSecond) {
+            LocalDateTime time = LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC);
+            writeDigits(secondPrefix, 0, time.getYear(), 4);
+            secondPrefix[4] = '-';
+            writeDigits(secondPrefix, 5, time.getMonthValue(), 2);
+            secondPrefix[7] = '-';
+            writeDigits(secondPrefix, 8, time.getDayOfMonth(), 2);
+            secondPrefix[10] = 'T';
+            writeDigits(secondPrefix, 11, time.getHour(), 2);
+            secondPrefix[13] = ':';
+            writeDigits(secondPrefix, 14, time.getMinute(), 2);
+            secondPrefix[16] = ':';
+            writeDigits(secondPrefix, 17, time.getSecond(), 2);
+            secondPrefix[19] = '.';
+            prefixSecond = second;
+        }
+        ensureCapacity(secondPrefix.length + 4);
+        System.arraycopy(secondPrefix, 0, bytes, length, secondPrefix.length);
+        length += secondPrefix.length;
+        writeDigits(bytes, length, Math.floorMod(epochMillis, 1000), 3);
+        length += 3;
+        bytes[length++] = 'Z';
+    }
+
+    /**
+     * Write a string as UTF-8, escaping the characters that would break the surrounding XML.
+     */
+    void writeEscaped(String value) {
+        ensureCapacity(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '&') {
+                writeAscii("&amp;");
+            } else if (c == '<') {
+                writeAscii("&lt;");
+            } else if (c == '>') {
+                writeAscii("&gt;");
+            } else if (c < 0x80) {
+                ensureCapacity(1);
+                bytes[length++] = (byte) c;
+            } else if (c < 0x800) {
+                ensureCapacity(2);
+                bytes[length++] = (byte) (0xC0 | (c >> 6));
+                bytes[length++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                ensureCapacity(4);
+                bytes[length++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[length++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Lone surrogates are replaced like String.getBytes does
+                ensureCapacity(1);
+                bytes[length++] = '?';
+            } else {
+                ensureCapacity(3);
+                bytes[length++] = (byte) (0xE0 | (c >> 12));
+                bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[length++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private void writeAscii(String value) {
+        ensureCapacity(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            bytes[length++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void writeHex(long value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            bytes[length + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+        length += digits;
+    }
+
+    private static void writeDigits(byte[] target, int offset, int value, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            target[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private void ensureCapacity(int additional) {
+        if (length + additional > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + additional));
+        }
+    }
+}
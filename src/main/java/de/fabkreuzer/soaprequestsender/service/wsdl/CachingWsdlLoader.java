@@ -0,0 +1,40 @@
+package de.fabkreuzer.soaprequestsender.service.wsdl;
+
+import com.eviware.soapui.impl.wsdl.support.wsdl.UrlWsdlLoader;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * soapUI loader that serves documents from a prefetched set, then from the XML catalog,
+ * and only downloads what is still missing.
+ */
+public class CachingWsdlLoader extends UrlWsdlLoader {
+
+    private final Map<String, byte[]> documents;
+    private final DefinitionCatalog catalog;
+
+    /**
+     * Creates a loader.
+     *
+     * @param url The URL of the WSDL
+     * @param documents The prefetched documents by normalized location
+     * @param catalog The catalog mapping locations to local copies
+     */
+    public CachingWsdlLoader(String url, Map<String, byte[]> documents, DefinitionCatalog catalog) {
+        super(url);
+        this.documents = documents;
+        this.catalog = catalog;
+    }
+
+    @Override
+    public InputStream load(String url) throws Exception {
+        byte[] document = documents.get(SchemaPrefetcher.normalize(url));
+        if (document != null) {
+            return new ByteArrayInputStream(document);
+        }
+        String mapped = catalog.resolve(url);
+        return super.load(mapped != null ? mapped : url);
+    }
+}
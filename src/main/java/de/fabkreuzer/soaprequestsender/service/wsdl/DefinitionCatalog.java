@@ -0,0 +1,93 @@
+package de.fabkreuzer.soaprequestsender.service.wsdl;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.xml.catalog.Catalog;
+import javax.xml.catalog.CatalogException;
+import javax.xml.catalog.CatalogFeatures;
+import javax.xml.catalog.CatalogManager;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Maps remote WSDL and schema locations to local copies using an OASIS XML catalog.
+ * With a catalog, WSDLs whose imports point to unreachable hosts can be imported offline.
+ * The catalog is read from the file named by the system property, or from catalog.xml in the
+ * working directory if it exists.
+ */
+public class DefinitionCatalog {
+
+    private static final Logger logger = LogManager.getLogger(DefinitionCatalog.class);
+
+    /** System property naming the catalog file. */
+    public static final String CATALOG_PROPERTY = "soaprequestsender.catalog";
+
+    private static final String DEFAULT_CATALOG = "catalog.xml";
+
+    private final Catalog catalog;
+
+    private DefinitionCatalog(Catalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * Load the configured catalog.
+     *
+     * @return The catalog, empty if none is configured or it can't be read
+     */
+    public static DefinitionCatalog load() {
+        String configured = System.getProperty(CATALOG_PROPERTY);
+        Path path = Paths.get(configured != null ? configured : DEFAULT_CATALOG);
+        if (!Files.exists(path)) {
+            if (configured != null) {
+                logger.warn("XML catalog not found: {}", path);
+            }
+            return new DefinitionCatalog(null);
+        }
+        return of(path);
+    }
+
+    /**
+     * Load a catalog file.
+     *
+     * @param path The catalog file
+     * @return The catalog, empty if it can't be read
+     */
+    public static DefinitionCatalog of(Path path) {
+        try {
+            // Unmatched locations fall through to the network instead of failing
+            CatalogFeatures features = CatalogFeatures.builder()
+                .with(CatalogFeatures.Feature.RESOLVE, "continue")
+                .build();
+            return new DefinitionCatalog(CatalogManager.catalog(features, path.toAbsolutePath().toUri()));
+        } catch (CatalogException | IllegalArgumentException e) {
+            logger.error("Failed to load XML catalog: {}", path, e);
+            return new DefinitionCatalog(null);
+        }
+    }
+
+    /**
+     * Get the local location of a document.
+     *
+     * @param location The location as referenced by a WSDL or schema
+     * @return The mapped location, or null if the catalog has no entry for it
+     */
+    public String resolve(String location) {
+        if (catalog == null) {
+            return null;
+        }
+        try {
+            String match = catalog.matchURI(location);
+            if (match == null) {
+                match = catalog.matchSystem(location);
+            }
+            return match != null ? URI.create(match).toString() : null;
+        } catch (CatalogException | IllegalArgumentException e) {
+            logger.warn("Failed to resolve {} in the XML catalog", location, e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package de.fabkreuzer.soaprequestsender.service.wsdl;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Disk cache for downloaded WSDL and XSD documents.
+ * Each document is stored with its ETag and Last-Modified header, so it can be revalidated
+ * with a conditional request and still be used when the server can't be reached.
+ */
+public class SchemaCache {
+
+    private static final Logger logger = LogManager.getLogger(SchemaCache.class);
+
+    private static final String CACHE_DIR = "cache/wsdl";
+
+    private final Path directory;
+
+    /**
+     * A cached document.
+     *
+     * @param body The document as downloaded
+     * @param etag The ETag header, or null
+     * @param lastModified The Last-Modified header, or null
+     * @param fetchedMillis When the document was downloaded or last revalidated
+     */
+    public record Entry(byte[] body, String etag, String lastModified, long fetchedMillis) {
+    }
+
+    /**
+     * Creates a cache in the default directory.
+     */
+    public SchemaCache() {
+        this(Paths.get(CACHE_DIR));
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param directory The directory to store documents in
+     */
+    public SchemaCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Get a cached document.
+     *
+     * @param url The URL of the document
+     * @return The entry, if the document is cached and readable
+     */
+    public Optional<Entry> get(String url) {
+        String key = key(url);
+        Path bodyPath = directory.resolve(key + ".xml");
+        Path metaPath = directory.resolve(key + ".properties");
+        if (!Files.exists(bodyPath) || !Files.exists(metaPath)) {
+            return Optional.empty();
+        }
+        try {
+            Properties meta = new Properties();
+            try (InputStream in = Files.newInputStream(metaPath)) {
+                meta.load(in);
+            }
+            // Guard against hash collisions
+            if (!url.equals(meta.getProperty("url"))) {
+                return Optional.empty();
+            }
+            return Optional.of(new Entry(Files.readAllBytes(bodyPath), meta.getProperty("etag"),
+                meta.getProperty("lastModified"), Long.parseLong(meta.getProperty("fetched", "0"))));
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("Ignoring unreadable cache entry for {}", url, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Store a document, replacing an older version.
+     *
+     * @param url The URL of the document
+     * @param body The document
+     * @param etag The ETag header, or null
+     * @param lastModified The Last-Modified header, or null
+     */
+    public void put(String url, byte[] body, String etag, String lastModified) {
+        String key = key(url);
+        Properties meta = new Properties();
+        meta.setProperty("url", url);
+        meta.setProperty("fetched", String.valueOf(System.currentTimeMillis()));
+        if (etag != null) {
+            meta.setProperty("etag", etag);
+        }
+        if (lastModified != null) {
+            meta.setProperty("lastModified", lastModified);
+        }
+        try {
+            Files.createDirectories(directory);
+            // Write to temporary files first, concurrent imports must never read half a document
+            Path bodyTemp = Files.createTempFile(directory, key, ".tmp");
+            Files.write(bodyTemp, body);
+            Files.move(bodyTemp, directory.resolve(key + ".xml"), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+            Path metaTemp = Files.createTempFile(directory, key, ".tmp");
+            try (OutputStream out = Files.newOutputStream(metaTemp)) {
+                meta.store(out, "Cached document");
+            }
+            Files.move(metaTemp, directory.resolve(key + ".properties"), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to cache {}", url, e);
+        }
+    }
+
+    private static String key(String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(url.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package de.fabkreuzer.soaprequestsender.service.wsdl;
+
+import de.fabkreuzer.soaprequestsender.service.xml.XmlStreams;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Downloads a WSDL with all documents it imports before soapUI parses it.
+ * soapUI fetches imported schemas one after another; here every level of imports is fetched
+ * concurrently, revalidated against the {@link SchemaCache} and mapped through the
+ * {@link DefinitionCatalog}. Documents that can't be fetched are left out, soapUI then tries them itself.
+ */
+public class SchemaPrefetcher {
+
+    private static final Logger logger = LogManager.getLogger(SchemaPrefetcher.class);
+
+    private static final String XSD_NAMESPACE = "http://www.w3.org/2001/XMLSchema";
+    private static final String WSDL_NAMESPACE = "http://schemas.xmlsoap.org/wsdl/";
+    private static final int MAX_PARALLEL_FETCHES = 16;
+
+    private final HttpClient httpClient;
+    private final SchemaCache cache;
+    private final DefinitionCatalog catalog;
+    private final Duration timeout;
+
+    /**
+     * A fetched document and the locations it references.
+     */
+    private record Fetched(String location, byte[] body, List<String> references) {
+    }
+
+    /**
+     * Creates a prefetcher.
+     *
+     * @param httpClient The client used for downloads
+     * @param cache The document cache
+     * @param catalog The catalog mapping locations to local copies
+     * @param timeout The timeout of a single download
+     */
+    public SchemaPrefetcher(HttpClient httpClient, SchemaCache cache, DefinitionCatalog catalog, Duration timeout) {
+        this.httpClient = httpClient;
+        this.cache = cache;
+        this.catalog = catalog;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Fetch a WSDL and everything it imports, level by level.
+     *
+     * @param wsdlUrl The URL of the WSDL
+     * @return The documents by normalized location
+     * @throws InterruptedException If the thread is interrupted while waiting for downloads
+     */
+    public Map<String, byte[]> prefetch(String wsdlUrl) throws InterruptedException {
+        long start = System.nanoTime();
+        Map<String, byte[]> documents = new HashMap<>();
+        Set<String> seen = new HashSet<>();
+        List<String> level = List.of(normalize(wsdlUrl));
+        seen.addAll(level);
+        Semaphore permits = new Semaphore(MAX_PARALLEL_FETCHES);
+
+        while (!level.isEmpty()) {
+            List<CompletableFuture<Fetched>> futures = new ArrayList<>();
+            for (String location : level) {
+                permits.acquire();
+                futures.add(fetch(location)
+                    .thenApply(body -> new Fetched(location, body, references(location, body)))
+                    .whenComplete((fetched, error) -> permits.release()));
+            }
+
+            Set<String> next = new LinkedHashSet<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    Fetched fetched = futures.get(i).join();
+                    documents.put(fetched.location(), fetched.body());
+                    for (String reference : fetched.references()) {
+                        if (seen.add(reference)) {
+                            next.add(reference);
+                        }
+                    }
+                } catch (CompletionException e) {
+                    logger.warn("Failed to prefetch {}: {}", level.get(i), e.getCause().toString());
+                }
+            }
+            level = new ArrayList<>(next);
+        }
+
+        logger.info("Prefetched {} documents for {} in {} ms", documents.size(), wsdlUrl,
+            (System.nanoTime() - start) / 1_000_000);
+        return documents;
+    }
+
+    /**
+     * Normalize a location so the same document is recognized when referenced in different ways.
+     *
+     * @param location The location
+     * @return The normalized location, or the location itself if it isn't a valid URI
+     */
+    public static String normalize(String location) {
+        try {
+            return URI.create(location.trim()).normalize().toString();
+        } catch (IllegalArgumentException e) {
+            return location;
+        }
+    }
+
+    private CompletableFuture<byte[]> fetch(String location) {
+        String mapped = catalog.resolve(location);
+        String source = mapped != null ? mapped : location;
+        String scheme;
+        try {
+            scheme = URI.create(source).getScheme();
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (!"http".equalsIgnoreCase(scheme) && !"https".equalsIgnoreCase(scheme)) {
+            // Local files and catalog entries need no cache
+            return CompletableFuture.supplyAsync(() -> {
+                try (InputStream in = URI.create(source).toURL().openStream()) {
+                    return in.readAllBytes();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        return fetchHttp(source);
+    }
+
+    private CompletableFuture<byte[]> fetchHttp(String url) {
+        Optional<SchemaCache.Entry> cached = cache.get(url);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url)).timeout(timeout).GET();
+        cached.ifPresent(entry -> {
+            if (entry.etag() != null) {
+                builder.header("If-None-Match", entry.etag());
+            }
+            if (entry.lastModified() != null) {
+                builder.header("If-Modified-Since", entry.lastModified());
+            }
+        });
+
+        return httpClient.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofByteArray())
+            .handle((response, error) -> {
+                if (response != null && response.statusCode() == 304 && cached.isPresent()) {
+                    return cached.get().body();
+                }
+                if (response != null && response.statusCode() == 200) {
+                    cache.put(url, response.body(), response.headers().firstValue("ETag").orElse(null),
+                        response.headers().firstValue("Last-Modified").orElse(null));
+                    return response.body();
+                }
+                // Offline or failing server: a cached copy is better than no import at all
+                if (cached.isPresent()) {
+                    logger.info("Using cached copy of {}", url);
+                    return cached.get().body();
+                }
+                throw new CompletionException(error != null ? error
+                    : new IOException("HTTP " + response.statusCode() + " for " + url));
+            });
+    }
+
+    /**
+     * Collect the locations of imported and included documents.
+     */
+    private static List<String> references(String location, byte[] body) {
+        List<String> references = new ArrayList<>();
+        try {
+            XMLStreamReader reader = XmlStreams.inputFactory().createXMLStreamReader(new ByteArrayInputStream(body));
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                        continue;
+                    }
+                    String reference = null;
+                    String name = reader.getLocalName();
+                    if (XSD_NAMESPACE.equals(reader.getNamespaceURI())
+                            && (name.equals("import") || name.equals("include") || name.equals("redefine"))) {
+                        reference = reader.getAttributeValue(null, "schemaLocation");
+                    } else if (WSDL_NAMESPACE.equals(reader.getNamespaceURI()) && name.equals("import")) {
+                        reference = reader.getAttributeValue(null, "location");
+                    }
+                    if (reference != null && !reference.isBlank()) {
+                        references.add(normalize(URI.create(location).resolve(reference.trim()).toString()));
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException | IllegalArgumentException e) {
+            logger.warn("Failed to scan {} for imports: {}", location, e.getMessage());
+        }
+        return references;
+    }
+}
@@ -0,0 +1,117 @@
+package de.fabkreuzer.soaprequestsender.service.xml;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compiled, namespace-agnostic element path for streaming extraction.
+ * <p>
+ * Supported syntax: {@code /Envelope/Body/GetCustomerResponse/Id} matches from the root,
+ * {@code //Id} or {@code //Customer/Id} matches at any depth, {@code *} matches any single element,
+ * and a trailing {@code @name} selects an attribute instead of the element text.
+ * Names are compared by local name, prefixes in the expression are ignored.
+ */
+public final class SimplePath {
+
+    private final String expression;
+    private final String[] steps;
+    private final boolean anywhere;
+    private final String attribute;
+
+    private SimplePath(String expression, String[] steps, boolean anywhere, String attribute) {
+        this.expression = expression;
+        this.steps = steps;
+        this.anywhere = anywhere;
+        this.attribute = attribute;
+    }
+
+    /**
+     * Compile a path expression.
+     *
+     * @param expression The path expression
+     * @return The compiled path
+     * @throws IllegalArgumentException If the expression is empty or malformed
+     */
+    public static SimplePath compile(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("Empty path expression");
+        }
+        String path = expression.trim();
+        boolean anywhere = path.startsWith("//");
+        if (!path.startsWith("/")) {
+            throw new IllegalArgumentException("Path must start with / or //: " + expression);
+        }
+        path = path.substring(anywhere ? 2 : 1);
+
+        String attribute = null;
+        int at = path.lastIndexOf('@');
+        if (at >= 0) {
+            attribute = stripPrefix(path.substring(at + 1));
+            path = path.substring(0, at);
+            if (path.endsWith("/")) {
+                path = path.substring(0, path.length() - 1);
+            }
+        }
+
+        List<String> steps = new ArrayList<>();
+        for (String step : path.split("/")) {
+            if (step.isEmpty()) {
+                throw new IllegalArgumentException("Empty step in path: " + expression);
+            }
+            steps.add(stripPrefix(step));
+        }
+        if (steps.isEmpty() || (attribute != null && attribute.isEmpty())) {
+            throw new IllegalArgumentException("Invalid path: " + expression);
+        }
+        return new SimplePath(expression, steps.toArray(new String[0]), anywhere, attribute);
+    }
+
+    /**
+     * Check whether the element on top of a stack of local names is selected by this path.
+     *
+     * @param stack The local names of the open elements, root first
+     * @param depth The number of open elements
+     * @return True if the innermost element matches
+     */
+    public boolean matches(String[] stack, int depth) {
+        if (anywhere ? depth < steps.length : depth != steps.length) {
+            return false;
+        }
+        int offset = depth - steps.length;
+        for (int i = 0; i < steps.length; i++) {
+            String step = steps[i];
+            if (!"*".equals(step) && !step.equals(stack[offset + i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the selected attribute.
+     *
+     * @return The local name of the attribute, or null if the element text is selected
+     */
+    public String getAttribute() {
+        return attribute;
+    }
+
+    /**
+     * Get the expression this path was compiled from.
+     *
+     * @return The expression
+     */
+    public String getExpression() {
+        return expression;
+    }
+
+    private static String stripPrefix(String name) {
+        int colon = name.indexOf(':');
+        return colon >= 0 ? name.substring(colon + 1) : name;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
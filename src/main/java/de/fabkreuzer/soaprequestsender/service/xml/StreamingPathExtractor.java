@@ -0,0 +1,135 @@
+package de.fabkreuzer.soaprequestsender.service.xml;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Evaluates a set of {@link SimplePath}s in a single StAX pass over a document.
+ * Only the stack of open element names and the text of currently matched elements is kept,
+ * so responses of any size can be processed.
+ */
+public final class StreamingPathExtractor {
+
+    /**
+     * Receives the values of matched elements and attributes.
+     */
+    @FunctionalInterface
+    public interface MatchHandler {
+
+        /**
+         * Handle a match.
+         *
+         * @param pathIndex The index of the matching path in the list passed to the extractor
+         * @param value The element text or attribute value
+         * @return True to continue, false to stop reading the document
+         */
+        boolean onMatch(int pathIndex, String value);
+    }
+
+    private final List<SimplePath> paths;
+
+    /**
+     * Creates an extractor for a fixed set of paths.
+     *
+     * @param paths The compiled paths
+     */
+    public StreamingPathExtractor(List<SimplePath> paths) {
+        this.paths = List.copyOf(paths);
+    }
+
+    /**
+     * Extract matches from a character stream.
+     *
+     * @param in The document
+     * @param handler Receives every match in document order
+     * @throws XMLStreamException If the document is not well-formed
+     */
+    public void extract(Reader in, MatchHandler handler) throws XMLStreamException {
+        run(XmlStreams.inputFactory().createXMLStreamReader(in), handler);
+    }
+
+    /**
+     * Extract matches from a byte stream, the encoding is taken from the XML declaration.
+     *
+     * @param in The document
+     * @param handler Receives every match in document order
+     * @throws XMLStreamException If the document is not well-formed
+     */
+    public void extract(InputStream in, MatchHandler handler) throws XMLStreamException {
+        run(XmlStreams.inputFactory().createXMLStreamReader(in), handler);
+    }
+
+    private void run(XMLStreamReader reader, MatchHandler handler) throws XMLStreamException {
+        String[] stack = new String[16];
+        int depth = 0;
+        // Text collected per path while a matched element is open, and the depth it was opened at
+        StringBuilder[] text = new StringBuilder[paths.size()];
+        int[] openedAt = new int[paths.size()];
+        int open = 0;
+
+        try {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if (depth == stack.length) {
+                        stack = Arrays.copyOf(stack, depth * 2);
+                    }
+                    stack[depth++] = reader.getLocalName();
+                    for (int i = 0; i < paths.size(); i++) {
+                        SimplePath path = paths.get(i);
+                        if (!path.matches(stack, depth)) {
+                            continue;
+                        }
+                        if (path.getAttribute() != null) {
+                            String value = attributeValue(reader, path.getAttribute());
+                            if (value != null && !handler.onMatch(i, value)) {
+                                return;
+                            }
+                        } else if (text[i] == null) {
+                            text[i] = new StringBuilder();
+                            openedAt[i] = depth;
+                            open++;
+                        }
+                    }
+                } else if (open > 0 && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                        || event == XMLStreamConstants.SPACE)) {
+                    for (StringBuilder builder : text) {
+                        if (builder != null) {
+                            builder.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (open > 0) {
+                        for (int i = 0; i < text.length; i++) {
+                            if (text[i] != null && openedAt[i] == depth) {
+                                String value = text[i].toString().trim();
+                                text[i] = null;
+                                open--;
+                                if (!handler.onMatch(i, value)) {
+                                    return;
+                                }
+                            }
+                        }
+                    }
+                    depth--;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static String attributeValue(XMLStreamReader reader, String localName) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (localName.equals(reader.getAttributeLocalName(i))) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+}
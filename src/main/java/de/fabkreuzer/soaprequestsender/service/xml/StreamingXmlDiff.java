@@ -0,0 +1,320 @@
+package de.fabkreuzer.soaprequestsender.service.xml;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares two XML documents in a single lockstep StAX pass over both.
+ * <p>
+ * Elements and attributes are compared by namespace URI and local name, so differing prefixes
+ * don't count. Text is compared with surrounding whitespace trimmed, and comments, processing
+ * instructions and whitespace between elements are ignored. Siblings are compared in order:
+ * a mismatched element is reported once and both subtrees are skipped, an element present on
+ * one side only is reported as missing. Elements selected by an ignore path are skipped entirely,
+ * attribute paths only ignore that attribute. Only the stack of open elements is kept, so large
+ * responses are compared without building a tree.
+ */
+public final class StreamingXmlDiff {
+
+    private final List<SimplePath> ignorePaths;
+    private final int maxDifferences;
+
+    /**
+     * Creates a diff.
+     *
+     * @param ignorePaths The elements and attributes to ignore, e.g. {@code //Timestamp} or {@code //Order/@id}
+     * @param maxDifferences The number of differences after which the comparison stops
+     */
+    public StreamingXmlDiff(List<SimplePath> ignorePaths, int maxDifferences) {
+        this.ignorePaths = List.copyOf(ignorePaths);
+        this.maxDifferences = maxDifferences;
+    }
+
+    /**
+     * Compare two documents.
+     *
+     * @param expected The first document
+     * @param actual The second document
+     * @return The differences in document order, at most the configured maximum
+     * @throws XMLStreamException If a document is not well-formed
+     */
+    public List<XmlDifference> compare(Reader expected, Reader actual) throws XMLStreamException {
+        Side left = new Side(XmlStreams.inputFactory().createXMLStreamReader(expected));
+        Side right = new Side(XmlStreams.inputFactory().createXMLStreamReader(actual));
+        try {
+            return new Comparison(left, right).run();
+        } finally {
+            left.reader.close();
+            right.reader.close();
+        }
+    }
+
+    /**
+     * The state of one comparison: the open elements, shared by both sides while they are in step.
+     */
+    private final class Comparison {
+
+        private final Side left;
+        private final Side right;
+        private final List<XmlDifference> differences = new ArrayList<>();
+        private String[] stack = new String[16];
+        private int[] indexes = new int[16];
+        private final List<Map<String, Integer>> siblings = new ArrayList<>();
+        private int depth;
+
+        Comparison(Side left, Side right) {
+            this.left = left;
+            this.right = right;
+            siblings.add(new HashMap<>());
+        }
+
+        List<XmlDifference> run() throws XMLStreamException {
+            while (differences.size() < maxDifferences) {
+                int a = left.peek();
+                int b = right.peek();
+                if (a == Side.EOF && b == Side.EOF) {
+                    break;
+                }
+                if (a == Side.TEXT || b == Side.TEXT) {
+                    String expectedText = a == Side.TEXT ? left.take().text : "";
+                    String actualText = b == Side.TEXT ? right.take().text : "";
+                    if (!expectedText.equals(actualText)) {
+                        report(currentPath(), expectedText, actualText);
+                    }
+                } else if (a == Side.START && b == Side.START) {
+                    compareElements();
+                } else if (a == Side.START) {
+                    Side.Token token = left.take();
+                    push(token.name.getLocalPart());
+                    if (!ignored()) {
+                        report(currentPath(), display(token.name, false), null);
+                    }
+                    left.skipSubtree();
+                    pop();
+                } else if (b == Side.START) {
+                    Side.Token token = right.take();
+                    push(token.name.getLocalPart());
+                    if (!ignored()) {
+                        report(currentPath(), null, display(token.name, false));
+                    }
+                    right.skipSubtree();
+                    pop();
+                } else {
+                    // Both sides close the current element
+                    left.take();
+                    right.take();
+                    pop();
+                }
+            }
+            return differences;
+        }
+
+        private void compareElements() throws XMLStreamException {
+            Side.Token expected = left.take();
+            Side.Token actual = right.take();
+            push(expected.name.getLocalPart());
+            if (ignored()) {
+                left.skipSubtree();
+                right.skipSubtree();
+                pop();
+                return;
+            }
+            if (!expected.name.equals(actual.name)) {
+                boolean sameNamespace = expected.name.getNamespaceURI().equals(actual.name.getNamespaceURI());
+                report(currentPath(), display(expected.name, !sameNamespace), display(actual.name, !sameNamespace));
+                left.skipSubtree();
+                right.skipSubtree();
+                pop();
+                return;
+            }
+
+            for (Map.Entry<QName, String> attribute : expected.attributes.entrySet()) {
+                String other = actual.attributes.get(attribute.getKey());
+                if (!attribute.getValue().equals(other) && !ignoredAttribute(attribute.getKey())) {
+                    report(currentPath() + "/@" + attribute.getKey().getLocalPart(), attribute.getValue(), other);
+                }
+            }
+            for (Map.Entry<QName, String> attribute : actual.attributes.entrySet()) {
+                if (!expected.attributes.containsKey(attribute.getKey()) && !ignoredAttribute(attribute.getKey())) {
+                    report(currentPath() + "/@" + attribute.getKey().getLocalPart(), null, attribute.getValue());
+                }
+            }
+        }
+
+        private void push(String localName) {
+            if (depth == stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+                indexes = Arrays.copyOf(indexes, indexes.length * 2);
+            }
+            indexes[depth] = siblings.get(depth).merge(localName, 1, Integer::sum);
+            stack[depth++] = localName;
+            if (siblings.size() == depth) {
+                siblings.add(new HashMap<>());
+            } else {
+                siblings.get(depth).clear();
+            }
+        }
+
+        private void pop() {
+            depth--;
+        }
+
+        /**
+         * Build the path of the current element, only needed when a difference is reported.
+         */
+        private String currentPath() {
+            if (depth == 0) {
+                return "/";
+            }
+            StringBuilder path = new StringBuilder();
+            for (int i = 0; i < depth; i++) {
+                path.append('/').append(stack[i]);
+                if (indexes[i] > 1) {
+                    path.append('[').append(indexes[i]).append(']');
+                }
+            }
+            return path.toString();
+        }
+
+        private boolean ignored() {
+            for (SimplePath path : ignorePaths) {
+                if (path.getAttribute() == null && path.matches(stack, depth)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean ignoredAttribute(QName name) {
+            for (SimplePath path : ignorePaths) {
+                if (name.getLocalPart().equals(path.getAttribute()) && path.matches(stack, depth)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void report(String path, String expected, String actual) {
+            if (differences.size() < maxDifferences) {
+                differences.add(new XmlDifference(path, expected, actual));
+            }
+        }
+    }
+
+    private static String display(QName name, boolean withNamespace) {
+        return withNamespace && !name.getNamespaceURI().isEmpty() ? "<" + name + ">" : "<" + name.getLocalPart() + ">";
+    }
+
+    /**
+     * One document reduced to start tags, end tags and trimmed non-empty text.
+     */
+    private static final class Side {
+
+        static final int START = 1;
+        static final int END = 2;
+        static final int TEXT = 3;
+        static final int EOF = 4;
+
+        private final XMLStreamReader reader;
+        private final StringBuilder text = new StringBuilder();
+        private Token next;
+        // Set when text was returned and the reader already stands on the following tag
+        private boolean pendingEvent;
+
+        record Token(int kind, QName name, Map<QName, String> attributes, String text) {
+        }
+
+        Side(XMLStreamReader reader) {
+            this.reader = reader;
+        }
+
+        int peek() throws XMLStreamException {
+            if (next == null) {
+                next = read();
+            }
+            return next.kind;
+        }
+
+        Token take() throws XMLStreamException {
+            peek();
+            Token token = next;
+            next = null;
+            return token;
+        }
+
+        /**
+         * Skip the rest of the element whose start tag was taken last.
+         */
+        void skipSubtree() throws XMLStreamException {
+            int open = 1;
+            while (open > 0) {
+                int kind = take().kind;
+                if (kind == START) {
+                    open++;
+                } else if (kind == END) {
+                    open--;
+                } else if (kind == EOF) {
+                    return;
+                }
+            }
+        }
+
+        private Token read() throws XMLStreamException {
+            while (true) {
+                int event;
+                if (pendingEvent) {
+                    pendingEvent = false;
+                    event = reader.getEventType();
+                } else if (reader.hasNext()) {
+                    event = reader.next();
+                } else {
+                    event = XMLStreamConstants.END_DOCUMENT;
+                }
+
+                switch (event) {
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE ->
+                        text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    case XMLStreamConstants.START_ELEMENT, XMLStreamConstants.END_ELEMENT,
+                         XMLStreamConstants.END_DOCUMENT -> {
+                        String value = text.toString().trim();
+                        text.setLength(0);
+                        if (!value.isEmpty()) {
+                            pendingEvent = true;
+                            return new Token(TEXT, null, null, value);
+                        }
+                        return tag(event);
+                    }
+                    default -> {
+                        // Comments, processing instructions and the document start carry no content
+                    }
+                }
+            }
+        }
+
+        private Token tag(int event) {
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                Map<QName, String> attributes = new LinkedHashMap<>();
+                for (int i = 0; i < reader.getAttributeCount(); i++) {
+                    attributes.put(new QName(nonNull(reader.getAttributeNamespace(i)), reader.getAttributeLocalName(i)),
+                        reader.getAttributeValue(i));
+                }
+                return new Token(START, new QName(nonNull(reader.getNamespaceURI()), reader.getLocalName()),
+                    attributes, null);
+            }
+            return new Token(event == XMLStreamConstants.END_ELEMENT ? END : EOF, null, null, null);
+        }
+
+        private static String nonNull(String namespace) {
+            return namespace != null ? namespace : "";
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package de.fabkreuzer.soaprequestsender.service.xml;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.BitSet;
+
+/**
+ * Pretty-prints or minifies XML in a single StAX pass.
+ * Memory use does not depend on the document size: only the nesting state and
+ * whitespace between two tags are kept, everything else goes straight to the writer.
+ */
+public final class StreamingXmlFormatter {
+
+    private final Writer out;
+    private final String indent;
+
+    // Per depth: whether the element contains non-whitespace text (mixed content is not re-indented)
+    private final BitSet hasText = new BitSet();
+    // Per depth: whether the element has child elements or other markup
+    private final BitSet hasChildren = new BitSet();
+    private final StringBuilder pendingWhitespace = new StringBuilder();
+    private int depth;
+    private boolean startTagOpen;
+
+    private StreamingXmlFormatter(Writer out, String indent) {
+        this.out = out;
+        this.indent = indent;
+    }
+
+    /**
+     * Pretty-print a document.
+     *
+     * @param in The document to read
+     * @param out The writer receiving the formatted document
+     * @param indent The indentation per level, e.g. four spaces
+     * @throws XMLStreamException If the document is not well-formed
+     * @throws IOException If writing fails
+     */
+    public static void format(Reader in, Writer out, String indent) throws XMLStreamException, IOException {
+        new StreamingXmlFormatter(out, indent).run(in);
+    }
+
+    /**
+     * Minify a document by dropping whitespace between tags.
+     *
+     * @param in The document to read
+     * @param out The writer receiving the minified document
+     * @throws XMLStreamException If the document is not well-formed
+     * @throws IOException If writing fails
+     */
+    public static void minify(Reader in, Writer out) throws XMLStreamException, IOException {
+        new StreamingXmlFormatter(out, null).run(in);
+    }
+
+    private void run(Reader in) throws XMLStreamException, IOException {
+        XMLStreamReader reader = XmlStreams.inputFactory().createXMLStreamReader(in);
+        try {
+            if (reader.getVersion() != null) {
+                out.write("<?xml version=\"" + reader.getVersion() + "\"");
+                if (reader.getCharacterEncodingScheme() != null) {
+                    out.write(" encoding=\"" + reader.getCharacterEncodingScheme() + "\"");
+                }
+                out.write("?>");
+            }
+            boolean first = reader.getVersion() == null;
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+                switch (event) {
+                    case XMLStreamConstants.START_ELEMENT -> {
+                        markup(first);
+                        first = false;
+                        writeStartTag(reader);
+                    }
+                    case XMLStreamConstants.END_ELEMENT -> writeEndTag(reader);
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.SPACE -> text(reader);
+                    case XMLStreamConstants.CDATA -> {
+                        flushText();
+                        closeStartTag();
+                        hasText.set(depth);
+                        out.write("<![CDATA[");
+                        out.write(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        out.write("]]>");
+                    }
+                    case XMLStreamConstants.COMMENT -> {
+                        markup(first);
+                        first = false;
+                        out.write("<!--");
+                        out.write(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        out.write("-->");
+                    }
+                    case XMLStreamConstants.PROCESSING_INSTRUCTION -> {
+                        markup(first);
+                        first = false;
+                        out.write("<?" + reader.getPITarget());
+                        if (reader.getPIData() != null && !reader.getPIData().isEmpty()) {
+                            out.write(" " + reader.getPIData());
+                        }
+                        out.write("?>");
+                    }
+                    case XMLStreamConstants.ENTITY_REFERENCE -> {
+                        flushText();
+                        closeStartTag();
+                        hasText.set(depth);
+                        out.write("&" + reader.getLocalName() + ";");
+                    }
+                    default -> {
+                        // DTDs and document boundaries carry nothing to write
+                    }
+                }
+            }
+            if (indent != null) {
+                out.write(System.lineSeparator());
+            }
+            out.flush();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Start a tag, comment or processing instruction on its own line when pretty-printing.
+     */
+    private void markup(boolean first) throws IOException {
+        if (hasText.get(depth)) {
+            flushText();
+        } else {
+            pendingWhitespace.setLength(0);
+        }
+        closeStartTag();
+        hasChildren.set(depth);
+        if (indent != null && !hasText.get(depth) && !first) {
+            newLine(depth);
+        }
+    }
+
+    private void writeStartTag(XMLStreamReader reader) throws IOException {
+        out.write('<');
+        writeName(reader.getPrefix(), reader.getLocalName());
+        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+            String prefix = reader.getNamespacePrefix(i);
+            out.write(prefix == null || prefix.isEmpty() ? " xmlns" : " xmlns:" + prefix);
+            out.write("=\"");
+            escape(reader.getNamespaceURI(i), true);
+            out.write('"');
+        }
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            out.write(' ');
+            writeName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i));
+            out.write("=\"");
+            escape(reader.getAttributeValue(i), true);
+            out.write('"');
+        }
+        startTagOpen = true;
+        depth++;
+        hasText.clear(depth);
+        hasChildren.clear(depth);
+    }
+
+    private void writeEndTag(XMLStreamReader reader) throws IOException {
+        // Whitespace is only indentation if it sits between child elements, in a leaf like <a> </a> it's the value
+        if (hasText.get(depth) || !hasChildren.get(depth)) {
+            flushText();
+        } else {
+            pendingWhitespace.setLength(0);
+        }
+        if (startTagOpen) {
+            out.write("/>");
+            startTagOpen = false;
+            depth--;
+            return;
+        }
+        boolean children = hasChildren.get(depth);
+        boolean text = hasText.get(depth);
+        depth--;
+        if (indent != null && children && !text) {
+            newLine(depth);
+        }
+        out.write("</");
+        writeName(reader.getPrefix(), reader.getLocalName());
+        out.write('>');
+    }
+
+    private void text(XMLStreamReader reader) throws IOException {
+        if (reader.isWhiteSpace() && !hasText.get(depth)) {
+            // Whitespace between tags is only kept if it turns out to be part of mixed content
+            pendingWhitespace.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            return;
+        }
+        closeStartTag();
+        hasText.set(depth);
+        flushText();
+        escape(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+    }
+
+    private void flushText() throws IOException {
+        if (pendingWhitespace.length() > 0) {
+            closeStartTag();
+            out.append(pendingWhitespace);
+            pendingWhitespace.setLength(0);
+        }
+    }
+
+    private void closeStartTag() throws IOException {
+        if (startTagOpen) {
+            out.write('>');
+            startTagOpen = false;
+        }
+    }
+
+    private void newLine(int level) throws IOException {
+        out.write(System.lineSeparator());
+        for (int i = 0; i < level; i++) {
+            out.write(indent);
+        }
+    }
+
+    private void writeName(String prefix, String localName) throws IOException {
+        if (prefix != null && !prefix.isEmpty()) {
+            out.write(prefix);
+            out.write(':');
+        }
+        out.write(localName);
+    }
+
+    private void escape(String value, boolean attribute) throws IOException {
+        if (value != null) {
+            escape(value.toCharArray(), 0, value.length(), attribute);
+        }
+    }
+
+    private void escape(char[] chars, int start, int length) throws IOException {
+        escape(chars, start, length, false);
+    }
+
+    private void escape(char[] chars, int start, int length, boolean attribute) throws IOException {
+        int runStart = start;
+        int end = start + length;
+        for (int i = start; i < end; i++) {
+            String replacement = switch (chars[i]) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> attribute ? "&quot;" : null;
+                case '\n' -> attribute ? "&#10;" : null;
+                case '\t' -> attribute ? "&#9;" : null;
+                default -> null;
+            };
+            if (replacement != null) {
+                out.write(chars, runStart, i - runStart);
+                out.write(replacement);
+                runStart = i + 1;
+            }
+        }
+        out.write(chars, runStart, end - runStart);
+    }
+}
@@ -0,0 +1,17 @@
+package de.fabkreuzer.soaprequestsender.service.xml;
+
+/**
+ * A difference between two XML documents.
+ *
+ * @param path The location, e.g. {@code /Envelope/Body/GetCustomerResponse/Item[2]/Id} or {@code .../@currency}
+ * @param expected The value in the first document, or null if it is missing there
+ * @param actual The value in the second document, or null if it is missing there
+ */
+public record XmlDifference(String path, String expected, String actual) {
+
+    @Override
+    public String toString() {
+        return path + ": " + (expected != null ? expected : "(missing)") + " -> "
+            + (actual != null ? actual : "(missing)");
+    }
+}
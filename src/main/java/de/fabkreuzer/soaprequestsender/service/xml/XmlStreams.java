@@ -0,0 +1,40 @@
+package de.fabkreuzer.soaprequestsender.service.xml;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+
+/**
+ * Shared StAX configuration for all streaming XML processing.
+ */
+public final class XmlStreams {
+
+    private static final String REPORT_CDATA = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private XmlStreams() {
+    }
+
+    /**
+     * Get an input factory that never resolves DTDs or external entities.
+     * The factory is configured once and only used to create readers, which is thread-safe.
+     *
+     * @return The input factory
+     */
+    public static XMLInputFactory inputFactory() {
+        return INPUT_FACTORY;
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        factory.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+        // Keep CDATA sections as such instead of reporting them as escaped text
+        if (factory.isPropertySupported(REPORT_CDATA)) {
+            factory.setProperty(REPORT_CDATA, true);
+        }
+        return factory;
+    }
+}
@@ -1,25 +1,43 @@
 package de.fabkreuzer.soaprequestsender.ui.awt;
 
-import com.eviware.soapui.model.iface.Operation;
+import de.fabkreuzer.soaprequestsender.jfr.FlightRecording;
+import de.fabkreuzer.soaprequestsender.model.MonitorSettings;
 import de.fabkreuzer.soaprequestsender.model.OperationWrapper;
 import de.fabkreuzer.soaprequestsender.model.Project;
 import de.fabkreuzer.soaprequestsender.model.RequestWrapper;
+import de.fabkreuzer.soaprequestsender.model.TestSuite;
+import de.fabkreuzer.soaprequestsender.service.WsdlRefresh;
+import de.fabkreuzer.soaprequestsender.service.capture.CaptureImporter;
+import de.fabkreuzer.soaprequestsender.service.capture.CapturedExchange;
+import de.fabkreuzer.soaprequestsender.service.history.HistoryEntry;
+import de.fabkreuzer.soaprequestsender.service.http.SoapResponse;
+import de.fabkreuzer.soaprequestsender.service.search.RequestLocation;
 import de.fabkreuzer.soaprequestsender.ui.awt.component.XmlTextPane;
 import de.fabkreuzer.soaprequestsender.ui.awt.constants.AwtConstants;
 import de.fabkreuzer.soaprequestsender.ui.awt.controller.WsdlSenderController;
+import de.fabkreuzer.soaprequestsender.ui.awt.model.ProjectTreeModel;
+import de.fabkreuzer.soaprequestsender.ui.awt.model.ResultsTableModel;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeCellRenderer;
-import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.TreePath;
 import javax.swing.tree.TreeSelectionModel;
 import java.awt.*;
+import java.awt.event.ActionEvent;
 import java.awt.event.FocusAdapter;
 import java.awt.event.FocusEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 import static de.fabkreuzer.soaprequestsender.ui.awt.constants.AwtConstants.ERROR;
 
@@ -30,18 +48,26 @@ import static de.fabkreuzer.soaprequestsender.ui.awt.constants.AwtConstants.ERRO
  */
 public class WsdlSenderUI {
 
+    /** System property that makes the application exit as soon as its window is shown. */
+    public static final String STARTUP_BENCHMARK_PROPERTY = "soaprequestsender.startupBenchmark";
+    /** Printed in benchmark mode, followed by the startup time in milliseconds. */
+    public static final String STARTUP_MARKER = "Startup completed in ";
+
     private final WsdlSenderController controller;
     private JTree tree;
     private XmlTextPane requestArea;
+    private XmlTextPane responseArea;
+    private JLabel responseStatusLabel;
     private JComboBox<String> endpointField;
-    private DefaultMutableTreeNode rootNode;
-    private DefaultTreeModel treeModel;
+    private ProjectTreeModel treeModel;
     private JFrame frame;
 
     /**
      * Main method to start the application.
      */
     public static void main(String[] args) {
+        FlightRecording.startIfRequested();
+
         try {
             // Set the Nimbus look and feel
             for (UIManager.LookAndFeelInfo info : UIManager.getInstalledLookAndFeels()) {
@@ -81,20 +107,16 @@ public class WsdlSenderUI {
             return;
         }
 
-        DefaultMutableTreeNode node = (DefaultMutableTreeNode) path.getLastPathComponent();
-
-        if (node != null && node.getUserObject() instanceof RequestWrapper request) {
+        if (path.getLastPathComponent() instanceof RequestWrapper request) {
             String content = requestArea.getXmlContent();
 
             // Save the request content using the controller
             controller.saveRequestContent(request, content);
 
-            // Find the project node to save the project
+            // Find the project to save it
             if (path.getPathCount() > 1) {
-                // The project node should be at index 1 in the path (root is at 0)
-                DefaultMutableTreeNode projectNode = (DefaultMutableTreeNode) path.getPathComponent(1);
-
-                if (projectNode.getUserObject() instanceof Project project) {
+                // The project should be at index 1 in the path (root is at 0)
+                if (path.getPathComponent(1) instanceof Project project) {
                     try {
                         controller.saveProject(project);
                     } catch (IOException ex) {
@@ -129,22 +151,20 @@ public class WsdlSenderUI {
         String selectedEndpoint = request.getSelectedEndpoint();
         if (selectedEndpoint != null) {
             endpointField.setSelectedItem(selectedEndpoint);
+
+            // The request is likely to be sent next, so connect to its endpoint ahead of time
+            controller.prewarmEndpoint(selectedEndpoint);
         }
     }
 
     /**
-     * Saves the project for the given node.
+     * Saves the project containing the node at the given path.
      * 
-     * @param node The node to save the project for
+     * @param path The path of the node to save the project for
      */
-    private void saveProjectForNode(DefaultMutableTreeNode node) {
-        // Find the project node
-        DefaultMutableTreeNode projectNode = node;
-        while (projectNode != null && !(projectNode.getUserObject() instanceof Project)) {
-            projectNode = (DefaultMutableTreeNode) projectNode.getParent();
-        }
-
-        if (projectNode != null && projectNode.getUserObject() instanceof Project project) {
+    private void saveProjectForPath(TreePath path) {
+        // The project is the first path component below the root
+        if (path != null && path.getPathCount() > 1 && path.getPathComponent(1) instanceof Project project) {
             try {
                 controller.saveProject(project);
             } catch (IOException ex) {
@@ -173,18 +193,32 @@ public class WsdlSenderUI {
         JButton saveProjectButton = new JButton("Save Project");
         JButton deleteProjectButton = new JButton("Delete Project");
         JButton loadButton = new JButton("Load WSDL");
+        JButton runAllButton = new JButton("Run All");
+        runAllButton.setToolTipText("Send the first request of every operation of all saved projects");
 
         projectPanel.add(newProjectButton);
         projectPanel.add(saveProjectButton);
         projectPanel.add(deleteProjectButton);
         projectPanel.add(loadButton);
-
-        // Add panel to top panel
+        projectPanel.add(runAllButton);
+        runAllButton.addActionListener(e -> runSmokeTests(runAllButton));
+
+        // Search panel for finding requests by content across all projects
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JTextField searchField = new JTextField(20);
+        searchField.setToolTipText("Search all requests, e.g. a customer ID, element:name or ns:uri");
+        JButton searchButton = new JButton("Search");
+        searchPanel.add(searchField);
+        searchPanel.add(searchButton);
+        searchButton.addActionListener(e -> showSearchResults(searchField.getText()));
+        searchField.addActionListener(e -> showSearchResults(searchField.getText()));
+
+        // Add panels to top panel
         topPanel.add(projectPanel, BorderLayout.CENTER);
+        topPanel.add(searchPanel, BorderLayout.EAST);
 
         // Create the tree for projects, services, and operations
-        rootNode = new DefaultMutableTreeNode("Projects");
-        treeModel = new DefaultTreeModel(rootNode);
+        treeModel = new ProjectTreeModel("Projects");
         tree = new JTree(treeModel);
         tree.getSelectionModel().setSelectionMode(TreeSelectionModel.SINGLE_TREE_SELECTION);
         tree.setShowsRootHandles(true);
@@ -196,51 +230,25 @@ public class WsdlSenderUI {
             Component comp = renderer.getTreeCellRendererComponent(
                 tree, value, selected, expanded, leaf, row, hasFocus);
 
-            if (value instanceof DefaultMutableTreeNode node) {
-                Object userObject = node.getUserObject();
-
-                if (userObject instanceof Operation operation) {
-                    renderer.setText(operation.getName());
-                } else if (userObject instanceof Project project) {
-                    renderer.setText(project.getName());
-                } else if (userObject instanceof RequestWrapper request) {
-                    renderer.setText(request.getName());
-                }
+            if (value instanceof OperationWrapper operation) {
+                renderer.setText(operation.getName());
+            } else if (value instanceof Project project) {
+                renderer.setText(project.getName());
+            } else if (value instanceof RequestWrapper request) {
+                renderer.setText(request.getName());
             }
 
             return comp;
         });
 
-        // Load existing projects
+        // Load existing projects, the tree model creates their children only when they are expanded
         try {
             List<Project> projects = controller.loadAllProjects();
-            for (Project project : projects) {
-                DefaultMutableTreeNode projectNode = new DefaultMutableTreeNode(project);
-                rootNode.add(projectNode);
-
-                // Add service node if available
-                if (project.getServiceName() != null && !project.getServiceName().isEmpty()) {
-                    DefaultMutableTreeNode serviceNode = new DefaultMutableTreeNode(project.getServiceName());
-                    projectNode.add(serviceNode);
-
-                    // Add operations to the service node if available
-                    if (project.getOperations() != null && !project.getOperations().isEmpty()) {
-                        for (OperationWrapper operationWrapper : project.getOperations()) {
-                            DefaultMutableTreeNode operationNode = new DefaultMutableTreeNode(operationWrapper);
-                            serviceNode.add(operationNode);
-
-                            // Add request nodes if available
-                            if (operationWrapper.getRequests() != null && !operationWrapper.getRequests().isEmpty()) {
-                                for (RequestWrapper request : operationWrapper.getRequests()) {
-                                    DefaultMutableTreeNode requestNode = new DefaultMutableTreeNode(request);
-                                    operationNode.add(requestNode);
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-            treeModel.reload();
+            treeModel.setProjects(projects);
+
+            // Index the saved requests for searching while the user starts working
+            controller.rebuildSearchIndex();
+            controller.startMonitors(projects);
         } catch (IOException e) {
             JOptionPane.showMessageDialog(frame, 
                 "Error loading projects: " + e.getMessage(), 
@@ -257,13 +265,13 @@ public class WsdlSenderUI {
 
         // Add action listener to save selected endpoint
         endpointField.addActionListener(e -> {
-            DefaultMutableTreeNode node = (DefaultMutableTreeNode) tree.getLastSelectedPathComponent();
-            if (node != null && node.getUserObject() instanceof RequestWrapper request) {
+            if (tree.getLastSelectedPathComponent() instanceof RequestWrapper request) {
                 String selectedEndpoint = endpointField.getSelectedItem() != null ?
                     endpointField.getSelectedItem().toString() : "";
                 if (!selectedEndpoint.isEmpty()) {
                     request.setSelectedEndpoint(selectedEndpoint);
-                    saveProjectForNode(node);
+                    controller.prewarmEndpoint(selectedEndpoint);
+                    saveProjectForPath(tree.getSelectionPath());
                 }
             }
         });
@@ -272,10 +280,14 @@ public class WsdlSenderUI {
         JPanel endpointFieldPanel = new JPanel(new BorderLayout());
         endpointFieldPanel.add(endpointField, BorderLayout.CENTER);
 
-        // Add button to add a new endpoint
+        // Add buttons to add a new endpoint and to send the request
         JButton addEndpointButton = createAddEndpointButton();
+        JButton sendButton = createSendButton();
 
-        endpointFieldPanel.add(addEndpointButton, BorderLayout.EAST);
+        JPanel endpointButtonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        endpointButtonPanel.add(addEndpointButton);
+        endpointButtonPanel.add(sendButton);
+        endpointFieldPanel.add(endpointButtonPanel, BorderLayout.EAST);
 
         endpointPanel.add(endpointLabel, BorderLayout.WEST);
         endpointPanel.add(endpointFieldPanel, BorderLayout.CENTER);
@@ -298,18 +310,34 @@ public class WsdlSenderUI {
                     requestArea.setXmlContent(currentContent);
                 } else {
                     // Fallback to loading from the selected request
-                    DefaultMutableTreeNode node = (DefaultMutableTreeNode) tree.getLastSelectedPathComponent();
-                    if (node != null && node.getUserObject() instanceof RequestWrapper request) {
+                    if (tree.getLastSelectedPathComponent() instanceof RequestWrapper request) {
                         requestArea.setXmlContent(request.getContent());
                     }
                 }
             }
         });
 
+        // Create the read-only response area with a status line below it
+        responseArea = new XmlTextPane();
+        responseArea.setEditable(false);
+        responseStatusLabel = new JLabel(" ");
+        responseStatusLabel.setBorder(new EmptyBorder(2, 5, 2, 5));
+
+        JPanel responsePanel = new JPanel(new BorderLayout());
+        responsePanel.add(new JScrollPane(responseArea), BorderLayout.CENTER);
+        responsePanel.add(responseStatusLabel, BorderLayout.SOUTH);
+
+        JSplitPane requestResponsePane = new JSplitPane(JSplitPane.VERTICAL_SPLIT,
+                new JScrollPane(requestArea), responsePanel);
+        requestResponsePane.setResizeWeight(0.5);
+
+        // Keep the request in sync when its content is formatted or minified from the context menu
+        requestArea.addPropertyChangeListener(XmlTextPane.CONTENT_REPLACED_PROPERTY, e -> saveRequestContent());
+
         // Create a panel for the request area with the endpoint field at the top
         JPanel requestPanel = new JPanel(new BorderLayout());
         requestPanel.add(endpointPanel, BorderLayout.NORTH);
-        requestPanel.add(new JScrollPane(requestArea), BorderLayout.CENTER);
+        requestPanel.add(requestResponsePane, BorderLayout.CENTER);
 
         // Create a split pane with the tree on the left and request area on the right
         JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT,
@@ -321,61 +349,100 @@ public class WsdlSenderUI {
         frame.add(topPanel, BorderLayout.NORTH);
         frame.add(splitPane, BorderLayout.CENTER);
 
-        // Add context menu to the tree
+        // Add context menus to the tree
         JPopupMenu popupMenu = new JPopupMenu();
         JMenuItem newRequestItem = new JMenuItem("New Request");
         popupMenu.add(newRequestItem);
 
+        JPopupMenu requestPopupMenu = new JPopupMenu();
+        JMenuItem historyItem = new JMenuItem("Show History...");
+        requestPopupMenu.add(historyItem);
+        historyItem.addActionListener(e -> showHistory(tree.getSelectionPath()));
+        JMenuItem compareItem = new JMenuItem("Compare Endpoints");
+        requestPopupMenu.add(compareItem);
+        compareItem.addActionListener(e -> compareEndpoints(tree.getSelectionPath()));
+        JMenuItem batchItem = new JMenuItem("Batch Send...");
+        requestPopupMenu.add(batchItem);
+        batchItem.addActionListener(e -> batchSend(tree.getSelectionPath()));
+        JMenuItem monitorItem = new JMenuItem("Monitor...");
+        requestPopupMenu.add(monitorItem);
+        monitorItem.addActionListener(e -> editMonitor(tree.getSelectionPath()));
+
+        JPopupMenu projectPopupMenu = new JPopupMenu();
+        JMenuItem runSuitesItem = new JMenuItem("Run Test Suites");
+        projectPopupMenu.add(runSuitesItem);
+        runSuitesItem.addActionListener(e -> {
+            if (tree.getLastSelectedPathComponent() instanceof Project project) {
+                runTestSuites(project);
+            }
+        });
+        JMenuItem editSuitesItem = new JMenuItem("Edit Test Suites...");
+        projectPopupMenu.add(editSuitesItem);
+        editSuitesItem.addActionListener(e -> {
+            if (tree.getLastSelectedPathComponent() instanceof Project project) {
+                editTestSuites(project);
+            }
+        });
+        JMenuItem compareProjectItem = new JMenuItem("Compare Endpoints");
+        projectPopupMenu.add(compareProjectItem);
+        compareProjectItem.addActionListener(e -> {
+            if (tree.getLastSelectedPathComponent() instanceof Project project) {
+                runInBackground("Endpoint comparison of " + project.getName(),
+                    () -> controller.compareProjectEndpoints(project));
+            }
+        });
+        JMenuItem monitorStatusItem = new JMenuItem("Monitor Status");
+        projectPopupMenu.add(monitorStatusItem);
+        monitorStatusItem.addActionListener(e -> runInBackground("Monitors", controller::getMonitorReport));
+        JMenuItem importCaptureItem = new JMenuItem("Import Capture...");
+        projectPopupMenu.add(importCaptureItem);
+        importCaptureItem.addActionListener(e -> {
+            if (tree.getLastSelectedPathComponent() instanceof Project project) {
+                importCapture(project);
+            }
+        });
+        JMenuItem replayItem = new JMenuItem("Replay Capture...");
+        projectPopupMenu.add(replayItem);
+        replayItem.addActionListener(e -> replayCapture());
+        JMenuItem ignorePathsItem = new JMenuItem("Diff Ignore Paths...");
+        projectPopupMenu.add(ignorePathsItem);
+        ignorePathsItem.addActionListener(e -> {
+            if (tree.getLastSelectedPathComponent() instanceof Project project) {
+                editDiffIgnorePaths(project);
+            }
+        });
+
         // Add action listener to the New Request menu item
         newRequestItem.addActionListener(e -> {
-            DefaultMutableTreeNode node = (DefaultMutableTreeNode) tree.getLastSelectedPathComponent();
-            if (node != null && node.getUserObject() instanceof OperationWrapper wrapper) {
-                Operation operation = wrapper.getOperation();
-
+            TreePath operationPath = tree.getSelectionPath();
+            if (operationPath != null && operationPath.getLastPathComponent() instanceof OperationWrapper wrapper
+                    && operationPath.getPathComponent(1) instanceof Project project) {
                 // Show dialog to enter request name
                 String requestName = JOptionPane.showInputDialog(frame, "Enter request name:");
                 if (requestName != null && !requestName.isBlank()) {
-                    // Create a new request using the controller
-                    RequestWrapper request = controller.createRequest(operation, requestName);
-
-                    // Add the project's endpoint to the request
-                    DefaultMutableTreeNode projectNode = (DefaultMutableTreeNode) node.getPath()[1];
-                    if (projectNode.getUserObject() instanceof Project project) {
-                        String endpoint = project.getWsdlUrl();
-                        if (endpoint != null && !endpoint.isEmpty()) {
-                            request.addEndpoint(endpoint);
+                    // The first sample of a project loaded from disk imports its WSDL, which must not block the EDT
+                    new SwingWorker<RequestWrapper, Void>() {
+                        @Override
+                        protected RequestWrapper doInBackground() {
+                            return controller.createRequest(project, wrapper, requestName);
                         }
-                    }
 
-                    wrapper.addRequest(request);
-
-                    // Add the request to the tree
-                    DefaultMutableTreeNode requestNode = new DefaultMutableTreeNode(request);
-                    node.add(requestNode);
-
-                    // Update the tree
-                    treeModel.reload(node);
-
-                    // Expand the operation node
-                    tree.expandPath(new TreePath(node.getPath()));
-
-                    // Select the new request
-                    TreePath path = new TreePath(requestNode.getPath());
-                    tree.setSelectionPath(path);
-                    tree.scrollPathToVisible(path);
-
-                    // Save the project
-                    if (projectNode.getUserObject() instanceof Project project) {
-                        try {
-                            controller.saveProject(project);
-                        } catch (IOException ex) {
-                            JOptionPane.showMessageDialog(frame, 
-                                AwtConstants.ERROR_SAVING_PROJECT + ex.getMessage(), 
-                                ERROR,
-                                JOptionPane.ERROR_MESSAGE);
-                            ex.printStackTrace();
+                        @Override
+                        protected void done() {
+                            try {
+                                addNewRequest(project, wrapper, operationPath, get());
+                            } catch (InterruptedException ex) {
+                                Thread.currentThread().interrupt();
+                            } catch (ExecutionException ex) {
+                                Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                                JOptionPane.showMessageDialog(frame,
+                                    "Error creating request: " + cause.getMessage(),
+                                    ERROR,
+                                    JOptionPane.ERROR_MESSAGE);
+                                cause.printStackTrace();
+                            }
                         }
-                    }
+                    }.execute();
                 }
             }
         });
@@ -386,21 +453,18 @@ public class WsdlSenderUI {
             }
 
             // Save content from the old selection if it was a request
-            if (e.getOldLeadSelectionPath() != null) {
-                DefaultMutableTreeNode oldNode = (DefaultMutableTreeNode) e.getOldLeadSelectionPath().getLastPathComponent();
-                if (oldNode != null && oldNode.getUserObject() instanceof RequestWrapper request) {
-                    controller.saveRequestContent(request, requestArea.getXmlContent());
-                }
+            if (e.getOldLeadSelectionPath() != null
+                    && e.getOldLeadSelectionPath().getLastPathComponent() instanceof RequestWrapper request) {
+                controller.saveRequestContent(request, requestArea.getXmlContent());
             }
 
             // Load content from the new selection
-            DefaultMutableTreeNode newNode = (DefaultMutableTreeNode) tree.getLastSelectedPathComponent();
+            Object userObject = tree.getLastSelectedPathComponent();
 
-            if (newNode == null || newNode.getUserObject() == null) {
+            if (userObject == null) {
                 return;
             }
 
-            Object userObject = newNode.getUserObject();
             if (userObject instanceof RequestWrapper request) {
                 String content = request.getContent();
                 controller.setCurrentRequestContent(content);
@@ -440,9 +504,12 @@ public class WsdlSenderUI {
                 TreePath path = tree.getPathForLocation(e.getX(), e.getY());
                 if (path != null) {
                     tree.setSelectionPath(path);
-                    DefaultMutableTreeNode node = (DefaultMutableTreeNode) path.getLastPathComponent();
-                    if (node != null && node.getUserObject() instanceof OperationWrapper) {
+                    if (path.getLastPathComponent() instanceof OperationWrapper) {
                         popupMenu.show(e.getComponent(), e.getX(), e.getY());
+                    } else if (path.getLastPathComponent() instanceof RequestWrapper) {
+                        requestPopupMenu.show(e.getComponent(), e.getX(), e.getY());
+                    } else if (path.getLastPathComponent() instanceof Project) {
+                        projectPopupMenu.show(e.getComponent(), e.getX(), e.getY());
                     }
                 }
             }
@@ -450,10 +517,8 @@ public class WsdlSenderUI {
 
         // Add action listener to the load button
         loadButton.addActionListener(e -> {
-            // Get the selected node
-            DefaultMutableTreeNode selectedNode = (DefaultMutableTreeNode) tree.getLastSelectedPathComponent();
-
-            if (selectedNode == null || !(selectedNode.getUserObject() instanceof Project selectedProject)) {
+            // Get the selected project
+            if (!(tree.getLastSelectedPathComponent() instanceof Project selectedProject)) {
                 JOptionPane.showMessageDialog(frame, "Please select a project to load WSDL.");
                 return;
             }
@@ -466,71 +531,33 @@ public class WsdlSenderUI {
                 return;
             }
 
-            try {
-                // Clear existing service nodes
-                selectedNode.removeAllChildren();
-
-                // Update the project with the new WSDL data using the controller
-                Project updatedProject = controller.updateProject(selectedProject, url);
-                endpointField.removeAllItems();
-                endpointField.addItem(url);
-                controller.setCurrentRequestContent("");
-                requestArea.setXmlContent("");
-
-                // Create service node
-                String serviceName = controller.getServiceName();
-                DefaultMutableTreeNode serviceNode = new DefaultMutableTreeNode(serviceName);
-                selectedNode.add(serviceNode);
-
-                // Add operations from the updated project to the service node
-                for (OperationWrapper wrapper : updatedProject.getOperations()) {
-                    DefaultMutableTreeNode operationNode = new DefaultMutableTreeNode(wrapper);
-                    serviceNode.add(operationNode);
-
-                    // Check if the operation has any requests
-                    if (wrapper.getRequests().isEmpty()) {
-                        // Create a default request for the operation
-                        String sampleRequest = controller.generateSampleRequest(wrapper.getOperation());
-                        RequestWrapper defaultRequest = new RequestWrapper("Default Request", sampleRequest);
-
-                        // Add the project's endpoint to the request
-                        defaultRequest.addEndpoint(url);
-                        wrapper.addRequest(defaultRequest);
-
-                        // Add the default request node
-                        DefaultMutableTreeNode requestNode = new DefaultMutableTreeNode(defaultRequest);
-                        operationNode.add(requestNode);
-                    } else {
-                        // Add existing request nodes
-                        for (RequestWrapper request : wrapper.getRequests()) {
-                            DefaultMutableTreeNode requestNode = new DefaultMutableTreeNode(request);
-                            operationNode.add(requestNode);
-                        }
-                    }
+            // Import and compare in the background, only the differences touch the tree
+            Map<WsdlRefresh.OperationKey, WsdlRefresh.Stored> stored = WsdlRefresh.snapshot(selectedProject);
+            String wsdlUrl = url;
+            loadButton.setEnabled(false);
+            new SwingWorker<WsdlRefresh, Void>() {
+                @Override
+                protected WsdlRefresh doInBackground() {
+                    return controller.planRefresh(stored, wsdlUrl);
                 }
 
-                // Save the updated project
-                try {
-                    controller.saveProject(selectedProject);
-                } catch (IOException ex) {
-                    JOptionPane.showMessageDialog(frame, 
-                        AwtConstants.ERROR_SAVING_PROJECT + ex.getMessage(), 
-                        ERROR,
-                        JOptionPane.ERROR_MESSAGE);
-                    ex.printStackTrace();
+                @Override
+                protected void done() {
+                    loadButton.setEnabled(true);
+                    try {
+                        applyRefresh(selectedProject, get(), wsdlUrl);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    } catch (ExecutionException ex) {
+                        Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                        JOptionPane.showMessageDialog(frame,
+                            "Error loading WSDL: " + cause.getMessage(),
+                            ERROR,
+                            JOptionPane.ERROR_MESSAGE);
+                        cause.printStackTrace();
+                    }
                 }
-
-                // Update the tree and expand the service node
-                treeModel.reload();
-                tree.expandPath(new TreePath(serviceNode.getPath()));
-
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(frame, 
-                    "Error loading WSDL: " + ex.getMessage(), 
-                    ERROR,
-                    JOptionPane.ERROR_MESSAGE);
-                ex.printStackTrace();
-            }
+            }.execute();
         });
 
         // Add action listener for New Project button
@@ -590,51 +617,16 @@ public class WsdlSenderUI {
                     // Create project with WSDL data using the controller
                     Project project = controller.createProject(projectName, url);
 
-                    // Add project to tree
-                    DefaultMutableTreeNode projectNode = new DefaultMutableTreeNode(project);
-                    rootNode.add(projectNode);
-
-                    // Add service node
-                    String serviceName = controller.getServiceName();
-                    DefaultMutableTreeNode serviceNode = new DefaultMutableTreeNode(serviceName);
-                    projectNode.add(serviceNode);
-
-                    // Add operations from the project to the service node
-                    for (OperationWrapper wrapper : project.getOperations()) {
-                        DefaultMutableTreeNode operationNode = new DefaultMutableTreeNode(wrapper);
-                        serviceNode.add(operationNode);
-
-                        // Create a default request for the operation if it doesn't have any
-                        if (wrapper.getRequests().isEmpty()) {
-                            // Create a default request for the operation
-                            String sampleRequest = controller.generateSampleRequest(wrapper.getOperation());
-                            RequestWrapper defaultRequest = new RequestWrapper("Default Request", sampleRequest);
-
-                            // Add the project's endpoint to the request
-                            defaultRequest.addEndpoint(url);
-                            wrapper.addRequest(defaultRequest);
-
-                            // Add the default request node
-                            DefaultMutableTreeNode requestNode = new DefaultMutableTreeNode(defaultRequest);
-                            operationNode.add(requestNode);
-                        } else {
-                            // Add existing request nodes
-                            for (RequestWrapper request : wrapper.getRequests()) {
-                                DefaultMutableTreeNode requestNode = new DefaultMutableTreeNode(request);
-                                operationNode.add(requestNode);
-                            }
-                        }
-                    }
-
-                    treeModel.reload();
+                    // Insert only the new project node into the tree
+                    treeModel.addProject(project);
 
                     // Select the new project
-                    TreePath path = new TreePath(projectNode.getPath());
+                    TreePath path = treeModel.pathTo(project);
                     tree.setSelectionPath(path);
                     tree.scrollPathToVisible(path);
 
-                    // Expand the service node
-                    tree.expandPath(new TreePath(serviceNode.getPath()));
+                    // Expand the interface nodes
+                    treeModel.servicePathsTo(project).forEach(tree::expandPath);
 
                     endpointField.removeAllItems();
                     endpointField.addItem(url);
@@ -664,9 +656,7 @@ public class WsdlSenderUI {
 
         // Add action listener for Save Project button
         saveProjectButton.addActionListener(e -> {
-            DefaultMutableTreeNode selectedNode = (DefaultMutableTreeNode) tree.getLastSelectedPathComponent();
-
-            if (selectedNode == null || !(selectedNode.getUserObject() instanceof Project project)) {
+            if (!(tree.getLastSelectedPathComponent() instanceof Project project)) {
                 JOptionPane.showMessageDialog(frame, "Please select a project to save.");
                 return;
             }
@@ -697,9 +687,7 @@ public class WsdlSenderUI {
 
         // Add action listener for Delete Project button
         deleteProjectButton.addActionListener(e -> {
-            DefaultMutableTreeNode selectedNode = (DefaultMutableTreeNode) tree.getLastSelectedPathComponent();
-
-            if (selectedNode == null || !(selectedNode.getUserObject() instanceof Project project)) {
+            if (!(tree.getLastSelectedPathComponent() instanceof Project project)) {
                 JOptionPane.showMessageDialog(frame, "Please select a project to delete.");
                 return;
             }
@@ -712,8 +700,7 @@ public class WsdlSenderUI {
             if (confirm == JOptionPane.YES_OPTION) {
                 try {
                     controller.deleteProject(project.getName());
-                    rootNode.remove(selectedNode);
-                    treeModel.reload();
+                    treeModel.removeProject(project);
                     endpointField.removeAllItems();
                     controller.setCurrentRequestContent("");
                     requestArea.setXmlContent("");
@@ -728,22 +715,781 @@ public class WsdlSenderUI {
         });
 
         frame.setVisible(true);
+
+        // In benchmark mode report the time from process start until the window is shown, then exit
+        if (Boolean.getBoolean(STARTUP_BENCHMARK_PROPERTY)) {
+            SwingUtilities.invokeLater(() -> {
+                long startMillis = ProcessHandle.current().info().startInstant()
+                    .map(Instant::toEpochMilli)
+                    .orElse(ManagementFactory.getRuntimeMXBean().getStartTime());
+                System.out.println(STARTUP_MARKER + (System.currentTimeMillis() - startMillis) + " ms");
+                System.exit(0);
+            });
+        }
+    }
+
+    /**
+     * Applies a WSDL diff to a project and updates only the changed tree nodes.
+     * If interfaces were added or removed, the subtree of the project is rebuilt instead.
+     *
+     * @param project The refreshed project
+     * @param refresh The diff
+     * @param url The WSDL URL
+     */
+    private void applyRefresh(Project project, WsdlRefresh refresh, String url) {
+        boolean structureChanged = refresh.changesInterfaces(project);
+        WsdlRefresh.Listener listener = new WsdlRefresh.Listener() {
+            @Override
+            public void operationRemoved(OperationWrapper operation, String interfaceName, int index) {
+                if (!structureChanged) {
+                    treeModel.operationRemoved(project, interfaceName, index, operation);
+                }
+            }
+
+            @Override
+            public void operationAdded(OperationWrapper operation) {
+                if (!structureChanged) {
+                    treeModel.operationAdded(project, operation);
+                }
+            }
+
+            @Override
+            public void operationChanged(OperationWrapper operation) {
+                if (!structureChanged) {
+                    treeModel.nodeChanged(treeModel.pathTo(project, operation));
+                }
+            }
+        };
+
+        try {
+            controller.applyRefresh(project, refresh, url, listener);
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(frame,
+                AwtConstants.ERROR_SAVING_PROJECT + ex.getMessage(),
+                ERROR,
+                JOptionPane.ERROR_MESSAGE);
+            ex.printStackTrace();
+        }
+
+        if (structureChanged) {
+            treeModel.projectStructureChanged(project);
+            treeModel.servicePathsTo(project).forEach(tree::expandPath);
+        }
+        JOptionPane.showMessageDialog(frame, "WSDL refreshed: " + refresh);
     }
 
     private JButton createAddEndpointButton() {
         JButton addEndpointButton = new JButton("+");
         addEndpointButton.setToolTipText("Add a new endpoint");
         addEndpointButton.addActionListener(e -> {
-            DefaultMutableTreeNode node = (DefaultMutableTreeNode) tree.getLastSelectedPathComponent();
-            if (node != null && node.getUserObject() instanceof RequestWrapper request) {
+            if (tree.getLastSelectedPathComponent() instanceof RequestWrapper request) {
                 String newEndpoint = JOptionPane.showInputDialog(frame, "Enter new endpoint URL:");
                 if (newEndpoint != null && !newEndpoint.isEmpty()) {
                     request.addEndpoint(newEndpoint);
                     updateEndpointComboBox(request);
-                    saveProjectForNode(node);
+                    saveProjectForPath(tree.getSelectionPath());
                 }
             }
         });
         return addEndpointButton;
     }
+
+    private JButton createSendButton() {
+        JButton sendButton = new JButton("Send");
+        sendButton.setToolTipText("Send the request to the selected endpoint");
+        sendButton.addActionListener(e -> {
+            TreePath path = tree.getSelectionPath();
+            if (path == null || !(path.getLastPathComponent() instanceof RequestWrapper request)) {
+                JOptionPane.showMessageDialog(frame, "Please select a request to send.");
+                return;
+            }
+            Project project = (Project) path.getPathComponent(1);
+            OperationWrapper operation = (OperationWrapper) path.getParentPath().getLastPathComponent();
+
+            // Make sure the edited content is what gets sent
+            controller.saveRequestContent(request, requestArea.getXmlContent());
+
+            sendButton.setEnabled(false);
+            responseStatusLabel.setText("Sending to " + request.getSelectedEndpoint() + " ...");
+            responseArea.setXmlContent("");
+
+            // Send in the background, the response may take a while
+            new SwingWorker<SoapResponse, Void>() {
+                @Override
+                protected SoapResponse doInBackground() throws Exception {
+                    return controller.sendRequest(project, operation, request);
+                }
+
+                @Override
+                protected void done() {
+                    sendButton.setEnabled(true);
+                    try {
+                        SoapResponse response = get();
+                        responseArea.setXmlContent(response.body());
+                        responseStatusLabel.setText(formatResponseStatus(response));
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    } catch (ExecutionException ex) {
+                        Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                        responseStatusLabel.setText("Error: " + cause.getMessage());
+                        cause.printStackTrace();
+                    }
+                }
+            }.execute();
+        });
+        return sendButton;
+    }
+
+    /**
+     * Formats the status line shown below the response.
+     *
+     * @param response The response to describe
+     * @return The status text
+     */
+    private static String formatResponseStatus(SoapResponse response) {
+        StringBuilder status = new StringBuilder();
+        status.append(response.protocol()).append(' ').append(response.statusCode())
+            .append("  |  ").append(String.format("%.1f ms", response.latencyMillis()))
+            .append("  |  ").append(response.body().length()).append(" chars");
+        if (response.contentEncoding() != null) {
+            status.append(" (").append(response.contentEncoding()).append(", ")
+                .append(response.wireBytes()).append(" bytes on the wire)");
+        }
+        return status.toString();
+    }
+
+    /**
+     * Searches all saved requests and shows the hits in a dialog.
+     * Choosing a hit selects the request in the tree.
+     *
+     * @param query The words to search for
+     */
+    private void showSearchResults(String query) {
+        if (query == null || query.isBlank()) {
+            return;
+        }
+
+        List<RequestLocation> results = controller.searchRequests(query);
+        if (results.isEmpty()) {
+            JOptionPane.showMessageDialog(frame, "No requests found for '" + query + "'.");
+            return;
+        }
+
+        JDialog dialog = new JDialog(frame, results.size() + " requests found for '" + query + "'", false);
+        dialog.setLayout(new BorderLayout());
+        dialog.setSize(500, 300);
+        dialog.setLocationRelativeTo(frame);
+
+        JList<RequestLocation> resultList = new JList<>(results.toArray(new RequestLocation[0]));
+        resultList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        resultList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2 && resultList.getSelectedValue() != null) {
+                    selectRequest(resultList.getSelectedValue());
+                }
+            }
+        });
+        resultList.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "open");
+        resultList.getActionMap().put("open", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (resultList.getSelectedValue() != null) {
+                    selectRequest(resultList.getSelectedValue());
+                }
+            }
+        });
+
+        dialog.add(new JScrollPane(resultList), BorderLayout.CENTER);
+        dialog.setVisible(true);
+    }
+
+    /**
+     * Selects the tree node of a request and scrolls it into view.
+     *
+     * @param location The location of the request
+     */
+    private void selectRequest(RequestLocation location) {
+        treeModel.findProject(location.projectName()).ifPresent(project -> {
+            for (OperationWrapper operation : project.getOperations()) {
+                if (!operation.getName().equals(location.operationName())) {
+                    continue;
+                }
+                for (RequestWrapper request : operation.getRequests()) {
+                    if (request.getName().equals(location.requestName())) {
+                        TreePath path = treeModel.pathTo(project, operation, request);
+                        tree.setSelectionPath(path);
+                        tree.scrollPathToVisible(path);
+                        return;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Shows the calls of the last day for the request at the given path.
+     * Selecting a call shows the response that was received.
+     *
+     * @param path The path of the request
+     */
+    private void showHistory(TreePath path) {
+        if (path == null || !(path.getLastPathComponent() instanceof RequestWrapper request)) {
+            return;
+        }
+        Project project = (Project) path.getPathComponent(1);
+        OperationWrapper operation = (OperationWrapper) path.getParentPath().getLastPathComponent();
+
+        List<HistoryEntry> entries;
+        try {
+            long now = System.currentTimeMillis();
+            entries = controller.getHistory(project, operation, request, now - Duration.ofDays(1).toMillis(), now);
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(frame,
+                "Error reading history: " + ex.getMessage(),
+                ERROR,
+                JOptionPane.ERROR_MESSAGE);
+            ex.printStackTrace();
+            return;
+        }
+        if (entries.isEmpty()) {
+            JOptionPane.showMessageDialog(frame, "No calls of '" + request.getName() + "' in the last 24 hours.");
+            return;
+        }
+
+        JDialog dialog = new JDialog(frame, "History of " + request.getName(), false);
+        dialog.setLayout(new BorderLayout());
+        dialog.setSize(800, 500);
+        dialog.setLocationRelativeTo(frame);
+
+        // Newest calls first
+        DefaultListModel<HistoryEntry> listModel = new DefaultListModel<>();
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            listModel.addElement(entries.get(i));
+        }
+        JList<HistoryEntry> entryList = new JList<>(listModel);
+        entryList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+
+        XmlTextPane historyResponseArea = new XmlTextPane();
+        historyResponseArea.setEditable(false);
+        entryList.addListSelectionListener(e -> {
+            HistoryEntry entry = entryList.getSelectedValue();
+            if (!e.getValueIsAdjusting() && entry != null) {
+                historyResponseArea.setXmlContent(entry.response() != null ? entry.response() : "");
+            }
+        });
+
+        JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT,
+                new JScrollPane(entryList), new JScrollPane(historyResponseArea));
+        splitPane.setDividerLocation(280);
+        dialog.add(splitPane, BorderLayout.CENTER);
+        entryList.setSelectedIndex(0);
+        dialog.setVisible(true);
+    }
+
+    /**
+     * Adds a created request to its operation, selects it in the tree and saves the project.
+     *
+     * @param project The project containing the operation
+     * @param wrapper The operation
+     * @param operationPath The tree path of the operation
+     * @param request The new request
+     */
+    private void addNewRequest(Project project, OperationWrapper wrapper, TreePath operationPath,
+                               RequestWrapper request) {
+        // Add the project's endpoint to the request
+        String endpoint = project.getWsdlUrl();
+        if (endpoint != null && !endpoint.isEmpty()) {
+            request.addEndpoint(endpoint);
+        }
+
+        wrapper.addRequest(request);
+
+        // Insert only the new request node into the tree
+        treeModel.requestAdded(project, wrapper, request);
+
+        // Expand the operation node
+        tree.expandPath(operationPath);
+
+        // Select the new request
+        TreePath path = operationPath.pathByAddingChild(request);
+        tree.setSelectionPath(path);
+        tree.scrollPathToVisible(path);
+
+        // Save the project
+        try {
+            controller.saveProject(project);
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(frame,
+                AwtConstants.ERROR_SAVING_PROJECT + ex.getMessage(),
+                ERROR,
+                JOptionPane.ERROR_MESSAGE);
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Lets the user build a test suite from the requests of a project, one step per line with the
+     * values to transfer to the following steps, and saves it.
+     *
+     * @param project The project to edit the suites of
+     */
+    private void editTestSuites(Project project) {
+        JComboBox<String> suiteBox = new JComboBox<>();
+        for (TestSuite suite : project.getTestSuites()) {
+            suiteBox.addItem(suite.getName());
+        }
+        suiteBox.setEditable(true);
+        JTextArea stepsArea = new JTextArea(12, 50);
+        // Picking an existing suite loads its steps, a new name keeps what has been entered so far
+        suiteBox.addActionListener(e -> project.getTestSuites().stream()
+            .filter(suite -> suite.getName().equals(suiteBox.getSelectedItem()))
+            .findFirst()
+            .ifPresent(suite -> stepsArea.setText(String.join("\n", controller.getTestSuiteSteps(suite)))));
+        if (suiteBox.getItemCount() > 0) {
+            suiteBox.setSelectedIndex(0);
+        }
+
+        DefaultListModel<String> requests = new DefaultListModel<>();
+        for (OperationWrapper operation : project.getOperations()) {
+            for (RequestWrapper request : operation.getRequests()) {
+                requests.addElement(operation.getName() + "/" + request.getName());
+            }
+        }
+        JList<String> requestList = new JList<>(requests);
+        JButton addButton = new JButton("Add Selected as Steps");
+        addButton.addActionListener(e -> {
+            for (String request : requestList.getSelectedValuesList()) {
+                if (!stepsArea.getText().isEmpty() && !stepsArea.getText().endsWith("\n")) {
+                    stepsArea.append("\n");
+                }
+                stepsArea.append(request + "\n");
+            }
+        });
+
+        JPanel requestPanel = new JPanel(new BorderLayout(5, 5));
+        requestPanel.add(new JScrollPane(requestList), BorderLayout.CENTER);
+        requestPanel.add(addButton, BorderLayout.SOUTH);
+        JPanel stepsPanel = new JPanel(new BorderLayout(5, 5));
+        stepsPanel.add(new JLabel("<html>One step per line: operation/request property=path ...<br>"
+            + "e.g. CreateCustomer/Default customerId=//CustomerId, later steps use ${customerId}.<br>"
+            + "A suite without steps is removed.</html>"), BorderLayout.NORTH);
+        stepsPanel.add(new JScrollPane(stepsArea), BorderLayout.CENTER);
+        JPanel namePanel = new JPanel(new BorderLayout(5, 5));
+        namePanel.add(new JLabel("Suite:"), BorderLayout.WEST);
+        namePanel.add(suiteBox, BorderLayout.CENTER);
+
+        JPanel panel = new JPanel(new BorderLayout(5, 5));
+        panel.add(namePanel, BorderLayout.NORTH);
+        panel.add(new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, requestPanel, stepsPanel), BorderLayout.CENTER);
+        int option = JOptionPane.showConfirmDialog(frame, panel, "Test suites of " + project.getName(),
+            JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        // The editor holds a typed name even if it was never committed with Enter
+        Object name = suiteBox.getEditor().getItem();
+        if (option != JOptionPane.OK_OPTION || name == null || name.toString().isBlank()) {
+            return;
+        }
+        try {
+            controller.setTestSuite(project, name.toString(), List.of(stepsArea.getText().split("\n")));
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(frame,
+                "Invalid test step: " + ex.getMessage(),
+                ERROR,
+                JOptionPane.ERROR_MESSAGE);
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(frame,
+                AwtConstants.ERROR_SAVING_PROJECT + ex.getMessage(),
+                ERROR,
+                JOptionPane.ERROR_MESSAGE);
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Runs the test suites of a project in the background and shows the report.
+     *
+     * @param project The project to run the suites of
+     */
+    private void runTestSuites(Project project) {
+        if (project.getTestSuites().isEmpty()) {
+            JOptionPane.showMessageDialog(frame, "Project '" + project.getName() + "' has no test suites.");
+            return;
+        }
+
+        new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() throws Exception {
+                return controller.runTestSuites(project);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    showReport("Test suites of " + project.getName(), get());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    JOptionPane.showMessageDialog(frame,
+                        "Error running test suites: " + ex.getCause().getMessage(),
+                        ERROR,
+                        JOptionPane.ERROR_MESSAGE);
+                    ex.printStackTrace();
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Sends the first request of every operation of all saved projects in the background
+     * and shows the results.
+     *
+     * @param button The button that started the run, disabled while it runs
+     */
+    private void runSmokeTests(JButton button) {
+        button.setEnabled(false);
+        new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() throws Exception {
+                return controller.runSmokeTests();
+            }
+
+            @Override
+            protected void done() {
+                button.setEnabled(true);
+                try {
+                    showReport("Run all", get());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    JOptionPane.showMessageDialog(frame,
+                        "Error running requests: " + ex.getCause().getMessage(),
+                        ERROR,
+                        JOptionPane.ERROR_MESSAGE);
+                    ex.printStackTrace();
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Sends the selected request to all of its endpoints and shows the differences between the responses.
+     *
+     * @param path The tree path of the request
+     */
+    private void compareEndpoints(TreePath path) {
+        if (path == null || !(path.getLastPathComponent() instanceof RequestWrapper request)) {
+            return;
+        }
+        Project project = (Project) path.getPathComponent(1);
+        OperationWrapper operation = (OperationWrapper) path.getParentPath().getLastPathComponent();
+        if (request.getEndpoints().size() < 2) {
+            JOptionPane.showMessageDialog(frame, "Add a second endpoint to '" + request.getName() + "' to compare responses.");
+            return;
+        }
+        runInBackground("Endpoint comparison of " + request.getName(),
+            () -> controller.compareEndpoints(project, operation, request));
+    }
+
+    /**
+     * Sends the selected request once per row of a CSV file and writes the extracted values to a file.
+     *
+     * @param path The tree path of the request
+     */
+    private void batchSend(TreePath path) {
+        if (path == null || !(path.getLastPathComponent() instanceof RequestWrapper request)) {
+            return;
+        }
+        JFileChooser inputChooser = new JFileChooser();
+        inputChooser.setDialogTitle("Batch input (CSV with header, columns are ${column} in the request)");
+        if (inputChooser.showOpenDialog(frame) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        JTextArea fieldsArea = new JTextArea(10, 40);
+        JPanel panel = new JPanel(new BorderLayout(5, 5));
+        panel.add(new JLabel("One field per line as name=path, e.g. customer=//Customer/@id"), BorderLayout.NORTH);
+        panel.add(new JScrollPane(fieldsArea), BorderLayout.CENTER);
+        int option = JOptionPane.showConfirmDialog(frame, panel, "Extract from responses",
+            JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (option != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        JFileChooser outputChooser = new JFileChooser(inputChooser.getCurrentDirectory());
+        outputChooser.setDialogTitle("Batch output (.csv or .jsonl)");
+        if (outputChooser.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        List<String> fields = List.of(fieldsArea.getText().split("\n"));
+        OperationWrapper operation = (OperationWrapper) path.getParentPath().getLastPathComponent();
+        String endpoint = request.getSelectedEndpoint();
+        ResultsTableModel results = new ResultsTableModel();
+        JLabel statusLabel = new JLabel("Sending...");
+        showResults("Batch send of " + request.getName(), results, statusLabel);
+
+        results.startUpdates();
+        new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() throws Exception {
+                return controller.batchSend(operation, request, inputChooser.getSelectedFile().toPath(), fields,
+                    outputChooser.getSelectedFile().toPath(),
+                    (row, status, latency, bytes, error, values) -> results.add(row, status, latency, bytes, endpoint, error));
+            }
+
+            @Override
+            protected void done() {
+                results.stopUpdates();
+                try {
+                    statusLabel.setText(get().replace('\n', ' '));
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    statusLabel.setText("Failed after " + results.getRowCount() + " rows");
+                    JOptionPane.showMessageDialog(frame,
+                        "Batch send failed: " + ex.getCause().getMessage(),
+                        ERROR,
+                        JOptionPane.ERROR_MESSAGE);
+                    ex.printStackTrace();
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Shows a live table of per-request results. The table only paints the visible rows and is
+     * updated in batches by the model, so it stays responsive for runs of millions of requests.
+     *
+     * @param title The dialog title
+     * @param results The results
+     * @param statusLabel The label below the table, kept up to date with the row counts until the run sets its summary
+     */
+    private void showResults(String title, ResultsTableModel results, JLabel statusLabel) {
+        JTable table = new JTable(results);
+        // No row sorter, it would box and sort every row on each update
+        table.setAutoCreateRowSorter(false);
+        table.setFillsViewportHeight(true);
+        table.getColumnModel().getColumn(4).setPreferredWidth(250);
+        table.getColumnModel().getColumn(5).setPreferredWidth(250);
+        results.addTableModelListener(e -> {
+            if (results.getRowCount() > 0 && statusLabel.getText().startsWith("Sending")) {
+                statusLabel.setText(String.format("Sending... %,d rows, %,d failed",
+                    results.getRowCount(), results.getFailedCount()));
+            }
+        });
+
+        JDialog dialog = new JDialog(frame, title, false);
+        dialog.setLayout(new BorderLayout());
+        dialog.add(new JScrollPane(table), BorderLayout.CENTER);
+        statusLabel.setBorder(new EmptyBorder(5, 5, 5, 5));
+        dialog.add(statusLabel, BorderLayout.SOUTH);
+        dialog.setSize(900, 500);
+        dialog.setLocationRelativeTo(frame);
+        dialog.setVisible(true);
+    }
+
+    /**
+     * Adds the requests of a HAR or JSON lines capture to a project, grouped into operations by SOAPAction.
+     * The file is read in the background, the project is changed on the EDT.
+     *
+     * @param project The project to add the requests to
+     */
+    private void importCapture(Project project) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Captured traffic (.har or .jsonl)");
+        if (chooser.showOpenDialog(frame) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        new SwingWorker<List<CapturedExchange>, Void>() {
+            @Override
+            protected List<CapturedExchange> doInBackground() throws Exception {
+                return controller.readCapture(chooser.getSelectedFile().toPath());
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    CaptureImporter.Result result = controller.importCapture(project, get());
+                    treeModel.projectStructureChanged(project);
+                    JOptionPane.showMessageDialog(frame, result.toString());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException | IOException ex) {
+                    Throwable cause = ex instanceof ExecutionException ? ex.getCause() : ex;
+                    JOptionPane.showMessageDialog(frame,
+                        "Failed to import capture: " + cause.getMessage(),
+                        ERROR,
+                        JOptionPane.ERROR_MESSAGE);
+                    ex.printStackTrace();
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Replays a HAR or JSON lines capture with its original timing, optionally against another server.
+     */
+    private void replayCapture() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Captured traffic (.har or .jsonl)");
+        if (chooser.showOpenDialog(frame) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        JTextField speedField = new JTextField("1", 8);
+        JTextField baseField = new JTextField(24);
+        JPanel panel = new JPanel(new GridLayout(0, 2, 5, 5));
+        panel.add(new JLabel("Speed (1 = original, max = no delays):"));
+        panel.add(speedField);
+        panel.add(new JLabel("Send to (e.g. http://staging:8080, empty = captured):"));
+        panel.add(baseField);
+        int option = JOptionPane.showConfirmDialog(frame, panel, "Replay " + chooser.getSelectedFile().getName(),
+            JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (option != JOptionPane.OK_OPTION) {
+            return;
+        }
+        double speed;
+        try {
+            speed = speedField.getText().trim().equalsIgnoreCase("max") ? 0 : Double.parseDouble(speedField.getText().trim());
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(frame, "Invalid speed: " + speedField.getText(), ERROR, JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        runInBackground("Replay of " + chooser.getSelectedFile().getName(),
+            () -> controller.replayCapture(chooser.getSelectedFile().toPath(), speed, baseField.getText()));
+    }
+
+    /**
+     * Lets the user schedule the selected request as a periodic probe with SLA thresholds.
+     *
+     * @param path The tree path of the request
+     */
+    private void editMonitor(TreePath path) {
+        if (path == null || !(path.getLastPathComponent() instanceof RequestWrapper request)) {
+            return;
+        }
+        Project project = (Project) path.getPathComponent(1);
+        OperationWrapper operation = (OperationWrapper) path.getParentPath().getLastPathComponent();
+        MonitorSettings current = request.getMonitor() != null ? request.getMonitor() : new MonitorSettings();
+
+        JCheckBox enabledBox = new JCheckBox("Monitor this request", request.getMonitor() != null);
+        JTextField intervalField = new JTextField(String.valueOf(current.getIntervalSeconds()), 8);
+        JTextField jitterField = new JTextField(String.valueOf(current.getJitterSeconds()), 8);
+        JTextField latencyField = new JTextField(String.valueOf(current.getMaxLatencyMillis()), 8);
+        JTextField thresholdField = new JTextField(String.valueOf(current.getFailureThreshold()), 8);
+        JPanel panel = new JPanel(new GridLayout(0, 2, 5, 5));
+        panel.add(enabledBox);
+        panel.add(new JLabel());
+        panel.add(new JLabel("Interval (s):"));
+        panel.add(intervalField);
+        panel.add(new JLabel("Jitter (s):"));
+        panel.add(jitterField);
+        panel.add(new JLabel("Max latency (ms, 0 = none):"));
+        panel.add(latencyField);
+        panel.add(new JLabel("Alert after breaches:"));
+        panel.add(thresholdField);
+        int option = JOptionPane.showConfirmDialog(frame, panel, "Monitor " + request.getName(),
+            JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (option != JOptionPane.OK_OPTION) {
+            return;
+        }
+        try {
+            MonitorSettings settings = null;
+            if (enabledBox.isSelected()) {
+                settings = new MonitorSettings(Long.parseLong(intervalField.getText().trim()),
+                    Long.parseLong(jitterField.getText().trim()), Long.parseLong(latencyField.getText().trim()),
+                    Integer.parseInt(thresholdField.getText().trim()));
+            }
+            controller.setMonitor(project, operation, request, settings);
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(frame,
+                "Invalid monitor settings: " + ex.getMessage(),
+                ERROR,
+                JOptionPane.ERROR_MESSAGE);
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(frame,
+                AwtConstants.ERROR_SAVING_PROJECT + ex.getMessage(),
+                ERROR,
+                JOptionPane.ERROR_MESSAGE);
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Lets the user edit the paths ignored when responses are compared, one per line.
+     *
+     * @param project The project
+     */
+    private void editDiffIgnorePaths(Project project) {
+        JTextArea pathsArea = new JTextArea(String.join("\n", project.getDiffIgnorePaths()), 10, 40);
+        JPanel panel = new JPanel(new BorderLayout(5, 5));
+        panel.add(new JLabel("One path per line, e.g. //Timestamp or //Order/@id"), BorderLayout.NORTH);
+        panel.add(new JScrollPane(pathsArea), BorderLayout.CENTER);
+        int option = JOptionPane.showConfirmDialog(frame, panel, "Diff ignore paths of " + project.getName(),
+            JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (option != JOptionPane.OK_OPTION) {
+            return;
+        }
+        try {
+            controller.setDiffIgnorePaths(project, List.of(pathsArea.getText().split("\n")));
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(frame,
+                "Invalid ignore path: " + ex.getMessage(),
+                ERROR,
+                JOptionPane.ERROR_MESSAGE);
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(frame,
+                AwtConstants.ERROR_SAVING_PROJECT + ex.getMessage(),
+                ERROR,
+                JOptionPane.ERROR_MESSAGE);
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Runs a task that produces a report in the background and shows the report when it's done.
+     *
+     * @param title The dialog title
+     * @param task The task
+     */
+    private void runInBackground(String title, Callable<String> task) {
+        new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() throws Exception {
+                return task.call();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    showReport(title, get());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    JOptionPane.showMessageDialog(frame,
+                        title + " failed: " + ex.getCause().getMessage(),
+                        ERROR,
+                        JOptionPane.ERROR_MESSAGE);
+                    ex.printStackTrace();
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Shows a plain-text report in a dialog.
+     *
+     * @param title The dialog title
+     * @param report The report text
+     */
+    private void showReport(String title, String report) {
+        JTextArea reportArea = new JTextArea(report);
+        reportArea.setEditable(false);
+        reportArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+        JDialog dialog = new JDialog(frame, title, false);
+        dialog.setLayout(new BorderLayout());
+        dialog.add(new JScrollPane(reportArea), BorderLayout.CENTER);
+        dialog.setSize(800, 500);
+        dialog.setLocationRelativeTo(frame);
+        dialog.setVisible(true);
+    }
 }
@@ -0,0 +1,44 @@
+package de.fabkreuzer.soaprequestsender.ui.awt.component;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads the text of a Swing document without copying it into a String.
+ * The document must not be modified while it is being read.
+ */
+class DocumentReader extends Reader {
+
+    private final Document document;
+    private final Segment segment = new Segment();
+    private int position;
+
+    DocumentReader(Document document) {
+        this.document = document;
+        segment.setPartialReturn(true);
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        int remaining = document.getLength() - position;
+        if (remaining <= 0) {
+            return -1;
+        }
+        try {
+            document.getText(position, Math.min(length, remaining), segment);
+        } catch (BadLocationException e) {
+            throw new IOException("Document changed while reading", e);
+        }
+        System.arraycopy(segment.array, segment.offset, buffer, offset, segment.count);
+        position += segment.count;
+        return segment.count;
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release
+    }
+}
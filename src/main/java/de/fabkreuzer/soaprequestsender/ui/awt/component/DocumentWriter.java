@@ -0,0 +1,56 @@
+package de.fabkreuzer.soaprequestsender.ui.awt.component;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Appends text to a Swing document in chunks.
+ * Meant for documents that are not displayed yet, so no EDT hand-off is needed per chunk.
+ */
+class DocumentWriter extends Writer {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final Document document;
+    private final StringBuilder buffer = new StringBuilder(CHUNK_SIZE);
+
+    DocumentWriter(Document document) {
+        this.document = document;
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) throws IOException {
+        buffer.append(chars, offset, length);
+        if (buffer.length() >= CHUNK_SIZE) {
+            flush();
+        }
+    }
+
+    @Override
+    public void write(String text) throws IOException {
+        buffer.append(text);
+        if (buffer.length() >= CHUNK_SIZE) {
+            flush();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (buffer.length() == 0) {
+            return;
+        }
+        try {
+            document.insertString(document.getLength(), buffer.toString(), null);
+        } catch (BadLocationException e) {
+            throw new IOException("Failed to append to document", e);
+        }
+        buffer.setLength(0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
@@ -1,19 +1,39 @@
 package de.fabkreuzer.soaprequestsender.ui.awt.component;
 
+import de.fabkreuzer.soaprequestsender.jfr.XmlHighlightEvent;
+import de.fabkreuzer.soaprequestsender.service.xml.StreamingXmlFormatter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
 import javax.swing.*;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.text.*;
 import java.awt.*;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.concurrent.ExecutionException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * A custom JTextPane with XML syntax highlighting capabilities.
  * This component highlights XML tags, attributes, and values with different colors.
+ * Its context menu formats or minifies the content with a streaming formatter on a background thread.
  */
 public class XmlTextPane extends JTextPane {
-    
+
+    /**
+     * Property fired after the content was replaced by formatting or minifying.
+     */
+    public static final String CONTENT_REPLACED_PROPERTY = "xmlContentReplaced";
+
+    private static final Logger logger = LogManager.getLogger(XmlTextPane.class);
+
+    // Regex highlighting is linear but slow, huge documents are shown without colors
+    private static final int HIGHLIGHT_LIMIT = 2_000_000;
+    private static final String INDENT = "    ";
+
     // Styles for different XML elements
     private Style tagStyle;
     private Style attributeStyle;
@@ -26,7 +46,11 @@ public class XmlTextPane extends JTextPane {
     private static final Pattern ATTRIBUTE_PATTERN = Pattern.compile("\\s+[\\w\\:\\-]+=");
     private static final Pattern VALUE_PATTERN = Pattern.compile("\"[^\"]*\"|'[^']*'");
     private static final Pattern COMMENT_PATTERN = Pattern.compile("<!--.*?-->");
-    
+
+    private DocumentListener highlightListener;
+    private int revision;
+    private boolean reformatting;
+
     /**
      * Creates a new XmlTextPane with XML syntax highlighting.
      */
@@ -35,14 +59,16 @@ public class XmlTextPane extends JTextPane {
         initStyles();
         
         // Add a document listener to update highlighting when text changes
-        getDocument().addDocumentListener(new DocumentListener() {
+        highlightListener = new DocumentListener() {
             @Override
             public void insertUpdate(DocumentEvent e) {
+                revision++;
                 SwingUtilities.invokeLater(() -> highlightXml());
             }
             
             @Override
             public void removeUpdate(DocumentEvent e) {
+                revision++;
                 SwingUtilities.invokeLater(() -> highlightXml());
             }
             
@@ -50,11 +76,40 @@ public class XmlTextPane extends JTextPane {
             public void changedUpdate(DocumentEvent e) {
                 // Plain text components don't fire these events
             }
-        });
+        };
+        getDocument().addDocumentListener(highlightListener);
+
+        // Add a context menu to format and minify the content
+        JPopupMenu popupMenu = new JPopupMenu();
+        JMenuItem formatItem = new JMenuItem("Format XML");
+        JMenuItem minifyItem = new JMenuItem("Minify XML");
+        formatItem.addActionListener(e -> reformat(true));
+        minifyItem.addActionListener(e -> reformat(false));
+        popupMenu.add(formatItem);
+        popupMenu.add(minifyItem);
+        setComponentPopupMenu(popupMenu);
         
         // Set the font to monospaced for better readability
         setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
     }
+
+    /**
+     * Moves the highlighting listener and styles over when the document is replaced.
+     */
+    @Override
+    public void setDocument(Document document) {
+        Document old = getDocument();
+        super.setDocument(document);
+        // The super constructor sets the first document before the listener exists
+        if (highlightListener != null && old != document) {
+            if (old != null) {
+                old.removeDocumentListener(highlightListener);
+            }
+            document.addDocumentListener(highlightListener);
+            initStyles();
+            revision++;
+        }
+    }
     
     /**
      * Initialize the styles for XML elements.
@@ -92,6 +147,15 @@ public class XmlTextPane extends JTextPane {
         StyledDocument doc = getStyledDocument();
         String text;
         
+        XmlHighlightEvent event = new XmlHighlightEvent();
+        event.begin();
+        event.length = doc.getLength();
+        if (doc.getLength() > HIGHLIGHT_LIMIT) {
+            event.skipped = true;
+            event.commit();
+            return;
+        }
+
         try {
             text = doc.getText(0, doc.getLength());
         } catch (BadLocationException e) {
@@ -112,6 +176,8 @@ public class XmlTextPane extends JTextPane {
         
         // Highlight values
         highlightPattern(text, VALUE_PATTERN, doc, valueStyle);
+
+        event.commit();
     }
     
     /**
@@ -138,4 +204,62 @@ public class XmlTextPane extends JTextPane {
     public String getXmlContent() {
         return getText();
     }
-}
\ No newline at end of file
+
+    /**
+     * Format or minify the content on a background thread.
+     * The formatter reads the current document as a stream and writes into a fresh document in chunks,
+     * which replaces the current one when it is complete. If the content is changed in the meantime,
+     * the result is discarded.
+     *
+     * @param pretty True to pretty-print, false to minify
+     */
+    public void reformat(boolean pretty) {
+        if (reformatting) {
+            return;
+        }
+        reformatting = true;
+        boolean editable = isEditable();
+        setEditable(false);
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+
+        Document source = getDocument();
+        int startRevision = revision;
+
+        new SwingWorker<StyledDocument, Void>() {
+            @Override
+            protected StyledDocument doInBackground() throws Exception {
+                StyledDocument target = new DefaultStyledDocument();
+                try (Reader in = new DocumentReader(source); Writer out = new DocumentWriter(target)) {
+                    if (pretty) {
+                        StreamingXmlFormatter.format(in, out, INDENT);
+                    } else {
+                        StreamingXmlFormatter.minify(in, out);
+                    }
+                }
+                return target;
+            }
+
+            @Override
+            protected void done() {
+                reformatting = false;
+                setEditable(editable);
+                setCursor(Cursor.getDefaultCursor());
+                try {
+                    StyledDocument formatted = get();
+                    if (revision != startRevision || getDocument() != source) {
+                        return;
+                    }
+                    setStyledDocument(formatted);
+                    setCaretPosition(0);
+                    highlightXml();
+                    firePropertyChange(CONTENT_REPLACED_PROPERTY, false, true);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    logger.debug("Reformatting failed", e.getCause());
+                    Toolkit.getDefaultToolkit().beep();
+                }
+            }
+        }.execute();
+    }
+}
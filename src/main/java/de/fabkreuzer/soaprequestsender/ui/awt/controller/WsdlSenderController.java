@@ -1,23 +1,91 @@
 package de.fabkreuzer.soaprequestsender.ui.awt.controller;
 
 import com.eviware.soapui.model.iface.Operation;
+import de.fabkreuzer.soaprequestsender.model.MonitorSettings;
+import de.fabkreuzer.soaprequestsender.model.OperationWrapper;
 import de.fabkreuzer.soaprequestsender.model.Project;
+import de.fabkreuzer.soaprequestsender.model.PropertyTransfer;
 import de.fabkreuzer.soaprequestsender.model.RequestWrapper;
+import de.fabkreuzer.soaprequestsender.model.TestStep;
+import de.fabkreuzer.soaprequestsender.model.TestSuite;
 import de.fabkreuzer.soaprequestsender.service.ProjectService;
+import de.fabkreuzer.soaprequestsender.service.WsdlRefresh;
 import de.fabkreuzer.soaprequestsender.service.WsdlService;
+import de.fabkreuzer.soaprequestsender.service.batch.BatchInput;
+import de.fabkreuzer.soaprequestsender.service.batch.BatchResultListener;
+import de.fabkreuzer.soaprequestsender.service.batch.BatchSender;
+import de.fabkreuzer.soaprequestsender.service.batch.BatchSummary;
+import de.fabkreuzer.soaprequestsender.service.batch.ExtractionField;
+import de.fabkreuzer.soaprequestsender.service.batch.ExtractionWriter;
+import de.fabkreuzer.soaprequestsender.service.capture.CaptureImporter;
+import de.fabkreuzer.soaprequestsender.service.capture.CaptureReader;
+import de.fabkreuzer.soaprequestsender.service.capture.CapturedExchange;
+import de.fabkreuzer.soaprequestsender.service.capture.ReplayReport;
+import de.fabkreuzer.soaprequestsender.service.capture.TrafficReplayer;
+import de.fabkreuzer.soaprequestsender.service.compare.ComparisonReport;
+import de.fabkreuzer.soaprequestsender.service.compare.EndpointComparator;
+import de.fabkreuzer.soaprequestsender.service.compare.RequestComparison;
+import de.fabkreuzer.soaprequestsender.service.history.HistoryEntry;
+import de.fabkreuzer.soaprequestsender.service.history.ResponseHistoryStore;
+import de.fabkreuzer.soaprequestsender.service.http.ConnectionPrewarmer;
+import de.fabkreuzer.soaprequestsender.service.http.SoapHttpClient;
+import de.fabkreuzer.soaprequestsender.service.http.SoapResponse;
+import de.fabkreuzer.soaprequestsender.service.limit.EndpointLimiters;
+import de.fabkreuzer.soaprequestsender.service.monitor.MonitorAlertListener;
+import de.fabkreuzer.soaprequestsender.service.monitor.MonitorReport;
+import de.fabkreuzer.soaprequestsender.service.monitor.MonitorStatus;
+import de.fabkreuzer.soaprequestsender.service.monitor.ProbeScheduler;
+import de.fabkreuzer.soaprequestsender.service.search.RequestLocation;
+import de.fabkreuzer.soaprequestsender.service.smoke.SmokeReport;
+import de.fabkreuzer.soaprequestsender.service.smoke.SmokeResult;
+import de.fabkreuzer.soaprequestsender.service.smoke.SmokeRunner;
+import de.fabkreuzer.soaprequestsender.service.suite.SuiteReport;
+import de.fabkreuzer.soaprequestsender.service.suite.SuiteResult;
+import de.fabkreuzer.soaprequestsender.service.suite.TestSuiteRunner;
+import de.fabkreuzer.soaprequestsender.service.template.RequestTemplate;
+import de.fabkreuzer.soaprequestsender.service.xml.SimplePath;
+import de.fabkreuzer.soaprequestsender.service.xml.StreamingXmlDiff;
 import lombok.Getter;
 import lombok.Setter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller class for the WSDL Sender UI.
  * This class handles the business logic for the UI, separating it from the view.
  */
 public class WsdlSenderController {
-    
+
+    private static final Logger logger = LogManager.getLogger(WsdlSenderController.class);
+
+    private static final int SUITE_PARALLELISM = 16;
+    private static final int SMOKE_PARALLELISM = 32;
+    private static final int SMOKE_PER_HOST_PARALLELISM = 4;
+    private static final int COMPARE_PARALLELISM = 8;
+    private static final int COMPARE_MAX_DIFFERENCES = 50;
+    private static final int BATCH_PARALLELISM = 16;
+    private static final int REPLAY_MAX_IN_FLIGHT = 64;
+    private static final int MAX_RECENT_ALERTS = 100;
+
     private final ProjectService projectService;
+    private final SoapHttpClient soapHttpClient;
+    private final ConnectionPrewarmer connectionPrewarmer;
+    private final ResponseHistoryStore historyStore;
+    private final EndpointLimiters endpointLimiters;
+    private final ProbeScheduler probeScheduler;
+    private final Deque<String> recentAlerts = new ArrayDeque<>();
     private WsdlService wsdlService;
 
     @Getter
@@ -29,6 +97,22 @@ public class WsdlSenderController {
      */
     public WsdlSenderController() {
         this.projectService = new ProjectService();
+        this.soapHttpClient = new SoapHttpClient();
+        this.connectionPrewarmer = new ConnectionPrewarmer(soapHttpClient, Duration.ofMinutes(1));
+        this.historyStore = new ResponseHistoryStore();
+        this.endpointLimiters = new EndpointLimiters();
+        this.probeScheduler = new ProbeScheduler(soapHttpClient, historyStore);
+        this.probeScheduler.addAlertListener(new MonitorAlertListener() {
+            @Override
+            public void onBreach(MonitorStatus status, String reason) {
+                recordAlert("ALERT     " + status.name() + ": " + reason);
+            }
+
+            @Override
+            public void onRecovery(MonitorStatus status) {
+                recordAlert("RECOVERED " + status.name());
+            }
+        });
     }
     
     /**
@@ -41,6 +125,31 @@ public class WsdlSenderController {
         return projectService.loadAllProjects();
     }
     
+    /**
+     * Builds the search index over all saved requests in the background.
+     *
+     * @return A future completing when the index is ready
+     */
+    public CompletableFuture<Void> rebuildSearchIndex() {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                projectService.rebuildRequestIndex();
+            } catch (IOException e) {
+                logger.error("Failed to build the request index", e);
+            }
+        });
+    }
+
+    /**
+     * Searches all saved requests.
+     *
+     * @param query The words to search for
+     * @return The locations of all requests containing every word
+     */
+    public List<RequestLocation> searchRequests(String query) {
+        return projectService.getRequestIndex().search(query);
+    }
+
     /**
      * Saves a project to disk.
      * 
@@ -59,6 +168,8 @@ public class WsdlSenderController {
      */
     public void deleteProject(String projectName) throws IOException {
         projectService.deleteProject(projectName);
+        probeScheduler.cancelProject(projectName);
+        historyStore.deleteProject(projectName);
     }
     
     /**
@@ -68,8 +179,7 @@ public class WsdlSenderController {
      * @return A list of operations
      */
     public List<Operation> loadWsdl(String url) {
-        wsdlService = new WsdlService();
-        return wsdlService.getOperations(url);
+        return wsdlService().getOperations(url);
     }
     
     /**
@@ -84,51 +194,80 @@ public class WsdlSenderController {
     /**
      * Generates a sample request for an operation.
      * 
-     * @param operation The operation
+     * @param operation The operation, or null if the project's WSDL hasn't been imported in this session
      * @return A sample request
      */
     public String generateSampleRequest(Operation operation) {
-        return wsdlService != null ? wsdlService.generateSampleRequest(operation) : "";
+        return operation != null ? wsdlService().generateSampleRequest(operation) : "";
     }
 
     /**
      * Creates a new project with the specified name and WSDL URL.
+     * Every operation gets a default request with a sample and the WSDL URL as endpoint.
      * 
      * @param name The project name
      * @param url The WSDL URL
      * @return The new project
      */
     public Project createProject(String name, String url) {
-        List<Operation> operations = loadWsdl(url);
-        String serviceName = getServiceName();
-        return new Project(name, url, serviceName, operations);
+        Project project = new Project(name, url);
+        planRefresh(Map.of(), url).apply(project, url, url, new WsdlRefresh.Listener() {
+        });
+        return project;
     }
     
     /**
-     * Updates a project with new WSDL data.
+     * Imports a WSDL and compares it with the operations of a project.
+     * This imports the WSDL and generates a sample for every operation, so it must not be called on the EDT.
      * 
-     * @param project The project to update
-     * @param url The new WSDL URL
-     * @return The updated project
+     * @param stored The operations of the project, taken with {@link WsdlRefresh#snapshot(Project)}
+     * @param url The WSDL URL
+     * @return The diff to apply
      */
-    public Project updateProject(Project project, String url) {
+    public WsdlRefresh planRefresh(Map<WsdlRefresh.OperationKey, WsdlRefresh.Stored> stored, String url) {
         List<Operation> operations = loadWsdl(url);
-        String serviceName = getServiceName();
-        project.setWsdlUrl(url);
-        project.setServiceName(serviceName);
-        project.setOperations(operations);
-        return project;
+        return WsdlRefresh.compute(stored, getServiceName(), operations, this::generateSampleRequest);
+    }
+
+    /**
+     * Applies a WSDL diff to a project and saves it. Operations removed from the WSDL are deleted from disk
+     * and their monitors are stopped.
+     *
+     * @param project The project to update
+     * @param refresh The diff from {@link #planRefresh(Map, String)}
+     * @param url The WSDL URL, also used as the endpoint of new default requests
+     * @param listener Receives every change, e.g. to update the tree
+     * @throws IOException If the project can't be saved
+     */
+    public void applyRefresh(Project project, WsdlRefresh refresh, String url, WsdlRefresh.Listener listener)
+            throws IOException {
+        long start = System.nanoTime();
+        refresh.apply(project, url, url, listener);
+        for (String removed : refresh.getRemoved()) {
+            // Monitors of the removed requests would keep probing and alerting otherwise
+            probeScheduler.cancelOperation(project.getName(), removed);
+            projectService.deleteOperation(project.getName(), removed);
+        }
+        projectService.saveProject(project);
+        logger.info("Refreshed {} ({}) in {} ms", project.getName(), refresh, (System.nanoTime() - start) / 1_000_000);
     }
     
     /**
      * Creates a new request for an operation.
+     * Projects loaded from disk don't carry soapUI operations, so the project's WSDL is imported
+     * here the first time a sample request is needed rather than at startup. That import can take
+     * as long as loading the WSDL, so this must not be called on the EDT.
      * 
+     * @param project The project containing the operation
      * @param operation The operation
      * @param requestName The request name
      * @return The new request
      */
-    public RequestWrapper createRequest(Operation operation, String requestName) {
-        String sampleRequest = generateSampleRequest(operation);
+    public RequestWrapper createRequest(Project project, OperationWrapper operation, String requestName) {
+        if (operation.getOperation() == null) {
+            attachOperations(project);
+        }
+        String sampleRequest = generateSampleRequest(operation.getOperation());
         return new RequestWrapper(requestName, sampleRequest);
     }
     
@@ -139,7 +278,456 @@ public class WsdlSenderController {
      * @param content The content to save
      */
     public void saveRequestContent(RequestWrapper request, String content) {
-        request.setContent(content);
+        // Content that wasn't edited stays in its file instead of on the heap
+        if (request.isContentLoaded() || !content.equals(currentRequestContent)) {
+            request.setContent(content);
+        }
         setCurrentRequestContent(content);
     }
-}
\ No newline at end of file
+
+    /**
+     * Opens a connection to an endpoint in the background, so the next send skips the handshake.
+     *
+     * @param endpoint The endpoint URL
+     */
+    public void prewarmEndpoint(String endpoint) {
+        connectionPrewarmer.prewarm(endpoint);
+    }
+
+    /**
+     * Sends a request to its selected endpoint and records the call in the response history.
+     * Template tokens like ${#uuid} are rendered first, the history records the content as sent.
+     * This blocks until the response has been read and must not be called on the EDT.
+     *
+     * @param project The project containing the request
+     * @param operation The operation containing the request
+     * @param request The request to send
+     * @return The response
+     * @throws IOException If the request fails
+     * @throws InterruptedException If the thread is interrupted while waiting for the response
+     */
+    public SoapResponse sendRequest(Project project, OperationWrapper operation, RequestWrapper request)
+            throws IOException, InterruptedException {
+        String endpoint = request.getSelectedEndpoint();
+        if (endpoint == null || endpoint.isBlank()) {
+            throw new IOException("No endpoint selected for request: " + request.getName());
+        }
+
+        RequestTemplate template;
+        try {
+            template = RequestTemplate.compile(request);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        byte[] body = template.render();
+        String content = new String(body, StandardCharsets.UTF_8);
+        long timestamp = System.currentTimeMillis();
+        long start = System.nanoTime();
+        try {
+            SoapResponse response = soapHttpClient.send(endpoint, body, operation.getSoapAction());
+            recordHistory(project, new HistoryEntry(timestamp, operation.getName(), request.getName(), endpoint,
+                response.statusCode(), response.latencyNanos(), content, response.body()));
+            return response;
+        } catch (IOException e) {
+            recordHistory(project, new HistoryEntry(timestamp, operation.getName(), request.getName(), endpoint,
+                0, System.nanoTime() - start, content, e.toString()));
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the recorded calls of a request in a time range.
+     *
+     * @param project The project containing the request
+     * @param operation The operation containing the request
+     * @param request The request
+     * @param fromMillis The start of the range in epoch milliseconds
+     * @param toMillis The end of the range in epoch milliseconds
+     * @return The recorded calls, oldest first
+     * @throws IOException If the history can't be read
+     */
+    public List<HistoryEntry> getHistory(Project project, OperationWrapper operation, RequestWrapper request,
+                                         long fromMillis, long toMillis) throws IOException {
+        return historyStore.query(project.getName(), fromMillis, toMillis,
+            entry -> operation.getName().equals(entry.operationName()) && request.getName().equals(entry.requestName()));
+    }
+
+    /**
+     * Runs all test suites of a project in parallel and renders a compact report.
+     * This blocks until every suite has finished and must not be called on the EDT.
+     *
+     * @param project The project to run the suites of
+     * @return The report
+     * @throws IOException If the report can't be rendered
+     * @throws InterruptedException If the thread is interrupted while the suites run
+     */
+    public String runTestSuites(Project project) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        TestSuiteRunner runner = new TestSuiteRunner(soapHttpClient, endpointLimiters, SUITE_PARALLELISM);
+        List<SuiteResult> results = runner.run(project, project.getTestSuites());
+
+        StringWriter report = new StringWriter();
+        SuiteReport.write(results, System.nanoTime() - start, report);
+        return report.toString();
+    }
+
+    /**
+     * Sends the first request of every operation of all saved projects in parallel and renders a report.
+     * This blocks until every call has finished and must not be called on the EDT.
+     *
+     * @return The report
+     * @throws IOException If the projects can't be loaded or the report can't be rendered
+     * @throws InterruptedException If the thread is interrupted while the calls run
+     */
+    public String runSmokeTests() throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        SmokeRunner runner = new SmokeRunner(soapHttpClient, SMOKE_PARALLELISM, SMOKE_PER_HOST_PARALLELISM);
+        List<SmokeResult> results = runner.run(projectService.loadAllProjects());
+
+        StringWriter report = new StringWriter();
+        SmokeReport.write(results, System.nanoTime() - start, report);
+        return report.toString();
+    }
+
+    /**
+     * Sends a request to all of its endpoints at the same time and compares the responses with the first one.
+     * This blocks until every response has been received and must not be called on the EDT.
+     *
+     * @param project The project containing the request, its ignore paths are applied
+     * @param operation The operation containing the request
+     * @param request The request, with at least two endpoints
+     * @return The report
+     * @throws IOException If the report can't be rendered
+     * @throws InterruptedException If the thread is interrupted while waiting for the responses
+     */
+    public String compareEndpoints(Project project, OperationWrapper operation, RequestWrapper request)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        RequestComparison result = endpointComparator(project).compare(operation, request);
+
+        StringWriter report = new StringWriter();
+        ComparisonReport.write(List.of(result), System.nanoTime() - start, report);
+        return report.toString();
+    }
+
+    /**
+     * Compares the responses of all endpoints for every request of a project that has more than one endpoint.
+     * This blocks until every response has been received and must not be called on the EDT.
+     *
+     * @param project The project
+     * @return The report
+     * @throws IOException If the report can't be rendered
+     * @throws InterruptedException If the thread is interrupted while waiting for the responses
+     */
+    public String compareProjectEndpoints(Project project) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        List<RequestComparison> results = endpointComparator(project).compareProject(project);
+
+        StringWriter report = new StringWriter();
+        ComparisonReport.write(results, System.nanoTime() - start, report);
+        return report.toString();
+    }
+
+    /**
+     * Sets the paths ignored when the responses of different endpoints are compared, and saves the project.
+     *
+     * @param project The project
+     * @param paths The path expressions, blank entries are dropped
+     * @throws IllegalArgumentException If a path is malformed
+     * @throws IOException If the project can't be saved
+     */
+    public void setDiffIgnorePaths(Project project, List<String> paths) throws IOException {
+        List<String> ignorePaths = new ArrayList<>();
+        for (String path : paths) {
+            if (!path.isBlank()) {
+                SimplePath.compile(path);
+                ignorePaths.add(path.trim());
+            }
+        }
+        project.setDiffIgnorePaths(ignorePaths);
+        projectService.saveProject(project);
+    }
+
+    /**
+     * Describes the steps of a test suite in the form {@link #setTestSuite} accepts.
+     *
+     * @param suite The suite
+     * @return One line per step
+     */
+    public List<String> getTestSuiteSteps(TestSuite suite) {
+        List<String> lines = new ArrayList<>();
+        for (TestStep step : suite.getSteps()) {
+            StringBuilder line = new StringBuilder(step.getOperationName()).append('/').append(step.getRequestName());
+            for (PropertyTransfer transfer : step.getTransfers()) {
+                line.append(' ').append(transfer.getPropertyName()).append('=').append(transfer.getPath());
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    /**
+     * Adds or replaces a test suite and saves the project.
+     * Every line is one step, the request as operation/request followed by the values to transfer
+     * from its response as property=path, e.g. "CreateCustomer/Default customerId=//CustomerId".
+     *
+     * @param project The project
+     * @param name The name of the suite
+     * @param stepLines The steps in order, blank lines are dropped; without steps the suite is removed
+     * @throws IllegalArgumentException If a line names an unknown request or a transfer is malformed
+     * @throws IOException If the project can't be saved
+     */
+    public void setTestSuite(Project project, String name, List<String> stepLines) throws IOException {
+        TestSuite suite = new TestSuite(name.trim());
+        for (String line : stepLines) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] parts = line.trim().split("\\s+");
+            int slash = parts[0].indexOf('/');
+            OperationWrapper operation = slash > 0 ? project.findOperation(parts[0].substring(0, slash)) : null;
+            RequestWrapper request = operation != null ? operation.findRequest(parts[0].substring(slash + 1)) : null;
+            if (request == null) {
+                throw new IllegalArgumentException("No request " + parts[0]);
+            }
+            TestStep step = new TestStep(request.getName(), operation.getName(), request.getName());
+            for (int i = 1; i < parts.length; i++) {
+                int equals = parts[i].indexOf('=');
+                if (equals <= 0 || equals == parts[i].length() - 1) {
+                    throw new IllegalArgumentException("Expected property=path but got " + parts[i]);
+                }
+                String path = parts[i].substring(equals + 1);
+                SimplePath.compile(path);
+                step.addTransfer(new PropertyTransfer(parts[i].substring(0, equals), path));
+            }
+            suite.addStep(step);
+        }
+
+        // A replaced suite keeps its place, suites are listed in the report in project order
+        List<TestSuite> suites = new ArrayList<>(project.getTestSuites());
+        int index = 0;
+        while (index < suites.size() && !suites.get(index).getName().equals(suite.getName())) {
+            index++;
+        }
+        if (index < suites.size()) {
+            suites.remove(index);
+        }
+        if (!suite.getSteps().isEmpty()) {
+            suites.add(index, suite);
+        }
+        project.setTestSuites(suites);
+        projectService.saveProject(project);
+    }
+
+    /**
+     * Sends a request once per row of a CSV file and writes the values extracted from the responses to a file.
+     * The columns of the input are available as ${column} in the request. The output is JSON lines
+     * for .jsonl files and CSV otherwise. This blocks until every row has been sent and must not be
+     * called on the EDT.
+     *
+     * @param operation The operation containing the request
+     * @param request The request
+     * @param input The CSV file with a header line
+     * @param fieldDefinitions The values to extract, as name=path, blank entries are dropped
+     * @param output The output file
+     * @param listener Receives the outcome of every row on the sender threads, or null
+     * @return A summary of the run
+     * @throws IllegalArgumentException If a path is malformed or the request uses an unknown template function
+     * @throws IOException If the request has no endpoint, or a file can't be read or written
+     * @throws InterruptedException If the thread is interrupted while waiting for the responses
+     */
+    public String batchSend(OperationWrapper operation, RequestWrapper request, Path input,
+                            List<String> fieldDefinitions, Path output, BatchResultListener listener) throws IOException, InterruptedException {
+        String endpoint = request.getSelectedEndpoint();
+        if (endpoint == null || endpoint.isBlank()) {
+            throw new IOException("No endpoint selected for request: " + request.getName());
+        }
+        List<ExtractionField> fields = new ArrayList<>();
+        for (String definition : fieldDefinitions) {
+            if (!definition.isBlank()) {
+                fields.add(ExtractionField.parse(definition));
+            }
+        }
+        RequestTemplate template = RequestTemplate.compile(request);
+
+        BatchSender sender = new BatchSender(soapHttpClient, endpointLimiters, BATCH_PARALLELISM);
+        try (BatchInput rows = BatchInput.open(input);
+             ExtractionWriter writer = ExtractionWriter.create(output, fields.stream().map(ExtractionField::name).toList())) {
+            BatchSummary summary = sender.run(template, endpoint, operation.getSoapAction(), rows, fields, writer,
+                listener);
+            return summary + "\nResults written to " + output.toAbsolutePath();
+        }
+    }
+
+    /**
+     * Reads captured traffic from a HAR or JSON lines file. This reads the whole file and must not be
+     * called on the EDT.
+     *
+     * @param capture The capture file
+     * @return The captured requests in the order they were sent
+     * @throws IOException If the file can't be read or isn't valid
+     */
+    public List<CapturedExchange> readCapture(Path capture) throws IOException {
+        return CaptureReader.read(capture);
+    }
+
+    /**
+     * Adds captured requests to a project, one operation per SOAPAction, and saves the project.
+     *
+     * @param project The project
+     * @param exchanges The captured requests
+     * @return What was added
+     * @throws IOException If the project can't be saved
+     */
+    public CaptureImporter.Result importCapture(Project project, List<CapturedExchange> exchanges) throws IOException {
+        CaptureImporter.Result result = CaptureImporter.importInto(project, exchanges);
+        if (result.requests() > 0) {
+            projectService.saveProject(project);
+        }
+        return result;
+    }
+
+    /**
+     * Replays captured traffic with its original timing and reports the latencies per operation.
+     * This blocks until every response has arrived and must not be called on the EDT.
+     *
+     * @param capture The HAR or JSON lines file
+     * @param speed The speed factor, 1 for the original timing, 0 for as fast as possible
+     * @param endpointBase Scheme, host and port to send to instead of the captured ones, or null
+     * @return The report
+     * @throws IllegalArgumentException If the speed is negative or the endpoint base is malformed
+     * @throws IOException If the capture can't be read
+     * @throws InterruptedException If the thread is interrupted while replaying
+     */
+    public String replayCapture(Path capture, double speed, String endpointBase)
+            throws IOException, InterruptedException {
+        List<CapturedExchange> exchanges = CaptureReader.read(capture);
+        if (exchanges.isEmpty()) {
+            throw new IOException("No SOAP requests found in " + capture.getFileName());
+        }
+        TrafficReplayer replayer = new TrafficReplayer(soapHttpClient, REPLAY_MAX_IN_FLIGHT);
+        StringWriter report = new StringWriter();
+        ReplayReport.write(replayer.replay(exchanges, speed, endpointBase), report);
+        return report.toString();
+    }
+
+    /**
+     * Starts the monitors of all monitored requests.
+     *
+     * @param projects The loaded projects
+     * @return The number of monitors started
+     */
+    public int startMonitors(List<Project> projects) {
+        return probeScheduler.scheduleAll(projects);
+    }
+
+    /**
+     * Sets or removes the monitor of a request, saves the project and restarts the monitor.
+     *
+     * @param project The project containing the request
+     * @param operation The operation containing the request
+     * @param request The request
+     * @param settings The monitor settings, or null to stop monitoring the request
+     * @throws IllegalArgumentException If the settings are out of range, or the request can't be monitored
+     * @throws IOException If the project can't be saved
+     */
+    public void setMonitor(Project project, OperationWrapper operation, RequestWrapper request,
+                           MonitorSettings settings) throws IOException {
+        if (settings != null) {
+            if (settings.getIntervalSeconds() <= 0) {
+                throw new IllegalArgumentException("The interval must be at least one second");
+            }
+            if (settings.getJitterSeconds() < 0 || settings.getJitterSeconds() >= settings.getIntervalSeconds()) {
+                throw new IllegalArgumentException("The jitter must be shorter than the interval");
+            }
+            if (settings.getMaxLatencyMillis() < 0 || settings.getFailureThreshold() < 1) {
+                throw new IllegalArgumentException("The SLA latency can't be negative and alerts need at least one breach");
+            }
+        }
+        MonitorSettings previous = request.getMonitor();
+        request.setMonitor(settings);
+        if (settings != null) {
+            try {
+                probeScheduler.schedule(project, operation, request);
+            } catch (IllegalArgumentException e) {
+                request.setMonitor(previous);
+                throw e;
+            }
+        } else {
+            probeScheduler.cancel(project.getName(), operation.getName(), request.getName());
+        }
+        projectService.saveProject(project);
+    }
+
+    /**
+     * Gets the state of all monitors and the most recent alerts.
+     *
+     * @return The report
+     * @throws IOException If the report can't be rendered
+     */
+    public String getMonitorReport() throws IOException {
+        StringWriter report = new StringWriter();
+        MonitorReport.write(probeScheduler.getStatuses(), report);
+        synchronized (recentAlerts) {
+            if (!recentAlerts.isEmpty()) {
+                report.write(System.lineSeparator() + "Recent alerts:" + System.lineSeparator());
+                for (String alert : recentAlerts) {
+                    report.write(alert + System.lineSeparator());
+                }
+            }
+        }
+        return report.toString();
+    }
+
+    private void recordAlert(String message) {
+        synchronized (recentAlerts) {
+            if (recentAlerts.size() == MAX_RECENT_ALERTS) {
+                recentAlerts.removeFirst();
+            }
+            recentAlerts.addLast(String.format("%tF %<tT  %s", System.currentTimeMillis(), message));
+        }
+    }
+
+    /**
+     * Import the project's WSDL and attach its operations to the saved operations of the same name.
+     */
+    private void attachOperations(Project project) {
+        if (project.getWsdlUrl() == null || project.getWsdlUrl().isBlank()) {
+            return;
+        }
+        try {
+            project.attachOperations(loadWsdl(project.getWsdlUrl()));
+        } catch (RuntimeException e) {
+            logger.error("Failed to import WSDL of project: {}", project.getName(), e);
+        }
+    }
+
+    /**
+     * Get the WSDL service, creating it on first use.
+     * Nothing else in the controller touches soapUI, so sessions that only edit and send
+     * saved requests never load its classes.
+     */
+    private WsdlService wsdlService() {
+        if (wsdlService == null) {
+            wsdlService = new WsdlService();
+        }
+        return wsdlService;
+    }
+
+    private EndpointComparator endpointComparator(Project project) {
+        List<SimplePath> ignorePaths = new ArrayList<>();
+        for (String path : project.getDiffIgnorePaths()) {
+            ignorePaths.add(SimplePath.compile(path));
+        }
+        return new EndpointComparator(soapHttpClient, new StreamingXmlDiff(ignorePaths, COMPARE_MAX_DIFFERENCES),
+            COMPARE_PARALLELISM);
+    }
+
+    private void recordHistory(Project project, HistoryEntry entry) {
+        try {
+            historyStore.append(project.getName(), entry);
+        } catch (IOException e) {
+            logger.error("Failed to record response history for project: {}", project.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package de.fabkreuzer.soaprequestsender.ui.awt.model;
+
+import de.fabkreuzer.soaprequestsender.model.OperationWrapper;
+import de.fabkreuzer.soaprequestsender.model.Project;
+import de.fabkreuzer.soaprequestsender.model.RequestWrapper;
+
+import javax.swing.event.EventListenerList;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Tree model that reads children straight from the {@link Project} model.
+ * No node objects are built up front: the JTree only asks for the children of expanded nodes,
+ * so opening a large workspace costs as much as its visible rows. Changes are reported with
+ * fine-grained insert, remove and structure events instead of reloading the whole tree.
+ * The interfaces and operations of a project are grouped once when the tree first asks for them and
+ * kept until a change to the project's operations is reported, so every row is a lookup.
+ * <p>
+ * The hierarchy is root, {@link Project}, {@link ServiceNode}, {@link OperationWrapper}, {@link RequestWrapper}.
+ * All methods must be called on the EDT.
+ */
+public class ProjectTreeModel implements TreeModel {
+
+    private final String root;
+    private final List<Project> projects = new ArrayList<>();
+    private final EventListenerList listeners = new EventListenerList();
+    private final Map<Project, ProjectIndex> indexes = new IdentityHashMap<>();
+
+    /**
+     * The interface nodes of a project and the operations of each interface, in tree order.
+     */
+    private record ProjectIndex(List<ServiceNode> services, Map<String, List<OperationWrapper>> operations) {
+
+        List<OperationWrapper> operationsOf(String interfaceName) {
+            return operations.getOrDefault(interfaceName, List.of());
+        }
+    }
+
+    /**
+     * Creates an empty model.
+     *
+     * @param root The label of the invisible root
+     */
+    public ProjectTreeModel(String root) {
+        this.root = root;
+    }
+
+    @Override
+    public Object getRoot() {
+        return root;
+    }
+
+    @Override
+    public Object getChild(Object parent, int index) {
+        return children(parent).get(index);
+    }
+
+    @Override
+    public int getChildCount(Object parent) {
+        if (parent == root) {
+            return projects.size();
+        } else if (parent instanceof Project project) {
+            return index(project).services().size();
+        } else if (parent instanceof ServiceNode service) {
+            return index(service.project()).operationsOf(service.interfaceName()).size();
+        } else if (parent instanceof OperationWrapper operation) {
+            return operation.getRequests().size();
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean isLeaf(Object node) {
+        return node instanceof RequestWrapper;
+    }
+
+    @Override
+    public int getIndexOfChild(Object parent, Object child) {
+        if (parent == null || child == null) {
+            return -1;
+        }
+        if (parent instanceof Project project) {
+            return index(project).services().indexOf(child);
+        }
+        List<?> children = children(parent);
+        for (int i = 0; i < children.size(); i++) {
+            if (children.get(i) == child || (child instanceof ServiceNode && child.equals(children.get(i)))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void valueForPathChanged(TreePath path, Object newValue) {
+        // Nodes are not editable in the tree
+    }
+
+    @Override
+    public void addTreeModelListener(TreeModelListener listener) {
+        listeners.add(TreeModelListener.class, listener);
+    }
+
+    @Override
+    public void removeTreeModelListener(TreeModelListener listener) {
+        listeners.remove(TreeModelListener.class, listener);
+    }
+
+    /**
+     * Get the projects shown in the tree.
+     *
+     * @return An unmodifiable view of the projects
+     */
+    public List<Project> getProjects() {
+        return Collections.unmodifiableList(projects);
+    }
+
+    /**
+     * Find a project by name.
+     *
+     * @param name The project name
+     * @return The project, if it is shown in the tree
+     */
+    public Optional<Project> findProject(String name) {
+        return projects.stream().filter(project -> project.getName().equals(name)).findFirst();
+    }
+
+    /**
+     * Replace all projects, used once when the workspace is loaded.
+     *
+     * @param newProjects The projects to show
+     */
+    public void setProjects(List<Project> newProjects) {
+        projects.clear();
+        indexes.clear();
+        projects.addAll(newProjects);
+        fireStructureChanged(new TreePath(root));
+    }
+
+    /**
+     * Add a project at the end of the tree.
+     *
+     * @param project The project to add
+     */
+    public void addProject(Project project) {
+        projects.add(project);
+        fireInserted(new TreePath(root), projects.size() - 1, project);
+    }
+
+    /**
+     * Remove a project from the tree.
+     *
+     * @param project The project to remove
+     */
+    public void removeProject(Project project) {
+        int index = projects.indexOf(project);
+        if (index >= 0) {
+            projects.remove(index);
+            indexes.remove(project);
+            fireRemoved(new TreePath(root), index, project);
+        }
+    }
+
+    /**
+     * Notify the tree that a request was appended to an operation.
+     *
+     * @param project The project containing the operation
+     * @param operation The operation the request was added to
+     * @param request The new request
+     */
+    public void requestAdded(Project project, OperationWrapper operation, RequestWrapper request) {
+        int index = operation.getRequests().indexOf(request);
+        if (index >= 0) {
+            fireInserted(pathTo(project, operation), index, request);
+        }
+    }
+
+    /**
+     * Notify the tree that a request was removed from an operation.
+     *
+     * @param project The project containing the operation
+     * @param operation The operation the request was removed from
+     * @param index The former index of the request
+     * @param request The removed request
+     */
+    public void requestRemoved(Project project, OperationWrapper operation, int index, RequestWrapper request) {
+        fireRemoved(pathTo(project, operation), index, request);
+    }
+
+    /**
+     * Notify the tree that an operation was appended to an existing interface of a project.
+     *
+     * @param project The project containing the operation
+     * @param operation The new operation
+     */
+    public void operationAdded(Project project, OperationWrapper operation) {
+        indexes.remove(project);
+        TreePath servicePath = pathTo(project, operation).getParentPath();
+        int index = index(project).operationsOf(project.interfaceOf(operation)).indexOf(operation);
+        if (index >= 0) {
+            fireInserted(servicePath, index, operation);
+        }
+    }
+
+    /**
+     * Notify the tree that an operation was removed from an interface of a project that still has other operations.
+     *
+     * @param project The project the operation was removed from
+     * @param interfaceName The interface the operation belonged to
+     * @param index The former index of the operation within its interface
+     * @param operation The removed operation
+     */
+    public void operationRemoved(Project project, String interfaceName, int index, OperationWrapper operation) {
+        indexes.remove(project);
+        fireRemoved(pathTo(project).pathByAddingChild(new ServiceNode(project, interfaceName)), index, operation);
+    }
+
+    /**
+     * Notify the tree that the interfaces and operations of a project were replaced.
+     * Only the subtree of this project is rebuilt.
+     *
+     * @param project The changed project
+     */
+    public void projectStructureChanged(Project project) {
+        indexes.remove(project);
+        fireStructureChanged(pathTo(project));
+    }
+
+    /**
+     * Notify the tree that the label of a node changed.
+     *
+     * @param path The path of the changed node
+     */
+    public void nodeChanged(TreePath path) {
+        TreePath parentPath = path.getParentPath();
+        if (parentPath == null) {
+            return;
+        }
+        int index = getIndexOfChild(parentPath.getLastPathComponent(), path.getLastPathComponent());
+        if (index >= 0) {
+            fire(new TreeModelEvent(this, parentPath, new int[]{index}, new Object[]{path.getLastPathComponent()}),
+                EventType.CHANGED);
+        }
+    }
+
+    /**
+     * Get the path of a project.
+     *
+     * @param project The project
+     * @return The tree path
+     */
+    public TreePath pathTo(Project project) {
+        return new TreePath(new Object[]{root, project});
+    }
+
+    /**
+     * Get the path of an operation.
+     *
+     * @param project The project containing the operation
+     * @param operation The operation
+     * @return The tree path
+     */
+    public TreePath pathTo(Project project, OperationWrapper operation) {
+        return new TreePath(new Object[]{root, project, new ServiceNode(project, project.interfaceOf(operation)), operation});
+    }
+
+    /**
+     * Get the path of a request.
+     *
+     * @param project The project containing the request
+     * @param operation The operation containing the request
+     * @param request The request
+     * @return The tree path
+     */
+    public TreePath pathTo(Project project, OperationWrapper operation, RequestWrapper request) {
+        return pathTo(project, operation).pathByAddingChild(request);
+    }
+
+    /**
+     * Get the paths of the interface nodes of a project.
+     *
+     * @param project The project
+     * @return The tree paths, one per interface
+     */
+    public List<TreePath> servicePathsTo(Project project) {
+        List<TreePath> paths = new ArrayList<>();
+        for (Object service : children(project)) {
+            paths.add(pathTo(project).pathByAddingChild(service));
+        }
+        return paths;
+    }
+
+    private List<?> children(Object parent) {
+        if (parent == root) {
+            return projects;
+        } else if (parent instanceof Project project) {
+            return index(project).services();
+        } else if (parent instanceof ServiceNode service) {
+            return index(service.project()).operationsOf(service.interfaceName());
+        } else if (parent instanceof OperationWrapper operation) {
+            return operation.getRequests();
+        }
+        return List.of();
+    }
+
+    /**
+     * Get the grouping of a project's operations, building it in one pass on first use.
+     * The same interfaces and order as {@link Project#getInterfaceNames()} and {@link Project#getOperations(String)}.
+     */
+    private ProjectIndex index(Project project) {
+        ProjectIndex index = indexes.get(project);
+        if (index == null) {
+            Map<String, List<OperationWrapper>> operations = new LinkedHashMap<>();
+            for (OperationWrapper operation : project.getOperations()) {
+                String interfaceName = project.interfaceOf(operation);
+                if (interfaceName != null) {
+                    operations.computeIfAbsent(interfaceName, name -> new ArrayList<>()).add(operation);
+                }
+            }
+            List<ServiceNode> services = new ArrayList<>();
+            for (String name : project.getInterfaceNames()) {
+                services.add(new ServiceNode(project, name));
+            }
+            index = new ProjectIndex(services, operations);
+            indexes.put(project, index);
+        }
+        return index;
+    }
+
+    private void fireInserted(TreePath parentPath, int index, Object child) {
+        fire(new TreeModelEvent(this, parentPath, new int[]{index}, new Object[]{child}), EventType.INSERTED);
+    }
+
+    private void fireRemoved(TreePath parentPath, int index, Object child) {
+        fire(new TreeModelEvent(this, parentPath, new int[]{index}, new Object[]{child}), EventType.REMOVED);
+    }
+
+    private void fireStructureChanged(TreePath path) {
+        fire(new TreeModelEvent(this, path), EventType.STRUCTURE_CHANGED);
+    }
+
+    private void fire(TreeModelEvent event, EventType type) {
+        for (TreeModelListener listener : listeners.getListeners(TreeModelListener.class)) {
+            switch (type) {
+                case INSERTED -> listener.treeNodesInserted(event);
+                case REMOVED -> listener.treeNodesRemoved(event);
+                case CHANGED -> listener.treeNodesChanged(event);
+                case STRUCTURE_CHANGED -> listener.treeStructureChanged(event);
+            }
+        }
+    }
+
+    private enum EventType {
+        INSERTED, REMOVED, CHANGED, STRUCTURE_CHANGED
+    }
+}
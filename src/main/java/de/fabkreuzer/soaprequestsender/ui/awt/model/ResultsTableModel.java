@@ -0,0 +1,239 @@
+package de.fabkreuzer.soaprequestsender.ui.awt.model;
+
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table model for the per-request results of a batch, one row per sent request.
+ * <p>
+ * Results are stored column by column in primitive arrays, so a million rows cost about 30 MB and
+ * no objects; cell values are only boxed when the table paints a visible cell. Endpoints and error
+ * messages repeat across rows, so they are stored as indexes into string pools.
+ * <p>
+ * {@link #add} may be called from any thread. Results are collected in a pending buffer and moved
+ * into the table by a Swing timer, which fires a single rows-inserted event per flush instead of one
+ * event per result. All other methods must be called on the EDT.
+ */
+public class ResultsTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMNS = {"Row", "Status", "Latency ms", "Bytes", "Endpoint", "Result"};
+    private static final Class<?>[] COLUMN_CLASSES = {Long.class, Integer.class, Double.class, Integer.class,
+        String.class, String.class};
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_RETAINED_PENDING = 64 * 1024;
+    private static final int FLUSH_INTERVAL_MILLIS = 100;
+
+    // Written by the EDT only
+    private int size;
+    private long[] rows = new long[INITIAL_CAPACITY];
+    private short[] statuses = new short[INITIAL_CAPACITY];
+    private int[] latencyMicros = new int[INITIAL_CAPACITY];
+    private int[] bytes = new int[INITIAL_CAPACITY];
+    private int[] endpointIds = new int[INITIAL_CAPACITY];
+    private int[] errorIds = new int[INITIAL_CAPACITY];
+    private final StringPool endpoints = new StringPool();
+    private final StringPool errors = new StringPool();
+    private int failed;
+
+    // Written by any thread while holding the lock, swapped with the spare buffer on flush
+    private final Object pendingLock = new Object();
+    private PendingResults pending = new PendingResults();
+    private PendingResults spare = new PendingResults();
+
+    private final Timer flushTimer = new Timer(FLUSH_INTERVAL_MILLIS, e -> flush());
+
+    /**
+     * Strings numbered in the order they were first seen.
+     */
+    private static final class StringPool {
+        private final List<String> strings = new ArrayList<>();
+        private final Map<String, Integer> ids = new HashMap<>();
+
+        int idOf(String value) {
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = strings.size();
+                strings.add(value);
+                ids.put(value, id);
+            }
+            return id;
+        }
+
+        String get(int id) {
+            return strings.get(id);
+        }
+    }
+
+    /**
+     * Results waiting to be moved into the table, in the same columnar layout.
+     */
+    private static final class PendingResults {
+        int size;
+        long[] rows = new long[INITIAL_CAPACITY];
+        short[] statuses = new short[INITIAL_CAPACITY];
+        int[] latencyMicros = new int[INITIAL_CAPACITY];
+        int[] bytes = new int[INITIAL_CAPACITY];
+        String[] endpoints = new String[INITIAL_CAPACITY];
+        String[] errors = new String[INITIAL_CAPACITY];
+
+        void add(long row, int statusCode, long latencyNanos, long byteCount, String endpoint, String error) {
+            if (size == rows.length) {
+                int capacity = size * 2;
+                rows = Arrays.copyOf(rows, capacity);
+                statuses = Arrays.copyOf(statuses, capacity);
+                latencyMicros = Arrays.copyOf(latencyMicros, capacity);
+                bytes = Arrays.copyOf(bytes, capacity);
+                endpoints = Arrays.copyOf(endpoints, capacity);
+                errors = Arrays.copyOf(errors, capacity);
+            }
+            rows[size] = row;
+            statuses[size] = (short) statusCode;
+            latencyMicros[size] = (int) Math.min(Integer.MAX_VALUE, latencyNanos / 1000);
+            bytes[size] = (int) Math.min(Integer.MAX_VALUE, byteCount);
+            endpoints[size] = endpoint;
+            errors[size] = error;
+            size++;
+        }
+
+        void clear() {
+            if (rows.length > MAX_RETAINED_PENDING) {
+                // A burst outran the flushes, don't keep its buffers for the rest of the run
+                rows = new long[INITIAL_CAPACITY];
+                statuses = new short[INITIAL_CAPACITY];
+                latencyMicros = new int[INITIAL_CAPACITY];
+                bytes = new int[INITIAL_CAPACITY];
+                endpoints = new String[INITIAL_CAPACITY];
+                errors = new String[INITIAL_CAPACITY];
+            } else {
+                // Drop the references so flushed messages can be collected
+                Arrays.fill(endpoints, 0, size, null);
+                Arrays.fill(errors, 0, size, null);
+            }
+            size = 0;
+        }
+    }
+
+    /**
+     * Start moving added results into the table periodically.
+     */
+    public void startUpdates() {
+        flushTimer.start();
+    }
+
+    /**
+     * Stop the periodic updates and move the remaining results into the table.
+     */
+    public void stopUpdates() {
+        flushTimer.stop();
+        flush();
+    }
+
+    /**
+     * Add the result of one request. Safe to call from any thread, the row appears with the next flush.
+     *
+     * @param row The input row or request number
+     * @param statusCode The HTTP status code, or 0 if no response was received
+     * @param latencyNanos The latency of the request
+     * @param byteCount The size of the response
+     * @param endpoint The endpoint the request was sent to
+     * @param error Why the request failed, or null if it succeeded
+     */
+    public void add(long row, int statusCode, long latencyNanos, long byteCount, String endpoint, String error) {
+        synchronized (pendingLock) {
+            pending.add(row, statusCode, latencyNanos, byteCount, endpoint, error);
+        }
+    }
+
+    /**
+     * Move the pending results into the table and notify the table once.
+     */
+    private void flush() {
+        PendingResults batch;
+        synchronized (pendingLock) {
+            if (pending.size == 0) {
+                return;
+            }
+            batch = pending;
+            pending = spare;
+            spare = batch;
+        }
+        int first = size;
+        ensureCapacity(size + batch.size);
+        System.arraycopy(batch.rows, 0, rows, size, batch.size);
+        System.arraycopy(batch.statuses, 0, statuses, size, batch.size);
+        System.arraycopy(batch.latencyMicros, 0, latencyMicros, size, batch.size);
+        System.arraycopy(batch.bytes, 0, bytes, size, batch.size);
+        for (int i = 0; i < batch.size; i++) {
+            endpointIds[size + i] = endpoints.idOf(batch.endpoints[i]);
+            if (batch.errors[i] != null) {
+                errorIds[size + i] = errors.idOf(batch.errors[i]);
+                failed++;
+            } else {
+                errorIds[size + i] = -1;
+            }
+        }
+        size += batch.size;
+        // The spare buffer is only touched by the EDT until the next swap
+        batch.clear();
+        fireTableRowsInserted(first, size - 1);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= rows.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, rows.length * 2);
+        rows = Arrays.copyOf(rows, newCapacity);
+        statuses = Arrays.copyOf(statuses, newCapacity);
+        latencyMicros = Arrays.copyOf(latencyMicros, newCapacity);
+        bytes = Arrays.copyOf(bytes, newCapacity);
+        endpointIds = Arrays.copyOf(endpointIds, newCapacity);
+        errorIds = Arrays.copyOf(errorIds, newCapacity);
+    }
+
+    /**
+     * Get the number of failed requests in the table.
+     *
+     * @return The count
+     */
+    public int getFailedCount() {
+        return failed;
+    }
+
+    @Override
+    public int getRowCount() {
+        return size;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return COLUMN_CLASSES[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return switch (column) {
+            case 0 -> rows[row];
+            case 1 -> (int) statuses[row];
+            case 2 -> latencyMicros[row] / 1000.0;
+            case 3 -> bytes[row];
+            case 4 -> endpoints.get(endpointIds[row]);
+            default -> errorIds[row] >= 0 ? errors.get(errorIds[row]) : "OK";
+        };
+    }
+}
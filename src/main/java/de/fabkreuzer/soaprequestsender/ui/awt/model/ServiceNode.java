@@ -0,0 +1,27 @@
+package de.fabkreuzer.soaprequestsender.ui.awt.model;
+
+import de.fabkreuzer.soaprequestsender.model.Project;
+
+/**
+ * Tree node for one WSDL interface of a project, the parent of its operations.
+ *
+ * @param project The project the interface belongs to
+ * @param interfaceName The name of the interface
+ */
+public record ServiceNode(Project project, String interfaceName) {
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ServiceNode other && other.project == project && other.interfaceName.equals(interfaceName);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(project) + interfaceName.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return interfaceName;
+    }
+}